@@ -0,0 +1,33 @@
+package io.github.ttecnomaster.verlet;
+
+import io.github.ttecnomaster.verlet.constraint.StaticPositionConstraint;
+
+/**
+ * The BodyType decides how the {@link Solver} moves a {@link Sphere}.
+ * The type of a Sphere is read when it is added to a {@link VerletContainer} and must not change afterwards.
+ *
+ * @author tecno-master
+ * @see Sphere#getBodyType()
+ * @see VerletContainer#addSphere(double, double, float, BodyType)
+ * @version 1.0.0
+ */
+public enum BodyType {
+    /**
+     * A normal Sphere. It is accelerated by gravity, integrated and pushed by collisions
+     */
+    DYNAMIC,
+
+    /**
+     * A Sphere that only moves when its position is set from outside, for example by the mouse.
+     * It is neither accelerated nor integrated and has an infinite weight, so it pushes dynamic Spheres without being pushed back
+     */
+    KINEMATIC,
+
+    /**
+     * A Sphere that never moves, like a piece of level geometry. It has an infinite weight just like a kinematic Sphere.
+     * Static Spheres are kept outside of the Broadphase in a separate layer that is only rebuilt when static Spheres are added or removed,
+     * so they cost next to nothing as long as no dynamic Sphere is close to them.
+     * This is much cheaper than a {@link StaticPositionConstraint}
+     */
+    STATIC
+}
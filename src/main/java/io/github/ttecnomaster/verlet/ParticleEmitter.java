@@ -0,0 +1,24 @@
+package io.github.ttecnomaster.verlet;
+
+import io.github.ttecnomaster.verlet.emitter.PointEmitter;
+
+/**
+ * A ParticleEmitter spawns particles into a {@link ParticlePool}.
+ * It is called once per update of the pool and may spawn any amount of particles with {@link ParticlePool#spawn(double, double, double, double, float, float)}.
+ * An emitter should not allocate, so that effect heavy scenes stay allocation free.
+ *
+ * @author tecno-master
+ * @see ParticlePool
+ * @see PointEmitter
+ * @version 1.0.0
+ */
+public interface ParticleEmitter {
+
+    /**
+     * Spawns the particles of one update
+     * @param pool The pool to spawn the particles in
+     * @param dt the amount of "time" that has passed since the last update
+     */
+    void emit(ParticlePool pool, float dt);
+
+}
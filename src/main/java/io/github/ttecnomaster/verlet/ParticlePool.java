@@ -0,0 +1,93 @@
+package io.github.ttecnomaster.verlet;
+
+import io.github.ttecnomaster.verlet.implementation.VerletParticlePool;
+
+/**
+ * A ParticlePool is a fixed amount of short-lived Spheres inside a {@link Scene}, for effects like sparks or debris.
+ * Every particle has a lifetime. The Spheres of the pool are created once and recycled,
+ * so spawning and despawning a particle costs O(1) and does not allocate.
+ * A living particle is a normal Sphere of the Scene. It moves and collides like every other Sphere.
+ * <p>
+ * {@link ParticleEmitter}s spawn new particles and the {@link Solver} updates the pool at the start of every step,
+ * see {@link Solver#addParticlePool(ParticlePool)}. Particles whose lifetime has run out are despawned automatically.
+ * Particles are identified by an id between 0 and the capacity. The id of a despawned particle is reused by the next one.
+ *
+ * @author tecno-master
+ * @see VerletParticlePool
+ * @see ParticleEmitter
+ * @see Solver
+ * @version 1.0.0
+ */
+public interface ParticlePool {
+
+    /**
+     * Spawns a particle, if the pool is not full
+     * @param x the X Position for the particle
+     * @param y the Y Position for the particle
+     * @param vx the X Velocity of the particle, in distance per sub step
+     * @param vy the Y Velocity of the particle, in distance per sub step
+     * @param radius the radius of the particle
+     * @param lifetime the time until the particle is despawned, in the time of {@link Solver#step(float)}
+     * @return the id of the particle, or -1 if every particle is alive
+     */
+    int spawn(double x, double y, double vx, double vy, float radius, float lifetime);
+
+    /**
+     * Despawns a particle before its lifetime has run out. Does nothing if the particle is not alive
+     * @param particle the id of the particle
+     */
+    void despawn(int particle);
+
+    /**
+     * Returns whether a particle is alive
+     * @param particle the id of the particle
+     * @return true if the particle is alive
+     */
+    boolean isAlive(int particle);
+
+    /**
+     * Returns the Sphere of a living particle. The Sphere is reused by the next particle with the same id
+     * @param particle the id of the particle
+     * @return the Sphere of the particle, or null if the particle is not alive
+     */
+    Sphere getSphere(int particle);
+
+    /**
+     * Returns the remaining lifetime of a particle
+     * @param particle the id of the particle
+     * @return the time until the particle is despawned, 0 if it is not alive
+     */
+    float getLifetime(int particle);
+
+    /**
+     * Returns the amount of living particles
+     * @return the amount of living particles
+     */
+    int getParticleCount();
+
+    /**
+     * Returns the maximum amount of living particles
+     * @return the capacity of the pool
+     */
+    int getCapacity();
+
+    /**
+     * Adds an emitter that spawns particles whenever the pool is updated
+     * @param emitter The emitter to add
+     */
+    void addEmitter(ParticleEmitter emitter);
+
+    /**
+     * Removes an emitter
+     * @param emitter The emitter to remove
+     */
+    void removeEmitter(ParticleEmitter emitter);
+
+    /**
+     * Ages every particle, despawns the expired ones and lets every emitter spawn new particles.
+     * Called by the Solver at the start of every step
+     * @param dt the amount of "time" that has passed
+     */
+    void update(float dt);
+
+}
@@ -1,5 +1,6 @@
 package io.github.ttecnomaster.verlet;
 
+import io.github.ttecnomaster.verlet.constraint.LinkConstraintBatch;
 import io.github.ttecnomaster.verlet.implementation.ConstraintRunnable;
 import io.github.ttecnomaster.verlet.implementation.VerletScene;
 
@@ -33,4 +34,14 @@ public interface Scene extends VerletContainer {
      */
     void invokeConstraints(ConstraintRunnable runnable);
 
+    /**
+     * Removes a Sphere from the Scene. If cascading, every {@link StaticConstraint} that returns the Sphere
+     * from {@link StaticConstraint#getSpheres()} is removed as well, or detaches the Sphere, see {@link StaticConstraint#detachSphere(Sphere)}.
+     * Only the Constraints of the Sphere are visited, Constraints that do not return their Spheres are never removed this way.
+     * Batches of Constraints, like a {@link LinkConstraintBatch}, are asked for every removed Sphere, so parts that were added after the batch joined the Scene are found too
+     * @param sphere The Sphere to remove
+     * @param cascadeConstraints If true the Constraints of the Sphere are removed too
+     */
+    void removeSphere(Sphere sphere, boolean cascadeConstraints);
+
 }
@@ -13,6 +13,7 @@ public interface SceneConstraint extends Constraint {
      * The apply method modifies the behaviour of each Sphere.
      * It is called on every Sphere each simulation step right before handling collisions.
      * Therefor it affects every Sphere the same.
+     * When the {@link Solver} uses multi-threading, apply is called on different Spheres from different threads at the same time.
      *
      * @param sphere The Sphere of which the behaviour is currently modified
      */
@@ -1,5 +1,9 @@
 package io.github.ttecnomaster.verlet;
 
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.QueryBroadphase;
+import io.github.ttecnomaster.verlet.implementation.RayBatch;
+import io.github.ttecnomaster.verlet.implementation.SphereRunnable;
 import io.github.ttecnomaster.verlet.implementation.VerletGrid;
 import io.github.ttecnomaster.verlet.implementation.VerletSolver;
 
@@ -16,7 +20,7 @@ import io.github.ttecnomaster.verlet.implementation.VerletSolver;
  * @see VerletContainer
  * @version 1.0.0
  */
-public interface Solver {
+public interface Solver extends AutoCloseable {
 
     /**
      * Enables/Disables collisions between spheres. This can drastically improve performance but spheres obviously won't collide.
@@ -25,10 +29,11 @@ public interface Solver {
     void enableCollisions(boolean b);
 
     /**
-     * Sets a VerletGrid to the Solver. By default, the Grid is null. Insert null value to remove the Grid
-     * @param grid The VerletGrid to use for the Solver. Can be null
+     * Sets a Grid to the Solver. By default, the Grid is null. Insert null value to remove the Grid.
+     * Any {@link Broadphase} can be used as Grid, for example the {@link VerletGrid}
+     * @param grid The Broadphase to use for the Solver. Can be null
      */
-    void setGrid(VerletGrid grid);
+    void setGrid(Broadphase grid);
 
     /**
      * Allows the user to use multi-threading for the solver.
@@ -39,6 +44,13 @@ public interface Solver {
      */
     void setMultiThreading(int threads);
 
+    /**
+     * Shuts down every thread that was started by {@link Solver#setMultiThreading(int)} and waits until they terminated.
+     * Solver threads are daemon threads, but they should be closed as soon as the Solver is not needed anymore.
+     */
+    @Override
+    void close();
+
     /**
      * Sets the gravity of the solver.
      * @param x X Velocity of the gravity (0 = zero x gravity)
@@ -54,6 +66,155 @@ public interface Solver {
      */
     void setSubSteps(int subSteps);
 
+    /**
+     * Sorts the Spheres of the container along a Z-order curve every few steps, see {@link VerletContainer#sortSpheres(float)}.
+     * Spheres that are close in space are then also close in memory, which makes solving collisions more cache friendly in big scenes.
+     * The cells of the curve are twice the radius of the biggest Sphere.
+     * Default is 0, which never sorts the Spheres
+     * @param steps the amount of steps between two sorts. 0 disables sorting
+     */
+    void setSortInterval(int steps);
+
+    /**
+     * Enables sleeping Spheres. A Sphere whose velocity (the distance between its position and its old position)
+     * stays below the threshold at the end of the given amount of steps in a row falls asleep.
+     * Sleeping Spheres are not integrated and do not collide with each other, so resting piles cost much less.
+     * They wake up as soon as an awake Sphere or a Constraint disturbs them.
+     * Default threshold is 0, which disables sleeping
+     * @param threshold the velocity below which a Sphere is calm, in distance per sub step. 0 disables sleeping
+     * @param steps the amount of calm steps before a Sphere falls asleep
+     */
+    void setSleeping(double threshold, int steps);
+
+    /**
+     * Enables/Disables the Jacobi mode for collisions. Default is false.
+     * Normally a collision moves both Spheres right away, so every collision already sees the result of the previous ones.
+     * In Jacobi mode every collision of a sub step only reads the positions. The corrections are collected and applied afterwards in a separate pass.
+     * Any partitioning of the collisions is then safe, even without phased scheduling,
+     * and the result is the same for every amount of threads
+     * @param jacobi If true collisions are collected and applied afterwards
+     */
+    void setJacobiMode(boolean jacobi);
+
+    /**
+     * Enables/Disables the deterministic mode. Default is false.
+     * In deterministic mode the same initial state always leads to the same result bit by bit, no matter how many threads are used,
+     * which allows replays and lockstep simulations. Two Spheres at exactly the same position are pushed apart by a jitter
+     * that is hashed from the seed and the state of the Spheres instead of being random.
+     * Collisions that could be solved in a different order by a different amount of threads are solved in a fixed order instead
+     * @param deterministic If true every step is reproducible
+     * @param seed the seed of the jitter
+     */
+    void setDeterministic(boolean deterministic, long seed);
+
+    /**
+     * Adds a ParticlePool to the Solver. At the start of every step the pool despawns its expired particles
+     * and its emitters spawn new ones, see {@link ParticlePool#update(float)}
+     * @param pool The ParticlePool to add
+     */
+    void addParticlePool(ParticlePool pool);
+
+    /**
+     * Removes a ParticlePool from the Solver. Its living particles stay in the Scene but do not age anymore
+     * @param pool The ParticlePool to remove
+     */
+    void removeParticlePool(ParticlePool pool);
+
+    /**
+     * Finds every Sphere of the container that overlaps a circle.
+     * If the grid is a {@link QueryBroadphase}, like the {@link VerletGrid}, only its cells around the circle are searched,
+     * otherwise every Sphere is tested. The grid is updated first if the Spheres have stepped since it was last updated.
+     * With an incremental VerletGrid this extra update can change the order of the Spheres inside the cells.
+     * Static Spheres are always found, they are looked up in the cells the Solver keeps for them. Must not be called while the Solver is stepping
+     * @param x the X Position of the center of the circle
+     * @param y the Y Position of the center of the circle
+     * @param radius the radius of the circle. 0 finds every Sphere that contains the center
+     * @param buffer the buffer the Spheres are written to. Spheres that do not fit anymore are only counted
+     * @return the amount of overlapping Spheres, which can be bigger than the buffer
+     */
+    int queryCircle(double x, double y, double radius, Sphere[] buffer);
+
+    /**
+     * Finds every Sphere of the container that overlaps a circle, see {@link Solver#queryCircle(double, double, double, Sphere[])}
+     * @param x the X Position of the center of the circle
+     * @param y the Y Position of the center of the circle
+     * @param radius the radius of the circle. 0 finds every Sphere that contains the center
+     * @param runnable The runnable which is called with every overlapping Sphere
+     */
+    void queryCircle(double x, double y, double radius, SphereRunnable runnable);
+
+    /**
+     * Finds every Sphere of the container that overlaps a rectangle, see {@link Solver#queryCircle(double, double, double, Sphere[])}
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param buffer the buffer the Spheres are written to. Spheres that do not fit anymore are only counted
+     * @return the amount of overlapping Spheres, which can be bigger than the buffer
+     */
+    int queryRect(double minX, double minY, double maxX, double maxY, Sphere[] buffer);
+
+    /**
+     * Finds every Sphere of the container that overlaps a rectangle, see {@link Solver#queryCircle(double, double, double, Sphere[])}
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable which is called with every overlapping Sphere
+     */
+    void queryRect(double minX, double minY, double maxX, double maxY, SphereRunnable runnable);
+
+    /**
+     * Finds the Sphere under a point, for example the mouse, see {@link Solver#queryCircle(double, double, double, Sphere[])}
+     * @param x the X Position of the point
+     * @param y the Y Position of the point
+     * @return the Sphere that contains the point and whose center is the closest, or null if no Sphere contains the point
+     */
+    Sphere pickAt(double x, double y);
+
+    /**
+     * Finds the first Sphere a ray hits, for example for a line of sight check.
+     * If the grid is a {@link QueryBroadphase} the ray walks through its cells and stops at the first hit,
+     * so the cost depends on the amount of crossed cells and not on the amount of Spheres.
+     * Otherwise, or once the ray leaves the area of a bounded grid while Spheres lie outside of it, every Sphere is tested.
+     * Static Spheres, like level geometry, block the ray as well, they are looked up in the cells the Solver keeps for them.
+     * Like the other queries this updates the grid first if needed and must not be called while the Solver is stepping
+     * @param x the X Position of the origin
+     * @param y the Y Position of the origin
+     * @param dirX the X Direction of the ray, it does not need to be normalized
+     * @param dirY the Y Direction of the ray, it does not need to be normalized
+     * @param length how far the ray reaches
+     * @return the closest Sphere the ray enters, or the Sphere that contains the origin, or null if the ray hits nothing
+     */
+    Sphere castRay(double x, double y, double dirX, double dirY, double length);
+
+    /**
+     * Finds the closest Spheres a ray hits, see {@link Solver#castRay(double, double, double, double, double)}.
+     * The walk stops once the buffer is full, as every following hit is further away
+     * @param x the X Position of the origin
+     * @param y the Y Position of the origin
+     * @param dirX the X Direction of the ray, it does not need to be normalized
+     * @param dirY the Y Direction of the ray, it does not need to be normalized
+     * @param length how far the ray reaches
+     * @param buffer the buffer the Spheres are written to, sorted by their distance
+     * @param distances the buffer the distances along the ray to the hits are written to, at least as long as the Sphere buffer
+     * @return the amount of hits, at most the length of the buffer
+     */
+    int castRay(double x, double y, double dirX, double dirY, double length, Sphere[] buffer, double[] distances);
+
+    /**
+     * Casts every ray of a batch and stores the hits inside of it, see {@link Solver#castRay(double, double, double, double, double)}.
+     * The rays are split between every thread of the Solver, see {@link Solver#setMultiThreading(int)}
+     * @param batch the rays to cast
+     */
+    void castRays(RayBatch batch);
+
+    /**
+     * Returns the amount of Spheres that are currently sleeping
+     * @return the amount of sleeping Spheres, 0 if sleeping is disabled
+     */
+    int getSleepingCount();
+
     /**
      * Steps the simulation. Every Physic Object will move towards their next position.
      * @param dt the amount of "time" to step forwards
@@ -93,4 +93,13 @@ public interface Sphere {
      */
     float getWeight();
 
+    /**
+     * Gets the BodyType of the Sphere, which decides how the Solver moves it.
+     * It is read when the Sphere is added to a container and must not change afterwards
+     * @return the value that is returned. Default is {@link BodyType#DYNAMIC}
+     */
+    default BodyType getBodyType() {
+        return BodyType.DYNAMIC;
+    }
+
 }
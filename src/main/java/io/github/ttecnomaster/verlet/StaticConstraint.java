@@ -15,4 +15,26 @@ public interface StaticConstraint extends Constraint {
      * It is called each simulation step right before handling collisions.
      */
     void apply();
+
+    /**
+     * Returns every Sphere this Constraint modifies.
+     * The Solver applies Constraints that do not share a Sphere at the same time on different threads.
+     * The Spheres must not change while the Constraint is part of a Scene.
+     * The default implementation returns null, such a Constraint is applied on its own between the Constraints before and after it.
+     * @return the modified Spheres, or null if they are unknown
+     */
+    default Sphere[] getSpheres() {
+        return null;
+    }
+
+    /**
+     * Called by the Scene when one of the Spheres of this Constraint is removed together with its Constraints, see {@link Scene#removeSphere(Sphere, boolean)}.
+     * The default implementation returns true, which removes the whole Constraint from the Scene.
+     * A Constraint made of many parts can drop the parts of the Sphere instead and return false to stay in the Scene.
+     * @param sphere the removed Sphere
+     * @return true if the Constraint should be removed from the Scene
+     */
+    default boolean detachSphere(Sphere sphere) {
+        return true;
+    }
 }
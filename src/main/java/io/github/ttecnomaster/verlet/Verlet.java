@@ -1,5 +1,7 @@
 package io.github.ttecnomaster.verlet;
 
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+import io.github.ttecnomaster.verlet.implementation.VerletParticlePool;
 import io.github.ttecnomaster.verlet.implementation.VerletScene;
 import io.github.ttecnomaster.verlet.implementation.VerletSolver;
 import io.github.ttecnomaster.verlet.implementation.VerletSphere;
@@ -15,6 +17,20 @@ import java.lang.reflect.InvocationTargetException;
  * @version 1.0.0
  */
 public class Verlet {
+    // The empty Constructor of every Verlet Object, looked up once per class
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> clazz) {
+            try {
+                Constructor<?> constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
     /**
      * Uses Reflection in order to instantiate a new Scene Object
      * @return new VerletScene
@@ -23,6 +39,31 @@ public class Verlet {
         return invokeEmptyConstructor(VerletScene.class);
     }
 
+    /**
+     * Uses Reflection in order to instantiate a new Scene Object that can hold many Spheres without growing
+     * @param capacity the amount of Spheres the Scene can hold before it has to grow
+     * @return new VerletScene
+     */
+    public static Scene createScene(int capacity) {
+        VerletScene scene = invokeEmptyConstructor(VerletScene.class);
+        scene.ensureCapacity(capacity);
+        return scene;
+    }
+
+    /**
+     * Uses Reflection in order to instantiate a new packed Scene Object.
+     * A packed Scene stores its Spheres in primitive columns instead of individual objects.
+     * Spheres have to be created with {@link Scene#addSphere(double, double, float)}.
+     *
+     * @param capacity the amount of Spheres the Scene can hold before it has to grow
+     * @return new VerletPackedScene
+     */
+    public static Scene createPackedScene(int capacity) {
+        VerletPackedScene scene = invokeEmptyConstructor(VerletPackedScene.class);
+        scene.ensureCapacity(capacity);
+        return scene;
+    }
+
     /**
      * Uses Reflection in order to instantiate a new Sphere Object
      *
@@ -33,11 +74,39 @@ public class Verlet {
      */
 
     public static Sphere createSphere(double x, double y, float radius) {
+        return createSphere(x, y, radius, BodyType.DYNAMIC);
+    }
+
+    /**
+     * Uses Reflection in order to instantiate a new Sphere Object of a specific BodyType
+     *
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @param bodyType decides how the Solver moves the Sphere
+     * @return new VerletSphere
+     */
+    public static Sphere createSphere(double x, double y, float radius, BodyType bodyType) {
         VerletSphere sphere = invokeEmptyConstructor(VerletSphere.class);
         sphere.setAttributes(x,y,radius);
+        sphere.setBodyType(bodyType);
         return sphere;
     }
 
+    /**
+     * Uses Reflection in order to instantiate a new ParticlePool Object.
+     * The pool creates all of its particles up front, the Solver updates it once it is added, see {@link Solver#addParticlePool(ParticlePool)}
+     *
+     * @param scene the Scene the particles are spawned in
+     * @param capacity the maximum amount of living particles
+     * @return new VerletParticlePool
+     */
+    public static ParticlePool createParticlePool(Scene scene, int capacity) {
+        VerletParticlePool pool = invokeEmptyConstructor(VerletParticlePool.class);
+        pool.setScene(scene, capacity);
+        return pool;
+    }
+
     /**
      * Uses Reflection in order to instantiate a new Solver Object
      *
@@ -54,6 +123,7 @@ public class Verlet {
      * Every Verlet Object is obligated to have a private Constructor with zero Parameters.
      * Therefor reflection is required in order to instantiate the Verlet Objects.
      * This ensures that no outside user can call the Constructor or extend from them.
+     * The Constructor of every class is only looked up once.
      *
      * @param clazz defines what kind of Verlet Object is returned
      * @return new Verlet Object of clazz
@@ -61,10 +131,8 @@ public class Verlet {
      */
     private static <T> T invokeEmptyConstructor(Class<T> clazz) {
         try {
-            Constructor<T> constructor = clazz.getDeclaredConstructor();
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-        } catch (NoSuchMethodException | InvocationTargetException | InstantiationException | IllegalAccessException e) {
+            return clazz.cast(CONSTRUCTORS.get(clazz).newInstance());
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
             throw new RuntimeException(e);
         }
     }
@@ -20,23 +20,114 @@ import io.github.ttecnomaster.verlet.implementation.VerletScene;
 public interface VerletContainer extends MultiThreadingSupport {
 
     /**
-     * Adds a Sphere to the VerletContainer
+     * Adds a Sphere to the VerletContainer. Its BodyType is read once, see {@link Sphere#getBodyType()}
      * @param sphere The Sphere to add/spawn
      */
     void addSphere(Sphere sphere);
 
+    /**
+     * Creates a new Sphere and adds it to the VerletContainer
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @return the Sphere that was added/spawned
+     */
+    Sphere addSphere(double x, double y, float radius);
+
+    /**
+     * Creates a new Sphere of a specific BodyType and adds it to the VerletContainer.
+     * Static Spheres are stored apart from the other Spheres, see {@link VerletContainer#getStaticSphere(int)}
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @param bodyType decides how the Solver moves the Sphere
+     * @return the Sphere that was added/spawned
+     */
+    Sphere addSphere(double x, double y, float radius, BodyType bodyType);
+
+    /**
+     * Creates many dynamic Spheres at once and adds them to the VerletContainer.
+     * Does the same as calling {@link VerletContainer#addSphere(double, double, float)} for every index, but grows the storage only once
+     * @param xs the X Positions for the new Spheres
+     * @param ys the Y Positions for the new Spheres
+     * @param radii the radii of the new Spheres
+     * @return the Spheres that were added/spawned, in the order of the arrays
+     * @throws IllegalArgumentException if the arrays do not have the same length
+     */
+    Sphere[] addSpheres(double[] xs, double[] ys, float[] radii);
+
     /**
      * Removes a Sphere from the VerletContainer
      * @param sphere The Sphere to remove
      */
     void removeSphere(Sphere sphere);
 
+    /**
+     * Returns the amount of Spheres that are currently stored in the VerletContainer, not counting static Spheres
+     * @return the amount of Spheres
+     */
+    int getSphereCount();
+
+    /**
+     * Returns the Sphere at an index. Indices go from 0 to {@link VerletContainer#getSphereCount()} (exclusive)
+     * and can change when Spheres are added or removed
+     * @param index the index of the Sphere
+     * @return the Sphere at the index
+     */
+    Sphere getSphere(int index);
+
+    /**
+     * Returns the amount of static Spheres, see {@link BodyType#STATIC}.
+     * Static Spheres are not part of {@link VerletContainer#getSphereCount()}, so Broadphases never see them
+     * @return the amount of static Spheres
+     */
+    int getStaticSphereCount();
+
+    /**
+     * Returns the static Sphere at an index. Indices go from 0 to {@link VerletContainer#getStaticSphereCount()} (exclusive)
+     * and can change when static Spheres are added or removed
+     * @param index the index of the static Sphere
+     * @return the static Sphere at the index
+     */
+    Sphere getStaticSphere(int index);
+
+    /**
+     * Returns a counter that changes every time Spheres are added or removed.
+     * Broadphases that keep data across steps use it to notice that the indices of the Spheres may have changed
+     * @return the amount of modifications so far
+     */
+    int getModificationCount();
+
+    /**
+     * Returns a counter that changes every time static Spheres are added or removed, see {@link BodyType#STATIC}.
+     * Adding, removing or sorting moving Spheres does not change it, so data about the static Spheres can be kept until it does
+     * @return the amount of modifications of the static Spheres so far
+     */
+    int getStaticModificationCount();
+
+    /**
+     * Sorts the Spheres along a Z-order curve of cells with the given size, so that Spheres which are close in space
+     * are also close in memory. References to the Spheres stay valid, but their indices change.
+     * Counts as a modification, see {@link VerletContainer#getModificationCount()}
+     * @param cellSize the size of one cell, usually the size of a grid cell
+     */
+    void sortSpheres(float cellSize);
+
     /**
      * Invokes every Sphere and calls the runnable
      * @param runnable The Runnable which is called by every Sphere
      */
     void invokeSpheres(SphereRunnable runnable);
 
+    /**
+     * Invokes every Sphere that belongs to a partition and calls the runnable.
+     * Every Sphere belongs to exactly one partition, so the partitions can be invoked by different threads at the same time.
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The Runnable which is called by every Sphere of the partition
+     */
+    void invokeSpheres(int partitionIndex, int partitionCount, SphereRunnable runnable);
+
     /**
      * Invokes every Sphere with each Sphere exactly once and calls the runnable
      * @param runnable The Runnable which is called by every Sphere Pairs
@@ -3,6 +3,8 @@ package io.github.ttecnomaster.verlet.constraint;
 import io.github.ttecnomaster.verlet.SceneConstraint;
 import io.github.ttecnomaster.verlet.Sphere;
 import io.github.ttecnomaster.verlet.Constraint;
+import io.github.ttecnomaster.verlet.implementation.PackedSceneConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
 
 /**
  * The BorderConstraint is a type of {@link SceneConstraint} and ensures that no sphere will go past a certain point.
@@ -17,7 +19,7 @@ import io.github.ttecnomaster.verlet.Constraint;
  * @see SceneConstraint
  * @version 1.0.0
  */
-public class BorderConstraint implements SceneConstraint {
+public class BorderConstraint implements PackedSceneConstraint {
 
     private final Type type;
     private final double v;
@@ -49,6 +51,24 @@ public class BorderConstraint implements SceneConstraint {
 
     }
 
+    /**
+     * Checks if the Spheres inside the range of slots passed the border.
+     * Same as {@link BorderConstraint#apply(Sphere)} but works directly on the packed Scene.
+     *
+     * @param scene the packed Scene that stores the Spheres
+     * @param start the first slot to check (inclusive)
+     * @param end the last slot to check (exclusive)
+     */
+    @Override
+    public void apply(VerletPackedScene scene, int start, int end) {
+
+        if(type == Type.TOP) for(int i = start; i < end; i++) if(scene.getY(i) < v+scene.getRadius(i)) scene.setY(i, v + scene.getRadius(i));
+        if(type == Type.BOTTOM) for(int i = start; i < end; i++) if(scene.getY(i) > v-scene.getRadius(i)) scene.setY(i, v - scene.getRadius(i));
+        if(type == Type.RIGHT) for(int i = start; i < end; i++) if(scene.getX(i) > v-scene.getRadius(i)) scene.setX(i, v - scene.getRadius(i));
+        if(type == Type.LEFT) for(int i = start; i < end; i++) if(scene.getX(i) < v+scene.getRadius(i)) scene.setX(i, v + scene.getRadius(i));
+
+    }
+
     /**
      * A Border is defined by four types, either TOP, BOTTOM, RIGHT or LEFT
      *
@@ -4,6 +4,8 @@ import io.github.ttecnomaster.verlet.SceneConstraint;
 import io.github.ttecnomaster.verlet.Sphere;
 import io.github.ttecnomaster.verlet.utils.VectorUtil;
 import io.github.ttecnomaster.verlet.Constraint;
+import io.github.ttecnomaster.verlet.implementation.PackedSceneConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
 
 /**
  * The CircleAreaConstraint is a type of {@link SceneConstraint} and forces every Sphere to stay inside a defined circle.
@@ -15,7 +17,7 @@ import io.github.ttecnomaster.verlet.Constraint;
  * @see SceneConstraint
  * @version 1.0.0
  */
-public class CircleAreaConstraint implements SceneConstraint {
+public class CircleAreaConstraint implements PackedSceneConstraint {
     private final double x,y;
     private final float radius;
 
@@ -76,4 +78,28 @@ public class CircleAreaConstraint implements SceneConstraint {
         sphere.setY(dy / length * radius + y);
 
     }
+
+    /**
+     * Ensures that the Spheres inside the range of slots are inside the circle.
+     * Same as {@link CircleAreaConstraint#apply(Sphere)} but works directly on the packed Scene.
+     *
+     * @param scene the packed Scene that stores the Spheres
+     * @param start the first slot to check (inclusive)
+     * @param end the last slot to check (exclusive)
+     */
+    @Override
+    public void apply(VerletPackedScene scene, int start, int end) {
+        for(int i = start; i < end; i++) {
+
+            double dx = scene.getX(i) - x;
+            double dy = scene.getY(i) - y;
+
+            double length = VectorUtil.length(dx,dy) + scene.getRadius(i);
+
+            if(length <= radius) continue;
+
+            scene.setX(i, dx / length * radius + x);
+            scene.setY(i, dy / length * radius + y);
+        }
+    }
 }
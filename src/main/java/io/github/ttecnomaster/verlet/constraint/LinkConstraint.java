@@ -67,6 +67,23 @@ public class LinkConstraint implements StaticConstraint {
         return sphere2;
     }
 
+    /**
+     * Returns the target distance the two Spheres should be holding.
+     * @return The target distance between the two Spheres.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns both linked Spheres, so links that do not share a Sphere can be applied in parallel.
+     * @return The first and the second Sphere.
+     */
+    @Override
+    public Sphere[] getSpheres() {
+        return new Sphere[] {sphere1, sphere2};
+    }
+
     /**
      * Ensures that the two Spheres hold their target distance.
      * If not then move them together/apart.
@@ -0,0 +1,426 @@
+package io.github.ttecnomaster.verlet.constraint;
+
+import io.github.ttecnomaster.verlet.Constraint;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.StaticConstraint;
+import io.github.ttecnomaster.verlet.implementation.ConstraintColoring;
+import io.github.ttecnomaster.verlet.implementation.PhasedStaticConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedSphere;
+import io.github.ttecnomaster.verlet.utils.VectorUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The LinkConstraintBatch is a type of {@link StaticConstraint} that holds many links at once.
+ * Every link does exactly the same as a {@link LinkConstraint}, but the Spheres and target distances of all links are stored in arrays
+ * and solved in one loop. Ropes, cubes and cloth made of thousands of links therefore only add a single Constraint to the {@link Scene}.
+ * <p>
+ * The links are colored like the single Constraints of the Solver, see {@link ConstraintColoring}, and applied color by color.
+ * Links of the same color never share a Sphere, so the Solver applies every color on all of its threads.
+ * The result is the same as the one of single LinkConstraints that were added in the same order.
+ * <p>
+ * If the Scene is a {@link VerletPackedScene} the links are resolved to slots and solved directly on its columns.
+ * The slots are resolved again whenever the Scene adds, removes or sorts Spheres.
+ * Links to a Sphere that was removed from a packed Scene without its Constraints are skipped, as its handle has no data anymore.
+ * Existing LinkConstraints can be moved into a batch with {@link LinkConstraintBatch#replaceLinks(Scene)}.
+ *
+ * @author tecno-master
+ * @see LinkConstraint
+ * @see ConstraintColoring
+ * @see StaticConstraint
+ * @version 1.0.0
+ */
+public class LinkConstraintBatch implements PhasedStaticConstraint {
+    private Sphere[] spheres1 = new Sphere[0], spheres2 = new Sphere[0];
+    private double[] distances = new double[0];
+    private int count;
+
+    // Links of Spheres that were removed from the Scene. They are dropped on the next access, so removing many Spheres only compacts once
+    private boolean[] detached = new boolean[0];
+    private int detachedCount;
+    private Map<Sphere, List<Integer>> linksBySphere;
+
+    // The slots of both Spheres of every link inside the packed Scene they were resolved for
+    private int[] slots1 = new int[0], slots2 = new int[0];
+    private VerletPackedScene resolvedScene;
+    private int resolvedModifications;
+    private boolean resolved;
+
+    // The colors of the links, and the packed Scene the phases work on
+    private final ConstraintColoring coloring = new ConstraintColoring();
+    private boolean colored;
+    private VerletPackedScene phaseScene;
+
+    /**
+     * Links two Spheres together.
+     * Sets the target distance to the combined radius, as that would physically link two Spheres together.
+     *
+     * @param sphere1 The first Sphere that should be linked
+     * @param sphere2 The second Sphere that should be linked
+     */
+    public void addLink(Sphere sphere1, Sphere sphere2) {
+        addLink(sphere1, sphere2, sphere1.getRadius() + sphere2.getRadius());
+    }
+
+    /**
+     * Links two Spheres together with a custom target distance.
+     *
+     * @param sphere1 The first Sphere that should be linked
+     * @param sphere2 The second Sphere that should be linked
+     * @param distance The target distance the Spheres should be holding
+     */
+    public void addLink(Sphere sphere1, Sphere sphere2, double distance) {
+        compact();
+        if(count == spheres1.length) {
+            int capacity = Math.max(16, count * 2);
+            spheres1 = Arrays.copyOf(spheres1, capacity);
+            spheres2 = Arrays.copyOf(spheres2, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            detached = Arrays.copyOf(detached, capacity);
+        }
+        spheres1[count] = sphere1;
+        spheres2[count] = sphere2;
+        distances[count] = distance;
+        if(linksBySphere != null) {
+            linksBySphere.computeIfAbsent(sphere1, s -> new ArrayList<>(2)).add(count);
+            linksBySphere.computeIfAbsent(sphere2, s -> new ArrayList<>(2)).add(count);
+        }
+        count++;
+        resolvedScene = null;
+        colored = false;
+    }
+
+    /**
+     * Adds the link of a {@link LinkConstraint} to the batch.
+     * The LinkConstraint itself is not changed and should no longer be part of the Scene
+     *
+     * @param link The LinkConstraint to copy
+     */
+    public void addLink(LinkConstraint link) {
+        addLink(link.getSphere1(), link.getSphere2(), link.getDistance());
+    }
+
+    /**
+     * Removes every link that is connected to a Sphere. The order of the remaining links is kept
+     *
+     * @param sphere The Sphere whose links should be removed
+     * @return the amount of removed links
+     */
+    public int removeLinks(Sphere sphere) {
+        compact();
+        int kept = 0;
+        for(int i = 0; i < count; i++) {
+            if(spheres1[i] == sphere || spheres2[i] == sphere) continue;
+            spheres1[kept] = spheres1[i];
+            spheres2[kept] = spheres2[i];
+            distances[kept] = distances[i];
+            kept++;
+        }
+        int removed = count - kept;
+        Arrays.fill(spheres1, kept, count, null);
+        Arrays.fill(spheres2, kept, count, null);
+        count = kept;
+        if(removed > 0) {
+            resolvedScene = null;
+            colored = false;
+            linksBySphere = null;
+        }
+        return removed;
+    }
+
+    /**
+     * Returns every linked Sphere once.
+     * The Scene does not index the batch by these Spheres, as links can be added while the batch is part of the Scene.
+     * It calls {@link LinkConstraintBatch#detachSphere(Sphere)} for every removed Sphere instead, see {@link Scene#removeSphere(Sphere, boolean)}
+     * @return every linked Sphere
+     */
+    @Override
+    public Sphere[] getSpheres() {
+        compact();
+        final Map<Sphere, Boolean> spheres = new IdentityHashMap<>();
+        for(int i = 0; i < count; i++) {
+            spheres.put(spheres1[i], Boolean.TRUE);
+            spheres.put(spheres2[i], Boolean.TRUE);
+        }
+        return spheres.keySet().toArray(new Sphere[0]);
+    }
+
+    /**
+     * Removes the links of a Sphere that is removed from the Scene, like {@link LinkConstraintBatch#removeLinks(Sphere)}.
+     * Only visits the links of the Sphere. The links are dropped the next time the batch is used, keeping the order of the remaining links
+     * @param sphere the removed Sphere
+     * @return true if the last link was removed, then the batch is removed as well
+     */
+    @Override
+    public boolean detachSphere(Sphere sphere) {
+        if(linksBySphere == null) {
+            linksBySphere = new IdentityHashMap<>();
+            for(int i = 0; i < count; i++) {
+                if(detached[i]) continue;
+                linksBySphere.computeIfAbsent(spheres1[i], s -> new ArrayList<>(2)).add(i);
+                linksBySphere.computeIfAbsent(spheres2[i], s -> new ArrayList<>(2)).add(i);
+            }
+        }
+        final List<Integer> links = linksBySphere.remove(sphere);
+        if(links == null) return false;
+        for(int i : links) {
+            if(detached[i]) continue;
+            detached[i] = true;
+            detachedCount++;
+        }
+        return count == detachedCount;
+    }
+
+    /**
+     * Returns the amount of links inside the batch
+     * @return the amount of links
+     */
+    public int getLinkCount() {
+        compact();
+        return count;
+    }
+
+    /**
+     * Returns the first Sphere of a link
+     * @param index the index of the link
+     * @return The first Sphere of the link
+     */
+    public Sphere getSphere1(int index) {
+        compact();
+        return spheres1[index];
+    }
+
+    /**
+     * Returns the second Sphere of a link
+     * @param index the index of the link
+     * @return The second Sphere of the link
+     */
+    public Sphere getSphere2(int index) {
+        compact();
+        return spheres2[index];
+    }
+
+    /**
+     * Returns the target distance of a link
+     * @param index the index of the link
+     * @return The target distance the Spheres of the link should be holding
+     */
+    public double getDistance(int index) {
+        compact();
+        return distances[index];
+    }
+
+    /**
+     * Ensures that the two Spheres of every link hold their target distance.
+     * Does exactly the same as {@link LinkConstraint#apply()} for every link, color by color.
+     */
+    @Override
+    public void apply() {
+        compact();
+        if(!colored) recolor();
+        final int[] order = coloring.getOrder();
+        for(int k = 0; k < count; k++) applyLink(order[k]);
+    }
+
+    /**
+     * Ensures that the two Spheres of every link hold their target distance.
+     * Does exactly the same as {@link LinkConstraintBatch#apply()} but works directly on the slots of the packed Scene.
+     * Falls back to {@link LinkConstraintBatch#apply()} if any linked Sphere is not stored in the scene.
+     *
+     * @param scene The packed Scene that stores the Spheres
+     */
+    @Override
+    public void apply(VerletPackedScene scene) {
+        compact();
+        if(!colored) recolor();
+        if(scene != resolvedScene || scene.getModificationCount() != resolvedModifications) resolve(scene);
+        if(!resolved) {
+            apply();
+            return;
+        }
+        final int[] order = coloring.getOrder();
+        for(int k = 0; k < count; k++) applyLink(scene, order[k]);
+    }
+
+    /**
+     * Colors the links if they have changed and resolves their slots if the scene has changed
+     * @param scene The packed Scene that stores the Spheres, or null if the container is not a packed Scene
+     * @return the amount of colors
+     */
+    @Override
+    public int preparePhases(VerletPackedScene scene) {
+        compact();
+        if(!colored) recolor();
+        phaseScene = null;
+        if(scene != null) {
+            if(scene != resolvedScene || scene.getModificationCount() != resolvedModifications) resolve(scene);
+            if(resolved) phaseScene = scene;
+        }
+        return coloring.getColorCount();
+    }
+
+    /**
+     * Applies the links of one color that belong to a partition. The links of the serial color are only applied by the first partition
+     * @param phase The color of the links
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    @Override
+    public void applyPhase(int phase, int partitionIndex, int partitionCount) {
+        int start = coloring.getColorStart(phase), end = coloring.getColorStart(phase + 1);
+        if(coloring.isSerial(phase)) {
+            if(partitionIndex != 0) return;
+        } else {
+            final int partitionSize = (end - start + partitionCount - 1) / partitionCount; // ceiling division to handle remainder links
+            start += partitionIndex * partitionSize;
+            end = Math.min(start + partitionSize, end);
+        }
+        final int[] order = coloring.getOrder();
+        final VerletPackedScene scene = phaseScene;
+        if(scene != null) for(int k = start; k < end; k++) applyLink(scene, order[k]);
+        else for(int k = start; k < end; k++) applyLink(order[k]);
+    }
+
+    /**
+     * Moves the two Spheres of a link towards their target distance
+     * @param i the index of the link
+     */
+    private void applyLink(int i) {
+        final Sphere sphere1 = spheres1[i], sphere2 = spheres2[i];
+        if(isRemoved(sphere1) || isRemoved(sphere2)) return;
+        double dx = sphere1.getX() - sphere2.getX();
+        double dy = sphere1.getY() - sphere2.getY();
+        final double dist = VectorUtil.length(dx,dy);
+        dx /= dist;
+        dy /= dist;
+        final double delta = distances[i] - dist;
+
+        float weightDiff = sphere1.getWeight() / (sphere1.getWeight() + sphere2.getWeight());
+        sphere1.setX(sphere1.getX() + dx * delta*(1-weightDiff));
+        sphere1.setY(sphere1.getY() + dy * delta*(1-weightDiff));
+        sphere2.setX(sphere2.getX() - dx * delta*(weightDiff));
+        sphere2.setY(sphere2.getY() - dy * delta*(weightDiff));
+    }
+
+    /**
+     * Moves the two slots of a link towards their target distance
+     * @param scene The packed Scene that stores the Spheres
+     * @param k the index of the link
+     */
+    private void applyLink(VerletPackedScene scene, int k) {
+        final int i = slots1[k], j = slots2[k];
+        if(i < 0 || j < 0) return;
+        double dx = scene.getX(i) - scene.getX(j);
+        double dy = scene.getY(i) - scene.getY(j);
+        final double dist = VectorUtil.length(dx,dy);
+        dx /= dist;
+        dy /= dist;
+        final double delta = distances[k] - dist;
+
+        float weightDiff = scene.getWeight(i) / (scene.getWeight(i) + scene.getWeight(j));
+        scene.setX(i, scene.getX(i) + dx * delta*(1-weightDiff));
+        scene.setY(i, scene.getY(i) + dy * delta*(1-weightDiff));
+        scene.setX(j, scene.getX(j) - dx * delta*(weightDiff));
+        scene.setY(j, scene.getY(j) - dy * delta*(weightDiff));
+    }
+
+    /**
+     * Drops the links of detached Spheres, the order of the remaining links is kept
+     */
+    private void compact() {
+        if(detachedCount == 0) return;
+        int kept = 0;
+        for(int i = 0; i < count; i++) {
+            if(detached[i]) {
+                detached[i] = false;
+                continue;
+            }
+            spheres1[kept] = spheres1[i];
+            spheres2[kept] = spheres2[i];
+            distances[kept] = distances[i];
+            kept++;
+        }
+        Arrays.fill(spheres1, kept, count, null);
+        Arrays.fill(spheres2, kept, count, null);
+        count = kept;
+        detachedCount = 0;
+        resolvedScene = null;
+        colored = false;
+        linksBySphere = null;
+    }
+
+    /**
+     * Colors the links so that links of the same color never share a Sphere
+     */
+    private void recolor() {
+        final Map<Sphere, Integer> ids = new IdentityHashMap<>();
+        final int[] linkStart = new int[count + 1];
+        final int[] sphereIds = new int[count * 2];
+        for(int i = 0; i < count; i++) {
+            linkStart[i + 1] = i * 2 + 2;
+            Integer id1 = ids.putIfAbsent(spheres1[i], ids.size());
+            Integer id2 = ids.putIfAbsent(spheres2[i], ids.size());
+            sphereIds[i * 2] = id1 != null ? id1 : ids.get(spheres1[i]);
+            sphereIds[i * 2 + 1] = id2 != null ? id2 : ids.get(spheres2[i]);
+        }
+        coloring.color(count, linkStart, sphereIds, ids.size());
+        colored = true;
+    }
+
+    /**
+     * Looks up the slots of both Spheres of every link
+     * @param scene The packed Scene that stores the Spheres
+     */
+    private void resolve(VerletPackedScene scene) {
+        if(slots1.length < count) {
+            slots1 = new int[spheres1.length];
+            slots2 = new int[spheres1.length];
+        }
+        resolvedScene = scene;
+        resolvedModifications = scene.getModificationCount();
+        resolved = true;
+        for(int i = 0; i < count; i++) {
+            slots1[i] = scene.getSlot(spheres1[i]);
+            slots2[i] = scene.getSlot(spheres2[i]);
+            // a removed Sphere is skipped, any other Sphere outside of the scene needs the fallback
+            if((slots1[i] < 0 && !isRemoved(spheres1[i])) || (slots2[i] < 0 && !isRemoved(spheres2[i]))) resolved = false;
+        }
+    }
+
+    /**
+     * Checks if a Sphere is the handle of a packed Scene that it was removed from
+     * @param sphere the linked Sphere
+     * @return true if the Sphere has no data anymore
+     */
+    private static boolean isRemoved(Sphere sphere) {
+        return sphere instanceof VerletPackedSphere && !((VerletPackedSphere) sphere).isAttached();
+    }
+
+    /**
+     * Moves every {@link LinkConstraint} of a Scene into a new batch.
+     * The LinkConstraints are removed from the Scene and the batch is added instead.
+     * The links keep their order, but they are applied after the other StaticConstraints of the Scene
+     *
+     * @param scene The Scene whose LinkConstraints should be replaced
+     * @return the batch that holds every link of the Scene
+     */
+    public static LinkConstraintBatch replaceLinks(Scene scene) {
+        final LinkConstraintBatch batch = new LinkConstraintBatch();
+        final List<Constraint> links = new ArrayList<>();
+        scene.invokeConstraints(constraint -> {
+            if(constraint instanceof LinkConstraint) {
+                batch.addLink((LinkConstraint) constraint);
+                links.add(constraint);
+            }
+        });
+        links.forEach(scene::removeConstraint);
+        scene.addConstraint(batch);
+        return batch;
+    }
+}
@@ -2,6 +2,8 @@ package io.github.ttecnomaster.verlet.constraint;
 
 import io.github.ttecnomaster.verlet.SceneConstraint;
 import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.implementation.PackedSceneConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
 
 import java.awt.*;
 
@@ -18,7 +20,7 @@ import java.awt.*;
  * @see Rectangle
  * @version 1.0.0
  */
-public class RectangleConstraint implements SceneConstraint {
+public class RectangleConstraint implements PackedSceneConstraint {
 
     private final BorderConstraint top, bottom, right, left;
 
@@ -73,6 +75,22 @@ public class RectangleConstraint implements SceneConstraint {
         left.apply(sphere);
     }
 
+    /**
+     * Checks if the Spheres inside the range of slots are outside the rectangle.
+     * Same as {@link RectangleConstraint#apply(Sphere)} but works directly on the packed Scene.
+     *
+     * @param scene the packed Scene that stores the Spheres
+     * @param start the first slot to check (inclusive)
+     * @param end the last slot to check (exclusive)
+     */
+    @Override
+    public void apply(VerletPackedScene scene, int start, int end) {
+        top.apply(scene, start, end);
+        bottom.apply(scene, start, end);
+        right.apply(scene, start, end);
+        left.apply(scene, start, end);
+    }
+
     /**
      * Uses the borders information in order to
      * gather the original input information
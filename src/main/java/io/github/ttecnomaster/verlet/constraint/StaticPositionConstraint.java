@@ -1,5 +1,6 @@
 package io.github.ttecnomaster.verlet.constraint;
 
+import io.github.ttecnomaster.verlet.BodyType;
 import io.github.ttecnomaster.verlet.Sphere;
 import io.github.ttecnomaster.verlet.StaticConstraint;
 import io.github.ttecnomaster.verlet.Constraint;
@@ -9,10 +10,13 @@ import io.github.ttecnomaster.verlet.Constraint;
  * The Sphere will stop moving and always stay in the same space.
  * It still has collisions meaning other Spheres will collide with it.
  * Besides staying in the same place forever it functions like a normal Sphere.
+ * The Sphere is still accelerated, integrated and pushed before it is put back every sub step.
+ * Spheres that never move should rather be added as {@link BodyType#STATIC}, which is much cheaper.
  *
  * @author tecno-master
  * @see Constraint
  * @see StaticConstraint
+ * @see BodyType
  * @version 1.0.0
  */
 public class StaticPositionConstraint implements StaticConstraint {
@@ -51,6 +55,15 @@ public class StaticPositionConstraint implements StaticConstraint {
         return sphere;
     }
 
+    /**
+     * Returns the sphere that is affected by this constraint, so it can be applied in parallel with Constraints on other Spheres.
+     * @return The Sphere that should be turned static.
+     */
+    @Override
+    public Sphere[] getSpheres() {
+        return new Sphere[] {sphere};
+    }
+
     /**
      * Ensures that the Sphere always stays in the same place.
      * Constantly sets the x and y position of the Sphere to the static x and y position.
@@ -1,5 +1,6 @@
 package io.github.ttecnomaster.verlet.custom;
 
+import io.github.ttecnomaster.verlet.BodyType;
 import io.github.ttecnomaster.verlet.Sphere;
 import io.github.ttecnomaster.verlet.Verlet;
 
@@ -165,4 +166,13 @@ public abstract class CustomSphere implements Sphere {
     public float getWeight() {
         return parent.getWeight();
     }
+
+    /**
+     * Gets the BodyType of the Sphere, which decides how the Solver moves it.
+     * @return the value that is returned
+     */
+    @Override
+    public BodyType getBodyType() {
+        return parent.getBodyType();
+    }
 }
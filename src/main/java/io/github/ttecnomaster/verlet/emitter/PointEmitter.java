@@ -0,0 +1,132 @@
+package io.github.ttecnomaster.verlet.emitter;
+
+import io.github.ttecnomaster.verlet.ParticleEmitter;
+import io.github.ttecnomaster.verlet.ParticlePool;
+
+import java.util.Random;
+
+/**
+ * The PointEmitter is a type of {@link ParticleEmitter} that spawns particles at a single point.
+ * It spawns a continuous stream with a fixed rate and additional bursts, see {@link PointEmitter#burst(int)}.
+ * Every particle flies into a random direction inside a cone with a random speed between the minimum and the maximum speed.
+ * The directions and speeds are drawn from a seeded random generator, so the same emitter always spawns the same particles.
+ * If the pool is full the remaining particles of the update are dropped.
+ *
+ * @author tecno-master
+ * @see ParticleEmitter
+ * @see ParticlePool
+ * @version 1.0.0
+ */
+public class PointEmitter implements ParticleEmitter {
+    private double x,y;
+    private final float radius, lifetime;
+    private float rate;
+    private double direction, spread = Math.PI;
+    private double minSpeed, maxSpeed;
+    private final Random random = new Random(0);
+
+    // The part of a particle that the rate has built up but that was not spawned yet
+    private double pending;
+    private int burst;
+
+    /**
+     * Defines the point and the particles of the emitter. By default it does not spawn anything until a rate is set or a burst is requested
+     *
+     * @param x The X Position of the point
+     * @param y The Y Position of the point
+     * @param radius The radius of every particle
+     * @param lifetime The lifetime of every particle, in the time of the Solver step
+     */
+    public PointEmitter(double x, double y, float radius, float lifetime) {
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        this.lifetime = lifetime;
+    }
+
+    /**
+     * Moves the point of the emitter
+     * @param x The X Position of the point
+     * @param y The Y Position of the point
+     */
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Sets the amount of particles that are spawned continuously
+     * @param rate the amount of particles per time of the Solver step. 0 stops the stream
+     */
+    public void setRate(float rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Sets the cone the particles fly into
+     * @param direction the angle of the center of the cone in radians, 0 points along the X axis
+     * @param spread half the opening angle of the cone in radians. PI lets the particles fly into every direction
+     */
+    public void setDirection(double direction, double spread) {
+        this.direction = direction;
+        this.spread = spread;
+    }
+
+    /**
+     * Sets the speed of the particles. Every particle gets a random speed between both values
+     * @param minSpeed the minimum speed, in distance per sub step
+     * @param maxSpeed the maximum speed, in distance per sub step
+     */
+    public void setSpeed(double minSpeed, double maxSpeed) {
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Resets the random generator of the emitter
+     * @param seed the seed of the directions and speeds
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Spawns additional particles at the next update
+     * @param count the amount of particles
+     */
+    public void burst(int count) {
+        burst += count;
+    }
+
+    /**
+     * @return Where the x position of the point is
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return Where the y position of the point is
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Spawns the burst and the particles the rate has built up since the last update
+     * @param pool The pool to spawn the particles in
+     * @param dt the amount of "time" that has passed since the last update
+     */
+    @Override
+    public void emit(ParticlePool pool, float dt) {
+        pending += rate * dt;
+        int count = (int) pending + burst;
+        pending -= (int) pending;
+        burst = 0;
+        for(int i = 0; i < count; i++) {
+            final double angle = direction + (random.nextDouble() * 2 - 1) * spread;
+            final double speed = minSpeed + random.nextDouble() * (maxSpeed - minSpeed);
+            if(pool.spawn(x, y, Math.cos(angle) * speed, Math.sin(angle) * speed, radius, lifetime) < 0) return;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+/**
+ * A Broadphase decides which Spheres are close enough to each other to be tested for a collision.
+ * It is set to the {@link Solver} using {@link Solver#setGrid(Broadphase)} and replaces the comparison of every Sphere with each other.
+ * Before collisions are solved the Solver calls {@link Broadphase#update(VerletContainer)}, afterwards the collisions are solved
+ * through the {@link MultiThreadingSupport} methods of the Broadphase.
+ *
+ * @author tecno-master
+ * @see VerletGrid
+ * @see VerletCountingGrid
+ * @see Solver
+ * @version 1.0.0
+ */
+public interface Broadphase extends MultiThreadingSupport {
+    /**
+     * Rebuilds the Broadphase from the current positions of every Sphere.
+     * This action is performed by the Solver before solving the collisions of each sub step
+     * @param container The Container that holds the Spheres
+     */
+    void update(VerletContainer container);
+
+    /**
+     * Marks the Spheres that are sleeping, see {@link Solver#setSleeping(double, int)}.
+     * Collisions between two sleeping Spheres have no effect, so a Broadphase may skip whole groups of Spheres that only contain sleeping ones.
+     * The marks are read by the next {@link Broadphase#update(VerletContainer)}. The default implementation ignores them and passes every pair
+     * @param sleeping sleeping[i] is true if the Sphere at index i is sleeping, or null if every pair has to be passed
+     */
+    default void setSleepingSpheres(boolean[] sleeping) {}
+
+    /**
+     * Returns whether the collisions are solved in phases whose partitions never share a Sphere.
+     * The result of such a Broadphase does not depend on the amount of threads, see {@link Solver#setDeterministic(boolean, long)}.
+     * The default implementation returns false
+     * @return true if phased scheduling is enabled
+     */
+    default boolean isPhasedScheduling() {
+        return false;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is passed twice, once in each order, like the grids do without their half neighborhood traversal.
+     * The Jacobi mode only keeps one order of such pairs, see {@link Solver#setJacobiMode(boolean)}.
+     * The default implementation returns false
+     * @return true if every pair is passed twice
+     */
+    default boolean isPassingPairsTwice() {
+        return false;
+    }
+}
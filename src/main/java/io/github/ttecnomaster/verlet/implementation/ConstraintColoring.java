@@ -0,0 +1,108 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.StaticConstraint;
+
+import java.util.Arrays;
+
+/**
+ * Colors a list of Constraints so that Constraints of the same color never share a Sphere.
+ * The Constraints of one color can therefore be applied by different threads at the same time.
+ * Applying the colors one after another, and every color in any partitioning, always gives the same result,
+ * which is the result of a serial run in color order.
+ * <p>
+ * Every Constraint gets the lowest color that none of its Spheres has been given yet, in the order the Constraints are passed.
+ * There are at most {@link ConstraintColoring#MAX_COLORS} parallel colors. A Constraint whose Spheres already use every one of them
+ * is put into a last color that is applied by one thread only, in the order the Constraints were passed.
+ * Used by the {@link VerletSolver} and by batches of Constraints.
+ *
+ * @author tecno-master
+ * @see StaticConstraint
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+public final class ConstraintColoring {
+    /**
+     * The maximum amount of colors whose Constraints are applied in parallel
+     */
+    public static final int MAX_COLORS = 64;
+
+    private long[] used = new long[0];
+    private int[] colors = new int[0];
+    private int[] order = new int[0];
+    private final int[] colorStart = new int[MAX_COLORS + 2];
+    private final int[] next = new int[MAX_COLORS + 1];
+    private int colorCount;
+    private boolean serialColor;
+
+    /**
+     * Colors the Constraints. The Spheres of Constraint i are sphereIds[constraintStart[i]] up to sphereIds[constraintStart[i+1]] (exclusive).
+     * Every Sphere is identified by an id between 0 and sphereCount
+     * @param constraints the amount of Constraints
+     * @param constraintStart the offset of the first Sphere of every Constraint inside sphereIds, and the end at index constraints
+     * @param sphereIds the ids of the Spheres of every Constraint
+     * @param sphereCount the amount of different Spheres
+     * @return the amount of colors
+     */
+    public int color(int constraints, int[] constraintStart, int[] sphereIds, int sphereCount) {
+        if(used.length < sphereCount) used = new long[sphereCount];
+        else Arrays.fill(used, 0, sphereCount, 0);
+        if(colors.length < constraints) {
+            colors = new int[constraints];
+            order = new int[constraints];
+        }
+        Arrays.fill(colorStart, 0);
+
+        int highest = -1;
+        for(int i = 0; i < constraints; i++) {
+            long taken = 0;
+            for(int k = constraintStart[i]; k < constraintStart[i+1]; k++) taken |= used[sphereIds[k]];
+            int color = taken == -1L ? MAX_COLORS : Long.numberOfTrailingZeros(~taken);
+            if(color < MAX_COLORS) for(int k = constraintStart[i]; k < constraintStart[i+1]; k++) used[sphereIds[k]] |= 1L << color;
+            colors[i] = color;
+            colorStart[color + 1]++;
+            highest = Math.max(highest, color);
+        }
+        serialColor = highest == MAX_COLORS;
+        colorCount = highest + 1;
+
+        // counting sort keeps the order of the Constraints inside every color
+        for(int c = 0; c < colorCount; c++) colorStart[c + 1] += colorStart[c];
+        System.arraycopy(colorStart, 0, next, 0, colorCount);
+        for(int i = 0; i < constraints; i++) order[next[colors[i]]++] = i;
+        return colorCount;
+    }
+
+    /**
+     * Returns the amount of colors of the last coloring
+     * @return the amount of colors, including the serial color
+     */
+    public int getColorCount() {
+        return colorCount;
+    }
+
+    /**
+     * Returns whether a color may only be applied by one thread, in the order of its Constraints
+     * @param color the color
+     * @return true if the color holds the Constraints that did not fit into any parallel color
+     */
+    public boolean isSerial(int color) {
+        return serialColor && color == colorCount - 1;
+    }
+
+    /**
+     * Returns the position of the first Constraint of a color inside {@link ConstraintColoring#getOrder()}
+     * @param color the color, the amount of colors returns the end of the last color
+     * @return the position of the first Constraint of the color
+     */
+    public int getColorStart(int color) {
+        return colorStart[color];
+    }
+
+    /**
+     * Returns the Constraints sorted by their color. Inside every color they keep the order they were passed in
+     * @return the indices of the Constraints, sorted by color
+     */
+    public int[] getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+/**
+ * An IndexBroadphase is a {@link Broadphase} that identifies Spheres by their index inside the {@link VerletContainer}.
+ * The {@link VerletSolver} uses the index based method, so a {@link VerletPackedScene} can be solved directly on its columns
+ * without touching any handle.
+ * Both solve methods have to pass the exact same pairs in the exact same order.
+ *
+ * @author tecno-master
+ * @see Broadphase
+ * @see TwoIndexRunnable
+ * @version 1.0.0
+ */
+public interface IndexBroadphase extends Broadphase {
+    /**
+     * Index based variant of {@link MultiThreadingSupport#solveCollisionPhase(int, int, int, TwoSphereRunnable)}.
+     * The indices refer to {@link VerletContainer#getSphere(int)} of the Container from the last update.
+     * @param phase The index of the phase. Is smaller than {@link MultiThreadingSupport#getCollisionPhaseCount()}
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two sphere indices which are tested for a collision
+     */
+    void solveIndexCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable runnable);
+}
@@ -0,0 +1,146 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+import io.github.ttecnomaster.verlet.utils.VectorUtil;
+
+/**
+ * Collects the collision corrections of one partition while the {@link VerletSolver} runs in Jacobi mode, see {@link Solver#setJacobiMode(boolean)}.
+ * Pairs of Spheres are only read, the corrections of both Spheres are added to buffers that are indexed like the Spheres of the container.
+ * The corrections are stored as fixed point numbers. Adding integers does not round, so the sum of the corrections of a Sphere
+ * is the same no matter which partition found which collision and in which order they were added.
+ * This makes the result independent of the amount of threads and of the partitioning of the Broadphase.
+ * If the Broadphase passes every pair twice only the order in which the first index is the smaller one is kept,
+ * both orders read the same positions and would apply the correction twice.
+ *
+ * @author tecno-master
+ * @see VerletSolver
+ * @see Solver#setJacobiMode(boolean)
+ * @version 1.0.0
+ */
+final class JacobiAccumulator implements TwoIndexRunnable, TwoSphereRunnable {
+    // One unit of distance is split into 2^32 parts. Corrections can be up to 2^31 units before they overflow
+    static final double SCALE = 1L << 32;
+
+    long[] dx = new long[0], dy = new long[0];
+    int[] contacts = new int[0];
+    private VerletContainer container;
+    private VerletPackedScene packedScene;
+    private boolean[] kinematic;
+    private boolean deterministic;
+    private long seed;
+    private boolean pairsTwice;
+
+    /**
+     * Grows the buffers to fit every Sphere of the container. The buffers are expected to be zero
+     * @param container the container whose Spheres are solved
+     * @param kinematic the kinematic flags indexed like the Spheres, or null if there are no kinematic Spheres
+     * @param deterministic if true Spheres at the same position are pushed apart by a hashed jitter, see {@link Solver#setDeterministic(boolean, long)}
+     * @param seed the seed of the jitter
+     * @param pairsTwice if true every pair is passed in both orders, see {@link Broadphase#isPassingPairsTwice()}
+     */
+    void prepare(VerletContainer container, boolean[] kinematic, boolean deterministic, long seed, boolean pairsTwice) {
+        this.container = container;
+        this.packedScene = container instanceof VerletPackedScene ? (VerletPackedScene) container : null;
+        this.kinematic = kinematic;
+        this.deterministic = deterministic;
+        this.seed = seed;
+        this.pairsTwice = pairsTwice;
+        final int n = container.getSphereCount();
+        if(dx.length < n) {
+            int capacity = Math.max(n, dx.length * 2);
+            dx = new long[capacity];
+            dy = new long[capacity];
+            contacts = new int[capacity];
+        }
+    }
+
+    /**
+     * Computes the corrections of two Spheres which are identified by their index inside the container, or by their slot
+     * @param index_1 The index of the first Sphere
+     * @param index_2 The index of the second Sphere
+     */
+    @Override
+    public void run(int index_1, int index_2) {
+        if(pairsTwice && index_1 > index_2) return;
+        final double x_1, y_1, x_2, y_2;
+        final float radius_1, radius_2, weight_1, weight_2;
+        if(packedScene != null) {
+            final VerletPackedScene scene = packedScene;
+            x_1 = scene.x[index_1];
+            y_1 = scene.y[index_1];
+            x_2 = scene.x[index_2];
+            y_2 = scene.y[index_2];
+            radius_1 = scene.radius[index_1];
+            radius_2 = scene.radius[index_2];
+            weight_1 = scene.weight[index_1];
+            weight_2 = scene.weight[index_2];
+        } else {
+            final Sphere sphere_1 = container.getSphere(index_1), sphere_2 = container.getSphere(index_2);
+            x_1 = sphere_1.getX();
+            y_1 = sphere_1.getY();
+            x_2 = sphere_2.getX();
+            y_2 = sphere_2.getY();
+            radius_1 = sphere_1.getRadius();
+            radius_2 = sphere_2.getRadius();
+            weight_1 = sphere_1.getWeight();
+            weight_2 = sphere_2.getWeight();
+        }
+
+        double dx = x_1 - x_2;
+        double dy = y_1 - y_2;
+        final float combinedRadius = radius_1 + radius_2;
+        if(dx * dx + dy * dy >= combinedRadius * combinedRadius) return;
+        double dLength = VectorUtil.length(dx,dy);
+
+        // a kinematic Sphere has an infinite weight
+        float weightDiff = weight_1 / (weight_1 + weight_2);
+        if(kinematic != null) {
+            final boolean kinematic_1 = kinematic[index_1], kinematic_2 = kinematic[index_2];
+            if(kinematic_1 && kinematic_2) return;
+            if(kinematic_1) weightDiff = 1;
+            if(kinematic_2) weightDiff = 0;
+        }
+
+        // Both spheres have the same position. They are pushed in opposite directions, diagonally or by the deterministic jitter
+        if(dLength <= 0) {
+            double pushX = radius_1 / 10d, pushY = radius_1 / 10d;
+            if(deterministic) {
+                pushX *= VerletSolver.jitter(seed, x_1, y_1, index_1, index_2, 0);
+                pushY *= VerletSolver.jitter(seed, x_1, y_1, index_1, index_2, 1);
+            }
+            if(weightDiff < 1) add(index_1, pushX, pushY);
+            if(weightDiff > 0) add(index_2, -pushX, -pushY);
+            return;
+        }
+
+        dx /= dLength;
+        dy /= dLength;
+        final double delta = combinedRadius - dLength;
+        if(weightDiff < 1) add(index_1, dx * delta * (1 - weightDiff), dy * delta * (1 - weightDiff));
+        if(weightDiff > 0) add(index_2, -dx * delta * weightDiff, -dy * delta * weightDiff);
+    }
+
+    /**
+     * Computes the corrections of two handles of a {@link VerletPackedScene}
+     * @param sphere_1 The first Sphere
+     * @param sphere_2 The second Sphere
+     */
+    @Override
+    public void run(Sphere sphere_1, Sphere sphere_2) {
+        run(((VerletPackedSphere) sphere_1).slot, ((VerletPackedSphere) sphere_2).slot);
+    }
+
+    /**
+     * Adds a correction to the buffers of a Sphere
+     * @param index the index of the Sphere
+     * @param x the X correction
+     * @param y the Y correction
+     */
+    private void add(int index, double x, double y) {
+        dx[index] += (long) (x * SCALE);
+        dy[index] += (long) (y * SCALE);
+        contacts[index]++;
+    }
+}
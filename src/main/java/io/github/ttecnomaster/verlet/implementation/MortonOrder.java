@@ -0,0 +1,114 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+import java.util.Arrays;
+
+/**
+ * Computes the order of Spheres along a Z-order curve (Morton order) of grid cells.
+ * The cells are numbered by interleaving the bits of their column and row, so cells which are close to each other
+ * mostly get close numbers. Sorting the Spheres by that number puts Spheres that are close in space close in memory.
+ * <p>
+ * The numbers are sorted by a stable radix sort. Every array is reused, so sorting does not allocate once the arrays have grown big enough.
+ * Used by the Containers to implement {@link VerletContainer#sortSpheres(float)}.
+ *
+ * @author tecno-master
+ * @see VerletContainer
+ * @version 1.0.0
+ */
+final class MortonOrder {
+    // The amount of bits per axis. Two axes fit exactly into one int
+    private static final int AXIS_BITS = 16;
+    private static final int RADIX_BITS = 16;
+
+    double[] x = new double[0], y = new double[0];
+    private int[] order = new int[0], scratchOrder = new int[0];
+    private int[] keys = new int[0], scratchKeys = new int[0];
+    private final int[] counts = new int[(1 << RADIX_BITS) + 1];
+
+    /**
+     * Grows the position arrays, so that the positions of the given amount of Spheres can be filled in before sorting
+     * @param n the amount of Spheres
+     */
+    void ensureCapacity(int n) {
+        if(x.length >= n) return;
+        int capacity = Math.max(n, x.length * 2);
+        x = new double[capacity];
+        y = new double[capacity];
+        order = new int[capacity];
+        scratchOrder = new int[capacity];
+        keys = new int[capacity];
+        scratchKeys = new int[capacity];
+    }
+
+    /**
+     * Sorts Spheres by the Morton number of their cell.
+     * If the Spheres spread over more than 65536 cells along one axis, the cells are enlarged.
+     * @param x the X Positions of the Spheres
+     * @param y the Y Positions of the Spheres
+     * @param n the amount of Spheres
+     * @param cellSize the size of one cell
+     * @return order[k] is the current index of the Sphere that should be moved to index k. Only valid until the next call
+     */
+    int[] sort(double[] x, double[] y, int n, float cellSize) {
+        ensureCapacity(n);
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        final int maxCell = (1 << AXIS_BITS) - 1;
+        double size = Math.max(cellSize, Math.max(maxX - minX, maxY - minY) / maxCell);
+        if(!(size > 0)) size = 1; // every Sphere at the same position, or no Spheres at all
+
+        for(int i = 0; i < n; i++) {
+            int column = (int) Math.min(maxCell, Math.max(0, (x[i] - minX) / size));
+            int row = (int) Math.min(maxCell, Math.max(0, (y[i] - minY) / size));
+            keys[i] = interleave(column) | (interleave(row) << 1);
+            order[i] = i;
+        }
+
+        radixPass(keys, order, scratchKeys, scratchOrder, n, 0);
+        radixPass(scratchKeys, scratchOrder, keys, order, n, RADIX_BITS);
+        return order;
+    }
+
+    /**
+     * Spreads the lower 16 bits of a value to the even bits
+     * @param value the value to spread
+     * @return the spread value
+     */
+    private static int interleave(int value) {
+        value &= 0xFFFF;
+        value = (value | (value << 8)) & 0x00FF00FF;
+        value = (value | (value << 4)) & 0x0F0F0F0F;
+        value = (value | (value << 2)) & 0x33333333;
+        value = (value | (value << 1)) & 0x55555555;
+        return value;
+    }
+
+    /**
+     * One stable counting sort pass over 16 bits of the keys
+     * @param srcKeys the keys to sort
+     * @param srcOrder the indices that belong to the keys
+     * @param dstKeys receives the sorted keys
+     * @param dstOrder receives the sorted indices
+     * @param n the amount of keys
+     * @param shift the position of the lowest bit of the pass
+     */
+    private void radixPass(int[] srcKeys, int[] srcOrder, int[] dstKeys, int[] dstOrder, int n, int shift) {
+        final int[] counts = this.counts;
+        final int mask = (1 << RADIX_BITS) - 1;
+        Arrays.fill(counts, 0);
+        for(int i = 0; i < n; i++) counts[((srcKeys[i] >>> shift) & mask) + 1]++;
+        for(int k = 0; k < mask + 1; k++) counts[k + 1] += counts[k];
+        for(int i = 0; i < n; i++) {
+            int target = counts[(srcKeys[i] >>> shift) & mask]++;
+            dstKeys[target] = srcKeys[i];
+            dstOrder[target] = srcOrder[i];
+        }
+    }
+}
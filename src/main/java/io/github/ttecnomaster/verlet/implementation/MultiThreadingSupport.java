@@ -9,7 +9,7 @@ import io.github.ttecnomaster.verlet.VerletContainer;
  * and {@link VerletGrid} support multi-threading. Implementing the {@link MultiThreadingSupport#solveCollisionPartition(int, int, TwoSphereRunnable)}
  * method means, that individual threads can access and call it in order to solve the correct partition part spheres.
  * Most implementations use a split up "for loop".
- * Solver threads are ran by {@link VerletSolverThread}.
+ * Solver threads are ran by {@link VerletSolverThread} workers of a {@link VerletSolverPool}.
  *
  * @author tecno-master
  * @see VerletSolverThread
@@ -27,4 +27,27 @@ public interface MultiThreadingSupport {
      * @param runnable The runnable that should run on two spheres which are tested for a collision
      */
     void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable);
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * The solver waits for every thread to finish a phase before the next phase is started.
+     * Implementations that split their work into phases can guarantee that no two threads touch the same Sphere at the same time.
+     * By default, everything is solved within one single phase.
+     * @return the amount of phases. Default is 1
+     */
+    default int getCollisionPhaseCount() {
+        return 1;
+    }
+
+    /**
+     * Solves the part of one phase that belongs to a partition.
+     * By default, there is only one phase which is solved by {@link MultiThreadingSupport#solveCollisionPartition(int, int, TwoSphereRunnable)}.
+     * @param phase The index of the phase. Is smaller than {@link MultiThreadingSupport#getCollisionPhaseCount()}
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    default void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solveCollisionPartition(partitionIndex, partitionCount, runnable);
+    }
 }
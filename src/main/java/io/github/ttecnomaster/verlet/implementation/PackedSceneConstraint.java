@@ -0,0 +1,27 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.SceneConstraint;
+import io.github.ttecnomaster.verlet.Sphere;
+
+/**
+ * A PackedSceneConstraint is a {@link SceneConstraint} that can also be applied directly on a range of slots of a {@link VerletPackedScene}.
+ * The {@link VerletSolver} uses this method in its fused integration pass, so no {@link Sphere} handle has to be touched.
+ * The pass integrates small blocks of slots and constrains each block right afterwards while it is still in cache.
+ * Both apply methods have to modify the Sphere the exact same way.
+ *
+ * @author tecno-master
+ * @see SceneConstraint
+ * @see VerletPackedScene
+ * @version 1.0.0
+ */
+public interface PackedSceneConstraint extends SceneConstraint {
+    /**
+     * The apply method modifies the behaviour of each Sphere inside the range.
+     * Does the same as {@link SceneConstraint#apply(Sphere)} for every slot but reads and writes the columns of the packed Scene.
+     *
+     * @param scene The packed Scene that stores the Spheres
+     * @param start The first slot of which the behaviour is modified (inclusive)
+     * @param end The last slot of which the behaviour is modified (exclusive)
+     */
+    void apply(VerletPackedScene scene, int start, int end);
+}
@@ -0,0 +1,25 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.StaticConstraint;
+
+/**
+ * A PackedStaticConstraint is a {@link StaticConstraint} that can also be applied directly on the slots of a {@link VerletPackedScene}.
+ * The {@link VerletSolver} uses this method when its container is a packed Scene, so no {@link Sphere} handle has to be touched.
+ * Both apply methods have to modify the Spheres the exact same way.
+ *
+ * @author tecno-master
+ * @see StaticConstraint
+ * @see VerletPackedScene
+ * @version 1.0.0
+ */
+public interface PackedStaticConstraint extends StaticConstraint {
+    /**
+     * The apply method modifies the Spheres of the Constraint.
+     * Does the same as {@link StaticConstraint#apply()} but reads and writes the columns of the packed Scene.
+     * A Constraint whose Spheres are not stored in the scene has to fall back to {@link StaticConstraint#apply()}
+     *
+     * @param scene The packed Scene that stores the Spheres
+     */
+    void apply(VerletPackedScene scene);
+}
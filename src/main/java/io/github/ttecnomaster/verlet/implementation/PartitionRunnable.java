@@ -0,0 +1,24 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+
+/**
+ * This interface is used for running a Runnable on one partition of a parallel phase.
+ * This is primarily used by the {@link VerletSolverPool#run(PartitionRunnable)} method
+ * which calls it once for every partition, each on a different thread.
+ * As a functional interface this should be used with lambda only.
+ *
+ * @author tecno-master
+ * @see VerletSolverPool
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface PartitionRunnable {
+    /**
+     * When called passes the partition that the current thread is responsible for. run executes whatever the interface was created for
+     *
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     */
+    void run(int partitionIndex, int partitionCount);
+}
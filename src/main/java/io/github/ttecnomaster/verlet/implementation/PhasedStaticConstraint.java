@@ -0,0 +1,33 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.StaticConstraint;
+
+/**
+ * A PhasedStaticConstraint is a {@link StaticConstraint} that consists of many smaller Constraints, for example a batch of links.
+ * It splits them into phases whose parts never share a Sphere, see {@link ConstraintColoring}.
+ * The {@link VerletSolver} applies the phases one after another, and every phase on all threads of the {@link VerletSolverPool}.
+ * The result has to be the same for every amount of partitions, and the same as {@link StaticConstraint#apply()}
+ * and {@link PackedStaticConstraint#apply(VerletPackedScene)}.
+ *
+ * @author tecno-master
+ * @see ConstraintColoring
+ * @see StaticConstraint
+ * @version 1.0.0
+ */
+public interface PhasedStaticConstraint extends PackedStaticConstraint {
+    /**
+     * Prepares the phases before they are applied. Called by one thread before the phases of every sub step
+     * @param scene The packed Scene that stores the Spheres, or null if the container is not a packed Scene
+     * @return the amount of phases
+     */
+    int preparePhases(VerletPackedScene scene);
+
+    /**
+     * Applies the part of a phase that belongs to a partition
+     * @param phase The index of the phase
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     */
+    void applyPhase(int phase, int partitionIndex, int partitionCount);
+}
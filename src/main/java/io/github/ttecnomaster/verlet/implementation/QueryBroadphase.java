@@ -0,0 +1,38 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+
+/**
+ * A QueryBroadphase is a {@link Broadphase} whose cells can be searched for the Spheres near an area.
+ * The {@link Solver} uses it to answer spatial queries like {@link Solver#queryCircle(double, double, double, SphereRunnable)}
+ * without looking at every Sphere. The cells are the ones of the last {@link Broadphase#update(io.github.ttecnomaster.verlet.VerletContainer)},
+ * the Solver updates the Broadphase again before querying if the Spheres have moved since.
+ * Ray casts walk through the cells along the ray, see {@link QueryBroadphase#getCellSize()}.
+ *
+ * @author tecno-master
+ * @see Broadphase
+ * @see Solver
+ * @version 1.0.0
+ */
+public interface QueryBroadphase extends Broadphase {
+    /**
+     * Passes every Sphere that may overlap a rectangle, together with some Spheres that are only close to it.
+     * As no Sphere is bigger than the radius of the Broadphase, the cells around the rectangle are searched as well.
+     * A bounded Broadphase cannot find Spheres outside of its area, so it passes nothing and returns false
+     * if the rectangle is not completely covered while any Sphere lies outside of its area.
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable that is called with every Sphere that may overlap the rectangle
+     * @return false if the caller has to look at every Sphere instead
+     */
+    boolean queryCandidates(double minX, double minY, double maxX, double maxY, SphereRunnable runnable);
+
+    /**
+     * Returns the size of one cell, which is twice the biggest allowed Sphere radius.
+     * A ray cast steps from cell to cell of that size and only asks for the candidates of the cells the ray crosses
+     * @return the width and height of one cell
+     */
+    double getCellSize();
+}
@@ -0,0 +1,183 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+
+import java.util.Arrays;
+
+/**
+ * A RayBatch holds many rays that are cast at once by {@link Solver#castRays(RayBatch)}, for example the line of sight checks
+ * or the projectiles of one step. The rays are split between the threads of the Solver.
+ * <p>
+ * Every ray keeps up to maxHits of its hits, sorted by their distance from the origin of the ray.
+ * A batch with maxHits 1 therefore only finds the first hit of every ray, which is also the fastest as the walk stops at the first hit.
+ * The arrays of the batch are only created once and reused after {@link RayBatch#clear()}, so a batch that is filled every step does not allocate.
+ *
+ * @author tecno-master
+ * @see Solver
+ * @see QueryBroadphase
+ * @version 1.0.0
+ */
+public class RayBatch {
+    private final int maxHits;
+    private int rayCount;
+
+    // The rays, the direction does not need to be normalized
+    double[] x = new double[0], y = new double[0];
+    double[] dirX = new double[0], dirY = new double[0];
+    double[] length = new double[0];
+
+    // The hits of ray i are stored at i * maxHits and following
+    int[] hitCounts = new int[0];
+    Sphere[] hits = new Sphere[0];
+    double[] hitDistances = new double[0];
+
+    /**
+     * Creates a new RayBatch
+     * @param capacity the amount of rays the batch can hold before it has to grow
+     * @param maxHits the maximum amount of hits that are stored for every ray, 1 to only find the first hit
+     */
+    public RayBatch(int capacity, int maxHits) {
+        if(maxHits < 1) throw new IllegalArgumentException("A RayBatch has to store at least one hit per ray!");
+        this.maxHits = maxHits;
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Grows the arrays of the batch so it can hold at least the given amount of rays
+     * @param capacity the amount of rays
+     */
+    public void ensureCapacity(int capacity) {
+        if(capacity <= x.length) return;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        dirX = Arrays.copyOf(dirX, capacity);
+        dirY = Arrays.copyOf(dirY, capacity);
+        length = Arrays.copyOf(length, capacity);
+        hitCounts = Arrays.copyOf(hitCounts, capacity);
+        hits = Arrays.copyOf(hits, capacity * maxHits);
+        hitDistances = Arrays.copyOf(hitDistances, capacity * maxHits);
+    }
+
+    /**
+     * Adds a ray to the batch
+     * @param x the X Position of the origin
+     * @param y the Y Position of the origin
+     * @param dirX the X Direction of the ray
+     * @param dirY the Y Direction of the ray
+     * @param length how far the ray reaches, in the distance of the positions
+     * @return the index of the ray
+     */
+    public int addRay(double x, double y, double dirX, double dirY, double length) {
+        if(dirX == 0 && dirY == 0) throw new IllegalArgumentException("A ray needs a direction!");
+        if(!(length >= 0 && length < Double.POSITIVE_INFINITY)) throw new IllegalArgumentException("The length of a ray has to be positive and finite!");
+        if(rayCount == this.x.length) ensureCapacity(Math.max(16, rayCount * 2));
+        final int ray = rayCount++;
+        this.x[ray] = x;
+        this.y[ray] = y;
+        this.dirX[ray] = dirX;
+        this.dirY[ray] = dirY;
+        this.length[ray] = length;
+        hitCounts[ray] = 0;
+        return ray;
+    }
+
+    /**
+     * Adds a segment between two points to the batch. The hits are measured from the first point
+     * @param x1 the X Position of the first point
+     * @param y1 the Y Position of the first point
+     * @param x2 the X Position of the second point
+     * @param y2 the Y Position of the second point
+     * @return the index of the ray
+     */
+    public int addSegment(double x1, double y1, double x2, double y2) {
+        final double length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+        // a segment without length only tests its point
+        if(length == 0) return addRay(x1, y1, 1, 0, 0);
+        return addRay(x1, y1, x2 - x1, y2 - y1, length);
+    }
+
+    /**
+     * Removes every ray and its hits. The arrays are kept for the next rays
+     */
+    public void clear() {
+        Arrays.fill(hits, 0, rayCount * maxHits, null);
+        rayCount = 0;
+    }
+
+    /**
+     * Returns the amount of rays in the batch
+     * @return the amount of rays
+     */
+    public int getRayCount() {
+        return rayCount;
+    }
+
+    /**
+     * Returns the maximum amount of hits that are stored for every ray
+     * @return the maximum amount of hits per ray
+     */
+    public int getMaxHits() {
+        return maxHits;
+    }
+
+    /**
+     * Returns the amount of hits of a ray of the last cast
+     * @param ray the index of the ray
+     * @return the amount of hits, at most {@link RayBatch#getMaxHits()}
+     */
+    public int getHitCount(int ray) {
+        return hitCounts[ray];
+    }
+
+    /**
+     * Returns a hit of a ray of the last cast
+     * @param ray the index of the ray
+     * @param hit the index of the hit, 0 is the closest one
+     * @return the Sphere that was hit
+     */
+    public Sphere getHit(int ray, int hit) {
+        if(hit < 0 || hit >= hitCounts[ray]) throw new IndexOutOfBoundsException("Hit " + hit + " of ray " + ray + " does not exist!");
+        return hits[ray * maxHits + hit];
+    }
+
+    /**
+     * Returns the first Sphere a ray of the last cast has hit
+     * @param ray the index of the ray
+     * @return the closest Sphere that was hit, or null if the ray hit nothing
+     */
+    public Sphere getFirstHit(int ray) {
+        return hitCounts[ray] > 0 ? hits[ray * maxHits] : null;
+    }
+
+    /**
+     * Returns how far a hit is away from the origin of its ray, 0 if the origin is inside the Sphere
+     * @param ray the index of the ray
+     * @param hit the index of the hit, 0 is the closest one
+     * @return the distance along the ray to the surface of the Sphere
+     */
+    public double getHitDistance(int ray, int hit) {
+        if(hit < 0 || hit >= hitCounts[ray]) throw new IndexOutOfBoundsException("Hit " + hit + " of ray " + ray + " does not exist!");
+        return hitDistances[ray * maxHits + hit];
+    }
+
+    /**
+     * Returns the X Position where a ray has entered a Sphere
+     * @param ray the index of the ray
+     * @param hit the index of the hit, 0 is the closest one
+     * @return the X Position of the hit
+     */
+    public double getHitX(int ray, int hit) {
+        return x[ray] + dirX[ray] / Math.sqrt(dirX[ray] * dirX[ray] + dirY[ray] * dirY[ray]) * getHitDistance(ray, hit);
+    }
+
+    /**
+     * Returns the Y Position where a ray has entered a Sphere
+     * @param ray the index of the ray
+     * @param hit the index of the hit, 0 is the closest one
+     * @return the Y Position of the hit
+     */
+    public double getHitY(int ray, int hit) {
+        return y[ray] + dirY[ray] / Math.sqrt(dirX[ray] * dirX[ray] + dirY[ray] * dirY[ray]) * getHitDistance(ray, hit);
+    }
+}
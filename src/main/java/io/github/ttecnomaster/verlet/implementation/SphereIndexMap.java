@@ -0,0 +1,110 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Sphere;
+
+import java.util.Arrays;
+
+/**
+ * Maps Spheres by identity to an int, for example their index inside a list.
+ * Works like an IdentityHashMap with int values, but never boxes the values, so putting and removing does not allocate
+ * as long as the map does not have to grow. Uses open addressing with linear probing.
+ * Used by the {@link VerletScene} to find the position of a removed Sphere, and by the {@link VerletSolver} to find its kinematic Spheres.
+ *
+ * @author tecno-master
+ * @see VerletScene
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+final class SphereIndexMap {
+    private Sphere[] keys = new Sphere[16];
+    private int[] values = new int[16];
+    private int size;
+
+    /**
+     * Returns the value of a Sphere
+     * @param sphere the Sphere
+     * @return the value, or -1 if the Sphere is not part of the map
+     */
+    int get(Sphere sphere) {
+        final int mask = keys.length - 1;
+        for(int i = hash(sphere, mask); keys[i] != null; i = (i + 1) & mask) {
+            if(keys[i] == sphere) return values[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the value of a Sphere
+     * @param sphere the Sphere
+     * @param value the value, must not be negative
+     */
+    void put(Sphere sphere, int value) {
+        if((size + 1) * 2 > keys.length) grow();
+        final int mask = keys.length - 1;
+        int i = hash(sphere, mask);
+        while(keys[i] != null) {
+            if(keys[i] == sphere) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = sphere;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Removes a Sphere from the map
+     * @param sphere the Sphere
+     * @return the value the Sphere had, or -1 if the Sphere was not part of the map
+     */
+    int remove(Sphere sphere) {
+        final int mask = keys.length - 1;
+        int i = hash(sphere, mask);
+        while(keys[i] != sphere) {
+            if(keys[i] == null) return -1;
+            i = (i + 1) & mask;
+        }
+        final int value = values[i];
+        size--;
+
+        // move the following entries back, so no lookup stops at the freed cell
+        int free = i;
+        for(int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            final int home = hash(keys[j], mask);
+            if(((j - home) & mask) >= ((j - free) & mask)) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        keys[free] = null;
+        return value;
+    }
+
+    /**
+     * Removes every Sphere from the map
+     */
+    void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    /**
+     * Doubles the amount of cells and puts every Sphere again
+     */
+    private void grow() {
+        final Sphere[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new Sphere[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        size = 0;
+        for(int i = 0; i < oldKeys.length; i++) if(oldKeys[i] != null) put(oldKeys[i], oldValues[i]);
+    }
+
+    private static int hash(Sphere sphere, int mask) {
+        final int h = System.identityHashCode(sphere) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+/**
+ * This interface is used for running a Runnable with two Sphere indices as parameters.
+ * It is the index based counterpart of the {@link TwoSphereRunnable} and is used by containers that store
+ * their Spheres in primitive columns, like the {@link VerletPackedScene}.
+ * An example for such an action would be the packed fast path of the {@link VerletSolver}.
+ * As a functional interface this should be used with lambda only.
+ *
+ * @author tecno-master
+ * @see TwoSphereRunnable
+ * @see VerletPackedScene
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface TwoIndexRunnable {
+    /**
+     * When called passes two Sphere indices. run executes whatever the interface was created for
+     *
+     * @param index_1 The index of the first Sphere that gets called on the run method
+     * @param index_2 The index of the second Sphere that gets called on the run method
+     */
+    void run(int index_1, int index_2);
+}
@@ -0,0 +1,141 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Constraint;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.StaticConstraint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the Constraints of a {@link Scene} and indexes every {@link StaticConstraint} by the Spheres it returns, see {@link StaticConstraint#getSpheres()}.
+ * Constraints are kept in an array. A removed Constraint is replaced by the last one, so removing costs O(1) instead of O(constraints).
+ * Removing a Sphere with all of its Constraints only visits the Constraints of that Sphere, see {@link Scene#removeSphere(Sphere, boolean)}.
+ * A {@link PhasedStaticConstraint} can gain Spheres while it is part of the Scene, like a batch that gets new links,
+ * so it is not indexed by its Spheres but asked to detach every removed Sphere instead.
+ * A Constraint can be added more than once. It stays indexed until every copy is removed.
+ * Used by the {@link VerletScene} and the {@link VerletPackedScene}.
+ *
+ * @author tecno-master
+ * @see Scene
+ * @see StaticConstraint
+ * @version 1.0.0
+ */
+final class VerletConstraintIndex {
+    private Constraint[] constraints = new Constraint[0];
+    private int count;
+    private final Map<Constraint, Entry> entries = new IdentityHashMap<>();
+    private final Map<Sphere, List<Constraint>> bySphere = new IdentityHashMap<>();
+    private final List<Constraint> phased = new ArrayList<>();
+
+    /**
+     * Where a Constraint is stored and which Spheres it was indexed by
+     */
+    private static final class Entry {
+        int position;
+        int copies;
+        Sphere[] spheres;
+    }
+
+    /**
+     * Adds a Constraint after every other Constraint and indexes it by its Spheres
+     * @param constraint The Constraint to add
+     */
+    void add(Constraint constraint) {
+        if(count == constraints.length) constraints = Arrays.copyOf(constraints, Math.max(16, count * 2));
+        constraints[count] = constraint;
+
+        Entry entry = entries.get(constraint);
+        if(entry == null) {
+            entry = new Entry();
+            entry.position = count;
+            if(constraint instanceof PhasedStaticConstraint) phased.add(constraint);
+            else entry.spheres = constraint instanceof StaticConstraint ? ((StaticConstraint) constraint).getSpheres() : null;
+            if(entry.spheres != null) for(Sphere sphere : entry.spheres) bySphere.computeIfAbsent(sphere, s -> new ArrayList<>(2)).add(constraint);
+            entries.put(constraint, entry);
+        }
+        entry.copies++;
+        count++;
+    }
+
+    /**
+     * Removes one copy of a Constraint. The last Constraint takes its place
+     * @param constraint The Constraint to remove
+     * @return true if the Constraint was found
+     */
+    boolean remove(Constraint constraint) {
+        final Entry entry = entries.get(constraint);
+        if(entry == null) return false;
+
+        final int position = entry.position;
+        final int last = --count;
+        if(position != last) {
+            constraints[position] = constraints[last];
+            entries.get(constraints[position]).position = position;
+        }
+        constraints[last] = null;
+
+        if(--entry.copies > 0) {
+            // another copy is still stored somewhere
+            for(int i = 0; i < count; i++) if(constraints[i] == constraint) entry.position = i;
+            return true;
+        }
+        entries.remove(constraint);
+        if(constraint instanceof PhasedStaticConstraint) phased.remove(constraint);
+        if(entry.spheres != null) {
+            for(Sphere sphere : entry.spheres) {
+                List<Constraint> list = bySphere.get(sphere);
+                if(list == null) continue;
+                for(int i = 0; i < list.size(); i++) {
+                    if(list.get(i) != constraint) continue;
+                    list.remove(i);
+                    break;
+                }
+                if(list.isEmpty()) bySphere.remove(sphere);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes every Constraint that was indexed by a Sphere and detaches the Sphere from every PhasedStaticConstraint.
+     * A StaticConstraint may only detach the Sphere and stay, see {@link StaticConstraint#detachSphere(Sphere)}
+     * @param sphere The Sphere whose Constraints should be removed
+     */
+    void removeConstraints(Sphere sphere) {
+        final List<Constraint> list = bySphere.remove(sphere);
+        if(list != null) for(Constraint constraint : list) detach(constraint, sphere);
+        for(int i = phased.size() - 1; i >= 0; i--) detach(phased.get(i), sphere);
+    }
+
+    /**
+     * Detaches a Sphere from a StaticConstraint and removes every copy of the Constraint if it asks for it
+     * @param constraint The Constraint of the Sphere
+     * @param sphere The removed Sphere
+     */
+    private void detach(Constraint constraint, Sphere sphere) {
+        if(!entries.containsKey(constraint) || !((StaticConstraint) constraint).detachSphere(sphere)) return;
+        while(entries.containsKey(constraint)) remove(constraint);
+    }
+
+    /**
+     * Returns the amount of stored Constraints
+     * @return the amount of Constraints, copies included
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns a stored Constraint
+     * @param index the index of the Constraint
+     * @return the Constraint at the index
+     */
+    Constraint get(int index) {
+        return constraints[index];
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.StaticConstraint;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Applies the {@link StaticConstraint}s of the {@link VerletSolver} on all threads of the {@link VerletSolverPool}.
+ * Consecutive Constraints that return their Spheres, see {@link StaticConstraint#getSpheres()}, form a group.
+ * Every group is colored by a {@link ConstraintColoring}, so Constraints of the same color never share a Sphere,
+ * and the colors are applied one after another with every color split over all threads.
+ * A Constraint that does not return its Spheres ends the current group and is applied on its own by the calling thread.
+ * A {@link PhasedStaticConstraint} colors its own parts and is applied phase by phase.
+ * <p>
+ * The result does not depend on the amount of threads, it is always the result of a serial run in color order.
+ * The schedule is only rebuilt when the Constraints have changed.
+ *
+ * @author tecno-master
+ * @see ConstraintColoring
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+final class VerletConstraintScheduler {
+    // Colors with fewer Constraints are applied by the calling thread, starting a parallel phase would cost more than it saves
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private static final int SINGLE = 0, PHASED = 1, GROUP = 2;
+
+    // The Constraints the schedule was built for
+    private StaticConstraint[] scheduled = new StaticConstraint[0];
+    private int scheduledCount = -1;
+
+    // The schedule in order. A segment is a single Constraint, a PhasedStaticConstraint or a group of colored Constraints
+    private int[] segmentKinds = new int[0], segmentValues = new int[0];
+    private int segmentCount;
+    private ConstraintColoring[] colorings = new ConstraintColoring[0];
+    private int[] groupStart = new int[1];
+    private int[] groupMembers = new int[0];
+    private int groupCount;
+
+    // The state of the current step and phase, read by the partitions
+    private StaticConstraint[] constraints;
+    private boolean[] packedConstraints;
+    private VerletPackedScene packedScene;
+    private ConstraintColoring currentColoring;
+    private int currentGroup, currentColor;
+    private PhasedStaticConstraint currentPhased;
+    private int currentPhase;
+    private final PartitionRunnable colorPhase = this::applyColor;
+    private final PartitionRunnable phasedPhase = (partitionIndex, partitionCount) -> currentPhased.applyPhase(currentPhase, partitionIndex, partitionCount);
+
+    /**
+     * Rebuilds the schedule if the Constraints have changed since the last update
+     * @param constraints the StaticConstraints in the order they were added
+     * @param packedConstraints packedConstraints[i] is true if constraints[i] is a {@link PackedStaticConstraint}
+     * @param count the amount of StaticConstraints
+     */
+    void update(StaticConstraint[] constraints, boolean[] packedConstraints, int count) {
+        this.constraints = constraints;
+        this.packedConstraints = packedConstraints;
+        if(count == scheduledCount && equals(constraints, count)) return;
+        rebuild(constraints, count);
+    }
+
+    /**
+     * Applies every StaticConstraint of the schedule
+     * @param pool the pool that runs the parallel colors
+     * @param packedScene the container of the Solver if it is a packed Scene, otherwise null
+     */
+    void apply(VerletSolverPool pool, VerletPackedScene packedScene) {
+        this.packedScene = packedScene;
+        final boolean parallel = pool.getPartitionCount() > 1;
+        for(int s = 0; s < segmentCount; s++) {
+            final int value = segmentValues[s];
+            if(segmentKinds[s] == SINGLE) {
+                applyConstraint(value);
+            } else if(segmentKinds[s] == PHASED) {
+                currentPhased = (PhasedStaticConstraint) constraints[value];
+                final int phases = currentPhased.preparePhases(packedScene);
+                for(int phase = 0; phase < phases; phase++) {
+                    currentPhase = phase;
+                    if(parallel) pool.run(phasedPhase);
+                    else currentPhased.applyPhase(phase, 0, 1);
+                }
+            } else {
+                currentGroup = value;
+                currentColoring = colorings[value];
+                for(int color = 0; color < currentColoring.getColorCount(); color++) {
+                    currentColor = color;
+                    final int size = currentColoring.getColorStart(color + 1) - currentColoring.getColorStart(color);
+                    if(parallel && size >= PARALLEL_THRESHOLD && !currentColoring.isSerial(color)) pool.run(colorPhase);
+                    else applyColor(0, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the Constraints of the current color that belong to a partition
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void applyColor(int partitionIndex, int partitionCount) {
+        final ConstraintColoring coloring = currentColoring;
+        int start = coloring.getColorStart(currentColor), end = coloring.getColorStart(currentColor + 1);
+        final int partitionSize = (end - start + partitionCount - 1) / partitionCount; // ceiling division to handle remainder constraints
+        start += partitionIndex * partitionSize;
+        end = Math.min(start + partitionSize, end);
+        final int[] order = coloring.getOrder();
+        final int offset = groupStart[currentGroup];
+        for(int k = start; k < end; k++) applyConstraint(groupMembers[offset + order[k]]);
+    }
+
+    /**
+     * Applies one Constraint, directly on the columns if possible
+     * @param index the index of the Constraint
+     */
+    private void applyConstraint(int index) {
+        if(packedScene != null && packedConstraints[index]) ((PackedStaticConstraint) constraints[index]).apply(packedScene);
+        else constraints[index].apply();
+    }
+
+    /**
+     * Returns whether the Constraints are the same as the ones of the schedule
+     * @param constraints the StaticConstraints
+     * @param count the amount of StaticConstraints
+     * @return true if every Constraint is the same
+     */
+    private boolean equals(StaticConstraint[] constraints, int count) {
+        for(int i = 0; i < count; i++) if(constraints[i] != scheduled[i]) return false;
+        return true;
+    }
+
+    /**
+     * Splits the Constraints into segments and colors every group
+     * @param constraints the StaticConstraints in the order they were added
+     * @param count the amount of StaticConstraints
+     */
+    private void rebuild(StaticConstraint[] constraints, int count) {
+        scheduled = Arrays.copyOf(constraints, count);
+        scheduledCount = count;
+        segmentKinds = new int[count];
+        segmentValues = new int[count];
+        segmentCount = 0;
+        groupStart = new int[count + 1];
+        groupMembers = new int[count];
+        groupCount = 0;
+
+        // the Spheres of the current group, stored like ConstraintColoring expects them
+        final Map<Sphere, Integer> ids = new IdentityHashMap<>();
+        int[] sphereStart = new int[count + 1];
+        int[] sphereIds = new int[Math.max(16, count * 2)];
+        int members = 0, sphereCount = 0;
+        for(int i = 0; i <= count; i++) {
+            final Sphere[] spheres = i < count && !(constraints[i] instanceof PhasedStaticConstraint) ? constraints[i].getSpheres() : null;
+            if(spheres != null) {
+                groupMembers[groupStart[groupCount] + members] = i;
+                for(Sphere sphere : spheres) {
+                    if(sphereCount == sphereIds.length) sphereIds = Arrays.copyOf(sphereIds, sphereCount * 2);
+                    Integer id = ids.get(sphere);
+                    if(id == null) ids.put(sphere, id = ids.size());
+                    sphereIds[sphereCount++] = id;
+                }
+                sphereStart[++members] = sphereCount;
+                continue;
+            }
+
+            // anything else ends the current group
+            if(members > 0) {
+                if(groupCount == colorings.length) colorings = Arrays.copyOf(colorings, Math.max(4, groupCount * 2));
+                if(colorings[groupCount] == null) colorings[groupCount] = new ConstraintColoring();
+                colorings[groupCount].color(members, sphereStart, sphereIds, ids.size());
+                segmentKinds[segmentCount] = GROUP;
+                segmentValues[segmentCount++] = groupCount;
+                groupStart[groupCount + 1] = groupStart[groupCount] + members;
+                groupCount++;
+                members = 0;
+                sphereCount = 0;
+                ids.clear();
+            }
+            if(i == count) break;
+            segmentKinds[segmentCount] = constraints[i] instanceof PhasedStaticConstraint ? PHASED : SINGLE;
+            segmentValues[segmentCount++] = i;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * A VerletCountingGrid defines an area and a radius in which collisions are performed, just like the {@link VerletGrid}.
+ * Instead of one Cell object per grid cell, the membership of every cell is stored in two flat int arrays.
+ * The first array holds the start offset of every cell, the second one the indices of the Spheres sorted by their cell.
+ * Both arrays are rebuilt by a counting sort every update, which neither hashes nor allocates once the arrays have grown big enough.
+ * The radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+ * <p>
+ * Spheres are passed to the {@link Solver} in the exact same order as by the VerletGrid, so both grids produce the same results.
+ * Phased scheduling and the half neighborhood traversal work the same way as described in {@link VerletGrid}.
+ *
+ * @author tecno-master
+ * @see VerletGrid
+ * @see IndexBroadphase
+ * @see Solver
+ * @version 1.0.0
+ */
+public class VerletCountingGrid implements IndexBroadphase, QueryBroadphase {
+    private final double x,y,width,height;
+    private final float radius;
+    private final int columns, rows;
+    private boolean phased = true;
+    private boolean halfNeighborhood;
+
+    // cellStart[c] is the offset of the first Sphere of cell c inside cellSpheres, cellStart[c+1] the end. Cells are stored column by column
+    private final int[] cellStart;
+    private int[] cellSpheres = new int[0];
+    private int[] sphereCells = new int[0];
+    private VerletContainer container;
+    // The amount of Spheres that lay outside of the grid area on the last update
+    private int outsideSpheres;
+
+    // cellAwake[c] is true if cell c holds at least one awake Sphere. Only used while sleeping Spheres are marked
+    private boolean[] sleeping;
+    private boolean skipSleeping;
+    private final boolean[] cellAwake;
+
+    private static final int STRIPE_COLORS = 2;
+
+    /**
+     * Defines an area and a radius in which collisions are performed.
+     * Automatically creates an area from the x and y inputs
+     *
+     * @param width The X Position of the area
+     * @param height The Y Position of the area
+     * @param radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+     */
+    public VerletCountingGrid(double width, double height, float radius) {
+        this(-width/2,-height/2, width, height, radius);
+    }
+
+    /**
+     * Defines an area and a radius in which collisions are performed.
+     *
+     * @param r the <code>Rectangle</code> which defines the area
+     * @param radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+     */
+    public VerletCountingGrid(Rectangle r, float radius) {
+        this(r.getX(), r.getY(), r.getWidth(), r.getHeight(), radius);
+    }
+
+    /**
+     * Defines an area and a radius in which collisions are performed.
+     *
+     * @param x The X Position of the first corner of the area
+     * @param y The Y Position of the first corner of the area
+     * @param width The X Position of the second corner of the area
+     * @param height The Y Position of the second corner of the area
+     * @param radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+     */
+    public VerletCountingGrid(double x, double y, double width, double height, float radius) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.radius = radius * 2;
+        this.columns = (int) Math.ceil(this.width/this.radius);
+        this.rows = (int) Math.ceil(this.height/this.radius);
+        this.cellStart = new int[columns * rows + 1];
+        this.cellAwake = new boolean[columns * rows];
+    }
+
+    /**
+     * Enables/Disables the phased scheduling of the grid. Default is true.
+     * See {@link VerletGrid#setPhasedScheduling(boolean)}
+     * @param phased If true the collisions are solved in colored stripes
+     */
+    public void setPhasedScheduling(boolean phased) {
+        this.phased = phased;
+    }
+
+    /**
+     * Returns whether the grid solves its collisions in colored stripes
+     * @return true if phased scheduling is enabled
+     */
+    @Override
+    public boolean isPhasedScheduling() {
+        return phased;
+    }
+
+    /**
+     * Enables/Disables the half neighborhood traversal of the grid. Default is false.
+     * See {@link VerletGrid#setHalfNeighborhood(boolean)}
+     * @param halfNeighborhood If true every pair of Spheres is only passed once
+     */
+    public void setHalfNeighborhood(boolean halfNeighborhood) {
+        this.halfNeighborhood = halfNeighborhood;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is only passed once
+     * @return true if the half neighborhood traversal is enabled
+     */
+    public boolean isHalfNeighborhood() {
+        return halfNeighborhood;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is passed twice, which is the case unless the half neighborhood traversal is enabled
+     * @return true if the half neighborhood traversal is disabled
+     */
+    @Override
+    public boolean isPassingPairsTwice() {
+        return !halfNeighborhood;
+    }
+
+    /**
+     * Marks the sleeping Spheres. Pairs of cells that only hold sleeping Spheres are skipped after the next update
+     * @param sleeping sleeping[i] is true if the Sphere at index i is sleeping, or null if every pair has to be passed
+     */
+    @Override
+    public void setSleepingSpheres(boolean[] sleeping) {
+        this.sleeping = sleeping;
+    }
+
+    /**
+     * Sorts every Sphere of the container into its cell using a counting sort.
+     * Spheres outside the grid area are not assigned to any cell.
+     * @param container The Container from which the Spheres should be assigned
+     */
+    @Override
+    public void update(VerletContainer container) {
+        this.container = container;
+        final int count = container.getSphereCount();
+        if(sphereCells.length < count) {
+            sphereCells = new int[Math.max(count, sphereCells.length * 2)];
+            cellSpheres = new int[sphereCells.length];
+        }
+
+        // Calculate the cell of every Sphere and count the Spheres per cell
+        final int[] cellStart = this.cellStart;
+        Arrays.fill(cellStart, 0);
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            for(int i = 0; i < count; i++) countSphere(i, scene.x[i], scene.y[i]);
+        } else {
+            for(int i = 0; i < count; i++) {
+                Sphere sphere = container.getSphere(i);
+                countSphere(i, sphere.getX(), sphere.getY());
+            }
+        }
+
+        // Turn the counts into the end offset of every cell
+        final int cells = columns * rows;
+        for(int c = 1; c < cells; c++) cellStart[c] += cellStart[c-1];
+        cellStart[cells] = cells > 0 ? cellStart[cells-1] : 0;
+
+        // Place the Spheres backwards, so every cell keeps the order of the container and cellStart ends up at the start offsets
+        int outside = 0;
+        for(int i = count - 1; i >= 0; i--) {
+            int cell = sphereCells[i];
+            if(cell >= 0) cellSpheres[--cellStart[cell]] = i;
+            else outside++;
+        }
+        outsideSpheres = outside;
+
+        // Remember which cells hold an awake Sphere
+        final boolean[] sleeping = this.sleeping;
+        skipSleeping = sleeping != null;
+        if(skipSleeping) {
+            Arrays.fill(cellAwake, false);
+            for(int i = 0; i < count; i++) {
+                int cell = sphereCells[i];
+                if(cell >= 0 && !sleeping[i]) cellAwake[cell] = true;
+            }
+        }
+    }
+
+    /**
+     * Stores the cell of one Sphere and counts it
+     * @param index the index of the Sphere
+     * @param px the X Position of the Sphere
+     * @param py the Y Position of the Sphere
+     */
+    private void countSphere(int index, double px, double py) {
+
+        // calculate grid position
+        double gx = (px-x) / radius;
+        double gy = (py-y) / radius;
+
+        // Only assign Cell if grid position is valid
+        if(gx >= 0 && gx < columns && gy >= 0 && gy < rows) {
+            int cell = (int) gx * rows + (int) gy;
+            sphereCells[index] = cell;
+            cellStart[cell]++;
+        } else {
+            sphereCells[index] = -1;
+        }
+    }
+
+    /**
+     * Passes every Sphere of the cells that overlap the rectangle grown by the biggest possible Sphere radius.
+     * Parts of the rectangle outside of the grid area are skipped if no Sphere lay outside of it on the last update
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable that is called with every Sphere that may overlap the rectangle
+     * @return false if the grid was never updated or the grown rectangle leaves the grid area while Spheres lie outside of it
+     */
+    @Override
+    public boolean queryCandidates(double minX, double minY, double maxX, double maxY, SphereRunnable runnable) {
+        final double margin = radius / 2;
+        final double left = (minX - margin - x) / radius, bottom = (minY - margin - y) / radius;
+        final double right = (maxX + margin - x) / radius, top = (maxY + margin - y) / radius;
+        if(container == null) return false;
+        if(!(left >= 0 && bottom >= 0 && right < columns && top < rows) && outsideSpheres > 0) return false;
+        final int firstColumn = Math.max(0, (int) Math.floor(left)), lastColumn = Math.min(columns - 1, (int) Math.floor(right));
+        final int firstRow = Math.max(0, (int) Math.floor(bottom)), lastRow = Math.min(rows - 1, (int) Math.floor(top));
+        if(firstRow > lastRow) return true;
+        for(int column = firstColumn; column <= lastColumn; column++) {
+            final int end = cellStart[column * rows + lastRow + 1];
+            for(int k = cellStart[column * rows + firstRow]; k < end; k++) runnable.run(container.getSphere(cellSpheres[k]));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of one cell
+     * @return twice the radius the grid was created with
+     */
+    @Override
+    public double getCellSize() {
+        return radius;
+    }
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * @return the amount of stripe colors if phased scheduling is enabled, otherwise 1
+     */
+    @Override
+    public int getCollisionPhaseCount() {
+        return phased ? STRIPE_COLORS : 1;
+    }
+
+    /**
+     * Implementing this method means,
+     * that individual threads can access and call it in order to solve the correct partition part spheres.
+     * Most implementations use a split up "for loop".
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        int partitionSize = (columns + partitionCount - 1) / partitionCount; // ceiling division to handle remainder cells
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, columns);
+
+        solveColumns(start, end, null, runnable);
+    }
+
+    /**
+     * Solves every stripe of one color that belongs to a partition.
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solvePhase(phase, partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves every stripe of one color that belongs to a partition and passes the indices of the Spheres.
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two sphere indices which are tested for a collision
+     */
+    @Override
+    public void solveIndexCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable runnable) {
+        solvePhase(phase, partitionIndex, partitionCount, runnable, null);
+    }
+
+    /**
+     * Solves the stripes of one phase. Exactly one of both runnables is used
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solvePhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        if(!phased) {
+            int partitionSize = (columns + partitionCount - 1) / partitionCount; // ceiling division to handle remainder cells
+            int start = partitionIndex * partitionSize;
+            solveColumns(start, Math.min(start + partitionSize, columns), indexRunnable, sphereRunnable);
+            return;
+        }
+        int totalStripes = (columns + VerletGrid.STRIPE_WIDTH - 1) / VerletGrid.STRIPE_WIDTH;
+        int colorStripes = (totalStripes - phase + STRIPE_COLORS - 1) / STRIPE_COLORS; // stripes phase, phase + colors, ...
+        int partitionSize = (colorStripes + partitionCount - 1) / partitionCount; // ceiling division to handle remainder stripes
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, colorStripes);
+
+        for(int k = start; k < end; k++) {
+            int column = (k * STRIPE_COLORS + phase) * VerletGrid.STRIPE_WIDTH;
+            solveColumns(column, Math.min(column + VerletGrid.STRIPE_WIDTH, columns), indexRunnable, sphereRunnable);
+        }
+    }
+
+    /**
+     * Solves every cell of a range of columns with its neighbour cells.
+     * Uses the same neighbour order as the {@link VerletGrid}
+     * @param start the first column (inclusive)
+     * @param end the last column (exclusive)
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveColumns(int start, int end, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        for(int i = start; i < end; i++) {
+            for(int j = 0; j < rows; j++) {
+                int cell = i * rows + j;
+                if(cellStart[cell] == cellStart[cell+1]) continue;
+
+                // a cell of sleeping Spheres only has to be solved against cells that hold an awake Sphere
+                final boolean awake = !skipSleeping || cellAwake[cell];
+                if(halfNeighborhood) {
+                    if(awake) solveSelfCollisions(cell, indexRunnable, sphereRunnable);
+                    for(int n = 1; n < VerletGrid.HALF_NEIGHBOR_X.length; n++) {
+                        int nx = i + VerletGrid.HALF_NEIGHBOR_X[n], ny = j + VerletGrid.HALF_NEIGHBOR_Y[n];
+                        if(nx >= 0 && nx < columns && ny >= 0 && ny < rows && (awake || cellAwake[nx * rows + ny])) solveCellCollisions(cell, nx * rows + ny, indexRunnable, sphereRunnable);
+                    }
+                    continue;
+                }
+
+                for(int dy = -1; dy <= 1; dy++) {
+                    for(int dx = -1; dx <= 1; dx++) {
+                        int nx = i + dx, ny = j + dy;
+                        if(nx >= 0 && nx < columns && ny >= 0 && ny < rows && (awake || cellAwake[nx * rows + ny])) solveCellCollisions(cell, nx * rows + ny, indexRunnable, sphereRunnable);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves the collisions between the Spheres of one cell. Every pair is only passed once
+     * @param cell The cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveSelfCollisions(int cell, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] cellSpheres = this.cellSpheres;
+        final int end = cellStart[cell+1];
+        for(int i = cellStart[cell]; i < end; i++) {
+            for(int j = i+1; j < end; j++) {
+                if(indexRunnable != null) indexRunnable.run(cellSpheres[i], cellSpheres[j]);
+                else sphereRunnable.run(container.getSphere(cellSpheres[i]), container.getSphere(cellSpheres[j]));
+            }
+        }
+    }
+
+    /**
+     * Solves the collisions between two cells
+     * @param cell_1 The first cell
+     * @param cell_2 The second cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveCellCollisions(int cell_1, int cell_2, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] cellSpheres = this.cellSpheres;
+        final int end_1 = cellStart[cell_1+1], start_2 = cellStart[cell_2], end_2 = cellStart[cell_2+1];
+        if(indexRunnable != null) {
+            for(int i = cellStart[cell_1]; i < end_1; i++) {
+                int sphere_1 = cellSpheres[i];
+                for(int j = start_2; j < end_2; j++) {
+                    int sphere_2 = cellSpheres[j];
+                    if(sphere_1 != sphere_2) indexRunnable.run(sphere_1, sphere_2);
+                }
+            }
+            return;
+        }
+        for(int i = cellStart[cell_1]; i < end_1; i++) {
+            Sphere sphere_1 = container.getSphere(cellSpheres[i]);
+            for(int j = start_2; j < end_2; j++) {
+                Sphere sphere_2 = container.getSphere(cellSpheres[j]);
+                if(sphere_1 != sphere_2) sphereRunnable.run(sphere_1, sphere_2);
+            }
+        }
+    }
+}
@@ -5,23 +5,60 @@ import io.github.ttecnomaster.verlet.VerletContainer;
 import io.github.ttecnomaster.verlet.Solver;
 
 import java.awt.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * A VerletGrid defines an area and a radius in which collisions are performed.
  * Adding a VerletGrid to a {@link Solver} can drastically increase performance.
  * The radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+ * <p>
+ * By default, the grid solves its collisions in two phases. The columns are grouped into stripes of {@link VerletGrid#STRIPE_WIDTH} columns
+ * which are colored alternately. Only stripes of the same color are solved at the same time, and as a stripe of the other color lies
+ * between them, no two threads ever touch the same Sphere concurrently. The result does not depend on the amount of threads.
+ * Phased scheduling can be disabled by {@link VerletGrid#setPhasedScheduling(boolean)}.
+ * <p>
+ * By default, every Cell is solved with all of its 8 Neighbour Cells and itself, so every pair of Spheres is passed twice, once from each side.
+ * {@link VerletGrid#setHalfNeighborhood(boolean)} enables a traversal in which every pair is passed exactly once.
+ * <p>
+ * By default, every Cell is cleared and every Sphere is assigned again on every update.
+ * {@link VerletGrid#setIncremental(boolean)} enables an update which only moves the Spheres that have changed their Cell.
+ * <p>
+ * Pairs of Cells that only hold sleeping Spheres are skipped, see {@link VerletGrid#setSleepingSpheres(boolean[])}.
  *
  * @author tecno-master
  * @see Solver
  * @see VerletSolver
+ * @see Broadphase
  * @version 1.0.0
  */
-public class VerletGrid implements MultiThreadingSupport {
+public class VerletGrid implements QueryBroadphase {
     private final double x,y,width,height;
     private final float radius;
     private final Cell[][] cells;
+    private final SphereRunnable assignRunnable = this::assignCell;
+    private boolean phased = true;
+    private boolean halfNeighborhood;
+    private boolean incremental;
+
+    // Incremental updates only. The Cell (column * rows + row, or -1 outside of the grid) and the position inside that Cell of every Sphere
+    private int[] sphereCells = new int[0];
+    private int[] sphereSlots = new int[0];
+    private VerletContainer container;
+    private int assignedSpheres = -1;
+    private int assignedModifications;
+    // The amount of Spheres that lie outside of the grid area
+    private int outsideSpheres;
+    // Only used while sleeping Spheres are marked, then Cell.awake tells if a Cell holds at least one awake Sphere
+    private boolean[] sleeping;
+    private boolean skipSleeping;
+
+    // The amount of columns in one stripe. Neighbour lookups reach one column to each side, so two are needed to separate stripes of the same color
+    static final int STRIPE_WIDTH = 2;
+    private static final int STRIPE_COLORS = 2;
+
+    // The Cell itself and the 4 "forward" Neighbour Cells. Every other Neighbour Cell is a forward Neighbour of the Cell on the opposite side
+    static final int[] HALF_NEIGHBOR_X = {0, 1, 1, 1, 0};
+    static final int[] HALF_NEIGHBOR_Y = {0, -1, 0, 1, 1};
 
     /**
      * Defines an area and a radius in which collisions are performed.
@@ -75,6 +112,119 @@ public class VerletGrid implements MultiThreadingSupport {
         }
     }
 
+    /**
+     * Enables/Disables the phased scheduling of the grid. Default is true.
+     * Without phased scheduling every thread solves a contiguous range of columns in one phase.
+     * This needs fewer barriers but neighbouring threads may write the same Spheres at the same time,
+     * which makes multithreaded results racy and nondeterministic.
+     * @param phased If true the collisions are solved in colored stripes
+     */
+    public void setPhasedScheduling(boolean phased) {
+        this.phased = phased;
+    }
+
+    /**
+     * Returns whether the grid solves its collisions in colored stripes
+     * @return true if phased scheduling is enabled
+     */
+    @Override
+    public boolean isPhasedScheduling() {
+        return phased;
+    }
+
+    /**
+     * Enables/Disables the half neighborhood traversal of the grid. Default is false.
+     * Instead of all 9 Cells, every Cell is only solved with itself and its 4 "forward" Neighbour Cells (right column and the Cell above).
+     * Spheres of the same Cell are only paired once. This way every pair of Spheres is resolved exactly once
+     * instead of twice, which halves the collision checks but also halves the correction every sub step.
+     * @param halfNeighborhood If true every pair of Spheres is only passed once
+     */
+    public void setHalfNeighborhood(boolean halfNeighborhood) {
+        this.halfNeighborhood = halfNeighborhood;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is only passed once
+     * @return true if the half neighborhood traversal is enabled
+     */
+    public boolean isHalfNeighborhood() {
+        return halfNeighborhood;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is passed twice, which is the case unless the half neighborhood traversal is enabled
+     * @return true if the half neighborhood traversal is disabled
+     */
+    @Override
+    public boolean isPassingPairsTwice() {
+        return !halfNeighborhood;
+    }
+
+    /**
+     * Enables/Disables the incremental update of the grid. Default is false.
+     * Instead of clearing every Cell and assigning every Sphere again, the grid remembers the Cell of every Sphere
+     * and only moves the Spheres whose Cell has changed. In mostly settled scenes only a few Spheres change their Cell every sub step,
+     * so the update no longer depends on the amount of Cells.
+     * The order of the Spheres inside a Cell differs from a full update, so the results differ slightly from the default,
+     * but they still do not depend on the amount of threads.
+     * Adding or removing Spheres leads to one full update.
+     * @param incremental If true only Spheres that changed their Cell are moved
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        this.container = null;
+    }
+
+    /**
+     * Returns whether only Spheres that changed their Cell are moved on an update
+     * @return true if the incremental update is enabled
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Marks the sleeping Spheres. Pairs of Cells that only hold sleeping Spheres are skipped after the next update
+     * @param sleeping sleeping[i] is true if the Sphere at index i is sleeping, or null if every pair has to be passed
+     */
+    @Override
+    public void setSleepingSpheres(boolean[] sleeping) {
+        this.sleeping = sleeping;
+    }
+
+    /**
+     * Reassigns every Sphere of the container to the Grid
+     * @param container The Container from which the Spheres should be assigned
+     */
+    @Override
+    public void update(VerletContainer container) {
+        if(incremental) updateCells(container);
+        else assignCells(container);
+        markAwakeCells(container);
+    }
+
+    /**
+     * Remembers which Cells hold an awake Sphere, if sleeping Spheres are marked
+     * @param container The Container from which the Spheres were assigned
+     */
+    private void markAwakeCells(VerletContainer container) {
+        final boolean[] sleeping = this.sleeping;
+        skipSleeping = sleeping != null;
+        if(!skipSleeping) return;
+        for(Cell[] column : cells) for(Cell cell : column) cell.awake = false;
+        final int n = container.getSphereCount();
+        for(int i = 0; i < n; i++) {
+            if(sleeping[i]) continue;
+            final int cell;
+            if(incremental) cell = sphereCells[i];
+            else {
+                final Sphere sphere = container.getSphere(i);
+                cell = getCellIndex(sphere.getX(), sphere.getY());
+            }
+            if(cell >= 0) getCell(cell).awake = true;
+        }
+    }
+
     /**
      * Clears previously assigned Cells.
      * Assigns every Sphere to one Cell. A Cell can hold multiple Spheres
@@ -84,17 +234,118 @@ public class VerletGrid implements MultiThreadingSupport {
     void assignCells(VerletContainer container) {
         // Clear previously assigned Cells.
         invokeCells(Cell::clear);
+        outsideSpheres = 0;
 
         // Assign every Sphere to one Cell
-        container.invokeSpheres((sphere -> {
+        container.invokeSpheres(assignRunnable);
+    }
 
-            // calculate grid position
-            double px = (sphere.getX()-x) / radius;
-            double py = (sphere.getY()-y) / radius;
+    /**
+     * Moves every Sphere whose Cell has changed since the last update.
+     * Falls back to assigning every Sphere again if the Spheres of the container were changed
+     * @param container The Container from which the Spheres should be assigned
+     */
+    private void updateCells(VerletContainer container) {
+        final int n = container.getSphereCount();
+        if(container != this.container || n != assignedSpheres || container.getModificationCount() != assignedModifications) {
+            reassignCells(container);
+            return;
+        }
 
-            // Only assign Cell if grid position is valid
-            if(validateCellPosition(px,py)) cells[(int) px][(int) py].spheres.add(sphere);
-        }));
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            final double[] sx = scene.x, sy = scene.y;
+            for(int i = 0; i < n; i++) {
+                int cell = getCellIndex(sx[i], sy[i]);
+                if(cell != sphereCells[i]) moveSphere(container, i, cell);
+            }
+        } else {
+            for(int i = 0; i < n; i++) {
+                Sphere sphere = container.getSphere(i);
+                int cell = getCellIndex(sphere.getX(), sphere.getY());
+                if(cell != sphereCells[i]) moveSphere(container, i, cell);
+            }
+        }
+    }
+
+    /**
+     * Clears every Cell and assigns every Sphere of the container together with its index
+     * @param container The Container from which the Spheres should be assigned
+     */
+    private void reassignCells(VerletContainer container) {
+        invokeCells(Cell::clear);
+        outsideSpheres = 0;
+        final int n = container.getSphereCount();
+        if(sphereCells.length < n) {
+            int capacity = Math.max(n, sphereCells.length * 2);
+            sphereCells = new int[capacity];
+            sphereSlots = new int[capacity];
+        }
+        for(int i = 0; i < n; i++) {
+            Sphere sphere = container.getSphere(i);
+            int cell = getCellIndex(sphere.getX(), sphere.getY());
+            sphereCells[i] = cell;
+            if(cell >= 0) sphereSlots[i] = getCell(cell).add(sphere, i);
+            else outsideSpheres++;
+        }
+        this.container = container;
+        assignedSpheres = n;
+        assignedModifications = container.getModificationCount();
+    }
+
+    /**
+     * Removes a Sphere from its current Cell and adds it to another one
+     * @param container The Container which holds the Sphere
+     * @param index The index of the Sphere
+     * @param cell The new Cell of the Sphere, or -1 if it left the grid
+     */
+    private void moveSphere(VerletContainer container, int index, int cell) {
+        int oldCell = sphereCells[index];
+        if(oldCell >= 0) {
+            int moved = getCell(oldCell).remove(sphereSlots[index]);
+            if(moved >= 0) sphereSlots[moved] = sphereSlots[index];
+        } else outsideSpheres--;
+        sphereCells[index] = cell;
+        if(cell >= 0) sphereSlots[index] = getCell(cell).add(container.getSphere(index), index);
+        else outsideSpheres++;
+    }
+
+    /**
+     * Returns the index of the Cell that matches a position
+     * @param x the X Position
+     * @param y the Y Position
+     * @return column * rows + row, or -1 if the position lies outside the grid area
+     */
+    private int getCellIndex(double x, double y) {
+        double px = (x-this.x) / radius;
+        double py = (y-this.y) / radius;
+        if(!validateCellPosition(px,py)) return -1;
+        return (int) px * cells[0].length + (int) py;
+    }
+
+    /**
+     * Returns the Cell of a Cell index
+     * @param cell column * rows + row
+     * @return the Cell
+     */
+    private Cell getCell(int cell) {
+        int rows = cells[0].length;
+        return cells[cell / rows][cell % rows];
+    }
+
+    /**
+     * Assigns one Sphere to the Cell that matches its position
+     * @param sphere The Sphere to assign
+     */
+    private void assignCell(Sphere sphere) {
+
+        // calculate grid position
+        double px = (sphere.getX()-x) / radius;
+        double py = (sphere.getY()-y) / radius;
+
+        // Only assign Cell if grid position is valid
+        if(validateCellPosition(px,py)) cells[(int) px][(int) py].add(sphere);
+        else outsideSpheres++;
     }
 
     /**
@@ -122,12 +373,109 @@ public class VerletGrid implements MultiThreadingSupport {
         int start = partitionIndex * partitionSize;
         int end = Math.min(start + partitionSize, totalCells);
 
+        solveColumns(start, end, runnable);
+    }
+
+    /**
+     * Passes every Sphere of the Cells that overlap the rectangle grown by the biggest possible Sphere radius.
+     * Parts of the rectangle outside of the grid area are skipped if no Sphere lies outside of it
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable that is called with every Sphere that may overlap the rectangle
+     * @return false if the grown rectangle leaves the grid area while Spheres lie outside of it
+     */
+    @Override
+    public boolean queryCandidates(double minX, double minY, double maxX, double maxY, SphereRunnable runnable) {
+        final double margin = radius / 2;
+        final double left = (minX - margin - x) / radius, bottom = (minY - margin - y) / radius;
+        final double right = (maxX + margin - x) / radius, top = (maxY + margin - y) / radius;
+        if(!(validateCellPosition(left, bottom) && validateCellPosition(right, top)) && outsideSpheres > 0) return false;
+        final int lastColumn = Math.min(cells.length - 1, (int) Math.floor(right)), lastRow = Math.min(cells[0].length - 1, (int) Math.floor(top));
+        for(int column = Math.max(0, (int) Math.floor(left)); column <= lastColumn; column++) {
+            for(int row = Math.max(0, (int) Math.floor(bottom)); row <= lastRow; row++) {
+                Cell cell = cells[column][row];
+                for(int i = 0; i < cell.size; i++) runnable.run(cell.spheres[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of one cell
+     * @return twice the radius the grid was created with
+     */
+    @Override
+    public double getCellSize() {
+        return radius;
+    }
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * @return the amount of stripe colors if phased scheduling is enabled, otherwise 1
+     */
+    @Override
+    public int getCollisionPhaseCount() {
+        return phased ? STRIPE_COLORS : 1;
+    }
+
+    /**
+     * Solves every stripe of one color that belongs to a partition.
+     * The stripes of a color are split into contiguous ranges, one for each partition.
+     * Every stripe is always solved in the same order, so the result does not depend on the amount of partitions.
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        if(!phased) {
+            solveCollisionPartition(partitionIndex, partitionCount, runnable);
+            return;
+        }
+        int totalStripes = (cells.length + STRIPE_WIDTH - 1) / STRIPE_WIDTH;
+        int colorStripes = (totalStripes - phase + STRIPE_COLORS - 1) / STRIPE_COLORS; // stripes phase, phase + colors, ...
+        int partitionSize = (colorStripes + partitionCount - 1) / partitionCount; // ceiling division to handle remainder stripes
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, colorStripes);
+
+        for(int k = start; k < end; k++) {
+            int column = (k * STRIPE_COLORS + phase) * STRIPE_WIDTH;
+            solveColumns(column, Math.min(column + STRIPE_WIDTH, cells.length), runnable);
+        }
+    }
+
+    /**
+     * Solves every Cell of a range of columns with its neighbour Cells
+     * @param start the first column (inclusive)
+     * @param end the last column (exclusive)
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    private void solveColumns(int start, int end, TwoSphereRunnable runnable) {
         for (int i = start; i < end; i++) {
             for(int j = 0; j < cells[i].length; j++) {
                 Cell oCell = cells[i][j];
-                invokeNeighborCells(i,j,(cell -> {
-                    solveCellCollisions(oCell, cell, runnable);
-                }));
+                if(oCell.size == 0) continue;
+
+                // a Cell of sleeping Spheres only has to be solved against Cells that hold an awake Sphere
+                final boolean awake = !skipSleeping || oCell.awake;
+                if(halfNeighborhood) {
+                    if(awake) solveSelfCollisions(oCell, runnable);
+                    for(int n = 1; n < HALF_NEIGHBOR_X.length; n++) {
+                        int nx = i + HALF_NEIGHBOR_X[n], ny = j + HALF_NEIGHBOR_Y[n];
+                        if(validateCellPosition(nx, ny) && (awake || cells[nx][ny].awake)) solveCellCollisions(oCell, cells[nx][ny], runnable);
+                    }
+                    continue;
+                }
+
+                // Same order as invokeNeighborCells but without creating a lambda for every Cell
+                for(int dy = -1; dy <= 1; dy++) {
+                    for(int dx = -1; dx <= 1; dx++) {
+                        if(validateCellPosition(i+dx, j+dy) && (awake || cells[i+dx][j+dy].awake)) solveCellCollisions(oCell, cells[i+dx][j+dy], runnable);
+                    }
+                }
             }
         }
     }
@@ -145,13 +493,32 @@ public class VerletGrid implements MultiThreadingSupport {
 //        }
 //    }
     private void solveCellCollisions(VerletGrid.Cell cell_1, VerletGrid.Cell cell_2, TwoSphereRunnable runnable) {
-        for(Sphere sphere_1 : cell_1.getSpheres()) {
-            for(Sphere sphere_2 : cell_2.getSpheres()) {
+        Sphere[] spheres_1 = cell_1.spheres;
+        Sphere[] spheres_2 = cell_2.spheres;
+        for(int i = 0; i < cell_1.size; i++) {
+            Sphere sphere_1 = spheres_1[i];
+            for(int j = 0; j < cell_2.size; j++) {
+                Sphere sphere_2 = spheres_2[j];
                 if(sphere_1 != sphere_2) runnable.run(sphere_1,sphere_2);
             }
         }
     }
 
+    /**
+     * Solves the collisions between the Spheres of one Cell. Every pair is only passed once
+     * @param cell The cell
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    private void solveSelfCollisions(VerletGrid.Cell cell, TwoSphereRunnable runnable) {
+        Sphere[] spheres = cell.spheres;
+        for(int i = 0; i < cell.size; i++) {
+            Sphere sphere_1 = spheres[i];
+            for(int j = i+1; j < cell.size; j++) {
+                runnable.run(sphere_1,spheres[j]);
+            }
+        }
+    }
+
     /**
      * Invokes every Cell, skipping border Cells, and calls the Neighbour Cells on this Cell in order to call the runnable on it
      * @param runnable The runnable which is called by all defined Cells
@@ -210,24 +577,81 @@ public class VerletGrid implements MultiThreadingSupport {
 
     /**
      * A Cell Object represents one Cell in the Grid. They only get instantiated when the VerletGrid gets created.
-     * Can store multiple Sphere Objects
+     * Can store multiple Sphere Objects. The Spheres are kept in a plain array which is reused between steps,
+     * so assigning Spheres does not allocate once the array has grown big enough.
      */
     static class Cell {
-        private final Set<Sphere> spheres = new HashSet<>();
+        private Sphere[] spheres = new Sphere[4];
+        private int[] indices = new int[0];
+        private int size;
+        private boolean awake;
 
         /**
-         * Clear all spheres resetting the sphere Set
+         * Adds a Sphere to the Cell. Grows the array if it is full
+         * @param sphere The Sphere to add
+         */
+        private void add(Sphere sphere) {
+            if(size == spheres.length) spheres = Arrays.copyOf(spheres, size * 2);
+            spheres[size++] = sphere;
+        }
+
+        /**
+         * Adds a Sphere together with its index in the container. Grows both arrays if they are full
+         * @param sphere The Sphere to add
+         * @param index The index of the Sphere in the container
+         * @return the position of the Sphere inside the Cell
+         */
+        private int add(Sphere sphere, int index) {
+            if(indices.length < spheres.length) indices = Arrays.copyOf(indices, spheres.length);
+            if(size == spheres.length) {
+                spheres = Arrays.copyOf(spheres, size * 2);
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            spheres[size] = sphere;
+            indices[size] = index;
+            return size++;
+        }
+
+        /**
+         * Removes the Sphere at a position. The last Sphere of the Cell is moved into the freed position
+         * @param slot the position of the Sphere inside the Cell
+         * @return the index of the Sphere that was moved, or -1 if no Sphere was moved
+         */
+        private int remove(int slot) {
+            int last = --size;
+            int moved = -1;
+            if(slot != last) {
+                spheres[slot] = spheres[last];
+                indices[slot] = indices[last];
+                moved = indices[slot];
+            }
+            spheres[last] = null;
+            return moved;
+        }
+
+        /**
+         * Clear all spheres resetting the sphere array
          */
         private void clear() {
-            spheres.clear();
+            Arrays.fill(spheres, 0, size, null);
+            size = 0;
+        }
+
+        /**
+         * Returns the amount of stored spheres
+         * @return the amount of spheres inside the Cell
+         */
+        public int size() {
+            return size;
         }
 
         /**
-         * Returns all stores spheres
-         * @return all spheres in the form of a Set
+         * Returns one of the stored spheres
+         * @param index the index of the sphere inside the Cell
+         * @return the sphere at the index
          */
-        public Set<Sphere> getSpheres() {
-            return spheres;
+        public Sphere getSphere(int index) {
+            return spheres[index];
         }
     }
 }
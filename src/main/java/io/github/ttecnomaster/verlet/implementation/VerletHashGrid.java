@@ -0,0 +1,426 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+import java.util.Arrays;
+
+/**
+ * A VerletHashGrid is an unbounded grid. Unlike the {@link VerletGrid} it does not cover a fixed area,
+ * every Sphere takes part in collisions no matter how far it travels.
+ * Only occupied cells are stored. They are found through an open addressing hash table which is keyed by the integer coordinates of the cell.
+ * Every array is a primitive array whose size depends on the amount of Spheres, so the memory is proportional to the occupied cells
+ * and not to the size of the world. Once the arrays have grown big enough, updating does not allocate.
+ * The radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+ * <p>
+ * Phased scheduling and the half neighborhood traversal work the same way as described in {@link VerletGrid}.
+ * As the grid has no bounds, the stripes are counted from the cell column 0 in both directions.
+ *
+ * @author tecno-master
+ * @see VerletGrid
+ * @see IndexBroadphase
+ * @see Solver
+ * @version 1.0.0
+ */
+public class VerletHashGrid implements IndexBroadphase, QueryBroadphase {
+    private final float radius;
+    private boolean phased = true;
+    private boolean halfNeighborhood;
+
+    // Open addressing hash table. Every entry holds the id of an occupied cell or -1 and the packed coordinates of that cell
+    private int[] table = new int[0];
+    private long[] tableKeys = new long[0];
+    private int mask;
+
+    // Occupied cells by id. cellStart[id] is the offset of the first Sphere of the cell inside cellSpheres, cellStart[id+1] the end
+    private int[] cellX = new int[0], cellY = new int[0], cellStripe = new int[0];
+    private int[] cellStart = new int[1];
+    private int cellCount;
+
+    private int[] cellSpheres = new int[0];
+    private int[] sphereCells = new int[0];
+    private VerletContainer container;
+
+    private static final int STRIPE_COLORS = 2;
+
+    /**
+     * Defines the size of the cells of an unbounded grid
+     *
+     * @param radius defines the size of one grid cell. No Sphere is allowed to be bigger than that defined radius
+     */
+    public VerletHashGrid(float radius) {
+        this.radius = radius * 2;
+    }
+
+    /**
+     * Enables/Disables the phased scheduling of the grid. Default is true.
+     * See {@link VerletGrid#setPhasedScheduling(boolean)}
+     * @param phased If true the collisions are solved in colored stripes
+     */
+    public void setPhasedScheduling(boolean phased) {
+        this.phased = phased;
+    }
+
+    /**
+     * Returns whether the grid solves its collisions in colored stripes
+     * @return true if phased scheduling is enabled
+     */
+    @Override
+    public boolean isPhasedScheduling() {
+        return phased;
+    }
+
+    /**
+     * Enables/Disables the half neighborhood traversal of the grid. Default is false.
+     * See {@link VerletGrid#setHalfNeighborhood(boolean)}
+     * @param halfNeighborhood If true every pair of Spheres is only passed once
+     */
+    public void setHalfNeighborhood(boolean halfNeighborhood) {
+        this.halfNeighborhood = halfNeighborhood;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is only passed once
+     * @return true if the half neighborhood traversal is enabled
+     */
+    public boolean isHalfNeighborhood() {
+        return halfNeighborhood;
+    }
+
+    /**
+     * Returns whether every pair of Spheres is passed twice, which is the case unless the half neighborhood traversal is enabled
+     * @return true if the half neighborhood traversal is disabled
+     */
+    @Override
+    public boolean isPassingPairsTwice() {
+        return !halfNeighborhood;
+    }
+
+    /**
+     * Returns the amount of cells that were occupied during the last update
+     * @return the amount of occupied cells
+     */
+    public int getOccupiedCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Hashes every Sphere of the container into its cell and sorts the Spheres by their cell using a counting sort.
+     * @param container The Container from which the Spheres should be assigned
+     */
+    @Override
+    public void update(VerletContainer container) {
+        this.container = container;
+        final int count = container.getSphereCount();
+        ensureCapacity(count);
+        Arrays.fill(table, -1);
+        cellCount = 0;
+
+        // Find the cell of every Sphere and count the Spheres per cell
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            for(int i = 0; i < count; i++) countSphere(i, scene.x[i], scene.y[i]);
+        } else {
+            for(int i = 0; i < count; i++) {
+                Sphere sphere = container.getSphere(i);
+                countSphere(i, sphere.getX(), sphere.getY());
+            }
+        }
+
+        // Turn the counts into the end offset of every cell
+        for(int c = 1; c < cellCount; c++) cellStart[c] += cellStart[c-1];
+        cellStart[cellCount] = cellCount > 0 ? cellStart[cellCount-1] : 0;
+
+        // Place the Spheres backwards, so every cell keeps the order of the container and cellStart ends up at the start offsets
+        for(int i = count - 1; i >= 0; i--) {
+            cellSpheres[--cellStart[sphereCells[i]]] = i;
+        }
+    }
+
+    /**
+     * Grows every array so that the given amount of Spheres fits. The hash table is kept at most half full
+     * @param count the amount of Spheres
+     */
+    private void ensureCapacity(int count) {
+        if(sphereCells.length >= count) return;
+        int capacity = Math.max(count, sphereCells.length * 2);
+        sphereCells = new int[capacity];
+        cellSpheres = new int[capacity];
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        cellStripe = new int[capacity];
+        cellStart = new int[capacity + 1];
+
+        int tableSize = Integer.highestOneBit(Math.max(8, capacity) * 2 - 1) * 2;
+        table = new int[tableSize];
+        tableKeys = new long[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Finds or creates the cell of one Sphere and counts it
+     * @param index the index of the Sphere
+     * @param px the X Position of the Sphere
+     * @param py the Y Position of the Sphere
+     */
+    private void countSphere(int index, double px, double py) {
+
+        // calculate grid position
+        int cx = (int) Math.floor(px / radius);
+        int cy = (int) Math.floor(py / radius);
+
+        long key = key(cx, cy);
+        int slot = hash(cx, cy);
+        int cell;
+        while((cell = table[slot]) >= 0 && tableKeys[slot] != key) slot = (slot + 1) & mask;
+
+        if(cell < 0) {
+            cell = cellCount++;
+            table[slot] = cell;
+            tableKeys[slot] = key;
+            cellX[cell] = cx;
+            cellY[cell] = cy;
+            cellStripe[cell] = Math.floorDiv(cx, VerletGrid.STRIPE_WIDTH);
+            cellStart[cell] = 0;
+        }
+        sphereCells[index] = cell;
+        cellStart[cell]++;
+    }
+
+    /**
+     * Returns the id of an occupied cell
+     * @param cx the X coordinate of the cell
+     * @param cy the Y coordinate of the cell
+     * @return the id of the cell or -1 if the cell is not occupied
+     */
+    private int findCell(int cx, int cy) {
+        long key = key(cx, cy);
+        int slot = hash(cx, cy);
+        int cell;
+        while((cell = table[slot]) >= 0) {
+            if(tableKeys[slot] == key) return cell;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Packs the coordinates of a cell into one key
+     * @param cx the X coordinate of the cell
+     * @param cy the Y coordinate of the cell
+     * @return the key of the cell
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Hashes the coordinates of a cell into a slot of the hash table
+     * @param cx the X coordinate of the cell
+     * @param cy the Y coordinate of the cell
+     * @return the first slot to probe
+     */
+    private int hash(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA77;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Passes every Sphere of the occupied cells that overlap the rectangle grown by the biggest possible Sphere radius.
+     * If the rectangle covers more cells than are occupied, the occupied cells are searched instead
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable that is called with every Sphere that may overlap the rectangle
+     * @return false if the grid was never updated, as an unbounded grid covers every rectangle
+     */
+    @Override
+    public boolean queryCandidates(double minX, double minY, double maxX, double maxY, SphereRunnable runnable) {
+        if(container == null) return false;
+        final double margin = radius / 2;
+        final int left = (int) Math.floor((minX - margin) / radius), bottom = (int) Math.floor((minY - margin) / radius);
+        final int right = (int) Math.floor((maxX + margin) / radius), top = (int) Math.floor((maxY + margin) / radius);
+        if(((long) right - left + 1) * ((long) top - bottom + 1) > cellCount) {
+            for(int cell = 0; cell < cellCount; cell++) {
+                if(cellX[cell] < left || cellX[cell] > right || cellY[cell] < bottom || cellY[cell] > top) continue;
+                for(int k = cellStart[cell]; k < cellStart[cell + 1]; k++) runnable.run(container.getSphere(cellSpheres[k]));
+            }
+            return true;
+        }
+        for(int cx = left; cx <= right; cx++) {
+            for(int cy = bottom; cy <= top; cy++) {
+                final int cell = findCell(cx, cy);
+                if(cell < 0) continue;
+                for(int k = cellStart[cell]; k < cellStart[cell + 1]; k++) runnable.run(container.getSphere(cellSpheres[k]));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of one cell
+     * @return twice the radius the grid was created with
+     */
+    @Override
+    public double getCellSize() {
+        return radius;
+    }
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * @return the amount of stripe colors if phased scheduling is enabled, otherwise 1
+     */
+    @Override
+    public int getCollisionPhaseCount() {
+        return phased ? STRIPE_COLORS : 1;
+    }
+
+    /**
+     * Implementing this method means,
+     * that individual threads can access and call it in order to solve the correct partition part spheres.
+     * Most implementations use a split up "for loop".
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solveUnphased(partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves every stripe of one color that belongs to a partition.
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solvePhase(phase, partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves every stripe of one color that belongs to a partition and passes the indices of the Spheres.
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two sphere indices which are tested for a collision
+     */
+    @Override
+    public void solveIndexCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable runnable) {
+        solvePhase(phase, partitionIndex, partitionCount, runnable, null);
+    }
+
+    /**
+     * Solves the cells of one phase. Exactly one of both runnables is used.
+     * Stripes of the phase color are dealt out to the partitions one after another.
+     * Every stripe is solved by one partition only, and the cells of a stripe are always solved in the same order.
+     * @param phase The color of the stripes to solve
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solvePhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        if(!phased) {
+            solveUnphased(partitionIndex, partitionCount, indexRunnable, sphereRunnable);
+            return;
+        }
+        for(int cell = 0; cell < cellCount; cell++) {
+            int stripe = cellStripe[cell];
+            if(Math.floorMod(stripe, STRIPE_COLORS) != phase) continue;
+            if(Math.floorMod(Math.floorDiv(stripe, STRIPE_COLORS), partitionCount) != partitionIndex) continue;
+            solveCell(cell, indexRunnable, sphereRunnable);
+        }
+    }
+
+    /**
+     * Solves a contiguous range of cells without any phases
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveUnphased(int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        int partitionSize = (cellCount + partitionCount - 1) / partitionCount; // ceiling division to handle remainder cells
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, cellCount);
+
+        for(int cell = start; cell < end; cell++) solveCell(cell, indexRunnable, sphereRunnable);
+    }
+
+    /**
+     * Solves one occupied cell with its neighbour cells
+     * @param cell the id of the cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveCell(int cell, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int cx = cellX[cell], cy = cellY[cell];
+        if(halfNeighborhood) {
+            solveSelfCollisions(cell, indexRunnable, sphereRunnable);
+            for(int n = 1; n < VerletGrid.HALF_NEIGHBOR_X.length; n++) {
+                int neighbor = findCell(cx + VerletGrid.HALF_NEIGHBOR_X[n], cy + VerletGrid.HALF_NEIGHBOR_Y[n]);
+                if(neighbor >= 0) solveCellCollisions(cell, neighbor, indexRunnable, sphereRunnable);
+            }
+            return;
+        }
+
+        // Same order as the VerletGrid
+        for(int dy = -1; dy <= 1; dy++) {
+            for(int dx = -1; dx <= 1; dx++) {
+                int neighbor = dx == 0 && dy == 0 ? cell : findCell(cx + dx, cy + dy);
+                if(neighbor >= 0) solveCellCollisions(cell, neighbor, indexRunnable, sphereRunnable);
+            }
+        }
+    }
+
+    /**
+     * Solves the collisions between the Spheres of one cell. Every pair is only passed once
+     * @param cell The cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveSelfCollisions(int cell, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] cellSpheres = this.cellSpheres;
+        final int end = cellStart[cell+1];
+        for(int i = cellStart[cell]; i < end; i++) {
+            for(int j = i+1; j < end; j++) {
+                if(indexRunnable != null) indexRunnable.run(cellSpheres[i], cellSpheres[j]);
+                else sphereRunnable.run(container.getSphere(cellSpheres[i]), container.getSphere(cellSpheres[j]));
+            }
+        }
+    }
+
+    /**
+     * Solves the collisions between two cells
+     * @param cell_1 The first cell
+     * @param cell_2 The second cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveCellCollisions(int cell_1, int cell_2, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] cellSpheres = this.cellSpheres;
+        final int end_1 = cellStart[cell_1+1], start_2 = cellStart[cell_2], end_2 = cellStart[cell_2+1];
+        if(indexRunnable != null) {
+            for(int i = cellStart[cell_1]; i < end_1; i++) {
+                int sphere_1 = cellSpheres[i];
+                for(int j = start_2; j < end_2; j++) {
+                    int sphere_2 = cellSpheres[j];
+                    if(sphere_1 != sphere_2) indexRunnable.run(sphere_1, sphere_2);
+                }
+            }
+            return;
+        }
+        for(int i = cellStart[cell_1]; i < end_1; i++) {
+            Sphere sphere_1 = container.getSphere(cellSpheres[i]);
+            for(int j = start_2; j < end_2; j++) {
+                Sphere sphere_2 = container.getSphere(cellSpheres[j]);
+                if(sphere_1 != sphere_2) sphereRunnable.run(sphere_1, sphere_2);
+            }
+        }
+    }
+}
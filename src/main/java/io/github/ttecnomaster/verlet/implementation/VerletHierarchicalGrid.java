@@ -0,0 +1,416 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+import java.util.Arrays;
+
+/**
+ * A VerletHierarchicalGrid is an unbounded grid with multiple levels for Spheres of widely varying radii.
+ * The cells of level 0 are sized by the radius of the grid, every following level doubles the cell size.
+ * Every Sphere is stored on the finest level whose cells are big enough for it, so small Spheres are never forced into coarse cells.
+ * Like the {@link VerletHashGrid} only occupied cells are stored and found through an open addressing hash table.
+ * <p>
+ * Spheres of the same level are tested with the Spheres of their own cell and the 4 "forward" Neighbour Cells,
+ * see {@link VerletGrid#setHalfNeighborhood(boolean)}. A Sphere is tested with the Spheres of every coarser level
+ * by looking at the 3x3 cells around the cell that contains it on that level. Every pair of Spheres is passed exactly once.
+ * <p>
+ * With phased scheduling, which is enabled by default, the same level pairs of every level are solved in the two usual stripe colors.
+ * Afterwards every coarser level gets two more phases for the pairs that reach into it. The stripes are always taken from the coarser level,
+ * so no two threads ever touch the same Sphere concurrently and the result does not depend on the amount of threads.
+ *
+ * @author tecno-master
+ * @see VerletGrid
+ * @see VerletHashGrid
+ * @see IndexBroadphase
+ * @version 1.0.0
+ */
+public class VerletHierarchicalGrid implements IndexBroadphase {
+    private final float radius;
+    private boolean phased = true;
+
+    // Open addressing hash table. Every entry holds the id of an occupied cell or -1, the packed coordinates and the level of that cell
+    private int[] table = new int[0];
+    private long[] tableKeys = new long[0];
+    private int[] tableLevels = new int[0];
+    private int mask;
+
+    // Occupied cells by id. cellStart[id] is the offset of the first Sphere of the cell inside cellSpheres, cellStart[id+1] the end
+    private int[] cellX = new int[0], cellY = new int[0], cellLevel = new int[0];
+    private int[] cellStart = new int[1];
+    private int cellCount;
+    private int levelCount;
+    private final int[] levelSpheres = new int[MAX_LEVELS];
+
+    private int[] cellSpheres = new int[0];
+    private int[] sphereCells = new int[0];
+    private VerletContainer container;
+
+    private static final int STRIPE_COLORS = 2;
+    private static final int MAX_LEVELS = 16;
+
+    /**
+     * Defines the size of the cells of the finest level.
+     *
+     * @param radius defines the size of one cell of level 0. Bigger Spheres are moved to coarser levels automatically
+     */
+    public VerletHierarchicalGrid(float radius) {
+        this.radius = radius * 2;
+    }
+
+    /**
+     * Enables/Disables the phased scheduling of the grid. Default is true.
+     * See {@link VerletGrid#setPhasedScheduling(boolean)}
+     * @param phased If true the collisions are solved in colored stripes
+     */
+    public void setPhasedScheduling(boolean phased) {
+        this.phased = phased;
+    }
+
+    /**
+     * Returns whether the grid solves its collisions in colored stripes
+     * @return true if phased scheduling is enabled
+     */
+    @Override
+    public boolean isPhasedScheduling() {
+        return phased;
+    }
+
+    /**
+     * Returns the amount of levels that were used during the last update
+     * @return the amount of levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Returns the level on which a Sphere with the given radius is stored
+     * @param sphereRadius the radius of the Sphere
+     * @return the finest level whose cells can hold the Sphere
+     */
+    public int getLevel(float sphereRadius) {
+        int level = 0;
+        double size = radius;
+        while(sphereRadius * 2 > size && level < MAX_LEVELS - 1) {
+            size *= 2;
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Hashes every Sphere of the container into its cell on its level and sorts the Spheres by their cell using a counting sort.
+     * @param container The Container from which the Spheres should be assigned
+     */
+    @Override
+    public void update(VerletContainer container) {
+        this.container = container;
+        final int count = container.getSphereCount();
+        ensureCapacity(count);
+        Arrays.fill(table, -1);
+        cellCount = 0;
+        levelCount = 0;
+        Arrays.fill(levelSpheres, 0);
+
+        // Find the cell of every Sphere and count the Spheres per cell
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            for(int i = 0; i < count; i++) countSphere(i, scene.x[i], scene.y[i], scene.radius[i]);
+        } else {
+            for(int i = 0; i < count; i++) {
+                Sphere sphere = container.getSphere(i);
+                countSphere(i, sphere.getX(), sphere.getY(), sphere.getRadius());
+            }
+        }
+
+        // Turn the counts into the end offset of every cell
+        for(int c = 1; c < cellCount; c++) cellStart[c] += cellStart[c-1];
+        cellStart[cellCount] = cellCount > 0 ? cellStart[cellCount-1] : 0;
+
+        // Place the Spheres backwards, so every cell keeps the order of the container and cellStart ends up at the start offsets
+        for(int i = count - 1; i >= 0; i--) {
+            cellSpheres[--cellStart[sphereCells[i]]] = i;
+        }
+    }
+
+    /**
+     * Grows every array so that the given amount of Spheres fits. The hash table is kept at most half full
+     * @param count the amount of Spheres
+     */
+    private void ensureCapacity(int count) {
+        if(sphereCells.length >= count) return;
+        int capacity = Math.max(count, sphereCells.length * 2);
+        sphereCells = new int[capacity];
+        cellSpheres = new int[capacity];
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        cellLevel = new int[capacity];
+        cellStart = new int[capacity + 1];
+
+        int tableSize = Integer.highestOneBit(Math.max(8, capacity) * 2 - 1) * 2;
+        table = new int[tableSize];
+        tableKeys = new long[tableSize];
+        tableLevels = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Finds or creates the cell of one Sphere on its level and counts it
+     * @param index the index of the Sphere
+     * @param px the X Position of the Sphere
+     * @param py the Y Position of the Sphere
+     * @param sphereRadius the radius of the Sphere
+     */
+    private void countSphere(int index, double px, double py, float sphereRadius) {
+        final int level = getLevel(sphereRadius);
+        if(level >= levelCount) levelCount = level + 1;
+        levelSpheres[level]++;
+
+        // calculate grid position on the level
+        final double size = radius * (double) (1 << level);
+        int cx = (int) Math.floor(px / size);
+        int cy = (int) Math.floor(py / size);
+
+        long key = key(cx, cy);
+        int slot = hash(level, cx, cy);
+        int cell;
+        while((cell = table[slot]) >= 0 && (tableKeys[slot] != key || tableLevels[slot] != level)) slot = (slot + 1) & mask;
+
+        if(cell < 0) {
+            cell = cellCount++;
+            table[slot] = cell;
+            tableKeys[slot] = key;
+            tableLevels[slot] = level;
+            cellX[cell] = cx;
+            cellY[cell] = cy;
+            cellLevel[cell] = level;
+            cellStart[cell] = 0;
+        }
+        sphereCells[index] = cell;
+        cellStart[cell]++;
+    }
+
+    /**
+     * Returns the id of an occupied cell
+     * @param level the level of the cell
+     * @param cx the X coordinate of the cell
+     * @param cy the Y coordinate of the cell
+     * @return the id of the cell or -1 if the cell is not occupied
+     */
+    private int findCell(int level, int cx, int cy) {
+        long key = key(cx, cy);
+        int slot = hash(level, cx, cy);
+        int cell;
+        while((cell = table[slot]) >= 0) {
+            if(tableKeys[slot] == key && tableLevels[slot] == level) return cell;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Packs the coordinates of a cell into one key
+     * @param cx the X coordinate of the cell
+     * @param cy the Y coordinate of the cell
+     * @return the key of the cell
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Hashes the level and the coordinates of a cell into a slot of the hash table
+     * @param level the level of the cell
+     * @param cx the X coordinate of the cell
+     * @param cy the Y coordinate of the cell
+     * @return the first slot to probe
+     */
+    private int hash(int level, int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA77 ^ level * 0xC2B2AE3D;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * @return two phases for the same level pairs and two for every coarser level if phased scheduling is enabled, otherwise 1
+     */
+    @Override
+    public int getCollisionPhaseCount() {
+        return phased ? STRIPE_COLORS * Math.max(1, levelCount) : 1;
+    }
+
+    /**
+     * Implementing this method means,
+     * that individual threads can access and call it in order to solve the correct partition part spheres.
+     * Most implementations use a split up "for loop".
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solveUnphased(partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves the part of one phase that belongs to a partition.
+     * @param phase The index of the phase
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solvePhase(phase, partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves the part of one phase that belongs to a partition and passes the indices of the Spheres.
+     * @param phase The index of the phase
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two sphere indices which are tested for a collision
+     */
+    @Override
+    public void solveIndexCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable runnable) {
+        solvePhase(phase, partitionIndex, partitionCount, runnable, null);
+    }
+
+    /**
+     * Solves one phase. Exactly one of both runnables is used.
+     * The first two phases solve the same level pairs of every level, phase 2 and 3 the pairs reaching into level 1 and so on.
+     * Stripes of the phase color are dealt out to the partitions one after another.
+     * @param phase The index of the phase
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solvePhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        if(!phased) {
+            solveUnphased(partitionIndex, partitionCount, indexRunnable, sphereRunnable);
+            return;
+        }
+        final int color = phase % STRIPE_COLORS;
+        final int coarseLevel = phase / STRIPE_COLORS;
+        // phase 0 and 1 solve the same level pairs of every level, so they run even if level 0 is empty
+        if(coarseLevel > 0 && levelSpheres[coarseLevel] == 0) return;
+        for(int cell = 0; cell < cellCount; cell++) {
+            int level = cellLevel[cell];
+            if(coarseLevel == 0) {
+                if(ownsStripe(cellX[cell], color, partitionIndex, partitionCount)) solveSameLevel(cell, indexRunnable, sphereRunnable);
+            } else if(level < coarseLevel) {
+                if(ownsStripe(cellX[cell] >> (coarseLevel - level), color, partitionIndex, partitionCount)) solveCoarseLevel(cell, coarseLevel, indexRunnable, sphereRunnable);
+            }
+        }
+    }
+
+    /**
+     * Checks if the stripe of a column has the given color and belongs to the given partition
+     * @param column the column of a cell
+     * @param color the color of the current phase
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @return true if the partition has to solve the column in this phase
+     */
+    private static boolean ownsStripe(int column, int color, int partitionIndex, int partitionCount) {
+        int stripe = Math.floorDiv(column, VerletGrid.STRIPE_WIDTH);
+        return Math.floorMod(stripe, STRIPE_COLORS) == color && Math.floorMod(Math.floorDiv(stripe, STRIPE_COLORS), partitionCount) == partitionIndex;
+    }
+
+    /**
+     * Solves a contiguous range of cells without any phases
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveUnphased(int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        int partitionSize = (cellCount + partitionCount - 1) / partitionCount; // ceiling division to handle remainder cells
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, cellCount);
+
+        for(int cell = start; cell < end; cell++) {
+            solveSameLevel(cell, indexRunnable, sphereRunnable);
+            for(int level = cellLevel[cell] + 1; level < levelCount; level++) {
+                if(levelSpheres[level] > 0) solveCoarseLevel(cell, level, indexRunnable, sphereRunnable);
+            }
+        }
+    }
+
+    /**
+     * Solves one cell with itself and its 4 "forward" Neighbour Cells of the same level
+     * @param cell the id of the cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveSameLevel(int cell, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int cx = cellX[cell], cy = cellY[cell], level = cellLevel[cell];
+        solveSelfCollisions(cell, indexRunnable, sphereRunnable);
+        for(int n = 1; n < VerletGrid.HALF_NEIGHBOR_X.length; n++) {
+            int neighbor = findCell(level, cx + VerletGrid.HALF_NEIGHBOR_X[n], cy + VerletGrid.HALF_NEIGHBOR_Y[n]);
+            if(neighbor >= 0) solveCellCollisions(cell, neighbor, indexRunnable, sphereRunnable);
+        }
+    }
+
+    /**
+     * Solves the Spheres of one cell with the Spheres of a coarser level.
+     * Looks at the 3x3 cells around the cell of the coarser level that contains the finer cell.
+     * @param cell the id of the finer cell
+     * @param coarseLevel the coarser level
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveCoarseLevel(int cell, int coarseLevel, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int shift = coarseLevel - cellLevel[cell];
+        final int cx = cellX[cell] >> shift, cy = cellY[cell] >> shift;
+        for(int dy = -1; dy <= 1; dy++) {
+            for(int dx = -1; dx <= 1; dx++) {
+                int neighbor = findCell(coarseLevel, cx + dx, cy + dy);
+                if(neighbor >= 0) solveCellCollisions(cell, neighbor, indexRunnable, sphereRunnable);
+            }
+        }
+    }
+
+    /**
+     * Solves the collisions between the Spheres of one cell. Every pair is only passed once
+     * @param cell The cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveSelfCollisions(int cell, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] cellSpheres = this.cellSpheres;
+        final int end = cellStart[cell+1];
+        for(int i = cellStart[cell]; i < end; i++) {
+            for(int j = i+1; j < end; j++) {
+                if(indexRunnable != null) indexRunnable.run(cellSpheres[i], cellSpheres[j]);
+                else sphereRunnable.run(container.getSphere(cellSpheres[i]), container.getSphere(cellSpheres[j]));
+            }
+        }
+    }
+
+    /**
+     * Solves the collisions between two different cells
+     * @param cell_1 The first cell
+     * @param cell_2 The second cell
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveCellCollisions(int cell_1, int cell_2, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] cellSpheres = this.cellSpheres;
+        final int end_1 = cellStart[cell_1+1], start_2 = cellStart[cell_2], end_2 = cellStart[cell_2+1];
+        if(indexRunnable != null) {
+            for(int i = cellStart[cell_1]; i < end_1; i++) {
+                int sphere_1 = cellSpheres[i];
+                for(int j = start_2; j < end_2; j++) indexRunnable.run(sphere_1, cellSpheres[j]);
+            }
+            return;
+        }
+        for(int i = cellStart[cell_1]; i < end_1; i++) {
+            Sphere sphere_1 = container.getSphere(cellSpheres[i]);
+            for(int j = start_2; j < end_2; j++) sphereRunnable.run(sphere_1, container.getSphere(cellSpheres[j]));
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+import java.util.Arrays;
+
+/**
+ * The VerletNeighborList is a {@link Broadphase} that remembers the candidate pairs of Spheres between updates.
+ * The pairs are found once by another Broadphase, the source, and every pair whose Spheres are closer than
+ * the sum of their radii plus a skin distance is stored in a flat list.
+ * The list is reused for every following sub step and step until one Sphere has moved more than half of the skin distance
+ * since the list was built, or until Spheres were added or removed. Until then no pair can start to overlap
+ * without being part of the list, so the collisions are the same as if the source would be updated every sub step.
+ * <p>
+ * A bigger skin means fewer rebuilds but more stored pairs that are tested every sub step.
+ * About a tenth to a half of the radius of the Spheres is usually a good choice.
+ * <p>
+ * The list only pays off if the Spheres move much less than half of the skin per sub step, for example in a settled pile,
+ * a crowd or a scene without gravity. It is then only rebuilt every few steps and the broadphase mostly costs the pass over the stored pairs.
+ * Spheres that keep falling or shifting, like a pile that is still settling, rebuild the list every sub step or two,
+ * and as the stored pairs are more than the ones of a grid, the list is then slower than a {@link VerletCountingGrid} that is updated every sub step.
+ * {@link VerletNeighborList#getRebuildCount()} tells how often the list was rebuilt.
+ * <p>
+ * The stored pairs are solved with phased scheduling like described in {@link VerletGrid}.
+ * Every pair is put into a stripe by the position of its first Sphere when the list was built.
+ * The stripes are twice as wide as the longest pair, so two pairs of different stripes of the same color never share a Sphere.
+ * The stripes of each color are dealt to {@link VerletNeighborList#LANES} lanes, and a lane is always solved as a whole by one thread,
+ * so the result does not depend on the amount of threads.
+ *
+ * @author tecno-master
+ * @see Broadphase
+ * @see VerletHashGrid
+ * @see Solver
+ * @version 1.0.0
+ */
+public class VerletNeighborList implements IndexBroadphase {
+    /**
+     * The amount of lanes into which the pairs of every phase are sorted. Threads beyond this amount stay idle
+     */
+    public static final int LANES = 64;
+
+    private static final int STRIPE_COLORS = 2;
+
+    private final float skin;
+    private IndexBroadphase source;
+    private final boolean ownSource;
+    private float sourceRadius;
+
+    // The pairs are stored one after another, pairs[2k] and pairs[2k+1] are the indices of both Spheres of pair k.
+    // The pairs of lane l in phase p are found from laneStart[p * LANES + l] to laneStart[p * LANES + l + 1]
+    private int[] pairs = new int[0];
+    private int[] foundPairs = new int[0];
+    private int[] pairLanes = new int[0];
+    private int pairCount;
+    private final int[] laneStart = new int[STRIPE_COLORS * LANES + 1];
+
+    // The positions of the Spheres when the list was built
+    private double[] buildX = new double[0], buildY = new double[0];
+    private float[] buildRadius = new float[0];
+    private int buildSpheres = -1;
+    private int buildModifications;
+    private int rebuilds;
+
+    private VerletContainer container;
+    private final TwoIndexRunnable collectRunnable = this::collect;
+
+    /**
+     * Creates a neighbor list which finds its pairs with an own {@link VerletHashGrid}.
+     * The cells of that grid are sized automatically by the biggest Sphere and the skin
+     * and use the half neighborhood traversal.
+     *
+     * @param skin the distance that is added to the radii of two Spheres to decide whether they are stored as a pair
+     */
+    public VerletNeighborList(float skin) {
+        this.skin = skin;
+        this.ownSource = true;
+    }
+
+    /**
+     * Creates a neighbor list which finds its pairs with the given source.
+     * Every Sphere has to be smaller than the radius of the source minus half of the skin,
+     * otherwise pairs in the skin distance may be missed.
+     *
+     * @param source the Broadphase that finds the pairs when the list is built
+     * @param skin the distance that is added to the radii of two Spheres to decide whether they are stored as a pair
+     */
+    public VerletNeighborList(IndexBroadphase source, float skin) {
+        this.skin = skin;
+        this.source = source;
+        this.ownSource = false;
+    }
+
+    /**
+     * Returns the skin distance
+     * @return the distance that is added to the radii of two Spheres
+     */
+    public float getSkin() {
+        return skin;
+    }
+
+    /**
+     * Returns how often the list was built
+     * @return the amount of rebuilds so far
+     */
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * Returns the amount of pairs that are currently stored
+     * @return the amount of pairs
+     */
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Rebuilds the list if a Sphere has moved more than half of the skin since the last build
+     * or if Spheres were added or removed. Otherwise nothing is done.
+     * @param container The Container from which the pairs should be found
+     */
+    @Override
+    public void update(VerletContainer container) {
+        if(container != this.container || needsRebuild(container)) build(container);
+    }
+
+    /**
+     * Checks whether the list is outdated
+     * @param container The Container from which the pairs were found
+     * @return true if Spheres were added or removed or if one Sphere has moved more than half of the skin
+     */
+    private boolean needsRebuild(VerletContainer container) {
+        final int n = container.getSphereCount();
+        if(n != buildSpheres || container.getModificationCount() != buildModifications) return true;
+
+        final double limit = skin * skin * 0.25;
+        final double[] buildX = this.buildX, buildY = this.buildY;
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            final double[] x = scene.x, y = scene.y;
+            for(int i = 0; i < n; i++) {
+                double dx = x[i] - buildX[i], dy = y[i] - buildY[i];
+                if(dx * dx + dy * dy > limit) return true;
+            }
+        } else {
+            for(int i = 0; i < n; i++) {
+                Sphere sphere = container.getSphere(i);
+                double dx = sphere.getX() - buildX[i], dy = sphere.getY() - buildY[i];
+                if(dx * dx + dy * dy > limit) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds every pair with the source and stores the pairs that are close enough, sorted by phase and lane
+     * @param container The Container from which the pairs should be found
+     */
+    private void build(VerletContainer container) {
+        this.container = container;
+        final int n = container.getSphereCount();
+        if(buildX.length < n) {
+            int capacity = Math.max(n, buildX.length * 2);
+            buildX = new double[capacity];
+            buildY = new double[capacity];
+            buildRadius = new float[capacity];
+        }
+        float maxRadius = 0;
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            System.arraycopy(scene.x, 0, buildX, 0, n);
+            System.arraycopy(scene.y, 0, buildY, 0, n);
+            System.arraycopy(scene.radius, 0, buildRadius, 0, n);
+        } else {
+            for(int i = 0; i < n; i++) {
+                Sphere sphere = container.getSphere(i);
+                buildX[i] = sphere.getX();
+                buildY[i] = sphere.getY();
+                buildRadius[i] = sphere.getRadius();
+            }
+        }
+        for(int i = 0; i < n; i++) maxRadius = Math.max(maxRadius, buildRadius[i]);
+        buildSpheres = n;
+        buildModifications = container.getModificationCount();
+        rebuilds++;
+
+        // The own grid is only replaced if the Spheres have outgrown its cells
+        if(ownSource && (source == null || maxRadius + skin * 0.5f > sourceRadius)) {
+            sourceRadius = maxRadius + skin * 0.5f;
+            VerletHashGrid grid = new VerletHashGrid(sourceRadius);
+            grid.setHalfNeighborhood(true);
+            source = grid;
+        }
+
+        // Find every pair in the order of the source
+        pairCount = 0;
+        source.update(container);
+        for(int phase = 0; phase < source.getCollisionPhaseCount(); phase++) {
+            source.solveIndexCollisionPhase(phase, 0, 1, collectRunnable);
+        }
+
+        // Sort the pairs by lane with a stable counting sort
+        final double stripeWidth = (maxRadius * 2 + skin) * 2;
+        final int[] found = foundPairs, lanes = pairLanes, laneStart = this.laneStart;
+        Arrays.fill(laneStart, 0);
+        for(int k = 0; k < pairCount; k++) {
+            int stripe = (int) Math.floor(buildX[found[k * 2]] / stripeWidth);
+            int lane = Math.floorMod(stripe, STRIPE_COLORS) * LANES + Math.floorMod(Math.floorDiv(stripe, STRIPE_COLORS), LANES);
+            lanes[k] = lane;
+            laneStart[lane + 1]++;
+        }
+        for(int lane = 0; lane < STRIPE_COLORS * LANES; lane++) laneStart[lane + 1] += laneStart[lane];
+        if(pairs.length < found.length) pairs = new int[found.length];
+        for(int k = 0; k < pairCount; k++) {
+            int target = laneStart[lanes[k]]++;
+            pairs[target * 2] = found[k * 2];
+            pairs[target * 2 + 1] = found[k * 2 + 1];
+        }
+        // Every start was moved to the end of its lane, shift them back
+        System.arraycopy(laneStart, 0, laneStart, 1, STRIPE_COLORS * LANES);
+        laneStart[0] = 0;
+    }
+
+    /**
+     * Stores a pair that was found by the source if both Spheres are closer than their radii plus the skin
+     * @param index_1 The index of the first Sphere
+     * @param index_2 The index of the second Sphere
+     */
+    private void collect(int index_1, int index_2) {
+        double dx = buildX[index_1] - buildX[index_2];
+        double dy = buildY[index_1] - buildY[index_2];
+        double distance = buildRadius[index_1] + buildRadius[index_2] + skin;
+        if(dx * dx + dy * dy >= distance * distance) return;
+
+        if(foundPairs.length < pairCount * 2 + 2) {
+            int capacity = Math.max(64, foundPairs.length * 2);
+            foundPairs = Arrays.copyOf(foundPairs, capacity);
+            pairLanes = Arrays.copyOf(pairLanes, capacity / 2);
+        }
+        foundPairs[pairCount * 2] = index_1;
+        foundPairs[pairCount * 2 + 1] = index_2;
+        pairCount++;
+    }
+
+    /**
+     * Returns whether the collisions are solved in phases. The lanes of a phase never share a Sphere
+     * @return always true
+     */
+    @Override
+    public boolean isPhasedScheduling() {
+        return true;
+    }
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * @return always 2, one phase for each stripe color
+     */
+    @Override
+    public int getCollisionPhaseCount() {
+        return STRIPE_COLORS;
+    }
+
+    /**
+     * Implementing this method means,
+     * that individual threads can access and call it in order to solve the correct partition part spheres.
+     * Most implementations use a split up "for loop".
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        for(int phase = 0; phase < STRIPE_COLORS; phase++) solveLanes(phase, partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves the lanes of one phase that belong to a partition.
+     * @param phase The index of the phase. Has to be smaller than {@link VerletNeighborList#getCollisionPhaseCount()}
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solveLanes(phase, partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Solves the lanes of one phase that belong to a partition and passes the indices of the Spheres.
+     * @param phase The index of the phase. Has to be smaller than {@link VerletNeighborList#getCollisionPhaseCount()}
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two sphere indices which are tested for a collision
+     */
+    @Override
+    public void solveIndexCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable runnable) {
+        solveLanes(phase, partitionIndex, partitionCount, runnable, null);
+    }
+
+    /**
+     * Passes every stored pair of the lanes of one phase that belong to a partition. Exactly one of both runnables is used.
+     * The lanes are split into contiguous ranges, one for each partition
+     * @param phase The index of the phase
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solveLanes(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        int partitionSize = (LANES + partitionCount - 1) / partitionCount; // ceiling division to handle remainder lanes
+        int firstLane = Math.min(partitionIndex * partitionSize, LANES);
+        int lastLane = Math.min(firstLane + partitionSize, LANES);
+        final int[] pairs = this.pairs;
+        final int start = laneStart[phase * LANES + firstLane], end = laneStart[phase * LANES + lastLane];
+        if(indexRunnable != null) {
+            for(int k = start; k < end; k++) indexRunnable.run(pairs[k * 2], pairs[k * 2 + 1]);
+        } else {
+            for(int k = start; k < end; k++) sphereRunnable.run(container.getSphere(pairs[k * 2]), container.getSphere(pairs[k * 2 + 1]));
+        }
+    }
+}
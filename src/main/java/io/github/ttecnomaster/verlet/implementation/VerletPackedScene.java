@@ -0,0 +1,578 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The VerletPackedScene is an implementation of the {@link Scene} interface which stores its Spheres in a structure of arrays.
+ * Instead of holding one object per Sphere, positions, old positions, accelerations, radii and weights are stored
+ * in primitive columns which are indexed by slot. Every Sphere of the scene is represented by a lightweight {@link VerletPackedSphere} handle.
+ * The {@link VerletSolver} detects a VerletPackedScene and runs directly over its columns which avoids pointer chasing for large amounts of Spheres.
+ * Spheres can only be created by the scene itself using {@link VerletPackedScene#addSphere(double, double, float)}.
+ * Because the solver bypasses the handles, custom Sphere behaviour (for example an overridden updatePosition) is not supported.
+ * Static Spheres never move, so they are stored as normal Sphere objects outside the columns.
+ *
+ * @author tecno-master
+ * @see Scene
+ * @see VerletPackedSphere
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+public class VerletPackedScene implements Scene {
+    // The columns are accessed directly by the VerletSolver fast path
+    double[] x, y;
+    double[] lx, ly;
+    double[] ax, ay;
+    float[] radius, weight;
+    boolean[] kinematic;
+    private VerletPackedSphere[] handles;
+    private final List<Sphere> staticSpheres;
+    private int count;
+    private int modifications, staticModifications;
+    private final VerletConstraintIndex constraints;
+
+    // Reused by sortSpheres
+    private final MortonOrder mortonOrder = new MortonOrder();
+    private double[] scratch = new double[0];
+    private float[] floatScratch = new float[0];
+    private boolean[] booleanScratch = new boolean[0];
+    private VerletPackedSphere[] handleScratch = new VerletPackedSphere[0];
+
+    /**
+     * Cannot be instanced! <br>
+     * Use {@link Verlet#createPackedScene(int)} instead!
+     */
+    private VerletPackedScene() {
+        this.constraints = new VerletConstraintIndex();
+        this.staticSpheres = new ArrayList<>();
+        this.handles = new VerletPackedSphere[0];
+        this.x = new double[0];
+        this.y = new double[0];
+        this.lx = new double[0];
+        this.ly = new double[0];
+        this.ax = new double[0];
+        this.ay = new double[0];
+        this.radius = new float[0];
+        this.weight = new float[0];
+        this.kinematic = new boolean[0];
+    }
+
+    /**
+     * Ensures that the scene can hold at least the given amount of Spheres without growing its columns
+     * @param capacity the minimum amount of Spheres the scene can hold
+     */
+    public void ensureCapacity(int capacity) {
+        if(capacity <= handles.length) return;
+        this.x = Arrays.copyOf(x, capacity);
+        this.y = Arrays.copyOf(y, capacity);
+        this.lx = Arrays.copyOf(lx, capacity);
+        this.ly = Arrays.copyOf(ly, capacity);
+        this.ax = Arrays.copyOf(ax, capacity);
+        this.ay = Arrays.copyOf(ay, capacity);
+        this.radius = Arrays.copyOf(radius, capacity);
+        this.weight = Arrays.copyOf(weight, capacity);
+        this.kinematic = Arrays.copyOf(kinematic, capacity);
+        this.handles = Arrays.copyOf(handles, capacity);
+    }
+
+    /**
+     * Creates a new Sphere inside the next free slot and adds it to the scene.
+     * Grows the columns if the capacity is exceeded.
+     *
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @return the handle of the new Sphere
+     */
+    @Override
+    public Sphere addSphere(double x, double y, float radius) {
+        return addSphere(x, y, radius, BodyType.DYNAMIC);
+    }
+
+    /**
+     * Creates a new Sphere of a specific BodyType and adds it to the scene.
+     * Dynamic and kinematic Spheres are stored in the next free slot, static Spheres are stored as normal Sphere objects.
+     *
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @param bodyType decides how the Solver moves the Sphere
+     * @return the handle of the new Sphere, or the new static Sphere
+     */
+    @Override
+    public Sphere addSphere(double x, double y, float radius, BodyType bodyType) {
+        if(bodyType == BodyType.STATIC) {
+            VerletSphere sphere = new VerletSphere();
+            sphere.setAttributes(x,y,radius);
+            sphere.setBodyType(bodyType);
+            staticSpheres.add(sphere);
+            modifications++;
+            staticModifications++;
+            return sphere;
+        }
+        if(count == handles.length) ensureCapacity(Math.max(16, handles.length * 2));
+        int slot = count++;
+        modifications++;
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.lx[slot] = x;
+        this.ly[slot] = y;
+        this.ax[slot] = 0;
+        this.ay[slot] = 0;
+        this.radius[slot] = radius;
+        this.weight[slot] = radius;
+        this.kinematic[slot] = bodyType == BodyType.KINEMATIC;
+        handles[slot] = new VerletPackedSphere(this, slot);
+        return handles[slot];
+    }
+
+    /**
+     * Stores a detached handle of this scene in the next free slot again, instead of creating a new handle.
+     * Used by the {@link VerletParticlePool} to recycle its particles without allocating
+     *
+     * @param handle a detached handle of this scene
+     * @param x the X Position for the Sphere
+     * @param y the Y Position for the Sphere
+     * @param oldX the old X Position for the Sphere
+     * @param oldY the old Y Position for the Sphere
+     * @param radius the radius of the Sphere
+     */
+    void attachSphere(VerletPackedSphere handle, double x, double y, double oldX, double oldY, float radius) {
+        if(count == handles.length) ensureCapacity(Math.max(16, handles.length * 2));
+        int slot = count++;
+        modifications++;
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.lx[slot] = oldX;
+        this.ly[slot] = oldY;
+        this.ax[slot] = 0;
+        this.ay[slot] = 0;
+        this.radius[slot] = radius;
+        this.weight[slot] = radius;
+        this.kinematic[slot] = false;
+        handles[slot] = handle;
+        handle.slot = slot;
+    }
+
+    /**
+     * Creates many dynamic Spheres at once inside the next free slots.
+     * The columns grow at most once and are filled with bulk copies
+     *
+     * @param xs the X Positions for the new Spheres
+     * @param ys the Y Positions for the new Spheres
+     * @param radii the radii of the new Spheres
+     * @return the handles of the new Spheres, in the order of the arrays
+     * @throws IllegalArgumentException if the arrays do not have the same length
+     */
+    @Override
+    public Sphere[] addSpheres(double[] xs, double[] ys, float[] radii) {
+        if(xs.length != ys.length || xs.length != radii.length) throw new IllegalArgumentException("The positions and radii must have the same length!");
+        final int n = xs.length, start = count;
+        if(start + n > handles.length) ensureCapacity(Math.max(start + n, handles.length * 2));
+        System.arraycopy(xs, 0, this.x, start, n);
+        System.arraycopy(ys, 0, this.y, start, n);
+        System.arraycopy(xs, 0, this.lx, start, n);
+        System.arraycopy(ys, 0, this.ly, start, n);
+        System.arraycopy(radii, 0, this.radius, start, n);
+        System.arraycopy(radii, 0, this.weight, start, n);
+        Arrays.fill(this.ax, start, start + n, 0);
+        Arrays.fill(this.ay, start, start + n, 0);
+        Arrays.fill(this.kinematic, start, start + n, false);
+        final Sphere[] added = new Sphere[n];
+        for(int i = 0; i < n; i++) added[i] = handles[start + i] = new VerletPackedSphere(this, start + i);
+        count += n;
+        modifications++;
+        return added;
+    }
+
+    /**
+     * A VerletPackedScene can only hold moving Spheres that were created by itself.
+     * Static Spheres are not packed, so they can be added.
+     * Use {@link VerletPackedScene#addSphere(double, double, float)} instead!
+     *
+     * @param sphere The Sphere to add/spawn
+     * @throws IllegalArgumentException if the Sphere is not static, as foreign Spheres cannot be packed
+     */
+    @Override
+    public void addSphere(Sphere sphere) {
+        if(sphere.getBodyType() != BodyType.STATIC) throw new IllegalArgumentException("A PackedScene can only hold its own Spheres! Please use addSphere(x, y, radius)!");
+        staticSpheres.add(sphere);
+        modifications++;
+        staticModifications++;
+    }
+
+    /**
+     * Removes a Sphere from the scene.
+     * The last Sphere is moved into the freed slot, so removing costs O(1) but changes the order of the Spheres.
+     * The handle of the removed Sphere is detached and must not be used anymore.
+     *
+     * @param sphere The Sphere to remove
+     */
+    @Override
+    public void removeSphere(Sphere sphere) {
+        if(!(sphere instanceof VerletPackedSphere)) {
+            if(staticSpheres.remove(sphere)) {
+                modifications++;
+                staticModifications++;
+            }
+            return;
+        }
+        VerletPackedSphere handle = (VerletPackedSphere) sphere;
+        if(handle.getScene() != this || handle.slot < 0) return;
+
+        int slot = handle.slot;
+        int last = --count;
+        modifications++;
+        if(slot != last) {
+            x[slot] = x[last];
+            y[slot] = y[last];
+            lx[slot] = lx[last];
+            ly[slot] = ly[last];
+            ax[slot] = ax[last];
+            ay[slot] = ay[last];
+            radius[slot] = radius[last];
+            weight[slot] = weight[last];
+            kinematic[slot] = kinematic[last];
+            handles[slot] = handles[last];
+            handles[slot].slot = slot;
+        }
+        handles[last] = null;
+        handle.slot = -1;
+    }
+
+    /**
+     * Removes a Sphere from the Scene, and with cascading every Constraint of the Sphere
+     * @param sphere The Sphere to remove
+     * @param cascadeConstraints If true the Constraints of the Sphere are removed too
+     */
+    @Override
+    public void removeSphere(Sphere sphere, boolean cascadeConstraints) {
+        removeSphere(sphere);
+        if(cascadeConstraints) constraints.removeConstraints(sphere);
+    }
+
+    /**
+     * Returns the amount of Spheres that are currently stored in the scene
+     * @return the amount of occupied slots
+     */
+    @Override
+    public int getSphereCount() {
+        return count;
+    }
+
+    /**
+     * Returns the amount of static Spheres
+     * @return the amount of static Spheres
+     */
+    @Override
+    public int getStaticSphereCount() {
+        return staticSpheres.size();
+    }
+
+    /**
+     * Returns the static Sphere at an index
+     * @param index the index of the static Sphere
+     * @return the static Sphere at the index
+     */
+    @Override
+    public Sphere getStaticSphere(int index) {
+        return staticSpheres.get(index);
+    }
+
+    /**
+     * Returns a counter that changes every time Spheres are added or removed
+     * @return the amount of modifications so far
+     */
+    @Override
+    public int getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Returns a counter that changes every time static Spheres are added or removed
+     * @return the amount of modifications of the static Spheres so far
+     */
+    @Override
+    public int getStaticModificationCount() {
+        return staticModifications;
+    }
+
+    /**
+     * Sorts the slots of every Sphere along a Z-order curve of cells with the given size.
+     * Spheres that are close to each other end up in neighbouring slots, which makes solving their collisions more cache friendly.
+     * Every handle stays valid, only its slot changes.
+     * @param cellSize the size of one cell, usually the size of a grid cell
+     */
+    @Override
+    public void sortSpheres(float cellSize) {
+        if(count < 2) return;
+        final int[] order = mortonOrder.sort(x, y, count, cellSize);
+        if(scratch.length < count) {
+            scratch = new double[handles.length];
+            floatScratch = new float[handles.length];
+            booleanScratch = new boolean[handles.length];
+            handleScratch = new VerletPackedSphere[handles.length];
+        }
+        permute(x, order);
+        permute(y, order);
+        permute(lx, order);
+        permute(ly, order);
+        permute(ax, order);
+        permute(ay, order);
+        permute(radius, order);
+        permute(weight, order);
+        permute(kinematic, order);
+        for(int k = 0; k < count; k++) handleScratch[k] = handles[order[k]];
+        for(int k = 0; k < count; k++) {
+            handles[k] = handleScratch[k];
+            handles[k].slot = k;
+            handleScratch[k] = null;
+        }
+        modifications++;
+    }
+
+    /**
+     * Moves the value of slot order[k] to slot k
+     * @param column the column to rearrange
+     * @param order the new order of the slots
+     */
+    private void permute(double[] column, int[] order) {
+        for(int k = 0; k < count; k++) scratch[k] = column[order[k]];
+        System.arraycopy(scratch, 0, column, 0, count);
+    }
+
+    /**
+     * Moves the value of slot order[k] to slot k
+     * @param column the column to rearrange
+     * @param order the new order of the slots
+     */
+    private void permute(float[] column, int[] order) {
+        for(int k = 0; k < count; k++) floatScratch[k] = column[order[k]];
+        System.arraycopy(floatScratch, 0, column, 0, count);
+    }
+
+    /**
+     * Moves the value of slot order[k] to slot k
+     * @param column the column to rearrange
+     * @param order the new order of the slots
+     */
+    private void permute(boolean[] column, int[] order) {
+        for(int k = 0; k < count; k++) booleanScratch[k] = column[order[k]];
+        System.arraycopy(booleanScratch, 0, column, 0, count);
+    }
+
+    /**
+     * Returns the handle of the Sphere that is stored in a slot
+     * @param slot the slot of the Sphere
+     * @return the handle of the Sphere
+     */
+    @Override
+    public Sphere getSphere(int slot) {
+        return handles[slot];
+    }
+
+    /**
+     * Gets the X Position of a slot.
+     * @param slot the slot of the Sphere
+     * @return the value that is returned
+     */
+    public double getX(int slot) {
+        return x[slot];
+    }
+
+    /**
+     * Gets the Y Position of a slot.
+     * @param slot the slot of the Sphere
+     * @return the value that is returned
+     */
+    public double getY(int slot) {
+        return y[slot];
+    }
+
+    /**
+     * Sets the X Position of a slot.
+     * @param slot the slot of the Sphere
+     * @param x The value to set
+     */
+    public void setX(int slot, double x) {
+        this.x[slot] = x;
+    }
+
+    /**
+     * Sets the Y Position of a slot.
+     * @param slot the slot of the Sphere
+     * @param y The value to set
+     */
+    public void setY(int slot, double y) {
+        this.y[slot] = y;
+    }
+
+    /**
+     * Gets the radius of a slot
+     * @param slot the slot of the Sphere
+     * @return the value that is returned
+     */
+    public float getRadius(int slot) {
+        return radius[slot];
+    }
+
+    /**
+     * Gets the weight of a slot
+     * @param slot the slot of the Sphere
+     * @return the value that is returned
+     */
+    public float getWeight(int slot) {
+        return weight[slot];
+    }
+
+    /**
+     * Returns the slot in which a handle of this scene is currently stored.
+     * The slot changes when Spheres are removed or sorted, see {@link VerletPackedScene#getModificationCount()}
+     * @param sphere the handle of the Sphere
+     * @return the slot of the handle, or -1 if the Sphere is not stored in a slot of this scene
+     */
+    public int getSlot(Sphere sphere) {
+        if(!(sphere instanceof VerletPackedSphere)) return -1;
+        VerletPackedSphere handle = (VerletPackedSphere) sphere;
+        return handle.getScene() == this ? handle.slot : -1;
+    }
+
+    /**
+     * Updates the position of one slot according to the verlet formula.
+     * @param slot the slot to update
+     * @param dt the amount of "time" to step forwards
+     */
+    void updatePosition(int slot, float dt) {
+
+        // Calculate current velocity
+        double vx = x[slot] - lx[slot];
+        double vy = y[slot] - ly[slot];
+
+        // Update last position
+        lx[slot] = x[slot];
+        ly[slot] = y[slot];
+
+        // Update actual position
+        x[slot] = x[slot] + vx + ax[slot] * dt * dt;
+        y[slot] = y[slot] + vy + ay[slot] * dt * dt;
+
+        // reset acceleration variable
+        ax[slot] = 0;
+        ay[slot] = 0;
+    }
+
+    /**
+     * Adds a Constraint to the Scene
+     * @param constraint The Constraint to add
+     */
+    @Override
+    public void addConstraint(Constraint constraint) {
+        this.constraints.add(constraint);
+    }
+
+    /**
+     * Removes a Constraint from the Scene. The last Constraint takes its place
+     * @param constraint The Constraint to remove
+     */
+    @Override
+    public void removeConstraint(Constraint constraint) {
+        this.constraints.remove(constraint);
+    }
+
+    /**
+     * Invokes every Sphere and calls the runnable
+     * @param runnable The Runnable which is called by every Sphere
+     */
+    @Override
+    public void invokeSpheres(SphereRunnable runnable) {
+        for(int i = 0; i < count; i++) {
+            runnable.run(handles[i]);
+        }
+    }
+
+    /**
+     * Invokes every Sphere that belongs to a partition and calls the runnable.
+     * The slots are split into contiguous ranges, one for each partition.
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The Runnable which is called by every Sphere of the partition
+     */
+    @Override
+    public void invokeSpheres(int partitionIndex, int partitionCount, SphereRunnable runnable) {
+        int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, count);
+
+        for(int i = start; i < end; i++) {
+            runnable.run(handles[i]);
+        }
+    }
+
+    /**
+     * Invokes every Sphere with each Sphere exactly once and calls the runnable
+     * @param runnable The Runnable which is called by every Sphere Pairs
+     */
+    @Override
+    @Deprecated
+    public void invokeSpheresWithSpheres(TwoSphereRunnable runnable) {
+        for(int i = 0; i < count; ++i) {
+            for(int j = i+1; j < count; ++j) {
+                runnable.run(handles[i],handles[j]);
+            }
+        }
+    }
+
+    /**
+     * Invokes every Constraint and calls the runnable
+     * @param runnable The Runnable which is called by every Constraint
+     */
+    @Override
+    public void invokeConstraints(ConstraintRunnable runnable) {
+        for(int i = 0; i < constraints.size(); i++) {
+            runnable.run(constraints.get(i));
+        }
+    }
+
+    /**
+     * Implementing this method means,
+     * that individual threads can access and call it in order to solve the correct partition part spheres.
+     * Most implementations use a split up "for loop".
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, count);
+
+        for(int i = start; i < end; i++) {
+            for(int j = i+1; j < count; ++j) {
+                runnable.run(handles[i],handles[j]);
+            }
+        }
+    }
+
+    /**
+     * Index based variant of {@link VerletPackedScene#solveCollisionPartition(int, int, TwoSphereRunnable)}.
+     * Passes slots instead of handles, so the runnable can work directly on the columns.
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two slots which are tested for a collision
+     */
+    public void solveSlotCollisionPartition(int partitionIndex, int partitionCount, TwoIndexRunnable runnable) {
+        int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, count);
+
+        for(int i = start; i < end; i++) {
+            for(int j = i+1; j < count; ++j) {
+                runnable.run(i,j);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.BodyType;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+
+/**
+ * VerletPackedSphere is a lightweight handle implementation of the {@link Sphere} interface.
+ * It does not store any physics data itself. Instead, it points at a slot of a {@link VerletPackedScene}
+ * where positions, old positions, accelerations, radius and weight are stored in primitive columns.
+ * The slot of a handle can change when the scene moves its data around (for example when another Sphere gets removed),
+ * the handle itself always stays valid as long as the Sphere is part of the scene.
+ * Once the Sphere is removed from its scene the handle is detached and must not be used anymore, unless a {@link VerletParticlePool} attaches it again.
+ *
+ * @author tecno-master
+ * @see VerletPackedScene
+ * @see Sphere
+ * @see Solver
+ * @version 1.0.0
+ */
+public class VerletPackedSphere implements Sphere {
+    private final VerletPackedScene scene;
+    int slot;
+
+    /**
+     * Cannot be instanced! <br>
+     * Use {@link VerletPackedScene#addSphere(double, double, float)} instead!
+     *
+     * @param scene the scene that stores the data of this handle
+     * @param slot the slot in which the data of this handle is stored
+     */
+    VerletPackedSphere(VerletPackedScene scene, int slot) {
+        this.scene = scene;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the scene that stores the data of this handle
+     * @return the owning VerletPackedScene
+     */
+    VerletPackedScene getScene() {
+        return scene;
+    }
+
+    /**
+     * Returns the slot in which the data of this handle is currently stored.
+     * Returns -1 if the handle is detached.
+     * @return the current slot
+     */
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Checks if the handle still points at a slot of its scene
+     * @return false if the Sphere was removed from its scene
+     */
+    public boolean isAttached() {
+        return slot >= 0;
+    }
+
+    /**
+     * Updates the Spheres position according to the verlet formula.
+     * @param dt the amount of "time" to step forwards
+     */
+    @Override
+    public void updatePosition(float dt) {
+        scene.updatePosition(slot, dt);
+    }
+
+    /**
+     * Accelerates the Sphere adding momentum to it.
+     * @param x The X Momentum
+     * @param y The Y Momentum
+     */
+    @Override
+    public void accelerate(double x, double y) {
+        scene.ax[slot] += x;
+        scene.ay[slot] += y;
+    }
+
+    /**
+     * Sets the X Position.
+     * @param x The value to set
+     */
+    @Override
+    public void setX(double x) {
+        scene.x[slot] = x;
+    }
+
+    /**
+     * Sets the y Position.
+     * @param y The value to set
+     */
+    @Override
+    public void setY(double y) {
+        scene.y[slot] = y;
+    }
+
+    /**
+     * Sets the Old X Position.
+     * will change how the sphere calculates its momentum
+     * @param x The value to set
+     */
+    @Override
+    public void setOldX(double x) {
+        scene.lx[slot] = x;
+    }
+
+    /**
+     * Sets the Old Y Position.
+     * will change how the sphere calculates its momentum
+     * @param y The value to set
+     */
+    @Override
+    public void setOldY(double y) {
+        scene.ly[slot] = y;
+    }
+
+    /**
+     * Gets the X Position.
+     * @return the value that is returned
+     */
+    @Override
+    public double getX() {
+        return scene.x[slot];
+    }
+
+    /**
+     * Gets the Y Position.
+     * @return the value that is returned
+     */
+    @Override
+    public double getY() {
+        return scene.y[slot];
+    }
+
+    /**
+     * Gets the Old X Position.
+     * @return the value that is returned
+     */
+    @Override
+    public double getOldX() {
+        return scene.lx[slot];
+    }
+
+    /**
+     * Gets the Old Y Position.
+     * @return the value that is returned
+     */
+    @Override
+    public double getOldY() {
+        return scene.ly[slot];
+    }
+
+    /**
+     * Gets the radius of the Sphere
+     * @return the value that is returned
+     */
+    @Override
+    public float getRadius() {
+        return scene.radius[slot];
+    }
+
+    /**
+     * Gets the weight of the Sphere.
+     * In normal scenarios this only depends on the radius, but the weight can be modified when implementing a different Sphere
+     * @return the value that is returned
+     */
+    @Override
+    public float getWeight() {
+        return scene.weight[slot];
+    }
+
+    /**
+     * Gets the BodyType of the Sphere. A packed Sphere is never static
+     * @return the value that is returned
+     */
+    @Override
+    public BodyType getBodyType() {
+        return scene.kinematic[slot] ? BodyType.KINEMATIC : BodyType.DYNAMIC;
+    }
+}
@@ -0,0 +1,208 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.ParticleEmitter;
+import io.github.ttecnomaster.verlet.ParticlePool;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+
+import java.util.Arrays;
+
+/**
+ * The VerletParticlePool is the implementation of the {@link ParticlePool} interface.
+ * It creates one Sphere per particle up front and keeps the ids of the dead particles in a free list.
+ * Spawning takes an id from the free list, resets its Sphere and adds it to the {@link Scene}.
+ * Despawning removes the Sphere from the Scene and gives the id back, both cost O(1) because the Scenes remove by moving their last Sphere into the gap.
+ * <p>
+ * In a {@link VerletPackedScene} the particles are detached handles that are attached to a free slot again, see {@link VerletPackedSphere}.
+ * Any other Scene gets {@link VerletSphere}s. Particles should only be despawned by the pool, never removed from the Scene directly.
+ *
+ * @author tecno-master
+ * @see ParticlePool
+ * @see Scene
+ * @see Solver
+ * @version 1.0.0
+ */
+public class VerletParticlePool implements ParticlePool {
+    private Scene scene;
+    private VerletPackedScene packedScene;
+    private Sphere[] spheres = new Sphere[0];
+    private float[] lifetimes = new float[0];
+
+    // The ids of the dead particles, the next spawned particle takes the last one
+    private int[] freeIds = new int[0];
+    private int freeCount;
+
+    // The ids of the living particles, and the position of every living id inside that list (-1 if dead)
+    private int[] aliveIds = new int[0];
+    private int[] alivePositions = new int[0];
+    private int aliveCount;
+
+    private ParticleEmitter[] emitters = new ParticleEmitter[0];
+    private int emitterCount;
+
+    /**
+     * Cannot be instanced! <br>
+     * Use {@link Verlet#createParticlePool(Scene, int)} instead!
+     */
+    private VerletParticlePool() {}
+
+    /**
+     * Sets the Scene of the pool and creates a Sphere for every particle. Every living particle is despawned first.
+     * Also ensures that the Scene can hold every particle without growing
+     * @param scene the Scene the particles are spawned in
+     * @param capacity the maximum amount of living particles
+     */
+    public void setScene(Scene scene, int capacity) {
+        while(aliveCount > 0) despawn(aliveIds[aliveCount - 1]);
+        this.scene = scene;
+        this.packedScene = scene instanceof VerletPackedScene ? (VerletPackedScene) scene : null;
+        if(packedScene != null) packedScene.ensureCapacity(packedScene.getSphereCount() + capacity);
+        else if(scene instanceof VerletScene) ((VerletScene) scene).ensureCapacity(scene.getSphereCount() + capacity);
+
+        this.spheres = new Sphere[capacity];
+        for(int i = 0; i < capacity; i++) spheres[i] = packedScene != null ? new VerletPackedSphere(packedScene, -1) : new VerletSphere();
+        this.lifetimes = new float[capacity];
+        this.freeIds = new int[capacity];
+        for(int i = 0; i < capacity; i++) freeIds[i] = capacity - 1 - i;
+        this.freeCount = capacity;
+        this.aliveIds = new int[capacity];
+        this.alivePositions = new int[capacity];
+        Arrays.fill(alivePositions, -1);
+    }
+
+    /**
+     * Spawns a particle by resetting a free Sphere and adding it to the Scene
+     * @param x the X Position for the particle
+     * @param y the Y Position for the particle
+     * @param vx the X Velocity of the particle, in distance per sub step
+     * @param vy the Y Velocity of the particle, in distance per sub step
+     * @param radius the radius of the particle
+     * @param lifetime the time until the particle is despawned, in the time of {@link Solver#step(float)}
+     * @return the id of the particle, or -1 if every particle is alive
+     */
+    @Override
+    public int spawn(double x, double y, double vx, double vy, float radius, float lifetime) {
+        if(freeCount == 0) return -1;
+        final int id = freeIds[--freeCount];
+        if(packedScene != null) {
+            packedScene.attachSphere((VerletPackedSphere) spheres[id], x, y, x - vx, y - vy, radius);
+        } else {
+            final VerletSphere sphere = (VerletSphere) spheres[id];
+            sphere.setAttributes(x, y, radius);
+            sphere.setOldX(x - vx);
+            sphere.setOldY(y - vy);
+            scene.addSphere(sphere);
+        }
+        lifetimes[id] = lifetime;
+        alivePositions[id] = aliveCount;
+        aliveIds[aliveCount++] = id;
+        return id;
+    }
+
+    /**
+     * Despawns a particle by removing its Sphere from the Scene. The last living particle takes its place in the list of living particles
+     * @param particle the id of the particle
+     */
+    @Override
+    public void despawn(int particle) {
+        if(!isAlive(particle)) return;
+        scene.removeSphere(spheres[particle]);
+
+        final int position = alivePositions[particle];
+        final int last = aliveIds[--aliveCount];
+        aliveIds[position] = last;
+        alivePositions[last] = position;
+        alivePositions[particle] = -1;
+        lifetimes[particle] = 0;
+        freeIds[freeCount++] = particle;
+    }
+
+    /**
+     * Returns whether a particle is alive
+     * @param particle the id of the particle
+     * @return true if the particle is alive
+     */
+    @Override
+    public boolean isAlive(int particle) {
+        return particle >= 0 && particle < alivePositions.length && alivePositions[particle] >= 0;
+    }
+
+    /**
+     * Returns the Sphere of a living particle
+     * @param particle the id of the particle
+     * @return the Sphere of the particle, or null if the particle is not alive
+     */
+    @Override
+    public Sphere getSphere(int particle) {
+        return isAlive(particle) ? spheres[particle] : null;
+    }
+
+    /**
+     * Returns the remaining lifetime of a particle
+     * @param particle the id of the particle
+     * @return the time until the particle is despawned, 0 if it is not alive
+     */
+    @Override
+    public float getLifetime(int particle) {
+        return isAlive(particle) ? lifetimes[particle] : 0;
+    }
+
+    /**
+     * Returns the amount of living particles
+     * @return the amount of living particles
+     */
+    @Override
+    public int getParticleCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Returns the maximum amount of living particles
+     * @return the capacity of the pool
+     */
+    @Override
+    public int getCapacity() {
+        return spheres.length;
+    }
+
+    /**
+     * Adds an emitter that spawns particles whenever the pool is updated
+     * @param emitter The emitter to add
+     */
+    @Override
+    public void addEmitter(ParticleEmitter emitter) {
+        if(emitterCount == emitters.length) emitters = Arrays.copyOf(emitters, Math.max(4, emitterCount * 2));
+        emitters[emitterCount++] = emitter;
+    }
+
+    /**
+     * Removes an emitter. The following emitters keep their order
+     * @param emitter The emitter to remove
+     */
+    @Override
+    public void removeEmitter(ParticleEmitter emitter) {
+        for(int i = 0; i < emitterCount; i++) {
+            if(emitters[i] != emitter) continue;
+            System.arraycopy(emitters, i + 1, emitters, i, emitterCount - i - 1);
+            emitters[--emitterCount] = null;
+            return;
+        }
+    }
+
+    /**
+     * Ages every living particle and despawns the ones whose lifetime has run out, then lets every emitter spawn new particles.
+     * Only visits the living particles
+     * @param dt the amount of "time" that has passed
+     */
+    @Override
+    public void update(float dt) {
+        // going backwards, a despawned particle is replaced by one that was already aged
+        for(int k = aliveCount - 1; k >= 0; k--) {
+            final int id = aliveIds[k];
+            if((lifetimes[id] -= dt) <= 0) despawn(id);
+        }
+        for(int i = 0; i < emitterCount; i++) emitters[i].emit(this, dt);
+    }
+}
@@ -0,0 +1,208 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+/**
+ * Casts the rays of the {@link VerletSolver}, see {@link Solver#castRays(RayBatch)}.
+ * A ray walks through the cells of a {@link QueryBroadphase} in the order it crosses them (a DDA walk) and only asks for the candidates of the current cell.
+ * A hit is only accepted by the cell in which the ray enters the Sphere, so no Sphere is reported twice and the cells are finished in the order of their hits.
+ * Once enough hits are found the walk stops, the hits of the following cells can only be further away.
+ * Without such a Broadphase, or once the ray leaves a bounded Broadphase that cannot answer for its outside, the rest of the ray is tested against every Sphere of the container.
+ * Static Spheres are not part of any Broadphase, every cell of the walk also asks the {@link VerletStaticLayer} for the static Spheres around it.
+ * <p>
+ * Every thread needs its own VerletRayCast, casting only stores the state of the running ray in fields, so it does not allocate.
+ *
+ * @author tecno-master
+ * @see QueryBroadphase
+ * @see RayBatch
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+final class VerletRayCast {
+    // The running ray, the direction is normalized
+    private double x, y, dirX, dirY;
+    // The part of the ray whose hits are accepted by the current cell
+    private double from, to;
+    private boolean last;
+    private Sphere[] hits;
+    private double[] distances;
+    private int offset, maxHits, count;
+    private final SphereRunnable test = this::test;
+    private final VerletStaticLayer staticLayer;
+
+    // The storage of a cast that only looks for the first hit
+    private final Sphere[] firstHit = new Sphere[1];
+    private final double[] firstDistance = new double[1];
+
+    /**
+     * Creates a ray cast for one thread of a Solver
+     * @param staticLayer the layer that holds the static Spheres, it has to be updated before casting
+     */
+    VerletRayCast(VerletStaticLayer staticLayer) {
+        this.staticLayer = staticLayer;
+    }
+
+    /**
+     * Casts every ray of a partition of the batch. The rays are split into contiguous ranges, one for each partition
+     * @param container the container of the Spheres
+     * @param grid the Broadphase to walk through, or null to test every Sphere
+     * @param batch the rays and their hits
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    void castPartition(VerletContainer container, QueryBroadphase grid, RayBatch batch, int partitionIndex, int partitionCount) {
+        final int rays = batch.getRayCount();
+        final int partitionSize = (rays + partitionCount - 1) / partitionCount; // ceiling division to handle remainder rays
+        final int start = partitionIndex * partitionSize;
+        final int end = Math.min(start + partitionSize, rays);
+        final int maxHits = batch.getMaxHits();
+        for(int ray = start; ray < end; ray++) {
+            batch.hitCounts[ray] = cast(container, grid, batch.x[ray], batch.y[ray], batch.dirX[ray], batch.dirY[ray], batch.length[ray],
+                    batch.hits, batch.hitDistances, ray * maxHits, maxHits);
+        }
+    }
+
+    /**
+     * Finds the first Sphere a ray hits
+     * @return the closest Sphere that was hit, or null if the ray hit nothing
+     */
+    Sphere castFirst(VerletContainer container, QueryBroadphase grid, double x, double y, double dirX, double dirY, double length) {
+        final int found = cast(container, grid, x, y, dirX, dirY, length, firstHit, firstDistance, 0, 1);
+        final Sphere sphere = found > 0 ? firstHit[0] : null;
+        firstHit[0] = null;
+        return sphere;
+    }
+
+    /**
+     * Finds the closest Spheres a ray hits and stores them sorted by their distance
+     * @param container the container of the Spheres
+     * @param grid the Broadphase to walk through, or null to test every Sphere
+     * @param x the X Position of the origin
+     * @param y the Y Position of the origin
+     * @param dirX the X Direction of the ray
+     * @param dirY the Y Direction of the ray
+     * @param length how far the ray reaches
+     * @param hits the array the Spheres are written to
+     * @param distances the array the distances of the hits are written to
+     * @param offset the index of the first hit inside the arrays
+     * @param maxHits the maximum amount of hits to store
+     * @return the amount of stored hits
+     */
+    int cast(VerletContainer container, QueryBroadphase grid, double x, double y, double dirX, double dirY, double length,
+             Sphere[] hits, double[] distances, int offset, int maxHits) {
+        final double norm = Math.sqrt(dirX * dirX + dirY * dirY);
+        if(norm == 0) throw new IllegalArgumentException("A ray needs a direction!");
+        if(!(length >= 0 && length < Double.POSITIVE_INFINITY)) throw new IllegalArgumentException("The length of a ray has to be positive and finite!");
+        this.x = x;
+        this.y = y;
+        this.dirX = dirX / norm;
+        this.dirY = dirY / norm;
+        this.hits = hits;
+        this.distances = distances;
+        this.offset = offset;
+        this.maxHits = maxHits;
+        this.count = 0;
+
+        if(grid == null) {
+            testAll(container, 0, length);
+        } else {
+            walk(container, grid, length);
+        }
+        this.hits = null;
+        this.distances = null;
+        return count;
+    }
+
+    /**
+     * Walks through the cells of the grid along the ray. Every step ends at the next cell border the ray crosses
+     */
+    private void walk(VerletContainer container, QueryBroadphase grid, double length) {
+        final double cell = grid.getCellSize();
+        final double column = Math.floor(x / cell), row = Math.floor(y / cell);
+        // the distance along the ray to the next border in X and Y, and the distance between two borders
+        double nextX = Double.POSITIVE_INFINITY, nextY = Double.POSITIVE_INFINITY;
+        double deltaX = Double.POSITIVE_INFINITY, deltaY = Double.POSITIVE_INFINITY;
+        if(dirX > 0) {
+            nextX = ((column + 1) * cell - x) / dirX;
+            deltaX = cell / dirX;
+        } else if(dirX < 0) {
+            nextX = (column * cell - x) / dirX;
+            deltaX = -cell / dirX;
+        }
+        if(dirY > 0) {
+            nextY = ((row + 1) * cell - y) / dirY;
+            deltaY = cell / dirY;
+        } else if(dirY < 0) {
+            nextY = (row * cell - y) / dirY;
+            deltaY = -cell / dirY;
+        }
+
+        double enter = 0;
+        while(true) {
+            double exit = Math.min(nextX, nextY);
+            this.last = exit >= length;
+            if(last) exit = length;
+            this.from = enter;
+            this.to = exit;
+            final double x1 = x + dirX * enter, y1 = y + dirY * enter;
+            final double x2 = x + dirX * exit, y2 = y + dirY * exit;
+            final double minX = Math.min(x1, x2), minY = Math.min(y1, y2), maxX = Math.max(x1, x2), maxY = Math.max(y1, y2);
+            if(!grid.queryCandidates(minX, minY, maxX, maxY, test)) {
+                // the ray has left the area of the grid and there are Spheres outside of it
+                testAll(container, enter, length);
+                return;
+            }
+            staticLayer.queryCandidates(minX, minY, maxX, maxY, test);
+            if(last || count >= maxHits) return;
+            if(nextX < nextY) nextX += deltaX;
+            else nextY += deltaY;
+            enter = exit;
+        }
+    }
+
+    /**
+     * Tests every Sphere of the container, including the static ones, against a part of the ray
+     */
+    private void testAll(VerletContainer container, double from, double to) {
+        this.from = from;
+        this.to = to;
+        this.last = true;
+        container.invokeSpheres(test);
+        staticLayer.invokeSpheres(test);
+    }
+
+    /**
+     * Tests one candidate against the running ray and inserts it into the sorted hits if the ray enters it inside the current part
+     * @param sphere the candidate
+     */
+    private void test(Sphere sphere) {
+        final double r = sphere.getRadius();
+        final double mx = x - sphere.getX(), my = y - sphere.getY();
+        final double b = mx * dirX + my * dirY;
+        final double c = mx * mx + my * my - r * r;
+        double distance;
+        if(c <= 0) {
+            // the origin is inside the Sphere
+            distance = 0;
+        } else {
+            final double discriminant = b * b - c;
+            if(b > 0 || discriminant < 0) return;
+            distance = -b - Math.sqrt(discriminant);
+        }
+        if(distance < from || distance > to || (distance == to && !last)) return;
+
+        // keeps the closest maxHits hits sorted, the farthest one drops out
+        if(count == maxHits && distance >= distances[offset + maxHits - 1]) return;
+        int k = Math.min(count, maxHits - 1);
+        while(k > 0 && distances[offset + k - 1] > distance) {
+            hits[offset + k] = hits[offset + k - 1];
+            distances[offset + k] = distances[offset + k - 1];
+            k--;
+        }
+        hits[offset + k] = sphere;
+        distances[offset + k] = distance;
+        if(count < maxHits) count++;
+    }
+}
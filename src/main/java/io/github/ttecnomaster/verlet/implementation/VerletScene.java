@@ -3,12 +3,14 @@ package io.github.ttecnomaster.verlet.implementation;
 import io.github.ttecnomaster.verlet.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * The VerletScene is the implementation of the {@link Scene} interface which can handle Spheres and Constraints.
  * A {@link VerletContainer} can add, remove and invoke Spheres.
  * A {@link Scene} can also add, remove and invoke Constraints.
+ * Removing a Sphere or a Constraint moves the last one into its place, so removing does not depend on the amount of Spheres or Constraints.
  *
  * @author tecno-master
  * @see Scene
@@ -16,8 +18,18 @@ import java.util.List;
  * @version 1.0.0
  */
 public class VerletScene implements Scene {
-    private final List<Sphere> spheres;
-    private final List<Constraint> constraints;
+    private final ArrayList<Sphere> spheres;
+    private final List<Sphere> staticSpheres;
+    private final VerletConstraintIndex constraints;
+    private int modifications, staticModifications;
+
+    // The index of every Sphere inside the list. Only built when a Sphere is removed, and dropped when the Spheres are sorted
+    private final SphereIndexMap positions = new SphereIndexMap();
+    private boolean positionsValid;
+
+    // Reused by sortSpheres
+    private final MortonOrder mortonOrder = new MortonOrder();
+    private Sphere[] sphereScratch = new Sphere[0];
 
     /**
      * Cannot be instanced! <br>
@@ -25,25 +37,204 @@ public class VerletScene implements Scene {
      */
     private VerletScene() {
         this.spheres = new ArrayList<>();
-        this.constraints = new ArrayList<>();
+        this.staticSpheres = new ArrayList<>();
+        this.constraints = new VerletConstraintIndex();
     }
 
     /**
-     * Adds a Sphere to the VerletContainer
+     * Adds a Sphere to the VerletContainer. Static Spheres are stored in a separate list
      * @param sphere The Sphere to add/spawn
      */
     @Override
     public void addSphere(Sphere sphere) {
-        this.spheres.add(sphere);
+        if(sphere.getBodyType() == BodyType.STATIC) {
+            this.staticSpheres.add(sphere);
+            staticModifications++;
+        }
+        else {
+            this.spheres.add(sphere);
+            if(positionsValid) positions.put(sphere, spheres.size() - 1);
+        }
+        modifications++;
+    }
+
+    /**
+     * Creates a new Sphere and adds it to the VerletContainer
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @return the Sphere that was added/spawned
+     */
+    @Override
+    public Sphere addSphere(double x, double y, float radius) {
+        return addSphere(x, y, radius, BodyType.DYNAMIC);
+    }
+
+    /**
+     * Creates a new Sphere of a specific BodyType and adds it to the VerletContainer
+     * @param x the X Position for the new Sphere
+     * @param y the Y Position for the new Sphere
+     * @param radius the radius of the Sphere
+     * @param bodyType decides how the Solver moves the Sphere
+     * @return the Sphere that was added/spawned
+     */
+    @Override
+    public Sphere addSphere(double x, double y, float radius, BodyType bodyType) {
+        VerletSphere sphere = new VerletSphere();
+        sphere.setAttributes(x,y,radius);
+        sphere.setBodyType(bodyType);
+        addSphere(sphere);
+        return sphere;
     }
 
     /**
-     * Removes a Sphere from the VerletContainer
+     * Creates many dynamic Spheres at once and adds them to the VerletContainer
+     * @param xs the X Positions for the new Spheres
+     * @param ys the Y Positions for the new Spheres
+     * @param radii the radii of the new Spheres
+     * @return the Spheres that were added/spawned, in the order of the arrays
+     * @throws IllegalArgumentException if the arrays do not have the same length
+     */
+    @Override
+    public Sphere[] addSpheres(double[] xs, double[] ys, float[] radii) {
+        if(xs.length != ys.length || xs.length != radii.length) throw new IllegalArgumentException("The positions and radii must have the same length!");
+        final Sphere[] added = new Sphere[xs.length];
+        ensureCapacity(spheres.size() + added.length);
+        for(int i = 0; i < added.length; i++) {
+            VerletSphere sphere = new VerletSphere();
+            sphere.setAttributes(xs[i], ys[i], radii[i]);
+            if(positionsValid) positions.put(sphere, spheres.size());
+            spheres.add(sphere);
+            added[i] = sphere;
+        }
+        modifications++;
+        return added;
+    }
+
+    /**
+     * Ensures that the scene can hold at least the given amount of dynamic and kinematic Spheres without growing its list
+     * @param capacity the minimum amount of Spheres the scene can hold
+     */
+    public void ensureCapacity(int capacity) {
+        spheres.ensureCapacity(capacity);
+    }
+
+    /**
+     * Removes a Sphere from the VerletContainer. The last Sphere takes its place
      * @param sphere The Sphere to remove
      */
     @Override
     public void removeSphere(Sphere sphere) {
-        this.spheres.remove(sphere);
+        if(!positionsValid) {
+            positions.clear();
+            for(int i = 0; i < spheres.size(); i++) positions.put(spheres.get(i), i);
+            positionsValid = true;
+        }
+        int position = positions.remove(sphere);
+        if(position >= 0) {
+            int last = spheres.size() - 1;
+            Sphere moved = spheres.remove(last);
+            if(position != last) {
+                spheres.set(position, moved);
+                positions.put(moved, position);
+            }
+            modifications++;
+        }
+        else if(this.staticSpheres.remove(sphere)) {
+            modifications++;
+            staticModifications++;
+        }
+    }
+
+    /**
+     * Removes a Sphere from the Scene, and with cascading every Constraint of the Sphere
+     * @param sphere The Sphere to remove
+     * @param cascadeConstraints If true the Constraints of the Sphere are removed too
+     */
+    @Override
+    public void removeSphere(Sphere sphere, boolean cascadeConstraints) {
+        removeSphere(sphere);
+        if(cascadeConstraints) constraints.removeConstraints(sphere);
+    }
+
+    /**
+     * Returns the amount of Spheres that are currently stored in the VerletContainer
+     * @return the amount of Spheres
+     */
+    @Override
+    public int getSphereCount() {
+        return spheres.size();
+    }
+
+    /**
+     * Returns the Sphere at an index
+     * @param index the index of the Sphere
+     * @return the Sphere at the index
+     */
+    @Override
+    public Sphere getSphere(int index) {
+        return spheres.get(index);
+    }
+
+    /**
+     * Returns the amount of static Spheres
+     * @return the amount of static Spheres
+     */
+    @Override
+    public int getStaticSphereCount() {
+        return staticSpheres.size();
+    }
+
+    /**
+     * Returns the static Sphere at an index
+     * @param index the index of the static Sphere
+     * @return the static Sphere at the index
+     */
+    @Override
+    public Sphere getStaticSphere(int index) {
+        return staticSpheres.get(index);
+    }
+
+    /**
+     * Returns a counter that changes every time Spheres are added or removed
+     * @return the amount of modifications so far
+     */
+    @Override
+    public int getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Returns a counter that changes every time static Spheres are added or removed
+     * @return the amount of modifications of the static Spheres so far
+     */
+    @Override
+    public int getStaticModificationCount() {
+        return staticModifications;
+    }
+
+    /**
+     * Sorts the Spheres along a Z-order curve of cells with the given size.
+     * Spheres that are close to each other end up next to each other in the list. The Sphere objects themselves are not changed.
+     * @param cellSize the size of one cell, usually the size of a grid cell
+     */
+    @Override
+    public void sortSpheres(float cellSize) {
+        final int n = spheres.size();
+        if(n < 2) return;
+        mortonOrder.ensureCapacity(n);
+        if(sphereScratch.length < n) sphereScratch = new Sphere[Math.max(n, sphereScratch.length * 2)];
+        for(int i = 0; i < n; i++) {
+            Sphere sphere = spheres.get(i);
+            mortonOrder.x[i] = sphere.getX();
+            mortonOrder.y[i] = sphere.getY();
+            sphereScratch[i] = sphere;
+        }
+        final int[] order = mortonOrder.sort(mortonOrder.x, mortonOrder.y, n, cellSize);
+        for(int k = 0; k < n; k++) spheres.set(k, sphereScratch[order[k]]);
+        Arrays.fill(sphereScratch, 0, n, null);
+        positionsValid = false;
+        modifications++;
     }
 
     /**
@@ -56,7 +247,7 @@ public class VerletScene implements Scene {
     }
 
     /**
-     * Removes a Constraint from the Scene
+     * Removes a Constraint from the Scene. The last Constraint takes its place
      * @param constraint The Constraint to remove
      */
     @Override
@@ -75,6 +266,25 @@ public class VerletScene implements Scene {
         }
     }
 
+    /**
+     * Invokes every Sphere that belongs to a partition and calls the runnable.
+     * The Spheres are split into contiguous ranges, one for each partition.
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The Runnable which is called by every Sphere of the partition
+     */
+    @Override
+    public void invokeSpheres(int partitionIndex, int partitionCount, SphereRunnable runnable) {
+        int totalSpheres = spheres.size();
+        int partitionSize = (totalSpheres + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        int start = partitionIndex * partitionSize;
+        int end = Math.min(start + partitionSize, totalSpheres);
+
+        for(int i = start; i < end; i++) {
+            runnable.run(spheres.get(i));
+        }
+    }
+
     /**
      * Invokes every Sphere with each Sphere exactly once and calls the runnable
      * @param runnable The Runnable which is called by every Sphere Pairs
@@ -3,6 +3,8 @@ package io.github.ttecnomaster.verlet.implementation;
 import io.github.ttecnomaster.verlet.utils.VectorUtil;
 import io.github.ttecnomaster.verlet.*;
 
+import java.util.Arrays;
+
 /**
  * The VerletSolver an implementation of the {@link Solver}. It handles all the physics and ensures that the simulation is stepping correctly.
  * It allows to set sub steps who decide how many times the simulation is stepped between each step.
@@ -18,11 +20,130 @@ import io.github.ttecnomaster.verlet.*;
  */
 public class VerletSolver implements Solver {
     private VerletContainer container;
+    private VerletPackedScene packedScene;
     private int subSteps;
-    private VerletGrid grid;
+    private Broadphase grid;
+    private IndexBroadphase indexGrid;
     private double gx,gy = -1000;
     private boolean enableCollisions;
-    private VerletSolverThread[] solverThreads;
+    private VerletSolverPool pool;
+    private int sortInterval;
+    private int stepsSinceSort;
+
+    // Sleeping Spheres. Indexed like the Spheres of the container, the states follow their Spheres when the container moves them
+    private double sleepThreshold;
+    private int sleepSteps;
+    private boolean sleepEnabled;
+    private boolean[] sleeping = new boolean[0];
+    private int[] calmSteps = new int[0];
+    // The position at which a Sphere fell asleep and the amount of touching Spheres, counted in the last sub step of every step
+    private boolean countContacts;
+    private double[] sleepX = new double[0], sleepY = new double[0];
+    private int[] contacts = new int[0], sleepContacts = new int[0];
+    private int sleepModifications;
+    private VerletContainer sleepContainer;
+    private int sleepingCount;
+    // The Sphere every state belongs to, and the states of moved Spheres until they are written to the new index of their Sphere
+    private Sphere[] sleepSpheres = new Sphere[0];
+    private int sleepSphereCount;
+    private final SphereIndexMap movedStates = new SphereIndexMap();
+    private Sphere[] movedSpheres = new Sphere[0];
+    private boolean[] movedSleeping = new boolean[0];
+    private int[] movedCalmSteps = new int[0], movedContacts = new int[0];
+    private double[] movedX = new double[0], movedY = new double[0];
+
+    // Kinematic Spheres, indexed like the Spheres of the container and refreshed whenever the Spheres of the container change
+    private boolean[] kinematic = new boolean[0];
+    private int kinematicCount;
+    // The index of every kinematic Sphere, so Broadphases that pass Sphere objects read the same flags as the integration
+    private final SphereIndexMap kinematicSpheres = new SphereIndexMap();
+    private int bodyModifications;
+    private VerletContainer bodyContainer;
+    // Static Spheres are kept apart from the Broadphase and only rebuilt when the container changes
+    private final VerletStaticLayer staticLayer = new VerletStaticLayer();
+    private boolean solveStatics;
+    private boolean skipIntegration;
+
+    // Jacobi mode. Every partition collects the corrections it finds in its own accumulator, they are summed up in a separate pass
+    private boolean jacobi;
+    private boolean jacobiActive;
+    private JacobiAccumulator[] accumulators = new JacobiAccumulator[0];
+    // Corrections of a Sphere with several contacts are scaled down, as all of them are computed from the same positions.
+    // A Sphere with n contacts moves by 1.5 / n of their sum. Plain averaging (1 / n) never overshoots but converges slowly,
+    // as the contacts of a Sphere in a pile push from opposite sides and mostly cancel, the whole sum overshoots.
+    // 1.5 over-relaxes the average. In the settled pile of the JacobiCheck the mean overlap drops from 0.28 at 1 to 0.24 at 1.5,
+    // at 2 the pile starts to overshoot and its deepest overlap almost doubles, so 1.5 keeps a margin to that.
+    // A Sphere with a single contact takes its whole correction, just like in the normal mode
+    private static final double JACOBI_RELAXATION = 1.5;
+
+    // The ParticlePools that are updated at the start of every step
+    private ParticlePool[] particlePools = new ParticlePool[0];
+    private int particlePoolCount;
+
+    // Deterministic mode. Replaces Math.random() with a hashed jitter and solves racy collisions in a fixed order
+    private boolean deterministic;
+    private long seed;
+
+    // The amount of slots the fused integration of a packed Scene processes before applying the SceneConstraints
+    private static final int PACKED_BLOCK_SIZE = 256;
+
+    // Constraints are sorted once per step, so the fused integration does not need to check their types per Sphere
+    private SceneConstraint[] sceneConstraints;
+    private boolean[] packedSceneConstraints;
+    private int sceneConstraintCount;
+    private StaticConstraint[] staticConstraints;
+    private boolean[] packedStaticConstraints;
+    private int staticConstraintCount;
+    private final VerletConstraintScheduler constraintScheduler = new VerletConstraintScheduler();
+
+    // Spatial queries, and the step and modification count the grid was last updated for by a query
+    private final VerletSpatialQuery spatialQuery = new VerletSpatialQuery(staticLayer);
+    private long steps;
+    private long queriedStep = -1;
+    private int queriedModifications;
+    private Broadphase queriedGrid;
+    private VerletRayCast[] rayCasts = {new VerletRayCast(staticLayer)};
+    private RayBatch rayBatch;
+    private QueryBroadphase rayGrid;
+
+    // Runnables are created once, so stepping the simulation does not allocate any lambdas
+    private float subDt;
+    private boolean constrainAfterIntegration;
+    private int collisionPhase;
+    private final SphereRunnable integrationRunnable = this::integrate;
+    private final SphereRunnable sceneConstraintRunnable = this::applySceneConstraints;
+    private final ConstraintRunnable constraintRunnable = this::collectConstraint;
+    private final TwoSphereRunnable collisionRunnable = this::solveCollisions;
+    private final TwoSphereRunnable packedHandleCollisionRunnable = this::solvePackedHandleCollisions;
+    private final TwoIndexRunnable packedCollisionRunnable = this::solvePackedCollisions;
+    private final TwoIndexRunnable indexCollisionRunnable = this::solveIndexCollisions;
+    private final PartitionRunnable integrationPhase = (partitionIndex, partitionCount) -> container.invokeSpheres(partitionIndex, partitionCount, integrationRunnable);
+    private final PartitionRunnable packedIntegrationPhase = this::integratePacked;
+    private final PartitionRunnable sceneConstraintPhase = (partitionIndex, partitionCount) -> container.invokeSpheres(partitionIndex, partitionCount, sceneConstraintRunnable);
+    private final PartitionRunnable packedSceneConstraintPhase = this::applyPackedSceneConstraints;
+    private final TwoIndexRunnable sleepingIndexCollisionRunnable = this::solveSleepingIndexCollisions;
+    private final TwoIndexRunnable sleepingPackedCollisionRunnable = this::solveSleepingPackedCollisions;
+    private final TwoIndexRunnable kinematicIndexCollisionRunnable = this::solveKinematicIndexCollisions;
+    private final TwoIndexRunnable kinematicPackedCollisionRunnable = this::solveKinematicPackedCollisions;
+    private final TwoSphereRunnable kinematicCollisionRunnable = this::solveKinematicCollisions;
+    private final PartitionRunnable movingIntegrationPhase = this::integrateMoving;
+    private final PartitionRunnable packedMovingIntegrationPhase = this::integratePackedMoving;
+    private final PartitionRunnable staticPhase = this::solveStaticCollisions;
+    private final PartitionRunnable rayPhase = (partitionIndex, partitionCount) -> rayCasts[partitionIndex].castPartition(container, rayGrid, rayBatch, partitionIndex, partitionCount);
+    private final PartitionRunnable packedStaticPhase = this::solvePackedStaticCollisions;
+    private TwoIndexRunnable packedPairRunnable = packedCollisionRunnable;
+    private TwoIndexRunnable indexPairRunnable = indexCollisionRunnable;
+    private TwoSphereRunnable spherePairRunnable = collisionRunnable;
+    private final PartitionRunnable classicPhase = (partitionIndex, partitionCount) -> container.solveCollisionPartition(partitionIndex, partitionCount, spherePairRunnable);
+    private final PartitionRunnable packedClassicPhase = (partitionIndex, partitionCount) -> packedScene.solveSlotCollisionPartition(partitionIndex, partitionCount, packedPairRunnable);
+    private final PartitionRunnable gridPhase = (partitionIndex, partitionCount) -> grid.solveCollisionPhase(collisionPhase, partitionIndex, partitionCount, spherePairRunnable);
+    private final PartitionRunnable packedGridPhase = (partitionIndex, partitionCount) -> grid.solveCollisionPhase(collisionPhase, partitionIndex, partitionCount, packedHandleCollisionRunnable);
+    private final PartitionRunnable indexGridPhase = (partitionIndex, partitionCount) -> indexGrid.solveIndexCollisionPhase(collisionPhase, partitionIndex, partitionCount, indexPairRunnable);
+    private final PartitionRunnable packedIndexGridPhase = (partitionIndex, partitionCount) -> indexGrid.solveIndexCollisionPhase(collisionPhase, partitionIndex, partitionCount, packedPairRunnable);
+    private final PartitionRunnable jacobiClassicPhase = (partitionIndex, partitionCount) -> packedScene.solveSlotCollisionPartition(partitionIndex, partitionCount, accumulators[partitionIndex]);
+    private final PartitionRunnable jacobiGridPhase = (partitionIndex, partitionCount) -> grid.solveCollisionPhase(collisionPhase, partitionIndex, partitionCount, accumulators[partitionIndex]);
+    private final PartitionRunnable jacobiIndexGridPhase = (partitionIndex, partitionCount) -> indexGrid.solveIndexCollisionPhase(collisionPhase, partitionIndex, partitionCount, accumulators[partitionIndex]);
+    private final PartitionRunnable jacobiApplyPhase = this::applyJacobiCorrections;
 
     /**
      * Cannot be instanced! <br>
@@ -31,7 +152,11 @@ public class VerletSolver implements Solver {
     private VerletSolver() {
         this.subSteps = 1;
         this.enableCollisions = true;
-        this.solverThreads = new VerletSolverThread[0];
+        this.pool = new VerletSolverPool(1);
+        this.sceneConstraints = new SceneConstraint[0];
+        this.packedSceneConstraints = new boolean[0];
+        this.staticConstraints = new StaticConstraint[0];
+        this.packedStaticConstraints = new boolean[0];
     }
 
     /**
@@ -49,36 +174,48 @@ public class VerletSolver implements Solver {
      */
     public void setContainer(VerletContainer container) {
         this.container = container;
+        this.packedScene = container instanceof VerletPackedScene ? (VerletPackedScene) container : null;
     }
 
     /**
-     * Sets a VerletGrid to the Solver. By default, the Grid is null. Insert null value to remove the Grid
-     * @param grid The VerletGrid to use for the Solver. Can be null
+     * Sets a Grid to the Solver. By default, the Grid is null. Insert null value to remove the Grid.
+     * An {@link IndexBroadphase} is solved by the indices of the Spheres.
+     * @param grid The Broadphase to use for the Solver. Can be null
      */
     @Override
-    public void setGrid(VerletGrid grid) {
+    public void setGrid(Broadphase grid) {
         this.grid = grid;
+        this.indexGrid = grid instanceof IndexBroadphase ? (IndexBroadphase) grid : null;
     }
 
     /**
      * Allows the user to use multi-threading for the solver.
-     * Multi-threading splits the collision checks over all the existing threads.
+     * Multi-threading splits the collision checks, the SceneConstraints and the integration of every Sphere over all the existing threads.
+     * StaticConstraints are still applied by the stepping thread only.
      * Default value is 1. This means putting 1 as the amount of threads disables multi-threading
      * and only uses one thread.
+     * The threads are run by a {@link VerletSolverPool}. The previous pool is closed and its threads are joined.
      * @param threads the amount of threads the solver should use. Default is 1.
      */
     @Override
     public void setMultiThreading(int threads) {
         if(threads < 1) throw new IllegalArgumentException("Solver needs at least one Thread in order to run!");
 
-        // Shutdown all pre-existing threads
-        for(VerletSolverThread thread : solverThreads) thread.shutdown();
+        // Shutdown and join all pre-existing threads
+        pool.close();
 
-        // Create new threads. Uses this main thread as an additional solver thread.
-        solverThreads = new VerletSolverThread[threads-1];
+        // Create new threads. Uses the stepping thread as an additional solver thread.
+        pool = new VerletSolverPool(threads);
+    }
 
-        // Initializes all the threads
-        for(int i = 0; i < solverThreads.length; i++) solverThreads[i] = new VerletSolverThread(i+1);
+    /**
+     * Shuts down every solver thread and waits until they terminated.
+     * The Solver can still be used afterwards, but only with a single thread until {@link VerletSolver#setMultiThreading(int)} is called again.
+     */
+    @Override
+    public void close() {
+        pool.close();
+        pool = new VerletSolverPool(1);
     }
 
     /**
@@ -103,39 +240,621 @@ public class VerletSolver implements Solver {
         this.subSteps = subSteps;
     }
 
+    /**
+     * Sorts the Spheres of the container along a Z-order curve every few steps, see {@link VerletContainer#sortSpheres(float)}.
+     * The cells of the curve are twice the radius of the biggest Sphere.
+     * Default is 0, which never sorts the Spheres
+     * @param steps the amount of steps between two sorts. 0 disables sorting
+     */
+    @Override
+    public void setSortInterval(int steps) {
+        this.sortInterval = steps;
+        this.stepsSinceSort = 0;
+    }
+
+    /**
+     * Enables sleeping Spheres. A Sphere whose velocity (the distance between its position and its old position)
+     * stays below the threshold at the end of the given amount of steps in a row falls asleep.
+     * Only Spheres that touch another Sphere (of any BodyType) count as calm, so a Sphere never falls asleep in the air.
+     * A sleeping Sphere is neither accelerated nor integrated, and collisions between two sleeping Spheres are skipped.
+     * Awake Spheres rest on sleeping Spheres as if these were fixed.
+     * A sleeping Sphere wakes up when an awake Sphere touches it while moving faster than the threshold,
+     * when an awake Sphere pushes it further than the threshold, when it touches fewer Spheres than when it fell asleep
+     * (counted in the last sub step of every step),
+     * or when anything else, like a Constraint, moves it further than the threshold away from where it fell asleep.
+     * A woken Sphere disturbs its neighbours in the same way, so whole piles wake up one contact after another.
+     * Skipping collisions between sleeping Spheres and counting contacts needs a {@link VerletPackedScene} or an {@link IndexBroadphase},
+     * otherwise sleeping Spheres are only excluded from integrating. Broadphases like the {@link VerletCountingGrid}
+     * do not even pass pairs from cells that only hold sleeping Spheres, see {@link Broadphase#setSleepingSpheres(boolean[])}.
+     * Adding, removing or sorting Spheres wakes every Sphere.
+     * Default threshold is 0, which disables sleeping
+     * @param threshold the velocity below which a Sphere is calm, in distance per sub step. 0 disables sleeping
+     * @param steps the amount of calm steps before a Sphere falls asleep
+     */
+    @Override
+    public void setSleeping(double threshold, int steps) {
+        this.sleepThreshold = threshold;
+        this.sleepSteps = Math.max(1, steps);
+        this.sleepContainer = null;
+    }
+
+    /**
+     * Enables/Disables the Jacobi mode for collisions. Default is false.
+     * Every collision of a sub step only reads the positions and adds the corrections of both Spheres to the {@link JacobiAccumulator} of its partition.
+     * Afterwards a separate pass sums up the corrections of every Sphere and moves it.
+     * The corrections are summed as fixed point numbers, so the result is the same for every amount of threads and every partitioning,
+     * and Broadphases do not need phased scheduling. A Sphere with several contacts moves by the sum of its corrections
+     * times 1.5 divided by the amount of contacts (at most the whole sum), otherwise dense piles would overshoot.
+     * Broadphases that pass every pair in both orders, see {@link Broadphase#isPassingPairsTwice()}, only contribute one order,
+     * so a single overlap is solved just like in the normal mode.
+     * Jacobi mode needs a {@link VerletPackedScene} or an {@link IndexBroadphase}, otherwise collisions are solved as usual.
+     * Sleeping Spheres are not supported in Jacobi mode, sleeping is disabled while it is active
+     * @param jacobi If true collisions are collected and applied afterwards
+     */
+    @Override
+    public void setJacobiMode(boolean jacobi) {
+        this.jacobi = jacobi;
+    }
+
+    /**
+     * Enables/Disables the deterministic mode. Default is false.
+     * Two Spheres at exactly the same position are pushed apart by a jitter that is hashed from the seed, their position
+     * and with a {@link VerletPackedScene} also their slots, instead of using Math.random().
+     * The Jacobi mode and Broadphases with phased scheduling already give the same result for every amount of threads.
+     * Any other collision solving, like comparing every Sphere with each other or a Broadphase without phased scheduling,
+     * runs on the calling thread only. Everything else is solved per Sphere and stays multithreaded
+     * @param deterministic If true every step is reproducible
+     * @param seed the seed of the jitter
+     */
+    @Override
+    public void setDeterministic(boolean deterministic, long seed) {
+        this.deterministic = deterministic;
+        this.seed = seed;
+    }
+
+    /**
+     * Adds a ParticlePool that is updated at the start of every step, before the Constraints are collected
+     * @param pool The ParticlePool to add
+     */
+    @Override
+    public void addParticlePool(ParticlePool pool) {
+        if(particlePoolCount == particlePools.length) particlePools = Arrays.copyOf(particlePools, Math.max(4, particlePoolCount * 2));
+        particlePools[particlePoolCount++] = pool;
+    }
+
+    /**
+     * Removes a ParticlePool. Its living particles stay in the Scene but do not age anymore
+     * @param pool The ParticlePool to remove
+     */
+    @Override
+    public void removeParticlePool(ParticlePool pool) {
+        for(int i = 0; i < particlePoolCount; i++) {
+            if(particlePools[i] != pool) continue;
+            System.arraycopy(particlePools, i + 1, particlePools, i, particlePoolCount - i - 1);
+            particlePools[--particlePoolCount] = null;
+            return;
+        }
+    }
+
+    /**
+     * Finds every Sphere of the container that overlaps a circle
+     * @param x the X Position of the center of the circle
+     * @param y the Y Position of the center of the circle
+     * @param radius the radius of the circle. 0 finds every Sphere that contains the center
+     * @param buffer the buffer the Spheres are written to. Spheres that do not fit anymore are only counted
+     * @return the amount of overlapping Spheres, which can be bigger than the buffer
+     */
+    @Override
+    public int queryCircle(double x, double y, double radius, Sphere[] buffer) {
+        return spatialQuery.queryCircle(container, prepareQuery(), x, y, radius, buffer, null);
+    }
+
+    /**
+     * Finds every Sphere of the container that overlaps a circle
+     * @param x the X Position of the center of the circle
+     * @param y the Y Position of the center of the circle
+     * @param radius the radius of the circle. 0 finds every Sphere that contains the center
+     * @param runnable The runnable which is called with every overlapping Sphere
+     */
+    @Override
+    public void queryCircle(double x, double y, double radius, SphereRunnable runnable) {
+        spatialQuery.queryCircle(container, prepareQuery(), x, y, radius, null, runnable);
+    }
+
+    /**
+     * Finds every Sphere of the container that overlaps a rectangle
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param buffer the buffer the Spheres are written to. Spheres that do not fit anymore are only counted
+     * @return the amount of overlapping Spheres, which can be bigger than the buffer
+     */
+    @Override
+    public int queryRect(double minX, double minY, double maxX, double maxY, Sphere[] buffer) {
+        return spatialQuery.queryRectangle(container, prepareQuery(), minX, minY, maxX, maxY, buffer, null);
+    }
+
+    /**
+     * Finds every Sphere of the container that overlaps a rectangle
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable which is called with every overlapping Sphere
+     */
+    @Override
+    public void queryRect(double minX, double minY, double maxX, double maxY, SphereRunnable runnable) {
+        spatialQuery.queryRectangle(container, prepareQuery(), minX, minY, maxX, maxY, null, runnable);
+    }
+
+    /**
+     * Finds the Sphere under a point
+     * @param x the X Position of the point
+     * @param y the Y Position of the point
+     * @return the Sphere that contains the point and whose center is the closest, or null if no Sphere contains the point
+     */
+    @Override
+    public Sphere pickAt(double x, double y) {
+        return spatialQuery.pickAt(container, prepareQuery(), x, y);
+    }
+
+    /**
+     * Finds the first Sphere a ray hits
+     * @param x the X Position of the origin
+     * @param y the Y Position of the origin
+     * @param dirX the X Direction of the ray, it does not need to be normalized
+     * @param dirY the Y Direction of the ray, it does not need to be normalized
+     * @param length how far the ray reaches
+     * @return the closest Sphere the ray enters, or the Sphere that contains the origin, or null if the ray hits nothing
+     */
+    @Override
+    public Sphere castRay(double x, double y, double dirX, double dirY, double length) {
+        return rayCasts[0].castFirst(container, prepareQuery(), x, y, dirX, dirY, length);
+    }
+
+    /**
+     * Finds the closest Spheres a ray hits
+     * @param x the X Position of the origin
+     * @param y the Y Position of the origin
+     * @param dirX the X Direction of the ray, it does not need to be normalized
+     * @param dirY the Y Direction of the ray, it does not need to be normalized
+     * @param length how far the ray reaches
+     * @param buffer the buffer the Spheres are written to, sorted by their distance
+     * @param distances the buffer the distances along the ray to the hits are written to, at least as long as the Sphere buffer
+     * @return the amount of hits, at most the length of the buffer
+     */
+    @Override
+    public int castRay(double x, double y, double dirX, double dirY, double length, Sphere[] buffer, double[] distances) {
+        if(distances.length < buffer.length) throw new IllegalArgumentException("The distances have to be at least as long as the buffer!");
+        if(buffer.length == 0) return 0;
+        return rayCasts[0].cast(container, prepareQuery(), x, y, dirX, dirY, length, buffer, distances, 0, buffer.length);
+    }
+
+    /**
+     * Casts every ray of a batch on every thread of the pool. Every thread casts a contiguous range of the rays with its own {@link VerletRayCast}
+     * @param batch the rays to cast
+     */
+    @Override
+    public void castRays(RayBatch batch) {
+        final int partitions = pool.getPartitionCount();
+        if(rayCasts.length != partitions) {
+            rayCasts = Arrays.copyOf(rayCasts, partitions);
+            for(int p = 0; p < partitions; p++) if(rayCasts[p] == null) rayCasts[p] = new VerletRayCast(staticLayer);
+        }
+        this.rayGrid = prepareQuery();
+        this.rayBatch = batch;
+        try {
+            pool.run(rayPhase);
+        } finally {
+            this.rayBatch = null;
+            this.rayGrid = null;
+        }
+    }
+
+    /**
+     * Returns the grid if it can answer spatial queries. The grid is updated from the current positions
+     * if the Solver has stepped or the container has changed since it was last updated by a query.
+     * The static layer is rebuilt as well if the container has changed
+     * @return the grid, or null if every Sphere has to be tested
+     */
+    private QueryBroadphase prepareQuery() {
+        staticLayer.update(container);
+        if(!(grid instanceof QueryBroadphase)) return null;
+        if(queriedStep != steps || queriedModifications != container.getModificationCount() || queriedGrid != grid) {
+            // the sleeping marks of the last step may not fit the current Spheres, the next step sets them again
+            grid.setSleepingSpheres(null);
+            grid.update(container);
+            queriedStep = steps;
+            queriedModifications = container.getModificationCount();
+            queriedGrid = grid;
+        }
+        return (QueryBroadphase) grid;
+    }
+
+    /**
+     * Returns the amount of Spheres that are currently sleeping
+     * @return the amount of sleeping Spheres, 0 if sleeping is disabled
+     */
+    @Override
+    public int getSleepingCount() {
+        return sleepThreshold > 0 ? sleepingCount : 0;
+    }
+
+    /**
+     * Moves the sleeping states to the new indices of their Spheres if the Spheres of the container have changed since the last step.
+     * Sorting, adding and removing Spheres only moves the states, a Sphere only wakes up if it is not where it fell asleep anymore.
+     * New Spheres start awake. Every Sphere wakes up if the container was replaced
+     */
+    private void prepareSleeping() {
+        final int n = container.getSphereCount();
+        if(container == sleepContainer && container.getModificationCount() == sleepModifications) return;
+        if(sleeping.length < n) {
+            int capacity = Math.max(n, sleeping.length * 2);
+            sleeping = Arrays.copyOf(sleeping, capacity);
+            calmSteps = Arrays.copyOf(calmSteps, capacity);
+            sleepX = Arrays.copyOf(sleepX, capacity);
+            sleepY = Arrays.copyOf(sleepY, capacity);
+            contacts = new int[capacity];
+            sleepContacts = Arrays.copyOf(sleepContacts, capacity);
+            sleepSpheres = Arrays.copyOf(sleepSpheres, capacity);
+        }
+        if(container != sleepContainer) sleepSphereCount = 0;
+
+        // put the states of every index whose Sphere has changed aside
+        final int old = sleepSphereCount;
+        int moved = 0;
+        for(int j = 0; j < old; j++) {
+            if(j < n && container.getSphere(j) == sleepSpheres[j]) continue;
+            if(movedSpheres.length == moved) growMovedStates(old);
+            movedSpheres[moved] = sleepSpheres[j];
+            movedSleeping[moved] = sleeping[j];
+            movedCalmSteps[moved] = calmSteps[j];
+            movedX[moved] = sleepX[j];
+            movedY[moved] = sleepY[j];
+            movedContacts[moved] = sleepContacts[j];
+            movedStates.put(sleepSpheres[j], moved);
+            moved++;
+        }
+
+        // and write them to the new index of their Sphere
+        final double limit = sleepThreshold * sleepThreshold;
+        int count = 0;
+        for(int i = 0; i < n; i++) {
+            final Sphere sphere = container.getSphere(i);
+            if(i >= old || sphere != sleepSpheres[i]) {
+                final int k = moved > 0 ? movedStates.remove(sphere) : -1;
+                sleepSpheres[i] = sphere;
+                if(k >= 0) {
+                    sleeping[i] = movedSleeping[k];
+                    calmSteps[i] = movedCalmSteps[k];
+                    sleepX[i] = movedX[k];
+                    sleepY[i] = movedY[k];
+                    sleepContacts[i] = movedContacts[k];
+                    // a handle that was removed and added again, like a recycled particle, is somewhere else now
+                    final double dx = sphere.getX() - sleepX[i], dy = sphere.getY() - sleepY[i];
+                    if(sleeping[i] && dx * dx + dy * dy > limit) wake(i);
+                } else {
+                    sleeping[i] = false;
+                    calmSteps[i] = 0;
+                }
+                contacts[i] = 0;
+            }
+            if(sleeping[i]) count++;
+        }
+
+        // the states of removed Spheres are dropped
+        for(int k = 0; k < moved; k++) {
+            movedStates.remove(movedSpheres[k]);
+            movedSpheres[k] = null;
+        }
+        if(old > n) Arrays.fill(sleepSpheres, n, old, null);
+        sleepSphereCount = n;
+        sleepingCount = count;
+        sleepContainer = container;
+        sleepModifications = container.getModificationCount();
+    }
+
+    /**
+     * Grows the arrays that hold the states of moved Spheres
+     * @param capacity the amount of states that can be moved at most
+     */
+    private void growMovedStates(int capacity) {
+        movedSpheres = Arrays.copyOf(movedSpheres, capacity);
+        movedSleeping = Arrays.copyOf(movedSleeping, capacity);
+        movedCalmSteps = Arrays.copyOf(movedCalmSteps, capacity);
+        movedX = Arrays.copyOf(movedX, capacity);
+        movedY = Arrays.copyOf(movedY, capacity);
+        movedContacts = Arrays.copyOf(movedContacts, capacity);
+    }
+
+    /**
+     * Puts calm Spheres to sleep and wakes sleeping Spheres that were moved or lost a contact. Called at the end of every step.
+     * The velocity of a Sphere is set to zero when it falls asleep
+     */
+    private void updateSleeping() {
+        final int n = container.getSphereCount();
+        final double limit = sleepThreshold * sleepThreshold;
+        // Spheres are only passed by index, and contacts can only be counted, with a packed Scene or an IndexBroadphase
+        final boolean contactsCounted = packedScene != null || (grid != null && indexGrid != null);
+        int count = 0;
+        for(int i = 0; i < n; i++) {
+            double x, y, lx, ly;
+            Sphere sphere = null;
+            if(packedScene != null) {
+                x = packedScene.x[i];
+                y = packedScene.y[i];
+                lx = packedScene.lx[i];
+                ly = packedScene.ly[i];
+            } else {
+                sphere = container.getSphere(i);
+                x = sphere.getX();
+                y = sphere.getY();
+                lx = sphere.getOldX();
+                ly = sphere.getOldY();
+            }
+            final int touching = contacts[i];
+            contacts[i] = 0;
+            if(kinematicCount > 0 && kinematic[i]) continue;
+
+            if(sleeping[i]) {
+                double dx = x - sleepX[i], dy = y - sleepY[i];
+                if(dx * dx + dy * dy > limit || touching < sleepContacts[i]) wake(i);
+                else count++;
+                continue;
+            }
+
+            // a Sphere without contacts could be at the top of a jump, it is never calm
+            double vx = x - lx, vy = y - ly;
+            if(vx * vx + vy * vy > limit || (touching == 0 && contactsCounted)) {
+                calmSteps[i] = 0;
+            } else if(++calmSteps[i] >= sleepSteps) {
+                sleeping[i] = true;
+                sleepX[i] = x;
+                sleepY[i] = y;
+                sleepContacts[i] = touching;
+                count++;
+                if(sphere == null) {
+                    packedScene.lx[i] = x;
+                    packedScene.ly[i] = y;
+                } else {
+                    sphere.setOldX(x);
+                    sphere.setOldY(y);
+                }
+            }
+        }
+        sleepingCount = count;
+    }
+
+    /**
+     * Wakes up a sleeping Sphere
+     * @param index the index of the Sphere
+     */
+    private void wake(int index) {
+        sleeping[index] = false;
+        calmSteps[index] = 0;
+    }
+
+    /**
+     * Refreshes the kinematic flags if the Spheres of the container have changed since the last step and updates the static layer
+     */
+    private void prepareBodies() {
+        solveStatics = staticLayer.update(container);
+        if(container == bodyContainer && container.getModificationCount() == bodyModifications) return;
+        final int n = container.getSphereCount();
+        if(kinematic.length < n) kinematic = new boolean[Math.max(n, kinematic.length * 2)];
+        kinematicCount = 0;
+        kinematicSpheres.clear();
+        for(int i = 0; i < n; i++) {
+            kinematic[i] = packedScene != null ? packedScene.kinematic[i] : container.getSphere(i).getBodyType() == BodyType.KINEMATIC;
+            if(kinematic[i]) {
+                kinematicSpheres.put(container.getSphere(i), i);
+                kinematicCount++;
+            }
+        }
+        bodyContainer = container;
+        bodyModifications = container.getModificationCount();
+    }
+
+    /**
+     * Sorts the Spheres of the container along a Z-order curve of cells that fit the biggest Sphere
+     */
+    private void sortSpheres() {
+        float maxRadius = 0;
+        if(packedScene != null) {
+            final float[] radius = packedScene.radius;
+            for(int i = 0; i < packedScene.getSphereCount(); i++) maxRadius = Math.max(maxRadius, radius[i]);
+        } else {
+            for(int i = 0; i < container.getSphereCount(); i++) maxRadius = Math.max(maxRadius, container.getSphere(i).getRadius());
+        }
+        container.sortSpheres(maxRadius * 2);
+    }
+
     /**
      * Steps the simulation. Every Physic Object will move towards their next position.
+     * Gravity, every {@link SceneConstraint} and the verlet integration are fused into one pass over all Spheres.
+     * The pass at the end of a sub step integrates every Sphere and directly applies the SceneConstraints of the following sub step.
+     * Only the very first sub step needs an additional pass for its SceneConstraints.
+     * StaticConstraints are applied after the SceneConstraints of their sub step, color by color on every thread, see {@link StaticConstraint#getSpheres()}.
+     * Static Spheres are solved after the collisions between the other Spheres of every sub step, see {@link BodyType#STATIC}.
      * @param dt the amount of "time" to step forwards
      */
     @Override
     public void step(float dt) {
+        steps++;
+
+        // despawn expired particles and spawn new ones before anything looks at the Spheres
+        for(int i = 0; i < particlePoolCount; i++) particlePools[i].update(dt);
+
+        // keep Spheres that are close in space close in memory
+        if(sortInterval > 0 && ++stepsSinceSort >= sortInterval) {
+            stepsSinceSort = 0;
+            sortSpheres();
+        }
+
+        // sort constraints if container supports them
+        collectConstraints();
+
+        // collisions are collected and applied afterwards, if the Spheres can be identified by their index
+        jacobiActive = jacobi && enableCollisions && (packedScene != null || indexGrid != null);
+
+        // sleeping Spheres are skipped by the integration and their collisions with each other are skipped
+        sleepEnabled = sleepThreshold > 0 && !jacobiActive;
+        if(sleepEnabled) prepareSleeping();
+
+        // kinematic Spheres are skipped by the integration and take part in collisions with an infinite weight
+        prepareBodies();
+        skipIntegration = sleepEnabled || kinematicCount > 0;
+        if(kinematicCount > 0) {
+            packedPairRunnable = kinematicPackedCollisionRunnable;
+            indexPairRunnable = kinematicIndexCollisionRunnable;
+            spherePairRunnable = kinematicCollisionRunnable;
+        } else {
+            packedPairRunnable = sleepEnabled ? sleepingPackedCollisionRunnable : packedCollisionRunnable;
+            indexPairRunnable = sleepEnabled ? sleepingIndexCollisionRunnable : indexCollisionRunnable;
+            spherePairRunnable = collisionRunnable;
+        }
+        if(jacobiActive) prepareAccumulators();
+
+        // the first sub step has no previous integration pass to apply its SceneConstraints in
+        if(sceneConstraintCount > 0) applySceneConstraints();
 
         final float sub_dt = dt / subSteps;
         for(int i = 0; i < subSteps; i++) {
 
-            // accelerate every object to simulate gravity
-            applyGravity();
-
-            // apply constraints if container supports them
-            if(container instanceof Scene) applyConstraints((Scene) container);
+            // apply constraints that are linked to specific spheres
+            applyStaticConstraints();
 
             // solve object collisions
+            countContacts = sleepEnabled && i == subSteps - 1;
             if(enableCollisions) solveCollisions();
 
-            // update position of every object
-            updatePosition(sub_dt);
+            // accelerate, update position and constrain (for the next sub step) every object in one pass
+            integrate(sub_dt, i < subSteps - 1 && sceneConstraintCount > 0);
+
+        }
+
+        if(sleepEnabled) updateSleeping();
+    }
+
+    /**
+     * Runs the fused integration pass over every Sphere.
+     * Accelerates every Sphere to simulate gravity, updates the position according to the verlet formula
+     * and optionally applies the SceneConstraints of the following sub step.
+     * @param dt the amount of "time" to step forwards
+     * @param constrain if true the SceneConstraints are applied after integrating
+     */
+    private void integrate(float dt, boolean constrain) {
+        subDt = dt;
+        constrainAfterIntegration = constrain;
+        if(skipIntegration) pool.run(packedScene != null ? packedMovingIntegrationPhase : movingIntegrationPhase);
+        else pool.run(packedScene != null ? packedIntegrationPhase : integrationPhase);
+    }
+
+    /**
+     * Returns whether the integration skips a Sphere
+     * @param index the index of the Sphere
+     * @return true if the Sphere is sleeping or kinematic
+     */
+    private boolean isResting(int index) {
+        return (sleepEnabled && sleeping[index]) || (kinematicCount > 0 && kinematic[index]);
+    }
+
+    /**
+     * Fused integration of every moving Sphere that belongs to a partition.
+     * Sleeping and kinematic Spheres are skipped by the integration, but still pass through the SceneConstraints like the slots of {@link VerletSolver#integratePackedMoving(int, int)}
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void integrateMoving(int partitionIndex, int partitionCount) {
+        final int count = container.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int start = partitionIndex * partitionSize;
+        final int end = Math.min(start + partitionSize, count);
+        for(int i = start; i < end; i++) {
+            if(!isResting(i)) integrate(container.getSphere(i));
+            else if(constrainAfterIntegration) applySceneConstraints(container.getSphere(i));
+        }
+    }
 
+    /**
+     * Fused integration of every moving slot of a {@link VerletPackedScene} that belongs to a partition.
+     * Sleeping and kinematic slots are skipped by the integration, but still pass through the SceneConstraints with their block
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void integratePackedMoving(int partitionIndex, int partitionCount) {
+        final VerletPackedScene scene = packedScene;
+        final int count = scene.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int from = partitionIndex * partitionSize, to = Math.min(from + partitionSize, count);
+        final double[] x = scene.x, y = scene.y, lx = scene.lx, ly = scene.ly, ax = scene.ax, ay = scene.ay;
+        final float dt = subDt;
+        for(int start = from; start < to; start += PACKED_BLOCK_SIZE) {
+            final int end = Math.min(start + PACKED_BLOCK_SIZE, to);
+            for(int i = start; i < end; i++) {
+                if(isResting(i)) continue;
+                double px = x[i];
+                double py = y[i];
+                x[i] = px + (px - lx[i]) + (ax[i] + gx) * dt * dt;
+                y[i] = py + (py - ly[i]) + (ay[i] + gy) * dt * dt;
+                lx[i] = px;
+                ly[i] = py;
+                ax[i] = 0;
+                ay[i] = 0;
+            }
+            if(constrainAfterIntegration) applySceneConstraints(scene, start, end);
         }
     }
 
     /**
-     * Updates the position according to the verlet formula of each sphere
+     * Fused integration of a single Sphere
+     * @param sphere The Sphere to integrate
+     */
+    private void integrate(Sphere sphere) {
+        sphere.accelerate(gx, gy);
+        sphere.updatePosition(subDt);
+        if(constrainAfterIntegration) applySceneConstraints(sphere);
+    }
+
+    /**
+     * Fused integration of the slots of a {@link VerletPackedScene} that belong to a partition
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void integratePacked(int partitionIndex, int partitionCount) {
+        final int count = packedScene.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int start = partitionIndex * partitionSize;
+        integratePacked(packedScene, subDt, constrainAfterIntegration, start, Math.min(start + partitionSize, count));
+    }
+
+    /**
+     * Fused integration directly on a range of columns of a {@link VerletPackedScene}.
+     * Gravity is added to the acceleration in the same step as integrating, which is equal to accelerating beforehand.
+     * The slots are processed in small blocks. Every block is integrated and then constrained while it is still in cache.
+     * @param scene the packed Scene to integrate
      * @param dt the amount of "time" to step forwards
+     * @param constrain if true the SceneConstraints are applied after integrating
+     * @param from the first slot to integrate (inclusive)
+     * @param to the last slot to integrate (exclusive)
      */
-    private void updatePosition(float dt) {
-        container.invokeSpheres(sphere -> {
-            sphere.updatePosition(dt);
-        });
+    private void integratePacked(VerletPackedScene scene, float dt, boolean constrain, int from, int to) {
+        final double[] x = scene.x, y = scene.y, lx = scene.lx, ly = scene.ly, ax = scene.ax, ay = scene.ay;
+        for(int start = from; start < to; start += PACKED_BLOCK_SIZE) {
+            final int end = Math.min(start + PACKED_BLOCK_SIZE, to);
+            for(int i = start; i < end; i++) {
+                double px = x[i];
+                double py = y[i];
+                x[i] = px + (px - lx[i]) + (ax[i] + gx) * dt * dt;
+                y[i] = py + (py - ly[i]) + (ay[i] + gy) * dt * dt;
+                lx[i] = px;
+                ly[i] = py;
+                ax[i] = 0;
+                ay[i] = 0;
+            }
+            if(constrain) applySceneConstraints(scene, start, end);
+        }
     }
 
     /**
@@ -145,46 +864,138 @@ public class VerletSolver implements Solver {
     private void solveCollisions() {
         if(grid == null) solveViaClassic();
         else solveCollisionsViaGrid();
+        if(solveStatics) pool.run(packedScene != null ? packedStaticPhase : staticPhase);
+    }
+
+    /**
+     * Pushes every moving Sphere of a partition out of the static Spheres.
+     * Only the moving Sphere is written, so the partitions can be solved at the same time without phases.
+     * Sleeping Spheres are only tested while contacts are counted
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void solveStaticCollisions(int partitionIndex, int partitionCount) {
+        final int count = container.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int start = partitionIndex * partitionSize;
+        final int end = Math.min(start + partitionSize, count);
+        final double margin = sleepEnabled ? sleepThreshold : 0;
+        for(int i = start; i < end; i++) {
+            if(kinematicCount > 0 && kinematic[i]) continue;
+            final boolean asleep = sleepEnabled && sleeping[i];
+            if(asleep && !countContacts) continue;
+            int touching = staticLayer.solve(container.getSphere(i), margin, !asleep);
+            if(countContacts) contacts[i] += touching;
+        }
+    }
+
+    /**
+     * Pushes every moving slot of a {@link VerletPackedScene} that belongs to a partition out of the static Spheres.
+     * Does exactly the same as {@link VerletSolver#solveStaticCollisions(int, int)} but works directly on the columns.
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void solvePackedStaticCollisions(int partitionIndex, int partitionCount) {
+        final VerletPackedScene scene = packedScene;
+        final int count = scene.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int start = partitionIndex * partitionSize;
+        final int end = Math.min(start + partitionSize, count);
+        final double margin = sleepEnabled ? sleepThreshold : 0;
+        for(int i = start; i < end; i++) {
+            if(kinematicCount > 0 && kinematic[i]) continue;
+            final boolean asleep = sleepEnabled && sleeping[i];
+            if(asleep && !countContacts) continue;
+            int touching = staticLayer.solve(scene.x, scene.y, i, scene.radius[i], margin, !asleep);
+            if(countContacts) contacts[i] += touching;
+        }
     }
 
+    /**
+     * Solves collisions by comparing every Sphere with each other.
+     * The comparisons are split over every thread of the {@link VerletSolverPool}
+     */
     private void solveViaClassic() {
-        container.solveCollisionPartition(0, solverThreads.length+1, this::solveCollisions);
-        for(VerletSolverThread thread : solverThreads) thread.solve(container, solverThreads.length+1, this::solveCollisions);
+        if(jacobiActive) {
+            pool.run(jacobiClassicPhase);
+            pool.run(jacobiApplyPhase);
+            return;
+        }
+        final PartitionRunnable phaseRunnable = packedScene != null ? packedClassicPhase : classicPhase;
+        // the pairs of different partitions share Spheres, only a single partition has a fixed order
+        if(deterministic) phaseRunnable.run(0, 1);
+        else pool.run(phaseRunnable);
     }
 
     /**
-     * Solves collisions by using the VerletGrid.
-     * First reassigns every Sphere to the Grid. Then Invokes every Sphere on the Grid with nearby Spheres
+     * Solves collisions by using the Grid.
+     * First updates the Grid. Then Invokes every Sphere on the Grid with nearby Spheres.
+     * Every collision phase of the grid is run separately, all threads finish a phase before the next one starts
      */
     private void solveCollisionsViaGrid() {
-        grid.assignCells(container);
+        // in the sub step that counts contacts every pair is needed
+        grid.setSleepingSpheres(sleepEnabled && !countContacts ? sleeping : null);
+        grid.update(container);
 
-        grid.solveCollisionPartition(0, solverThreads.length+1, this::solveCollisions);
+        final PartitionRunnable phaseRunnable;
+        if(jacobiActive) phaseRunnable = indexGrid != null ? jacobiIndexGridPhase : jacobiGridPhase;
+        else if(indexGrid != null) phaseRunnable = packedScene != null ? packedIndexGridPhase : indexGridPhase;
+        else phaseRunnable = packedScene != null ? packedGridPhase : gridPhase;
 
-        for(VerletSolverThread thread : solverThreads) {
-            thread.solve(grid, solverThreads.length+1, this::solveCollisions);
+        final int phases = grid.getCollisionPhaseCount();
+        final boolean serial = deterministic && !jacobiActive && !grid.isPhasedScheduling();
+        for(int phase = 0; phase < phases; phase++) {
+            collisionPhase = phase;
+            if(serial) phaseRunnable.run(0, 1);
+            else pool.run(phaseRunnable);
         }
-        waitUntilThreadsAreFinished();
+        if(jacobiActive) pool.run(jacobiApplyPhase);
     }
 
     /**
-     * Loops so long until all {@link VerletSolverThread} threads are done
-     * with their collision-check-loops.
-     * Uses the {@link VerletSolverThread#isReady()} method in order to check
-     * if a thread is ready. Only when all threads are ready, the main thread continues.<br>
-     * If there are no additional threads - instantly continues
+     * Creates one {@link JacobiAccumulator} for every partition of the pool and grows their buffers to fit every Sphere
      */
-    private void waitUntilThreadsAreFinished() {
-        boolean solving;
-        do {
-            solving = false;
-            for(VerletSolverThread thread : solverThreads) {
-                if (!thread.isReady()) {
-                    solving = true;
-                    break;
-                }
+    private void prepareAccumulators() {
+        final int partitions = pool.getPartitionCount();
+        if(accumulators.length != partitions) {
+            accumulators = Arrays.copyOf(accumulators, partitions);
+            for(int p = 0; p < partitions; p++) if(accumulators[p] == null) accumulators[p] = new JacobiAccumulator();
+        }
+        for(JacobiAccumulator accumulator : accumulators) accumulator.prepare(container, kinematicCount > 0 ? kinematic : null, deterministic, seed, grid != null && grid.isPassingPairsTwice());
+    }
+
+    /**
+     * Sums up the corrections every accumulator collected for the Spheres of a partition, moves the Spheres and clears the accumulators.
+     * The sums are exact, so they do not depend on which accumulator holds which correction
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
+     */
+    private void applyJacobiCorrections(int partitionIndex, int partitionCount) {
+        final int count = container.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int start = partitionIndex * partitionSize;
+        final int end = Math.min(start + partitionSize, count);
+        final JacobiAccumulator[] accumulators = this.accumulators;
+        for(int i = start; i < end; i++) {
+            long sumX = 0, sumY = 0;
+            int contacts = 0;
+            for(JacobiAccumulator accumulator : accumulators) {
+                sumX += accumulator.dx[i];
+                sumY += accumulator.dy[i];
+                contacts += accumulator.contacts[i];
+                accumulator.dx[i] = 0;
+                accumulator.dy[i] = 0;
+                accumulator.contacts[i] = 0;
             }
-        } while (solving);
+            if(contacts == 0) continue;
+            final double scale = Math.min(1, JACOBI_RELAXATION / contacts) / JacobiAccumulator.SCALE;
+            if(packedScene != null) {
+                packedScene.x[i] += sumX * scale;
+                packedScene.y[i] += sumY * scale;
+            } else {
+                applyNewPosition(container.getSphere(i), sumX * scale, sumY * scale);
+            }
+        }
     }
 
     /**
@@ -204,8 +1015,9 @@ public class VerletSolver implements Solver {
 
         // Check if both spheres have the same position
         if(dLength <= 0) {
-            sphere_1.setX(sphere_1.getX() + Math.random() * sphere_1.getRadius() / 10);
-            sphere_1.setY(sphere_2.getY() + Math.random() * sphere_1.getRadius() / 10);
+            final double x = sphere_1.getX(), y = sphere_1.getY();
+            sphere_1.setX(x + random(x, y, -1, -1, 0) * sphere_1.getRadius() / 10);
+            sphere_1.setY(y + random(x, y, -1, -1, 1) * sphere_1.getRadius() / 10);
             return;
         }
 
@@ -223,6 +1035,265 @@ public class VerletSolver implements Solver {
 
     }
 
+    /**
+     * Solves the collision between two Spheres which are identified by their index inside the container
+     * @param index_1 The index of the first Sphere
+     * @param index_2 The index of the second Sphere
+     */
+    private void solveIndexCollisions(int index_1, int index_2) {
+        solveCollisions(container.getSphere(index_1), container.getSphere(index_2));
+    }
+
+    /**
+     * Solves the collision between two handles of the {@link VerletPackedScene}.
+     * Resolves the slots of both handles and continues on the columns.
+     *
+     * @param sphere_1 The first Sphere
+     * @param sphere_2 The second Sphere
+     */
+    private void solvePackedHandleCollisions(Sphere sphere_1, Sphere sphere_2) {
+        packedPairRunnable.run(((VerletPackedSphere) sphere_1).slot, ((VerletPackedSphere) sphere_2).slot);
+    }
+
+    /**
+     * Solves the collision between two Spheres, while kinematic Spheres exist.
+     * A kinematic Sphere has an infinite weight, it pushes the other Sphere by the whole correction and is never pushed itself.
+     * Two kinematic Spheres never collide. Pairs without a kinematic Sphere are solved as usual.
+     * Uses the kinematic flags of the last refresh, like the integration, instead of the current BodyType of the Spheres
+     * @param sphere_1 The first Sphere
+     * @param sphere_2 The second Sphere
+     */
+    private void solveKinematicCollisions(Sphere sphere_1, Sphere sphere_2) {
+        final boolean kinematic_1 = kinematicSpheres.get(sphere_1) >= 0, kinematic_2 = kinematicSpheres.get(sphere_2) >= 0;
+        if(!kinematic_1 && !kinematic_2) solveCollisions(sphere_1, sphere_2);
+        else if(!kinematic_1 || !kinematic_2) pushFromKinematic(kinematic_1 ? sphere_1 : sphere_2, kinematic_1 ? sphere_2 : sphere_1, -1);
+    }
+
+    /**
+     * Solves the collision between two Spheres which are identified by their index inside the container, while kinematic Spheres exist.
+     * See {@link VerletSolver#solveKinematicCollisions(Sphere, Sphere)}
+     * @param index_1 The index of the first Sphere
+     * @param index_2 The index of the second Sphere
+     */
+    private void solveKinematicIndexCollisions(int index_1, int index_2) {
+        final boolean kinematic_1 = kinematic[index_1], kinematic_2 = kinematic[index_2];
+        if(!kinematic_1 && !kinematic_2) {
+            if(sleepEnabled) solveSleepingIndexCollisions(index_1, index_2);
+            else solveIndexCollisions(index_1, index_2);
+            return;
+        }
+        if(kinematic_1 && kinematic_2) return;
+        final int moving = kinematic_1 ? index_2 : index_1;
+        pushFromKinematic(container.getSphere(kinematic_1 ? index_1 : index_2), container.getSphere(moving), moving);
+    }
+
+    /**
+     * Moves a Sphere out of a kinematic Sphere. Wakes the Sphere if it is sleeping and counts the contact if contacts are counted
+     * @param fixed The kinematic Sphere
+     * @param moving The Sphere to move
+     * @param index The index of the Sphere to move, or -1 if it is unknown
+     */
+    private void pushFromKinematic(Sphere fixed, Sphere moving, int index) {
+        final double dx = moving.getX() - fixed.getX();
+        final double dy = moving.getY() - fixed.getY();
+        final float combinedRadius = fixed.getRadius() + moving.getRadius();
+        final double reach = combinedRadius + (index >= 0 && sleepEnabled ? sleepThreshold : 0);
+        if(dx * dx + dy * dy >= reach * reach) return;
+        if(countContacts && index >= 0) contacts[index]++;
+        double dLength = VectorUtil.length(dx,dy);
+        if(dLength >= combinedRadius) return;
+        if(index >= 0 && sleepEnabled && sleeping[index]) wake(index);
+
+        // no direction to push in, push upwards
+        if(dLength <= 0) applyNewPosition(moving, 0, combinedRadius);
+        else applyNewPosition(moving, dx / dLength * (combinedRadius - dLength), dy / dLength * (combinedRadius - dLength));
+    }
+
+    /**
+     * Solves the collision between two slots of the {@link VerletPackedScene}, while kinematic Spheres exist.
+     * Does exactly the same as {@link VerletSolver#solveKinematicIndexCollisions(int, int)} but works directly on the columns.
+     * @param i The slot of the first Sphere
+     * @param j The slot of the second Sphere
+     */
+    private void solveKinematicPackedCollisions(int i, int j) {
+        final boolean kinematic_i = kinematic[i], kinematic_j = kinematic[j];
+        if(!kinematic_i && !kinematic_j) {
+            if(sleepEnabled) solveSleepingPackedCollisions(i, j);
+            else solvePackedCollisions(i, j);
+            return;
+        }
+        if(kinematic_i && kinematic_j) return;
+
+        final VerletPackedScene scene = packedScene;
+        final double[] x = scene.x, y = scene.y;
+        final int fixed = kinematic_i ? i : j, moving = kinematic_i ? j : i;
+        final double dx = x[moving] - x[fixed];
+        final double dy = y[moving] - y[fixed];
+        final float combinedRadius = scene.radius[i] + scene.radius[j];
+        final double reach = combinedRadius + (sleepEnabled ? sleepThreshold : 0);
+        if(dx * dx + dy * dy >= reach * reach) return;
+        if(countContacts) contacts[moving]++;
+        double dLength = VectorUtil.length(dx,dy);
+        if(dLength >= combinedRadius) return;
+        if(sleepEnabled && sleeping[moving]) wake(moving);
+
+        if(dLength <= 0) {
+            y[moving] += combinedRadius;
+            return;
+        }
+        x[moving] += dx / dLength * (combinedRadius - dLength);
+        y[moving] += dy / dLength * (combinedRadius - dLength);
+    }
+
+    /**
+     * Solves the collision between two Spheres which are identified by their index inside the container, while sleeping is enabled.
+     * In the last sub step of every step, Spheres that touch or nearly touch are counted as contacts of each other.
+     * In every other sub step, pairs of two sleeping Spheres are skipped right away. If only one of them sleeps, it either wakes up or holds still while the awake Sphere
+     * takes the whole correction. See {@link VerletSolver#setSleeping(double, int)}
+     * @param index_1 The index of the first Sphere
+     * @param index_2 The index of the second Sphere
+     */
+    private void solveSleepingIndexCollisions(int index_1, int index_2) {
+        final boolean sleeping_1 = sleeping[index_1], sleeping_2 = sleeping[index_2];
+        if(sleeping_1 && sleeping_2 && !countContacts) return;
+
+        final Sphere sphere_1 = container.getSphere(index_1), sphere_2 = container.getSphere(index_2);
+        double dx = sphere_1.getX() - sphere_2.getX();
+        double dy = sphere_1.getY() - sphere_2.getY();
+        final float combinedRadius = sphere_1.getRadius() + sphere_2.getRadius();
+        final double reach = combinedRadius + sleepThreshold;
+        if(dx * dx + dy * dy >= reach * reach) return;
+        if(countContacts) {
+            contacts[index_1]++;
+            contacts[index_2]++;
+        }
+        if(sleeping_1 && sleeping_2) return;
+        if(!sleeping_1 && !sleeping_2) {
+            solveCollisions(sphere_1, sphere_2);
+            return;
+        }
+
+        final int asleep = sleeping_1 ? index_1 : index_2;
+        final Sphere awakeSphere = sleeping_1 ? sphere_2 : sphere_1, asleepSphere = sleeping_1 ? sphere_1 : sphere_2;
+        if(sleeping_1) {
+            dx = -dx;
+            dy = -dy;
+        }
+        double dLength = VectorUtil.length(dx,dy);
+
+        // a fast Sphere disturbs every sleeping Sphere it touches
+        double vx = awakeSphere.getX() - awakeSphere.getOldX(), vy = awakeSphere.getY() - awakeSphere.getOldY();
+        if(dLength <= 0 || vx * vx + vy * vy > sleepThreshold * sleepThreshold) {
+            wake(asleep);
+            solveCollisions(sphere_1, sphere_2);
+            return;
+        }
+        if(dLength >= combinedRadius) return;
+
+        final double delta = combinedRadius - dLength;
+        if(delta * awakeSphere.getWeight() / (awakeSphere.getWeight() + asleepSphere.getWeight()) > sleepThreshold) {
+            wake(asleep);
+            solveCollisions(sphere_1, sphere_2);
+            return;
+        }
+        applyNewPosition(awakeSphere, dx / dLength * delta, dy / dLength * delta);
+    }
+
+    /**
+     * Solves the collision between two slots of the {@link VerletPackedScene}, while sleeping is enabled.
+     * Does exactly the same as {@link VerletSolver#solveSleepingIndexCollisions(int, int)} but works directly on the columns.
+     * @param i The slot of the first Sphere
+     * @param j The slot of the second Sphere
+     */
+    private void solveSleepingPackedCollisions(int i, int j) {
+        final boolean sleeping_i = sleeping[i], sleeping_j = sleeping[j];
+        if(sleeping_i && sleeping_j && !countContacts) return;
+
+        final VerletPackedScene scene = packedScene;
+        final double[] x = scene.x, y = scene.y;
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        final float combinedRadius = scene.radius[i] + scene.radius[j];
+        final double reach = combinedRadius + sleepThreshold;
+        if(dx * dx + dy * dy >= reach * reach) return;
+        if(countContacts) {
+            contacts[i]++;
+            contacts[j]++;
+        }
+        if(sleeping_i && sleeping_j) return;
+        if(!sleeping_i && !sleeping_j) {
+            solvePackedCollisions(i, j);
+            return;
+        }
+
+        final float[] weight = scene.weight;
+        final int awake = sleeping_i ? j : i, asleep = sleeping_i ? i : j;
+        if(sleeping_i) {
+            dx = -dx;
+            dy = -dy;
+        }
+        double dLength = VectorUtil.length(dx,dy);
+
+        // a fast Sphere disturbs every sleeping Sphere it touches
+        double vx = x[awake] - scene.lx[awake], vy = y[awake] - scene.ly[awake];
+        if(dLength <= 0 || vx * vx + vy * vy > sleepThreshold * sleepThreshold) {
+            wake(asleep);
+            solvePackedCollisions(i, j);
+            return;
+        }
+        if(dLength >= combinedRadius) return;
+
+        final double delta = combinedRadius - dLength;
+        if(delta * weight[awake] / (weight[awake] + weight[asleep]) > sleepThreshold) {
+            wake(asleep);
+            solvePackedCollisions(i, j);
+            return;
+        }
+        x[awake] += dx / dLength * delta;
+        y[awake] += dy / dLength * delta;
+    }
+
+    /**
+     * Solves the collision between two slots of the {@link VerletPackedScene}.
+     * Does exactly the same as {@link VerletSolver#solveCollisions(Sphere, Sphere)} but works directly on the columns.
+     *
+     * @param i The slot of the first Sphere
+     * @param j The slot of the second Sphere
+     */
+    private void solvePackedCollisions(int i, int j) {
+        final VerletPackedScene scene = packedScene;
+        final double[] x = scene.x, y = scene.y;
+        final float[] radius = scene.radius, weight = scene.weight;
+
+        // calculate information on how the spheres relate
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        double dLength = VectorUtil.length(dx,dy);
+
+        // Check if both spheres have the same position
+        if(dLength <= 0) {
+            final double sx = x[i], sy = y[i];
+            x[i] = sx + random(sx, sy, i, j, 0) * radius[i] / 10;
+            y[i] = sy + random(sx, sy, i, j, 1) * radius[i] / 10;
+            return;
+        }
+
+        final float combinedRadius = radius[i] + radius[j];
+
+        // gets executed if the spheres collide
+        if(dLength < combinedRadius) {
+            dx /= dLength;
+            dy /= dLength;
+            final double delta = (combinedRadius) - dLength;
+            float weightDiff = weight[i] / (weight[i] + weight[j]);
+            x[i] += dx * delta*(1-weightDiff);
+            y[i] += dy * delta*(1-weightDiff);
+            x[j] -= dx * delta*(weightDiff);
+            y[j] -= dy * delta*(weightDiff);
+        }
+
+    }
+
     /**
      * Adds towards the existing position vector effectively moving the Sphere
      * @param sphere The Sphere to move
@@ -235,30 +1306,126 @@ public class VerletSolver implements Solver {
     }
 
     /**
-     * Applies every Constraint
-     * @param scene Passes the Scene, because Constraints need a Scene to function
+     * Sorts every Constraint of the Scene into SceneConstraints and StaticConstraints.
+     * Does nothing if the container is not a Scene
      */
-    private void applyConstraints(Scene scene) {
-        scene.invokeConstraints(this::applyConstraint);
+    private void collectConstraints() {
+        sceneConstraintCount = 0;
+        staticConstraintCount = 0;
+        if(container instanceof Scene) ((Scene) container).invokeConstraints(constraintRunnable);
+        constraintScheduler.update(staticConstraints, packedStaticConstraints, staticConstraintCount);
     }
 
     /**
-     * Applies a specific Constraint
-     * Checks if Constraint is a SceneConstraint or a StaticConstraint, then applies it
+     * Sorts a specific Constraint
+     * Checks if Constraint is a SceneConstraint or a StaticConstraint, then stores it
      *
-     * @param constraint The Constraint to apply
+     * @param constraint The Constraint to sort
      */
-    private void applyConstraint(Constraint constraint) {
-        if(constraint instanceof SceneConstraint) container.invokeSpheres(((SceneConstraint)constraint)::apply);
-        else if(constraint instanceof StaticConstraint) ((StaticConstraint)constraint).apply();
+    private void collectConstraint(Constraint constraint) {
+        if(constraint instanceof SceneConstraint) {
+            if(sceneConstraintCount == sceneConstraints.length) {
+                sceneConstraints = Arrays.copyOf(sceneConstraints, Math.max(4, sceneConstraintCount * 2));
+                packedSceneConstraints = Arrays.copyOf(packedSceneConstraints, sceneConstraints.length);
+            }
+            packedSceneConstraints[sceneConstraintCount] = constraint instanceof PackedSceneConstraint;
+            sceneConstraints[sceneConstraintCount++] = (SceneConstraint) constraint;
+        }
+        else if(constraint instanceof StaticConstraint) {
+            if(staticConstraintCount == staticConstraints.length) {
+                staticConstraints = Arrays.copyOf(staticConstraints, Math.max(4, staticConstraintCount * 2));
+                packedStaticConstraints = Arrays.copyOf(packedStaticConstraints, staticConstraints.length);
+            }
+            packedStaticConstraints[staticConstraintCount] = constraint instanceof PackedStaticConstraint;
+            staticConstraints[staticConstraintCount++] = (StaticConstraint) constraint;
+        }
+    }
+
+    /**
+     * Applies every SceneConstraint on every Sphere. The Spheres are split over every thread of the {@link VerletSolverPool}
+     */
+    private void applySceneConstraints() {
+        pool.run(packedScene != null ? packedSceneConstraintPhase : sceneConstraintPhase);
     }
 
     /**
-     * Applies gravity to every Sphere using the existing values
+     * Applies every SceneConstraint on the slots of a {@link VerletPackedScene} that belong to a partition
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads
      */
-    private void applyGravity() {
-        container.invokeSpheres((sphere -> {
-            sphere.accelerate(gx,gy);
-        }));
+    private void applyPackedSceneConstraints(int partitionIndex, int partitionCount) {
+        final int count = packedScene.getSphereCount();
+        final int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        final int start = partitionIndex * partitionSize;
+        applySceneConstraints(packedScene, start, Math.min(start + partitionSize, count));
+    }
+
+    /**
+     * Applies every SceneConstraint on a single Sphere
+     * @param sphere the Sphere to constrain
+     */
+    private void applySceneConstraints(Sphere sphere) {
+        for(int i = 0; i < sceneConstraintCount; i++) sceneConstraints[i].apply(sphere);
+    }
+
+    /**
+     * Applies every SceneConstraint on a range of slots of a {@link VerletPackedScene}.
+     * A {@link PackedSceneConstraint} works directly on the columns, every other SceneConstraint receives the handles.
+     * Every slot still passes through the SceneConstraints in the order they were added.
+     * @param scene the packed Scene
+     * @param start the first slot to constrain (inclusive)
+     * @param end the last slot to constrain (exclusive)
+     */
+    private void applySceneConstraints(VerletPackedScene scene, int start, int end) {
+        for(int i = 0; i < sceneConstraintCount; i++) {
+            if(packedSceneConstraints[i]) ((PackedSceneConstraint) sceneConstraints[i]).apply(scene, start, end);
+            else for(int slot = start; slot < end; slot++) sceneConstraints[i].apply(scene.getSphere(slot));
+        }
+    }
+
+    /**
+     * Applies every StaticConstraint. Constraints that do not share a Sphere are applied in parallel, color by color,
+     * see {@link VerletConstraintScheduler}. A {@link PackedStaticConstraint} works directly on the columns if the container is a {@link VerletPackedScene}
+     */
+    private void applyStaticConstraints() {
+        if(staticConstraintCount > 0) constraintScheduler.apply(pool, packedScene);
+    }
+
+    /**
+     * Returns a random number between 0 and 1 that pushes apart two Spheres at the same position.
+     * In deterministic mode the number is hashed from the seed, the position and the indices, otherwise Math.random() is used
+     * @param x the X Position of both Spheres
+     * @param y the Y Position of both Spheres
+     * @param index_1 the index of the first Sphere, or -1 if unknown
+     * @param index_2 the index of the second Sphere, or -1 if unknown
+     * @param axis 0 for the X direction, 1 for the Y direction
+     * @return a number in the range [0, 1)
+     */
+    private double random(double x, double y, int index_1, int index_2, int axis) {
+        return deterministic ? jitter(seed, x, y, index_1, index_2, axis) : Math.random();
+    }
+
+    /**
+     * Hashes a number between 0 and 1 from a seed, the position of two Spheres and their indices
+     * @param seed the seed, see {@link Solver#setDeterministic(boolean, long)}
+     * @param x the X Position of both Spheres
+     * @param y the Y Position of both Spheres
+     * @param index_1 the index of the first Sphere, or -1 if unknown
+     * @param index_2 the index of the second Sphere, or -1 if unknown
+     * @param axis 0 for the X direction, 1 for the Y direction
+     * @return a number in the range [0, 1)
+     */
+    static double jitter(long seed, double x, double y, int index_1, int index_2, int axis) {
+        long hash = seed;
+        hash = (hash ^ Double.doubleToLongBits(x)) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ Double.doubleToLongBits(y)) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (((long) index_1 << 32) | (index_2 & 0xFFFFFFFFL))) * 0x9E3779B97F4A7C15L;
+        hash ^= axis;
+
+        // finalizer of SplitMix64, spreads every input bit over the whole hash
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (hash >>> 11) * 0x1.0p-53;
     }
 }
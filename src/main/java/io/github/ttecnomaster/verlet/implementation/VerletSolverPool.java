@@ -0,0 +1,179 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The VerletSolverPool is a fixed pool of {@link VerletSolverThread} workers that run the parallel phases of the {@link VerletSolver}.
+ * The thread calling {@link VerletSolverPool#run(PartitionRunnable)} always works on partition 0 itself,
+ * every worker works on one of the remaining partitions. The run method returns only after every partition is done,
+ * so every parallel phase is fenced by a barrier.
+ * Waiting threads first spin and yield for a short while, as the next phase usually follows right away, and then park.
+ * Therefor idle workers do not burn any CPU while the simulation is paused.
+ * Workers are daemon threads. The pool has to be closed with {@link VerletSolverPool#close()} which also joins every worker.
+ *
+ * @author tecno-master
+ * @see VerletSolverThread
+ * @see PartitionRunnable
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+public class VerletSolverPool implements AutoCloseable {
+    // How many times a waiting thread checks for progress before it yields. Spinning is pointless on a single core
+    static final int SPIN_ITERATIONS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 14 : 0;
+    // How many times a waiting thread yields before it parks
+    static final int YIELD_ITERATIONS = 64;
+
+    private final VerletSolverThread[] workers;
+    private final AtomicInteger pending;
+    private volatile int generation;
+    private volatile boolean running;
+    private volatile boolean callerParked;
+    private volatile Thread caller;
+    private volatile Throwable failure;
+    private PartitionRunnable task;
+
+    /**
+     * Creates a new pool and starts its workers.
+     * @param threads the total amount of threads including the calling thread. Can be specified by {@link Solver#setMultiThreading(int)}
+     */
+    public VerletSolverPool(int threads) {
+        if(threads < 1) throw new IllegalArgumentException("Solver needs at least one Thread in order to run!");
+        this.pending = new AtomicInteger();
+        this.running = true;
+        this.workers = new VerletSolverThread[threads-1];
+
+        // index 0 is reserved for the calling thread
+        for(int i = 0; i < workers.length; i++) workers[i] = new VerletSolverThread(this, i+1);
+        for(VerletSolverThread worker : workers) worker.start();
+    }
+
+    /**
+     * Returns the total amount of partitions a phase is split into
+     * @return the amount of workers plus the calling thread
+     */
+    public int getPartitionCount() {
+        return workers.length + 1;
+    }
+
+    /**
+     * Runs one parallel phase. The task is called once for every partition.
+     * The calling thread works on partition 0 and returns only after every partition is done.
+     * If a partition throws, the exception is rethrown on the calling thread after the barrier.
+     * @param task the task to run on every partition
+     */
+    public void run(PartitionRunnable task) {
+        if(!running) throw new IllegalStateException("The VerletSolverPool is already closed!");
+        if(workers.length == 0) {
+            task.run(0, 1);
+            return;
+        }
+
+        this.task = task;
+        this.caller = Thread.currentThread();
+        pending.set(workers.length);
+
+        // publishes the task to every worker
+        generation++;
+        for(VerletSolverThread worker : workers) if(worker.parked) LockSupport.unpark(worker);
+
+        Throwable thrown = null;
+        try {
+            task.run(0, workers.length + 1);
+        } catch (Throwable t) {
+            thrown = t;
+        }
+
+        awaitWorkers();
+
+        this.task = null;
+        if(thrown == null) thrown = failure;
+        failure = null;
+        if(thrown instanceof RuntimeException) throw (RuntimeException) thrown;
+        if(thrown instanceof Error) throw (Error) thrown;
+        if(thrown != null) throw new RuntimeException(thrown);
+    }
+
+    /**
+     * Spins and then parks until every worker finished the current phase
+     */
+    private void awaitWorkers() {
+        for(int i = 0; i < SPIN_ITERATIONS; i++) if(pending.get() == 0) return;
+        for(int i = 0; i < YIELD_ITERATIONS; i++) {
+            if(pending.get() == 0) return;
+            Thread.yield();
+        }
+
+        callerParked = true;
+        while(pending.get() != 0) LockSupport.park(this);
+        callerParked = false;
+    }
+
+    /**
+     * Spins and then parks until a new phase is published or the pool is closed
+     * @param worker the waiting worker
+     * @param seen the generation the worker already finished
+     * @return the generation of the new phase
+     */
+    int awaitPhase(VerletSolverThread worker, int seen) {
+        for(int i = 0; i < SPIN_ITERATIONS + YIELD_ITERATIONS; i++) {
+            int current = generation;
+            if(current != seen || !running) return current;
+            if(i >= SPIN_ITERATIONS) Thread.yield();
+        }
+
+        worker.parked = true;
+        int current;
+        while((current = generation) == seen && running) LockSupport.park(this);
+        worker.parked = false;
+        return current;
+    }
+
+    /**
+     * Runs the current task on the partition of a worker and reports back to the calling thread
+     * @param partitionIndex the partition of the worker
+     */
+    void runPartition(int partitionIndex) {
+        try {
+            task.run(partitionIndex, workers.length + 1);
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            if(pending.decrementAndGet() == 0 && callerParked) LockSupport.unpark(caller);
+        }
+    }
+
+    /**
+     * Returns if the pool accepts new phases
+     * @return false once the pool is closed
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Shuts down every worker and waits until they terminated.
+     * Calling close more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if(!running) return;
+        running = false;
+        generation++;
+
+        boolean interrupted = false;
+        for(VerletSolverThread worker : workers) {
+            LockSupport.unpark(worker);
+            while(worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+}
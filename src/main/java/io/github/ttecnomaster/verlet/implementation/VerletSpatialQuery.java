@@ -0,0 +1,147 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+/**
+ * Answers the spatial queries of the {@link VerletSolver}, see {@link Solver#queryCircle(double, double, double, SphereRunnable)}.
+ * The candidates come from the cells of a {@link QueryBroadphase}, or from every Sphere of the container if there is none
+ * or the Broadphase does not cover the queried area. Static Spheres are not part of any Broadphase, their candidates come from the {@link VerletStaticLayer}.
+ * Every candidate is then tested against its exact position.
+ * A query only stores its parameters in fields and reuses one runnable, so querying does not allocate.
+ *
+ * @author tecno-master
+ * @see QueryBroadphase
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+final class VerletSpatialQuery {
+    private static final int CIRCLE = 0, RECTANGLE = 1, PICK = 2;
+
+    // The parameters of the running query
+    private int mode;
+    private double x, y, radius;
+    private double minX, minY, maxX, maxY;
+    private Sphere[] buffer;
+    private SphereRunnable runnable;
+    private int count;
+    private Sphere picked;
+    private double pickedDistance;
+    private final SphereRunnable test = this::test;
+    private final VerletStaticLayer staticLayer;
+
+    /**
+     * Creates the queries of a Solver
+     * @param staticLayer the layer that holds the static Spheres, it has to be updated before querying
+     */
+    VerletSpatialQuery(VerletStaticLayer staticLayer) {
+        this.staticLayer = staticLayer;
+    }
+
+    /**
+     * Finds every Sphere that overlaps a circle
+     * @param container the container of the Spheres
+     * @param grid the Broadphase to search, or null to test every Sphere
+     * @param x the X Position of the center of the circle
+     * @param y the Y Position of the center of the circle
+     * @param radius the radius of the circle
+     * @param buffer the buffer the Spheres are written to, or null
+     * @param runnable the runnable that is called with every Sphere, or null
+     * @return the amount of overlapping Spheres
+     */
+    int queryCircle(VerletContainer container, QueryBroadphase grid, double x, double y, double radius, Sphere[] buffer, SphereRunnable runnable) {
+        this.mode = CIRCLE;
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        return run(container, grid, x - radius, y - radius, x + radius, y + radius, buffer, runnable);
+    }
+
+    /**
+     * Finds every Sphere that overlaps a rectangle
+     * @param container the container of the Spheres
+     * @param grid the Broadphase to search, or null to test every Sphere
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param buffer the buffer the Spheres are written to, or null
+     * @param runnable the runnable that is called with every Sphere, or null
+     * @return the amount of overlapping Spheres
+     */
+    int queryRectangle(VerletContainer container, QueryBroadphase grid, double minX, double minY, double maxX, double maxY, Sphere[] buffer, SphereRunnable runnable) {
+        this.mode = RECTANGLE;
+        return run(container, grid, minX, minY, maxX, maxY, buffer, runnable);
+    }
+
+    /**
+     * Finds the Sphere that contains a point. If several Spheres contain it, the one whose center is the closest is returned
+     * @param container the container of the Spheres
+     * @param grid the Broadphase to search, or null to test every Sphere
+     * @param x the X Position of the point
+     * @param y the Y Position of the point
+     * @return the Sphere at the point, or null if there is none
+     */
+    Sphere pickAt(VerletContainer container, QueryBroadphase grid, double x, double y) {
+        this.mode = PICK;
+        this.x = x;
+        this.y = y;
+        this.picked = null;
+        this.pickedDistance = Double.POSITIVE_INFINITY;
+        run(container, grid, x, y, x, y, null, null);
+        final Sphere sphere = picked;
+        picked = null;
+        return sphere;
+    }
+
+    /**
+     * Tests the candidates of the Broadphase, or every Sphere if the Broadphase cannot answer the query
+     * @return the amount of matching Spheres
+     */
+    private int run(VerletContainer container, QueryBroadphase grid, double minX, double minY, double maxX, double maxY, Sphere[] buffer, SphereRunnable runnable) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.buffer = buffer;
+        this.runnable = runnable;
+        this.count = 0;
+        if(grid == null || !grid.queryCandidates(minX, minY, maxX, maxY, test)) container.invokeSpheres(test);
+        staticLayer.queryCandidates(minX, minY, maxX, maxY, test);
+        this.buffer = null;
+        this.runnable = null;
+        return count;
+    }
+
+    /**
+     * Tests one candidate against the running query
+     * @param sphere the candidate
+     */
+    private void test(Sphere sphere) {
+        final double r = sphere.getRadius();
+        double dx, dy;
+        if(mode == RECTANGLE) {
+            // the distance to the closest point of the rectangle
+            dx = sphere.getX() - Math.max(minX, Math.min(sphere.getX(), maxX));
+            dy = sphere.getY() - Math.max(minY, Math.min(sphere.getY(), maxY));
+        } else {
+            dx = sphere.getX() - x;
+            dy = sphere.getY() - y;
+        }
+        final double distance = dx * dx + dy * dy;
+
+        if(mode == PICK) {
+            if(distance <= r * r && distance < pickedDistance) {
+                picked = sphere;
+                pickedDistance = distance;
+            }
+            return;
+        }
+        final double reach = mode == CIRCLE ? radius + r : r;
+        if(distance > reach * reach) return;
+        if(buffer != null && count < buffer.length) buffer[count] = sphere;
+        if(runnable != null) runnable.run(sphere);
+        count++;
+    }
+}
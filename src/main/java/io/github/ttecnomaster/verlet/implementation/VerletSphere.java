@@ -1,5 +1,6 @@
 package io.github.ttecnomaster.verlet.implementation;
 
+import io.github.ttecnomaster.verlet.BodyType;
 import io.github.ttecnomaster.verlet.Solver;
 import io.github.ttecnomaster.verlet.Sphere;
 import io.github.ttecnomaster.verlet.Verlet;
@@ -23,6 +24,7 @@ public class VerletSphere implements Sphere {
     private double lx,ly;
     private double x,y;
     private float radius;
+    private BodyType bodyType = BodyType.DYNAMIC;
 
     /**
      * Cannot be instanced! <br>
@@ -32,7 +34,7 @@ public class VerletSphere implements Sphere {
 
     public void setAttributes(double x, double y, float radius) {
         this.ax = 0;
-        this.ay = y;
+        this.ay = 0;
         this.lx = x;
         this.ly = y;
         this.x = x;
@@ -40,6 +42,14 @@ public class VerletSphere implements Sphere {
         this.radius = radius;
     }
 
+    /**
+     * Sets the BodyType of the Sphere. Has to be set before the Sphere is added to a container
+     * @param bodyType The value to set
+     */
+    public void setBodyType(BodyType bodyType) {
+        this.bodyType = bodyType;
+    }
+
     /**
      * Updates the Spheres position according to the verlet formula.
      * @param dt the amount of "time" to step forwards
@@ -168,4 +178,13 @@ public class VerletSphere implements Sphere {
     public float getWeight() {
         return getRadius();
     }
+
+    /**
+     * Gets the BodyType of the Sphere, which decides how the Solver moves it.
+     * @return the value that is returned
+     */
+    @Override
+    public BodyType getBodyType() {
+        return bodyType;
+    }
 }
@@ -0,0 +1,243 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.BodyType;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+import java.util.Arrays;
+
+/**
+ * Holds the static Spheres of a container, see {@link BodyType#STATIC}.
+ * Static Spheres never move, so their positions are copied into flat arrays and sorted into a grid of cells only once.
+ * The layer is rebuilt when the static Spheres of the container change, not every sub step like a {@link Broadphase}.
+ * The cells cover the area of the static Spheres only and are at least as big as the biggest static Sphere.
+ * <p>
+ * Every moving Sphere looks up the static Spheres in the cells around it and is pushed out of them.
+ * Static Spheres have an infinite weight, so only the moving Sphere is written and every Sphere can be solved by any thread.
+ * The spatial queries and ray casts of the {@link VerletSolver} look up the static Spheres in the same cells.
+ * Used by the {@link VerletSolver}.
+ *
+ * @author tecno-master
+ * @see BodyType
+ * @see VerletSolver
+ * @version 1.0.0
+ */
+final class VerletStaticLayer {
+    private VerletContainer container;
+    private int modifications;
+
+    private double[] x = new double[0], y = new double[0];
+    private float[] radius = new float[0];
+    private int count;
+    private float maxRadius;
+
+    // cellStart[c] is the offset of the first static Sphere of cell c inside cellSpheres, cellStart[c+1] the end. Cells are stored column by column
+    private double minX, minY, cellSize;
+    private int columns, rows;
+    private int[] cellStart = new int[1];
+    private int[] cellSpheres = new int[0];
+    private int[] sphereCells = new int[0];
+
+    /**
+     * Rebuilds the layer if the container or its static Spheres have changed since the last update.
+     * Moving Spheres can be added, removed and sorted without a rebuild
+     * @param container The Container that holds the static Spheres
+     * @return true if the layer holds any static Sphere
+     */
+    boolean update(VerletContainer container) {
+        if(container != this.container || container.getStaticModificationCount() != modifications) {
+            this.container = container;
+            this.modifications = container.getStaticModificationCount();
+            rebuild(container);
+        }
+        return count > 0;
+    }
+
+    /**
+     * Copies the static Spheres and sorts them into their cells using a counting sort
+     * @param container The Container that holds the static Spheres
+     */
+    private void rebuild(VerletContainer container) {
+        count = container.getStaticSphereCount();
+        if(x.length < count) {
+            x = new double[count];
+            y = new double[count];
+            radius = new float[count];
+            cellSpheres = new int[count];
+            sphereCells = new int[count];
+        }
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxRadius = 0;
+        for(int i = 0; i < count; i++) {
+            Sphere sphere = container.getStaticSphere(i);
+            x[i] = sphere.getX();
+            y[i] = sphere.getY();
+            radius[i] = sphere.getRadius();
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+            maxRadius = Math.max(maxRadius, radius[i]);
+        }
+        if(count == 0) return;
+
+        // cells fit the biggest static Sphere, but there are never much more cells than static Spheres
+        final double width = maxX - minX, height = maxY - minY;
+        cellSize = Math.max(Math.max(maxRadius * 2, 1e-3), Math.sqrt(width * height / count));
+        columns = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+        while((long) columns * rows > 4L * count + 16) {
+            cellSize *= 2;
+            columns = (int) (width / cellSize) + 1;
+            rows = (int) (height / cellSize) + 1;
+        }
+
+        final int cells = columns * rows;
+        if(cellStart.length < cells + 1) cellStart = new int[cells + 1];
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+        for(int i = 0; i < count; i++) {
+            int cell = column(x[i]) * rows + row(y[i]);
+            sphereCells[i] = cell;
+            cellStart[cell]++;
+        }
+        for(int c = 1; c < cells; c++) cellStart[c] += cellStart[c-1];
+        cellStart[cells] = cellStart[cells-1];
+        for(int i = count - 1; i >= 0; i--) cellSpheres[--cellStart[sphereCells[i]]] = i;
+    }
+
+    /**
+     * Pushes a slot of a {@link VerletPackedScene} out of every static Sphere it overlaps
+     * @param px the X Positions of the slots
+     * @param py the Y Positions of the slots
+     * @param slot the slot to solve
+     * @param r the radius of the slot
+     * @param margin static Spheres that are closer than this margin count as contacts
+     * @param push if false the slot is only tested, not moved
+     * @return the amount of static Spheres that touch the slot, including the margin
+     */
+    int solve(double[] px, double[] py, int slot, float r, double margin, boolean push) {
+        double sx = px[slot], sy = py[slot];
+        final double reach = r + maxRadius + margin;
+        final int startColumn = Math.max(0, column(sx - reach)), endColumn = Math.min(columns - 1, column(sx + reach));
+        final int startRow = Math.max(0, row(sy - reach)), endRow = Math.min(rows - 1, row(sy + reach));
+        if(startColumn > endColumn || startRow > endRow) return 0; // far away from every static Sphere
+        int contacts = 0;
+        for(int c = startColumn; c <= endColumn; c++) {
+            // the rows of one column are stored next to each other
+            for(int k = cellStart[c * rows + startRow], end = cellStart[c * rows + endRow + 1]; k < end; k++) {
+                final int i = cellSpheres[k];
+                double dx = sx - x[i], dy = sy - y[i];
+                final double combinedRadius = r + radius[i], touching = combinedRadius + margin;
+                final double distance = dx * dx + dy * dy;
+                if(distance >= touching * touching) continue;
+                contacts++;
+                if(!push || distance >= combinedRadius * combinedRadius) continue;
+
+                // static Spheres have an infinite weight, the moving Sphere takes the whole correction
+                final double dLength = Math.sqrt(distance);
+                if(dLength <= 0) {
+                    sy += combinedRadius; // no direction to push in, push upwards
+                    continue;
+                }
+                final double delta = combinedRadius - dLength;
+                sx += dx / dLength * delta;
+                sy += dy / dLength * delta;
+            }
+        }
+        px[slot] = sx;
+        py[slot] = sy;
+        return contacts;
+    }
+
+    /**
+     * Pushes a Sphere out of every static Sphere it overlaps.
+     * Does exactly the same as {@link VerletStaticLayer#solve(double[], double[], int, float, double, boolean)} but works on a Sphere object
+     * @param sphere the Sphere to solve
+     * @param margin static Spheres that are closer than this margin count as contacts
+     * @param push if false the Sphere is only tested, not moved
+     * @return the amount of static Spheres that touch the Sphere, including the margin
+     */
+    int solve(Sphere sphere, double margin, boolean push) {
+        double sx = sphere.getX(), sy = sphere.getY();
+        final float r = sphere.getRadius();
+        final double reach = r + maxRadius + margin;
+        final int startColumn = Math.max(0, column(sx - reach)), endColumn = Math.min(columns - 1, column(sx + reach));
+        final int startRow = Math.max(0, row(sy - reach)), endRow = Math.min(rows - 1, row(sy + reach));
+        if(startColumn > endColumn || startRow > endRow) return 0; // far away from every static Sphere
+        int contacts = 0;
+        boolean moved = false;
+        for(int c = startColumn; c <= endColumn; c++) {
+            for(int k = cellStart[c * rows + startRow], end = cellStart[c * rows + endRow + 1]; k < end; k++) {
+                final int i = cellSpheres[k];
+                double dx = sx - x[i], dy = sy - y[i];
+                final double combinedRadius = r + radius[i], touching = combinedRadius + margin;
+                final double distance = dx * dx + dy * dy;
+                if(distance >= touching * touching) continue;
+                contacts++;
+                if(!push || distance >= combinedRadius * combinedRadius) continue;
+
+                moved = true;
+                final double dLength = Math.sqrt(distance);
+                if(dLength <= 0) {
+                    sy += combinedRadius;
+                    continue;
+                }
+                final double delta = combinedRadius - dLength;
+                sx += dx / dLength * delta;
+                sy += dy / dLength * delta;
+            }
+        }
+        if(moved) {
+            sphere.setX(sx);
+            sphere.setY(sy);
+        }
+        return contacts;
+    }
+
+    /**
+     * Passes every static Sphere that may overlap a rectangle, together with some that are only close to it.
+     * The cells around the rectangle are searched as well, as far as the biggest static Sphere reaches
+     * @param minX the smallest X Position of the rectangle
+     * @param minY the smallest Y Position of the rectangle
+     * @param maxX the biggest X Position of the rectangle
+     * @param maxY the biggest Y Position of the rectangle
+     * @param runnable The runnable that is called with every static Sphere that may overlap the rectangle
+     */
+    void queryCandidates(double minX, double minY, double maxX, double maxY, SphereRunnable runnable) {
+        if(count == 0) return;
+        final int startColumn = Math.max(0, column(minX - maxRadius)), endColumn = Math.min(columns - 1, column(maxX + maxRadius));
+        final int startRow = Math.max(0, row(minY - maxRadius)), endRow = Math.min(rows - 1, row(maxY + maxRadius));
+        if(startColumn > endColumn || startRow > endRow) return; // far away from every static Sphere
+        for(int c = startColumn; c <= endColumn; c++) {
+            for(int k = cellStart[c * rows + startRow], end = cellStart[c * rows + endRow + 1]; k < end; k++) runnable.run(container.getStaticSphere(cellSpheres[k]));
+        }
+    }
+
+    /**
+     * Passes every static Sphere of the layer
+     * @param runnable The runnable that is called with every static Sphere
+     */
+    void invokeSpheres(SphereRunnable runnable) {
+        for(int i = 0; i < count; i++) runnable.run(container.getStaticSphere(i));
+    }
+
+    /**
+     * Returns the column of a X Position, which can be outside the layer
+     * @param px the X Position
+     * @return the column
+     */
+    private int column(double px) {
+        return (int) Math.floor((px - minX) / cellSize);
+    }
+
+    /**
+     * Returns the row of a Y Position, which can be outside the layer
+     * @param py the Y Position
+     * @return the row
+     */
+    private int row(double py) {
+        return (int) Math.floor((py - minY) / cellSize);
+    }
+}
@@ -0,0 +1,316 @@
+package io.github.ttecnomaster.verlet.implementation;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.VerletContainer;
+
+/**
+ * The VerletSweepAndPrune is a {@link Broadphase} that sorts every Sphere by the lower bound of its bounding box along one axis
+ * and sweeps over the sorted list. Only Spheres whose bounds overlap along that axis and the other axis are passed to the Solver.
+ * Unlike a grid it does not need a cell size or a bounded area, which makes it a good fit for sparse or very elongated scenes.
+ * <p>
+ * The sorted order is kept between updates. As Spheres only move a little every sub step, the order is repaired by an insertion sort
+ * which only needs a few swaps. A full sort is only done when Spheres were added, removed or sorted by the Container, or when the sweep axis changes.
+ * The axis is chosen automatically as the axis along which the Spheres are spread the most.
+ * Every pair of Spheres is passed exactly once.
+ * <p>
+ * With phased scheduling, which is enabled by default, the sweep is done by the first partition only,
+ * so the result does not depend on the amount of threads. Without phased scheduling the sorted list is split over every partition,
+ * which is faster but racy, like every other Broadphase without phases.
+ *
+ * @author tecno-master
+ * @see Broadphase
+ * @see VerletGrid
+ * @see Solver
+ * @version 1.0.0
+ */
+public class VerletSweepAndPrune implements IndexBroadphase {
+    private boolean phased = true;
+    private boolean sweepY;
+    private int count = -1;
+    private int modifications;
+
+    // Sorted by the lower bound along the sweep axis. order holds the indices of the Spheres, the other arrays their bounds
+    private int[] order = new int[0];
+    private double[] minA = new double[0], maxA = new double[0];
+    private double[] minB = new double[0], maxB = new double[0];
+    private int[] scratchOrder = new int[0];
+    private double[] scratchKeys = new double[0];
+    private VerletContainer container;
+
+    // The other axis has to be spread this much more before the sweep axis is changed
+    private static final double AXIS_HYSTERESIS = 1.25;
+
+    /**
+     * Enables/Disables the phased scheduling. Default is true.
+     * With phased scheduling only the first partition sweeps, which makes the result independent of the amount of threads.
+     * @param phased If true the whole sweep is done by one thread
+     */
+    public void setPhasedScheduling(boolean phased) {
+        this.phased = phased;
+    }
+
+    /**
+     * Returns whether the sweep is done by one thread only
+     * @return true if phased scheduling is enabled
+     */
+    @Override
+    public boolean isPhasedScheduling() {
+        return phased;
+    }
+
+    /**
+     * Returns whether the Spheres are currently sorted along the Y axis
+     * @return true if the sweep axis is Y, false if it is X
+     */
+    public boolean isSweepingY() {
+        return sweepY;
+    }
+
+    /**
+     * Recomputes the bounds of every Sphere and repairs the sorted order.
+     * @param container The Container from which the Spheres should be sorted
+     */
+    @Override
+    public void update(VerletContainer container) {
+        final int n = container.getSphereCount();
+        boolean rebuild = n != count || container != this.container || container.getModificationCount() != modifications;
+        this.container = container;
+        modifications = container.getModificationCount();
+        if(rebuild) {
+            ensureCapacity(n);
+            for(int k = 0; k < n; k++) order[k] = k;
+            count = n;
+        }
+
+        // Switch the axis if the Spheres are spread much more along the other one
+        boolean axis = chooseAxis();
+        if(axis != sweepY) {
+            sweepY = axis;
+            rebuild = true;
+        }
+
+        // Recompute the bounds in the current order
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            final double[] a = sweepY ? scene.y : scene.x, b = sweepY ? scene.x : scene.y;
+            final float[] radius = scene.radius;
+            for(int k = 0; k < n; k++) {
+                int i = order[k];
+                minA[k] = a[i] - radius[i];
+            }
+            sort(rebuild);
+            for(int k = 0; k < n; k++) {
+                int i = order[k];
+                maxA[k] = a[i] + radius[i];
+                minB[k] = b[i] - radius[i];
+                maxB[k] = b[i] + radius[i];
+            }
+        } else {
+            for(int k = 0; k < n; k++) {
+                Sphere sphere = container.getSphere(order[k]);
+                minA[k] = (sweepY ? sphere.getY() : sphere.getX()) - sphere.getRadius();
+            }
+            sort(rebuild);
+            for(int k = 0; k < n; k++) {
+                Sphere sphere = container.getSphere(order[k]);
+                double a = sweepY ? sphere.getY() : sphere.getX(), b = sweepY ? sphere.getX() : sphere.getY();
+                maxA[k] = a + sphere.getRadius();
+                minB[k] = b - sphere.getRadius();
+                maxB[k] = b + sphere.getRadius();
+            }
+        }
+    }
+
+    /**
+     * Grows every array so that the given amount of Spheres fits
+     * @param n the amount of Spheres
+     */
+    private void ensureCapacity(int n) {
+        if(order.length >= n) return;
+        int capacity = Math.max(n, order.length * 2);
+        order = new int[capacity];
+        minA = new double[capacity];
+        maxA = new double[capacity];
+        minB = new double[capacity];
+        maxB = new double[capacity];
+        scratchOrder = new int[capacity];
+        scratchKeys = new double[capacity];
+    }
+
+    /**
+     * Chooses the axis along which the Spheres are spread the most.
+     * The current axis is kept unless the other one is spread clearly more
+     * @return true if the Y axis should be used
+     */
+    private boolean chooseAxis() {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        if(container instanceof VerletPackedScene) {
+            VerletPackedScene scene = (VerletPackedScene) container;
+            for(int i = 0; i < count; i++) {
+                double x = scene.x[i], y = scene.y[i];
+                if(x < minX) minX = x;
+                if(x > maxX) maxX = x;
+                if(y < minY) minY = y;
+                if(y > maxY) maxY = y;
+            }
+        } else {
+            for(int i = 0; i < count; i++) {
+                Sphere sphere = container.getSphere(i);
+                double x = sphere.getX(), y = sphere.getY();
+                if(x < minX) minX = x;
+                if(x > maxX) maxX = x;
+                if(y < minY) minY = y;
+                if(y > maxY) maxY = y;
+            }
+        }
+        double spreadX = maxX - minX, spreadY = maxY - minY;
+        if(sweepY) return !(spreadX > spreadY * AXIS_HYSTERESIS);
+        return spreadY > spreadX * AXIS_HYSTERESIS;
+    }
+
+    /**
+     * Sorts order and minA by minA.
+     * Uses a merge sort if the order is unknown and an insertion sort if the order of the last update is still close
+     * @param rebuild true if the order is unknown
+     */
+    private void sort(boolean rebuild) {
+        if(rebuild) mergeSort();
+        else insertionSort();
+    }
+
+    /**
+     * Stable insertion sort. Runs in nearly linear time, as Spheres only move a little between two updates
+     */
+    private void insertionSort() {
+        final int[] order = this.order;
+        final double[] keys = this.minA;
+        for(int k = 1; k < count; k++) {
+            double key = keys[k];
+            if(keys[k-1] <= key) continue;
+            int index = order[k];
+            int m = k - 1;
+            while(m >= 0 && keys[m] > key) {
+                keys[m+1] = keys[m];
+                order[m+1] = order[m];
+                m--;
+            }
+            keys[m+1] = key;
+            order[m+1] = index;
+        }
+    }
+
+    /**
+     * Stable bottom up merge sort using the scratch arrays
+     */
+    private void mergeSort() {
+        int[] srcOrder = order, dstOrder = scratchOrder;
+        double[] srcKeys = minA, dstKeys = scratchKeys;
+        for(int width = 1; width < count; width *= 2) {
+            for(int start = 0; start < count; start += width * 2) {
+                int middle = Math.min(start + width, count), end = Math.min(start + width * 2, count);
+                int left = start, right = middle;
+                for(int k = start; k < end; k++) {
+                    if(left < middle && (right >= end || srcKeys[left] <= srcKeys[right])) {
+                        dstKeys[k] = srcKeys[left];
+                        dstOrder[k] = srcOrder[left++];
+                    } else {
+                        dstKeys[k] = srcKeys[right];
+                        dstOrder[k] = srcOrder[right++];
+                    }
+                }
+            }
+            int[] order = srcOrder; srcOrder = dstOrder; dstOrder = order;
+            double[] keys = srcKeys; srcKeys = dstKeys; dstKeys = keys;
+        }
+        if(srcOrder != order) {
+            System.arraycopy(srcOrder, 0, order, 0, count);
+            System.arraycopy(srcKeys, 0, minA, 0, count);
+        }
+    }
+
+    /**
+     * Returns the amount of phases in which collisions are solved.
+     * @return always 1
+     */
+    @Override
+    public int getCollisionPhaseCount() {
+        return 1;
+    }
+
+    /**
+     * Implementing this method means,
+     * that individual threads can access and call it in order to solve the correct partition part spheres.
+     * Most implementations use a split up "for loop".
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPartition(int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solvePartition(partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Sweeps the part of the sorted list that belongs to a partition.
+     * @param phase The index of the phase. Is always 0
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two spheres which are tested for a collision
+     */
+    @Override
+    public void solveCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoSphereRunnable runnable) {
+        solvePartition(partitionIndex, partitionCount, null, runnable);
+    }
+
+    /**
+     * Sweeps the part of the sorted list that belongs to a partition and passes the indices of the Spheres.
+     * @param phase The index of the phase. Is always 0
+     * @param partitionIndex The index of the partition. Is it the first part? Is it the last part?
+     * @param partitionCount The total amount of partitions/threads. Can be specified by {@link Solver#setMultiThreading(int)}
+     * @param runnable The runnable that should run on two sphere indices which are tested for a collision
+     */
+    @Override
+    public void solveIndexCollisionPhase(int phase, int partitionIndex, int partitionCount, TwoIndexRunnable runnable) {
+        solvePartition(partitionIndex, partitionCount, runnable, null);
+    }
+
+    /**
+     * Sweeps a part of the sorted list. Exactly one of both runnables is used
+     * @param partitionIndex The index of the partition
+     * @param partitionCount The total amount of partitions/threads
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void solvePartition(int partitionIndex, int partitionCount, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        if(phased) {
+            if(partitionIndex == 0) sweep(0, count, indexRunnable, sphereRunnable);
+            return;
+        }
+        int partitionSize = (count + partitionCount - 1) / partitionCount; // ceiling division to handle remainder spheres
+        int start = partitionIndex * partitionSize;
+        sweep(start, Math.min(start + partitionSize, count), indexRunnable, sphereRunnable);
+    }
+
+    /**
+     * Tests every Sphere of a range of the sorted list with the following Spheres until their bounds stop overlapping along the sweep axis
+     * @param start the first position of the sorted list (inclusive)
+     * @param end the last position of the sorted list (exclusive)
+     * @param indexRunnable The runnable for sphere indices, or null
+     * @param sphereRunnable The runnable for spheres, or null
+     */
+    private void sweep(int start, int end, TwoIndexRunnable indexRunnable, TwoSphereRunnable sphereRunnable) {
+        final int[] order = this.order;
+        final double[] minA = this.minA, maxA = this.maxA, minB = this.minB, maxB = this.maxB;
+        final int count = this.count;
+        for(int k = start; k < end; k++) {
+            final double max = maxA[k], lower = minB[k], upper = maxB[k];
+            for(int m = k + 1; m < count && minA[m] < max; m++) {
+                if(minB[m] >= upper || maxB[m] <= lower) continue;
+                if(indexRunnable != null) indexRunnable.run(order[k], order[m]);
+                else sphereRunnable.run(container.getSphere(order[k]), container.getSphere(order[m]));
+            }
+        }
+    }
+}
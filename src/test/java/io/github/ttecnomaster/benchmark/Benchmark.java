@@ -0,0 +1,96 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+
+import java.util.Random;
+
+/**
+ * Tiny timing helper shared by the benchmark programs.
+ * Runs a task for a couple of warmup rounds and then reports the average time of the measured rounds.
+ * It also creates the random scenes of the broadphase benchmarks and counts their overlapping pairs by brute force,
+ * which the broadphases are checked against.
+ */
+public class Benchmark {
+
+    /**
+     * Measures the average time a task needs
+     * @param warmup the amount of rounds that are not measured
+     * @param rounds the amount of rounds that are measured
+     * @param task the task to measure
+     * @return the average time of one measured round in milliseconds
+     */
+    public static double measure(int warmup, int rounds, Runnable task) {
+        for(int i = 0; i < warmup; i++) task.run();
+        long start = System.nanoTime();
+        for(int i = 0; i < rounds; i++) task.run();
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+
+    /**
+     * Prints one result line
+     * @param name the name of the measured scenario
+     * @param millis the average time in milliseconds
+     */
+    public static void report(String name, double millis) {
+        System.out.printf("%-48s %10.3f ms%n", name, millis);
+    }
+
+    /**
+     * Creates an empty packed scene that is bounded by a square around the origin
+     * @param capacity the amount of Spheres the scene can hold without growing
+     * @param size the width and height of the square
+     * @return the new scene
+     */
+    public static VerletPackedScene createScene(int capacity, double size) {
+        VerletPackedScene scene = (VerletPackedScene) Verlet.createPackedScene(capacity);
+        scene.addConstraint(new RectangleConstraint(size, size));
+        return scene;
+    }
+
+    /**
+     * Spawns Spheres at random positions inside a square around the origin
+     * @param scene the scene to spawn the Spheres in
+     * @param random the source of the positions and radii
+     * @param count the amount of Spheres
+     * @param size the width and height of the square
+     * @param minRadius the smallest radius
+     * @param maxRadius the biggest radius, no radius is drawn if it is the same as the smallest one
+     */
+    public static void addRandomSpheres(VerletPackedScene scene, Random random, int count, double size, float minRadius, float maxRadius) {
+        for(int i = 0; i < count; i++) {
+            double x = -size / 2 + random.nextDouble() * size, y = -size / 2 + random.nextDouble() * size;
+            scene.addSphere(x, y, maxRadius > minRadius ? minRadius + random.nextFloat() * (maxRadius - minRadius) : minRadius);
+        }
+    }
+
+    /**
+     * Counts the overlapping pairs of a scene by testing every pair
+     * @param scene the scene
+     * @return the amount of overlapping pairs
+     */
+    public static long bruteForceOverlaps(VerletPackedScene scene) {
+        long count = 0;
+        for(int i = 0; i < scene.getSphereCount(); i++) {
+            for(int j = i + 1; j < scene.getSphereCount(); j++) {
+                if(overlap(scene, i, j)) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if two Spheres of a scene overlap, Spheres that only touch do not
+     * @param scene the scene
+     * @param i the index of the first Sphere
+     * @param j the index of the second Sphere
+     * @return true if the Spheres overlap
+     */
+    public static boolean overlap(VerletPackedScene scene, int i, int j) {
+        double dx = scene.getX(i) - scene.getX(j);
+        double dy = scene.getY(i) - scene.getY(j);
+        double r = scene.getRadius(i) + scene.getRadius(j);
+        return dx * dx + dy * dy < r * r;
+    }
+}
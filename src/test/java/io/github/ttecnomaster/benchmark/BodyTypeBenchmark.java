@@ -0,0 +1,199 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.BodyType;
+import io.github.ttecnomaster.verlet.SceneConstraint;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.constraint.StaticPositionConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletSphere;
+
+import java.util.Random;
+
+/**
+ * Compares level geometry made of Spheres that are held in place by a {@link StaticPositionConstraint}
+ * with the same geometry made of {@link BodyType#STATIC} Spheres.
+ * The geometry is a big block of 50k Spheres, on which 10k dynamic Spheres fall.
+ * Afterwards a {@link BodyType#KINEMATIC} Sphere is moved through the pile.
+ * A SceneConstraint that counts its calls checks that classic and packed Scenes constrain resting Spheres the same way.
+ * Spawning and sorting dynamic Spheres must not rebuild the static Spheres, and collisions must treat a Sphere as kinematic exactly when the integration does.
+ * Exits with status 1 if a static or kinematic Sphere was moved by the solver, or if a dynamic Sphere sinks into them.
+ */
+public class BodyTypeBenchmark {
+    private static final int DYNAMIC_SPHERES = 10_000;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(boolean native_ : new boolean[] {false, true}) {
+            for(boolean packed : new boolean[] {true, false}) {
+                Scene scene = packed ? Verlet.createPackedScene(DYNAMIC_SPHERES) : Verlet.createScene();
+                Sphere[] geometry = createGeometry(scene, native_);
+                Random random = new Random(5);
+                for(int i = 0; i < DYNAMIC_SPHERES; i++) scene.addSphere(-900 + random.nextDouble() * 1800, -300 + random.nextDouble() * 1200, 3);
+                scene.addConstraint(new RectangleConstraint(2000, 2000));
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(8);
+                solver.setGravity(0, -100);
+                VerletCountingGrid grid = new VerletCountingGrid(2100, 2100, 3);
+                grid.setHalfNeighborhood(true);
+                solver.setGrid(grid);
+                for(int i = 0; i < 100; i++) solver.step(0.02f);
+
+                String name = (packed ? "packed" : "classic") + (native_ ? ", static Spheres" : ", StaticPositionConstraints");
+                Benchmark.report(name, Benchmark.measure(3, 20, () -> solver.step(0.02f)));
+                if(!native_) continue;
+
+                // the static Spheres must not move at all, and dynamic Spheres must rest on them
+                for(int i = 0; i < geometry.length; i++) {
+                    if(geometry[i].getX() != staticX(i) || geometry[i].getY() != staticY(i)) failed = true;
+                }
+                double sunk = deepestOverlap(scene, geometry, 3);
+
+                // sweep a kinematic Sphere along the bottom of the pile, the solver must never move it. It has to fit the cells of the grid
+                Sphere paddle = scene.addSphere(-900, -590, 3, BodyType.KINEMATIC);
+                boolean paddleMoved = false;
+                for(int i = 0; i < 300; i++) {
+                    double x = -900 + i * 6;
+                    paddle.setX(x);
+                    paddle.setOldX(x);
+                    solver.step(0.02f);
+                    if(paddle.getX() != x || paddle.getY() != -590) paddleMoved = true;
+                }
+                double pushed = deepestOverlap(scene, new Sphere[] {paddle}, 3);
+                System.out.printf("%-48s deepest overlap with static Spheres %.3f, with the kinematic Sphere %.3f%s%n", "", sunk, pushed, paddleMoved ? ", kinematic Sphere moved" : "");
+                if(sunk > 1 || pushed > 1 || paddleMoved) failed = true;
+
+                if(!keepsStaticSpheres(packed)) failed = true;
+            }
+        }
+
+        if(!constrainsRestingSpheresAlike()) failed = true;
+        if(!agreesOnKinematicSpheres()) failed = true;
+
+        System.out.println(failed ? "FAILED: static or kinematic Spheres were moved or dynamic Spheres sink into them" : "OK: static and kinematic Spheres hold their position and carry the dynamic Spheres");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Counts how often the SceneConstraints reach a kinematic Sphere in a classic and in a packed Scene during one step with 4 sub steps.
+     * Both have to constrain it as often as a dynamic Sphere, the integration only skips resting Spheres, not their SceneConstraints
+     */
+    private static boolean constrainsRestingSpheresAlike() {
+        int[] applied = new int[4];
+        for(int packed = 0; packed < 2; packed++) {
+            Scene scene = packed == 1 ? Verlet.createPackedScene(2) : Verlet.createScene();
+            Sphere dynamic = scene.addSphere(0, 0, 3);
+            Sphere kinematic = scene.addSphere(100, 0, 3, BodyType.KINEMATIC);
+            final int offset = packed * 2;
+            scene.addConstraint((SceneConstraint) sphere -> {
+                if(sphere == dynamic) applied[offset]++;
+                if(sphere == kinematic) applied[offset + 1]++;
+            });
+            Solver solver = Verlet.createSolver(scene);
+            solver.setSubSteps(4);
+            solver.step(0.02f);
+            solver.close();
+        }
+        System.out.printf("%-48s classic %d and %d times, packed %d and %d times%n", "SceneConstraints on a dynamic and a kinematic Sphere", applied[0], applied[1], applied[2], applied[3]);
+        return applied[0] == applied[1] && applied[2] == applied[3] && applied[0] == applied[2];
+    }
+
+    /**
+     * Spawns and removes a dynamic Sphere and sorts the Spheres every step, next to the static geometry and a few dynamic Spheres.
+     * None of that changes the static Spheres, so their counter must stay the same and the steps must stay closer to calm steps
+     * than to steps that spawn and remove a static Sphere, which rebuild the static Spheres every time
+     */
+    private static boolean keepsStaticSpheres(boolean packed) {
+        Scene scene = packed ? Verlet.createPackedScene(200) : Verlet.createScene();
+        createGeometry(scene, true);
+        for(int i = 0; i < 100; i++) scene.addSphere(-900 + i * 18, 0, 3);
+        Solver solver = Verlet.createSolver(scene);
+        solver.setGrid(new VerletCountingGrid(2100, 2100, 3));
+        final int staticModifications = scene.getStaticModificationCount();
+        double calm = Benchmark.measure(3, 20, () -> solver.step(0.02f));
+        solver.setSortInterval(1);
+        double changing = Benchmark.measure(3, 20, () -> {
+            scene.removeSphere(scene.addSphere(0, 900, 3));
+            solver.step(0.02f);
+        });
+        boolean kept = scene.getStaticModificationCount() == staticModifications;
+        double rebuilding = Benchmark.measure(3, 20, () -> {
+            scene.removeSphere(scene.addSphere(0, 900, 3, BodyType.STATIC));
+            solver.step(0.02f);
+        });
+        solver.close();
+        System.out.printf("%-48s %.3f ms calm, %.3f ms while spawning and sorting, %.3f ms while rebuilding%s%n", "", calm, changing, rebuilding, kept ? "" : ", static Spheres changed");
+        return kept && changing - calm < rebuilding - changing;
+    }
+
+    /**
+     * Turns a kinematic Sphere of a classic Scene into a dynamic one without telling the Scene.
+     * The solver only reads the BodyType when the Spheres of the Scene change, so until then the Sphere is neither integrated
+     * nor pushed by the dynamic Sphere that overlaps it. A {@link VerletGrid} passes Sphere objects instead of indices
+     */
+    private static boolean agreesOnKinematicSpheres() {
+        Scene scene = Verlet.createScene();
+        Sphere kinematic = scene.addSphere(0, 0, 3, BodyType.KINEMATIC);
+        Sphere dynamic = scene.addSphere(3, 0, 3);
+        Solver solver = Verlet.createSolver(scene);
+        solver.setGrid(new VerletGrid(100, 100, 3));
+        solver.step(0.02f);
+        ((VerletSphere) kinematic).setBodyType(BodyType.DYNAMIC);
+        dynamic.setX(3);
+        dynamic.setOldX(3);
+        dynamic.setY(0);
+        dynamic.setOldY(0);
+        solver.step(0.02f);
+        solver.close();
+        boolean held = kinematic.getX() == 0 && kinematic.getY() == 0;
+        System.out.printf("%-48s at %.3f, %.3f%n", "Kinematic Sphere that changed its BodyType", kinematic.getX(), kinematic.getY());
+        return held;
+    }
+
+    /**
+     * Fills the bottom of the area with a block of 500 x 100 Spheres
+     */
+    private static Sphere[] createGeometry(Scene scene, boolean native_) {
+        Sphere[] geometry = new Sphere[50_000];
+        for(int i = 0; i < geometry.length; i++) {
+            if(native_) {
+                geometry[i] = scene.addSphere(staticX(i), staticY(i), 2, BodyType.STATIC);
+            } else {
+                geometry[i] = scene.addSphere(staticX(i), staticY(i), 2);
+                scene.addConstraint(new StaticPositionConstraint(geometry[i]));
+            }
+        }
+        return geometry;
+    }
+
+    private static double staticX(int i) {
+        return -998 + (i % 500) * 4;
+    }
+
+    private static double staticY(int i) {
+        return -998 + (i / 500) * 4;
+    }
+
+    /**
+     * Returns how deep the centre of any dynamic Sphere has sunk into one of the given Spheres
+     */
+    private static double deepestOverlap(Scene scene, Sphere[] solids, float dynamicRadius) {
+        double deepest = 0;
+        for(int i = 0; i < scene.getSphereCount(); i++) {
+            Sphere sphere = scene.getSphere(i);
+            if(sphere.getBodyType() != BodyType.DYNAMIC) continue;
+            // only the top of the geometry and the paddle can be reached, which keeps the search short
+            if(solids.length > 1 && sphere.getY() > -580) continue;
+            for(Sphere solid : solids) {
+                double dx = sphere.getX() - solid.getX(), dy = sphere.getY() - solid.getY();
+                double overlap = solid.getRadius() + dynamicRadius - Math.sqrt(dx * dx + dy * dy);
+                deepest = Math.max(deepest, overlap);
+            }
+        }
+        return deepest;
+    }
+}
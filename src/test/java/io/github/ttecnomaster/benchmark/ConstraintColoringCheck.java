@@ -0,0 +1,104 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.StaticConstraint;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraintBatch;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.constraint.StaticPositionConstraint;
+
+import java.util.Arrays;
+
+/**
+ * Checks the colored scheduling of StaticConstraints, see {@link StaticConstraint#getSpheres()}.
+ * A cloth of 150 x 100 Spheres with about 30k links hangs from pinned Spheres. A Constraint that does not return its Spheres
+ * sits between the links and splits them into two groups. The cloth is stepped with different amounts of threads,
+ * once with single {@link LinkConstraint}s and once with a {@link LinkConstraintBatch}.
+ * Exits with status 1 if any run differs from the single threaded run with single LinkConstraints.
+ */
+public class ConstraintColoringCheck {
+    private static final int COLUMNS = 150, ROWS = 100;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            double[] expected = null;
+            for(boolean batch : new boolean[] {false, true}) {
+                for(int threads : new int[] {1, 2, 3, 4, 8}) {
+                    Scene scene = packed ? Verlet.createPackedScene(COLUMNS * ROWS) : Verlet.createScene();
+                    Sphere[] cloth = createCloth(scene, batch);
+                    Solver solver = Verlet.createSolver(scene);
+                    solver.setSubSteps(8);
+                    solver.setGravity(0, -100);
+                    solver.setMultiThreading(threads);
+                    solver.enableCollisions(false);
+
+                    String name = (packed ? "packed" : "classic") + (batch ? ", batch" : ", LinkConstraints") + ", threads=" + threads;
+                    Benchmark.report(name, Benchmark.measure(5, 30, () -> solver.step(0.02f)));
+                    solver.close();
+
+                    double[] positions = new double[cloth.length * 2];
+                    for(int i = 0; i < cloth.length; i++) {
+                        positions[i * 2] = cloth[i].getX();
+                        positions[i * 2 + 1] = cloth[i].getY();
+                    }
+                    if(expected == null) expected = positions;
+                    else if(!Arrays.equals(expected, positions)) {
+                        System.out.printf("%-48s differs from the single threaded run%n", "");
+                        failed = true;
+                    }
+                }
+            }
+        }
+
+        System.out.println(failed ? "FAILED: the colored StaticConstraints depend on the amount of threads" : "OK: the colored StaticConstraints give the same result for every amount of threads");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Creates a cloth whose top row is pinned. The upper half of the links is added before a Constraint without Spheres, the lower half after it.
+     * The pins are added before another one
+     */
+    private static Sphere[] createCloth(Scene scene, boolean batch) {
+        Sphere[] cloth = new Sphere[COLUMNS * ROWS];
+        for(int row = 0; row < ROWS; row++) {
+            for(int column = 0; column < COLUMNS; column++) {
+                cloth[row * COLUMNS + column] = scene.addSphere(-450 + column * 6, 400 - row * 6, 3);
+            }
+        }
+        // a Constraint that does not tell which Spheres it moves. It keeps a corner of the cloth inside the left half
+        final Sphere corner = cloth[(ROWS - 1) * COLUMNS];
+        StaticConstraint barrier = () -> corner.setX(Math.min(corner.getX(), 0));
+
+        // the pins are separated from the links, so the links are colored the same way with and without batch
+        for(int column = 0; column < COLUMNS; column += 10) scene.addConstraint(new StaticPositionConstraint(cloth[column]));
+        scene.addConstraint(barrier);
+
+        LinkConstraintBatch links = new LinkConstraintBatch();
+        for(int row = 0; row < ROWS; row++) {
+            if(row == ROWS / 2) {
+                if(batch) {
+                    scene.addConstraint(links);
+                    links = new LinkConstraintBatch();
+                }
+                scene.addConstraint(barrier);
+            }
+            for(int column = 0; column < COLUMNS; column++) {
+                Sphere sphere = cloth[row * COLUMNS + column];
+                if(column > 0) addLink(scene, links, batch, cloth[row * COLUMNS + column - 1], sphere);
+                if(row > 0) addLink(scene, links, batch, cloth[(row - 1) * COLUMNS + column], sphere);
+            }
+        }
+        if(batch) scene.addConstraint(links);
+        scene.addConstraint(new RectangleConstraint(1000, 1000));
+        return cloth;
+    }
+
+    private static void addLink(Scene scene, LinkConstraintBatch links, boolean batch, Sphere sphere1, Sphere sphere2) {
+        if(batch) links.addLink(sphere1, sphere2);
+        else scene.addConstraint(new LinkConstraint(sphere1, sphere2));
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.IndexBroadphase;
+import io.github.ttecnomaster.verlet.implementation.TwoIndexRunnable;
+import io.github.ttecnomaster.verlet.implementation.TwoSphereRunnable;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Compares the VerletGrid with the VerletCountingGrid and the VerletHashGrid.
+ * Measures the grid build, the neighbour iteration, a full Solver.step and the memory that is allocated when creating a fine grid.
+ * The neighbour iteration of an IndexBroadphase is measured through its index based method, as that is what the Solver uses.
+ */
+public class GridBenchmark {
+    private static final int SPHERES = 50_000;
+
+    private static long pairs;
+
+    public static void main(String[] args) {
+        Scene scene = Verlet.createScene();
+        Random random = new Random(7);
+        for(int i = 0; i < SPHERES; i++) scene.addSphere(-1000 + random.nextDouble() * 2000, -1000 + random.nextDouble() * 2000, 3);
+
+        TwoSphereRunnable counter = (sphere_1, sphere_2) -> pairs++;
+        TwoIndexRunnable indexCounter = (index_1, index_2) -> pairs++;
+        for(Broadphase grid : new Broadphase[] {new VerletGrid(2000, 2000, 3), new VerletCountingGrid(2000, 2000, 3), new VerletHashGrid(3)}) {
+            String name = grid.getClass().getSimpleName();
+            Benchmark.report(name + " build, 50k spheres", Benchmark.measure(50, 200, () -> grid.update(scene)));
+            Benchmark.report(name + " neighbour iteration, 50k spheres", Benchmark.measure(20, 100, () -> {
+                for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) {
+                    if(grid instanceof IndexBroadphase) ((IndexBroadphase) grid).solveIndexCollisionPhase(phase, 0, 1, indexCounter);
+                    else grid.solveCollisionPhase(phase, 0, 1, counter);
+                }
+            }));
+        }
+
+        for(boolean packed : new boolean[] {false, true}) {
+            for(String type : new String[] {"VerletGrid", "VerletCountingGrid", "VerletHashGrid"}) {
+                Scene stepScene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+                Random stepRandom = new Random(7);
+                for(int i = 0; i < SPHERES; i++) stepScene.addSphere(-1000 + stepRandom.nextDouble() * 2000, -1000 + stepRandom.nextDouble() * 2000, 3);
+                stepScene.addConstraint(new RectangleConstraint(2000, 2000));
+
+                Solver solver = Verlet.createSolver(stepScene);
+                solver.setSubSteps(8);
+                if(type.equals("VerletGrid")) solver.setGrid(new VerletGrid(2000, 2000, 3));
+                if(type.equals("VerletCountingGrid")) solver.setGrid(new VerletCountingGrid(2000, 2000, 3));
+                if(type.equals("VerletHashGrid")) solver.setGrid(new VerletHashGrid(3));
+                String name = type + (packed ? " step, packed" : " step, scene");
+                Benchmark.report(name, Benchmark.measure(10, 30, () -> solver.step(0.02f)));
+            }
+        }
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(id);
+        new VerletGrid(2000, 2000, 1);
+        long grid = bean.getThreadAllocatedBytes(id) - before;
+        before = bean.getThreadAllocatedBytes(id);
+        new VerletCountingGrid(2000, 2000, 1);
+        long counting = bean.getThreadAllocatedBytes(id) - before;
+        before = bean.getThreadAllocatedBytes(id);
+        new VerletHashGrid(1).update(scene);
+        long hash = bean.getThreadAllocatedBytes(id) - before;
+        System.out.printf("%-48s %10.1f MB%n", "VerletGrid memory, 1000x1000 cells", grid / 1e6);
+        System.out.printf("%-48s %10.1f MB%n", "VerletCountingGrid memory, 1000x1000 cells", counting / 1e6);
+        System.out.printf("%-48s %10.1f MB%n", "VerletHashGrid memory, 50k spheres, any area", hash / 1e6);
+    }
+}
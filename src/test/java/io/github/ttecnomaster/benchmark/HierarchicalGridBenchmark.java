@@ -0,0 +1,75 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.implementation.IndexBroadphase;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHierarchicalGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+
+import java.util.Random;
+
+/**
+ * Compares the VerletHierarchicalGrid with uniform grids on a scene that mixes 2px debris with 80px boulders.
+ * A uniform grid either has to use the coarse cell size for every Sphere or misses the collisions of the boulders.
+ * For every grid the amount of tested pairs and the amount of found overlapping pairs is reported,
+ * the overlapping pairs are compared with a brute force search. Exits with status 1 if the hierarchical grid misses or repeats a pair.
+ */
+public class HierarchicalGridBenchmark {
+    private static final int DEBRIS = 20_000;
+    private static final int BOULDERS = 60;
+
+    private static long pairs, overlaps;
+
+    public static void main(String[] args) {
+        VerletPackedScene scene = createScene();
+        long expected = Benchmark.bruteForceOverlaps(scene);
+        System.out.printf("%-48s %10d overlapping pairs%n", "brute force", expected);
+
+        VerletCountingGrid coarse = new VerletCountingGrid(3200, 3200, 80);
+        coarse.setHalfNeighborhood(true);
+        VerletCountingGrid fine = new VerletCountingGrid(3200, 3200, 2);
+        fine.setHalfNeighborhood(true);
+        VerletHierarchicalGrid hierarchical = new VerletHierarchicalGrid(2);
+
+        boolean failed = false;
+        for(IndexBroadphase grid : new IndexBroadphase[] {coarse, fine, hierarchical}) {
+            String name = grid == coarse ? "uniform grid, 80px cells" : grid == fine ? "uniform grid, 2px cells" : "hierarchical grid, 2px base cells";
+            countPairs(scene, grid);
+            System.out.printf("%-48s %10d pairs tested, %d overlapping pairs found%n", name, pairs, overlaps);
+            if(grid == hierarchical && overlaps != expected) failed = true;
+
+            Benchmark.report(name + " broadphase", Benchmark.measure(20, 50, () -> countPairs(scene, grid)));
+
+            Scene stepScene = createScene();
+            Solver solver = Verlet.createSolver(stepScene);
+            solver.setSubSteps(8);
+            solver.setGrid(grid);
+            Benchmark.report(name + " step", Benchmark.measure(10, 30, () -> solver.step(0.02f)));
+        }
+
+        System.out.println(failed ? "FAILED: hierarchical grid missed or repeated pairs" : "OK: hierarchical grid found every overlapping pair exactly once");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static VerletPackedScene createScene() {
+        VerletPackedScene scene = Benchmark.createScene(DEBRIS + BOULDERS, 3000);
+        Random random = new Random(11);
+        Benchmark.addRandomSpheres(scene, random, BOULDERS, 3000, 40, 80);
+        Benchmark.addRandomSpheres(scene, random, DEBRIS, 3000, 1, 2);
+        return scene;
+    }
+
+    private static void countPairs(VerletPackedScene scene, IndexBroadphase grid) {
+        pairs = 0;
+        overlaps = 0;
+        grid.update(scene);
+        for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) {
+            grid.solveIndexCollisionPhase(phase, 0, 1, (index_1, index_2) -> {
+                pairs++;
+                if(Benchmark.overlap(scene, index_1, index_2)) overlaps++;
+            });
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+
+import java.util.Random;
+
+/**
+ * Compares the full update of the VerletGrid with the incremental update.
+ * The update alone is measured on a mostly settled scene of 200k Spheres, in which every Sphere jitters a little every round
+ * and only a few Spheres change their Cell. Afterwards a settled scene of 20k Spheres is stepped with 8 sub steps.
+ * The pairs passed by both grids are compared after the jittering. Exits with status 1 if they differ.
+ */
+public class IncrementalGridBenchmark {
+    private static final int SPHERES = 200_000;
+    private static final double JITTER = 0.05;
+
+    private static long pairs, overlaps;
+
+    public static void main(String[] args) {
+        VerletPackedScene scene = (VerletPackedScene) Verlet.createPackedScene(SPHERES);
+        Random random = new Random(9);
+        for(int i = 0; i < SPHERES; i++) scene.addSphere(-1000 + random.nextDouble() * 2000, -1000 + random.nextDouble() * 2000, 2);
+        double[] offsets = new double[SPHERES * 2];
+        for(int i = 0; i < offsets.length; i++) offsets[i] = (random.nextDouble() * 2 - 1) * JITTER;
+
+        VerletGrid full = new VerletGrid(2100, 2100, 2);
+        VerletGrid incremental = new VerletGrid(2100, 2100, 2);
+        incremental.setIncremental(true);
+
+        final int[] round = {0};
+        Runnable jitter = () -> {
+            // moves every Sphere back and forth, so the scene stays the same over time
+            double sign = round[0]++ % 2 == 0 ? 1 : -1;
+            for(int i = 0; i < SPHERES; i++) {
+                scene.getSphere(i).setX(scene.getX(i) + offsets[i * 2] * sign);
+                scene.getSphere(i).setY(scene.getY(i) + offsets[i * 2 + 1] * sign);
+            }
+        };
+        Benchmark.report("jitter only", Benchmark.measure(10, 50, jitter));
+        Benchmark.report("jitter and full update", Benchmark.measure(10, 50, () -> {
+            jitter.run();
+            full.update(scene);
+        }));
+        Benchmark.report("jitter and incremental update", Benchmark.measure(10, 50, () -> {
+            jitter.run();
+            incremental.update(scene);
+        }));
+
+        full.update(scene);
+        incremental.update(scene);
+        countPairs(scene, full);
+        long fullPairs = pairs, fullOverlaps = overlaps;
+        countPairs(scene, incremental);
+        System.out.printf("%-48s %d pairs, %d overlapping%n", "full update", fullPairs, fullOverlaps);
+        System.out.printf("%-48s %d pairs, %d overlapping%n", "incremental update", pairs, overlaps);
+        boolean failed = pairs != fullPairs || overlaps != fullOverlaps;
+
+        for(boolean mode : new boolean[] {false, true}) {
+            VerletPackedScene stepScene = (VerletPackedScene) Verlet.createPackedScene(20_000);
+            Random stepRandom = new Random(3);
+            for(int i = 0; i < 20_000; i++) stepScene.addSphere(-500 + stepRandom.nextDouble() * 1000, -500 + stepRandom.nextDouble() * 1000, 3);
+            stepScene.addConstraint(new RectangleConstraint(1000, 1000));
+            Solver solver = Verlet.createSolver(stepScene);
+            solver.setSubSteps(8);
+            solver.setGravity(0, -100);
+            VerletGrid grid = new VerletGrid(1100, 1100, 3);
+            grid.setIncremental(mode);
+            solver.setGrid(grid);
+            for(int i = 0; i < 300; i++) solver.step(0.02f);
+            Benchmark.report(mode ? "settled step, incremental update" : "settled step, full update", Benchmark.measure(5, 30, () -> solver.step(0.02f)));
+        }
+
+        System.out.println(failed ? "FAILED: incremental grid differs from the full update" : "OK: incremental grid passes the same pairs");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static void countPairs(VerletPackedScene scene, VerletGrid grid) {
+        pairs = 0;
+        overlaps = 0;
+        for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) {
+            grid.solveCollisionPhase(phase, 0, 1, (sphere_1, sphere_2) -> {
+                pairs++;
+                double dx = sphere_1.getX() - sphere_2.getX();
+                double dy = sphere_1.getY() - sphere_2.getY();
+                double r = sphere_1.getRadius() + sphere_2.getRadius();
+                if(dx * dx + dy * dy < r * r) overlaps++;
+            });
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.CircleAreaConstraint;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+
+import java.util.Random;
+
+/**
+ * Measures the per-sphere phases of Solver.step (gravity, SceneConstraints and integration) at 100k spheres.
+ * Collisions are disabled so only the passes over the container are measured.
+ * Every scene is measured single threaded and with the amount of threads given as first argument (default: available processors).
+ */
+public class IntegrationBenchmark {
+    private static final int SPHERES = 100_000;
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for(boolean packed : new boolean[] {false, true}) {
+            for(int t : threads > 1 ? new int[] {1, threads} : new int[] {1}) {
+                run(packed, t);
+            }
+        }
+    }
+
+    private static void run(boolean packed, int threads) {
+        Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+        Random random = new Random(7);
+        for(int i = 0; i < SPHERES; i++) scene.addSphere(-2000 + random.nextDouble() * 4000, -2000 + random.nextDouble() * 4000, 2);
+        scene.addConstraint(new RectangleConstraint(4000, 4000));
+        scene.addConstraint(new CircleAreaConstraint(0, 0, 2500));
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(8);
+        solver.enableCollisions(false);
+        solver.setMultiThreading(threads);
+
+        Benchmark.report((packed ? "packed" : "scene") + " 100k spheres, 8 sub steps, " + threads + " threads", Benchmark.measure(50, 200, () -> solver.step(0.02f)));
+        solver.close();
+    }
+}
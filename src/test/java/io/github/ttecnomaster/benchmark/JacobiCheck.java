@@ -0,0 +1,175 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletSweepAndPrune;
+
+import java.util.Random;
+
+/**
+ * Checks the Jacobi mode of the Solver, see {@link Solver#setJacobiMode(boolean)}.
+ * A densely packed scene is stepped with Broadphases that have phased scheduling disabled, which is racy for the normal mode.
+ * In Jacobi mode every position has to match the single threaded run bit by bit, for every amount of threads.
+ * Afterwards the deepest overlap of a settled pile and the step time are compared with the normal mode.
+ * A single overlap has to be solved like in the normal mode and two Spheres at the same position have to separate,
+ * also with grids that pass every pair twice.
+ * Exits with status 1 if any multithreaded Jacobi run differs or a pair is not separated like in the normal mode.
+ */
+public class JacobiCheck {
+    private static final int SPHERES = 4000;
+    private static final int STEPS = 200;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(String grid : packed ? new String[] {"grid", "counting", "hash", "sweep"} : new String[] {"counting", "hash", "sweep"}) {
+                double[] expected = simulate(packed, grid, 1);
+                for(int threads : new int[] {2, 3, 4, 8}) {
+                    int mismatches = compare(expected, simulate(packed, grid, threads));
+                    System.out.printf("packed=%-5b grid=%-8s threads=%d mismatches=%d%n", packed, grid, threads, mismatches);
+                    if(mismatches > 0) failed = true;
+                }
+            }
+        }
+
+        for(boolean jacobi : new boolean[] {false, true}) {
+            Scene scene = Verlet.createPackedScene(20_000);
+            Random random = new Random(3);
+            for(int i = 0; i < 20_000; i++) scene.addSphere(-500 + random.nextDouble() * 1000, -500 + random.nextDouble() * 1000, 3);
+            scene.addConstraint(new RectangleConstraint(1000, 1000));
+            Solver solver = Verlet.createSolver(scene);
+            solver.setSubSteps(8);
+            solver.setGravity(0, -100);
+            solver.setJacobiMode(jacobi);
+            VerletCountingGrid grid = new VerletCountingGrid(1100, 1100, 3);
+            grid.setHalfNeighborhood(true);
+            grid.setPhasedScheduling(!jacobi);
+            solver.setGrid(grid);
+            for(int i = 0; i < 300; i++) solver.step(0.02f);
+
+            String name = jacobi ? "jacobi, unphased counting grid" : "gauss-seidel, phased counting grid";
+            Benchmark.report(name, Benchmark.measure(5, 30, () -> solver.step(0.02f)));
+            System.out.printf("%-48s deepest overlap %.3f, average height %.2f%n", "", deepestOverlap(scene), averageHeight(scene));
+        }
+
+        if(!separatesPairs()) failed = true;
+
+        System.out.println(failed ? "FAILED: jacobi mode depends on the amount of threads" : "OK: jacobi mode matches the single threaded result");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Steps a single pair, 8 apart with a target distance of 10, and a pair at the same position for one sub step each,
+     * once in the normal mode and once in Jacobi mode, with a half and a full neighborhood hash grid
+     */
+    private static boolean separatesPairs() {
+        boolean separated = true;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(boolean half : new boolean[] {true, false}) {
+                double[] distances = new double[4];
+                for(int mode = 0; mode < 2; mode++) {
+                    for(int coincident = 0; coincident < 2; coincident++) {
+                        Scene scene = packed ? Verlet.createPackedScene(2) : Verlet.createScene();
+                        Sphere sphere_1 = scene.addSphere(0, 0, 5), sphere_2 = scene.addSphere(coincident == 1 ? 0 : 8, 0, 5);
+                        Solver solver = Verlet.createSolver(scene);
+                        solver.setSubSteps(1);
+                        solver.setGravity(0, 0);
+                        solver.setJacobiMode(mode == 1);
+                        VerletHashGrid grid = new VerletHashGrid(5);
+                        grid.setHalfNeighborhood(half);
+                        solver.setGrid(grid);
+                        solver.step(0.02f);
+                        solver.close();
+                        distances[mode * 2 + coincident] = Math.hypot(sphere_1.getX() - sphere_2.getX(), sphere_1.getY() - sphere_2.getY());
+                    }
+                }
+                System.out.printf("%-48s single pair %.3f (normal %.3f), same position %.3f (normal %.3f)%n",
+                        (packed ? "packed" : "classic") + ", " + (half ? "half" : "full") + " neighborhood", distances[2], distances[0], distances[3], distances[1]);
+                if(Math.abs(distances[2] - distances[0]) > 1e-6 || distances[3] <= 0) separated = false;
+            }
+        }
+        return separated;
+    }
+
+    private static double[] simulate(boolean packed, String type, int threads) {
+        Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+        Sphere[] spheres = new Sphere[SPHERES];
+        Random random = new Random(7);
+        for(int i = 0; i < SPHERES; i++) {
+            spheres[i] = scene.addSphere(-300 + random.nextDouble() * 600, -300 + random.nextDouble() * 600, 3 + random.nextFloat() * 2);
+        }
+        scene.addConstraint(new RectangleConstraint(600, 600));
+
+        Broadphase grid;
+        if(type.equals("sweep")) {
+            VerletSweepAndPrune sweep = new VerletSweepAndPrune();
+            sweep.setPhasedScheduling(false);
+            grid = sweep;
+        } else if(type.equals("hash")) {
+            VerletHashGrid hashGrid = new VerletHashGrid(5);
+            hashGrid.setPhasedScheduling(false);
+            hashGrid.setHalfNeighborhood(true);
+            grid = hashGrid;
+        } else if(type.equals("counting")) {
+            VerletCountingGrid countingGrid = new VerletCountingGrid(640, 640, 5);
+            countingGrid.setPhasedScheduling(false);
+            grid = countingGrid;
+        } else {
+            // solved by the handles of the packed Scene
+            VerletGrid verletGrid = new VerletGrid(640, 640, 5);
+            verletGrid.setPhasedScheduling(false);
+            grid = verletGrid;
+        }
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(8);
+        solver.setMultiThreading(threads);
+        solver.setJacobiMode(true);
+        solver.setGrid(grid);
+        for(int i = 0; i < STEPS; i++) solver.step(0.02f);
+        solver.close();
+
+        double[] positions = new double[SPHERES * 2];
+        for(int i = 0; i < SPHERES; i++) {
+            positions[i * 2] = spheres[i].getX();
+            positions[i * 2 + 1] = spheres[i].getY();
+        }
+        return positions;
+    }
+
+    private static int compare(double[] expected, double[] actual) {
+        int mismatches = 0;
+        for(int i = 0; i < expected.length; i++) {
+            if(Double.doubleToLongBits(expected[i]) != Double.doubleToLongBits(actual[i])) mismatches++;
+        }
+        return mismatches;
+    }
+
+    /**
+     * Returns the deepest overlap of two Spheres, found with the counting grid of the scene size
+     */
+    private static double deepestOverlap(Scene scene) {
+        final double[] deepest = {0};
+        VerletCountingGrid grid = new VerletCountingGrid(1100, 1100, 3);
+        grid.update(scene);
+        grid.solveCollisionPartition(0, 1, (sphere_1, sphere_2) -> {
+            if(sphere_1 == sphere_2) return;
+            double dx = sphere_1.getX() - sphere_2.getX(), dy = sphere_1.getY() - sphere_2.getY();
+            deepest[0] = Math.max(deepest[0], sphere_1.getRadius() + sphere_2.getRadius() - Math.sqrt(dx * dx + dy * dy));
+        });
+        return deepest[0];
+    }
+
+    private static double averageHeight(Scene scene) {
+        double sum = 0;
+        for(int i = 0; i < scene.getSphereCount(); i++) sum += scene.getSphere(i).getY();
+        return sum / scene.getSphereCount();
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.VerletContainer;
+import io.github.ttecnomaster.verlet.implementation.VerletSphere;
+
+import java.lang.reflect.Constructor;
+import java.util.Random;
+
+/**
+ * Measures the time it takes to load a level of 1M Spheres into a Scene.
+ * The Spheres are spawned one by one with a reflective lookup per Sphere (how {@link Verlet#createSphere(double, double, float)} used to work),
+ * with the cached {@link Verlet#createSphere(double, double, float)}, with {@link VerletContainer#addSphere(double, double, float)}
+ * and at once with {@link VerletContainer#addSpheres(double[], double[], float[])}.
+ * Exits with status 1 if the bulk Spheres differ from the ones that were spawned one by one.
+ */
+public class LevelLoadBenchmark {
+    private static final int SPHERES = 1_000_000;
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        final double[] xs = new double[SPHERES], ys = new double[SPHERES];
+        final float[] radii = new float[SPHERES];
+        Random random = new Random(42);
+        for(int i = 0; i < SPHERES; i++) {
+            xs[i] = random.nextDouble() * 10000;
+            ys[i] = random.nextDouble() * 10000;
+            radii[i] = 2 + random.nextFloat() * 3;
+        }
+
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            String kind = packed ? "packed" : "classic";
+            if(!packed) {
+                Benchmark.report(kind + ", reflection per Sphere", measure(() -> {
+                    Scene scene = Verlet.createScene();
+                    for(int i = 0; i < SPHERES; i++) scene.addSphere(createReflective(xs[i], ys[i], radii[i]));
+                    return scene;
+                }));
+                Benchmark.report(kind + ", Verlet.createSphere", measure(() -> {
+                    Scene scene = Verlet.createScene();
+                    for(int i = 0; i < SPHERES; i++) scene.addSphere(Verlet.createSphere(xs[i], ys[i], radii[i]));
+                    return scene;
+                }));
+            }
+            Benchmark.report(kind + ", addSphere", measure(() -> {
+                Scene scene = packed ? Verlet.createPackedScene(16) : Verlet.createScene();
+                for(int i = 0; i < SPHERES; i++) scene.addSphere(xs[i], ys[i], radii[i]);
+                return scene;
+            }));
+            Benchmark.report(kind + ", addSpheres", measure(() -> {
+                Scene scene = packed ? Verlet.createPackedScene(16) : Verlet.createScene();
+                scene.addSpheres(xs, ys, radii);
+                return scene;
+            }));
+
+            // the bulk Spheres have to be the same as the single ones, also when added to a Scene that already holds Spheres
+            Scene single = packed ? Verlet.createPackedScene(16) : Verlet.createScene();
+            Scene bulk = packed ? Verlet.createPackedScene(16) : Verlet.createScene();
+            for(int i = 0; i < 1000; i++) {
+                single.addSphere(xs[i], ys[i], radii[i]);
+                bulk.addSphere(xs[i], ys[i], radii[i]);
+            }
+            for(int i = 0; i < SPHERES; i++) single.addSphere(xs[i], ys[i], radii[i]);
+            Sphere[] added = bulk.addSpheres(xs, ys, radii);
+            boolean same = single.getSphereCount() == bulk.getSphereCount() && added.length == SPHERES;
+            for(int i = 0; same && i < single.getSphereCount(); i++) same = equal(single.getSphere(i), bulk.getSphere(i));
+            for(int i = 0; same && i < SPHERES; i++) same = added[i] == bulk.getSphere(1000 + i);
+            if(!same) {
+                System.out.printf("%-48s the bulk Spheres differ from the single ones%n", "");
+                failed = true;
+            }
+        }
+
+        System.out.println(failed ? "FAILED: addSpheres does not match addSphere" : "OK: addSpheres matches addSphere");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private interface Load {
+        Scene load() throws ReflectiveOperationException;
+    }
+
+    /**
+     * Loads the level once to warm up and returns the average time of three more loads
+     */
+    private static double measure(Load load) throws ReflectiveOperationException {
+        load.load();
+        long start = System.nanoTime();
+        for(int round = 0; round < 3; round++) {
+            if(load.load().getSphereCount() != SPHERES) throw new IllegalStateException("Spheres are missing");
+        }
+        return (System.nanoTime() - start) / 1e6 / 3;
+    }
+
+    /**
+     * Creates a Sphere with a reflective lookup of its Constructor, like Verlet did before it cached the Constructors
+     */
+    private static Sphere createReflective(double x, double y, float radius) throws ReflectiveOperationException {
+        Constructor<VerletSphere> constructor = VerletSphere.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        VerletSphere sphere = constructor.newInstance();
+        sphere.setAttributes(x, y, radius);
+        return sphere;
+    }
+
+    private static boolean equal(Sphere a, Sphere b) {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getRadius() == b.getRadius() && a.getWeight() == b.getWeight() && a.getBodyType() == b.getBodyType();
+    }
+}
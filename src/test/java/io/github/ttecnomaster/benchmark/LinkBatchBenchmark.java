@@ -0,0 +1,78 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraintBatch;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+
+import java.util.Arrays;
+
+/**
+ * Compares a cloth made of single {@link LinkConstraint}s with the same cloth moved into a {@link LinkConstraintBatch}.
+ * The cloth is a grid of 150 x 100 Spheres, every Sphere is linked with its right and its lower neighbour (about 30k links).
+ * The step time is measured without collisions, where the links are most of the work, and with a counting grid.
+ * The same Spheres without any link are measured as well, the difference is the time spent on the links.
+ * Exits with status 1 if the batch does not give exactly the same positions as the single LinkConstraints.
+ */
+public class LinkBatchBenchmark {
+    private static final int COLUMNS = 150, ROWS = 100;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(boolean collisions : new boolean[] {false, true}) {
+                double[] expected = null;
+                for(String links : new String[] {"no links", "LinkConstraints", "batch"}) {
+                    Scene scene = packed ? Verlet.createPackedScene(COLUMNS * ROWS) : Verlet.createScene();
+                    Sphere[] cloth = createCloth(scene, !links.equals("no links"));
+                    if(links.equals("batch")) LinkConstraintBatch.replaceLinks(scene);
+                    Solver solver = Verlet.createSolver(scene);
+                    solver.setSubSteps(8);
+                    solver.setGravity(0, -100);
+                    solver.enableCollisions(collisions);
+                    if(collisions) solver.setGrid(new VerletCountingGrid(1100, 1100, 3));
+
+                    String name = (packed ? "packed" : "classic") + (collisions ? ", counting grid" : ", no collisions") + ", " + links;
+                    Benchmark.report(name, Benchmark.measure(5, 30, () -> solver.step(0.02f)));
+                    if(links.equals("no links")) continue;
+
+                    double[] positions = new double[cloth.length * 2];
+                    for(int i = 0; i < cloth.length; i++) {
+                        positions[i * 2] = cloth[i].getX();
+                        positions[i * 2 + 1] = cloth[i].getY();
+                    }
+                    if(expected == null) expected = positions;
+                    else if(!Arrays.equals(expected, positions)) {
+                        System.out.printf("%-48s the batch moved the Spheres differently%n", "");
+                        failed = true;
+                    }
+                }
+            }
+        }
+
+        System.out.println(failed ? "FAILED: the batch does not match the LinkConstraints" : "OK: the batch matches the LinkConstraints");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Creates a cloth of Spheres that are linked with their right and their lower neighbour
+     */
+    private static Sphere[] createCloth(Scene scene, boolean linked) {
+        Sphere[] cloth = new Sphere[COLUMNS * ROWS];
+        for(int row = 0; row < ROWS; row++) {
+            for(int column = 0; column < COLUMNS; column++) {
+                Sphere sphere = scene.addSphere(-450 + column * 6, 400 - row * 6, 3);
+                cloth[row * COLUMNS + column] = sphere;
+                if(!linked) continue;
+                if(column > 0) scene.addConstraint(new LinkConstraint(cloth[row * COLUMNS + column - 1], sphere));
+                if(row > 0) scene.addConstraint(new LinkConstraint(cloth[(row - 1) * COLUMNS + column], sphere));
+            }
+        }
+        scene.addConstraint(new RectangleConstraint(1000, 1000));
+        return cloth;
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletNeighborList;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+
+import java.util.Random;
+
+/**
+ * Compares the VerletNeighborList with different skin distances to the grids that rebuild every sub step.
+ * The list only pays off if the Spheres move much less than half of the skin per sub step, so two scenes are measured with 8 sub steps:
+ * <ul>
+ *     <li>a dense pile under a weak gravity. The Spheres keep shifting, so the list is rebuilt every few sub steps and is slower than the counting grid.
+ *     Under the default gravity it would be rebuilt every sub step</li>
+ *     <li>a calm lattice without gravity whose Spheres drift by about 0.02 per sub step, like a settled pile or a crowd.
+ *     The list is only rebuilt every few steps and saves most of the broadphase</li>
+ * </ul>
+ * For every scene the mean movement per sub step is reported, and for the neighbor lists the share of sub steps that rebuild the list and the amount of stored pairs.
+ * While the scene settles, the overlapping pairs found by a neighbor list that is only rebuilt when necessary
+ * are compared with a brute force search. Exits with status 1 if the list misses or repeats a pair.
+ */
+public class NeighborListBenchmark {
+    private static final int SPHERES = 20_000;
+    private static final int STEPS = 30;
+    private static final int SUB_STEPS = 8;
+
+    private static long overlaps;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        VerletPackedScene checkScene = createScene();
+        Solver checkSolver = createSolver(checkScene);
+        VerletNeighborList checkList = new VerletNeighborList(1);
+        checkSolver.setGrid(checkList);
+        for(int steps = 0; steps <= 100; steps += 25) {
+            if(steps > 0) for(int i = 0; i < 25; i++) checkSolver.step(0.02f);
+            long found = countOverlaps(checkScene, checkList);
+            long expected = Benchmark.bruteForceOverlaps(checkScene);
+            System.out.printf("%-48s %d overlapping pairs, list found %d%n", "after " + steps + " steps", expected, found);
+            if(found != expected) failed = true;
+        }
+
+        for(boolean calm : new boolean[] {false, true}) {
+            double countingGrid = 0, bestList = Double.MAX_VALUE;
+            for(String name : new String[] {"counting grid", "hash grid", "neighbor list, skin 0.5", "neighbor list, skin 1", "neighbor list, skin 2"}) {
+                VerletPackedScene scene = calm ? createLattice() : createScene();
+                Solver solver = createSolver(scene);
+                if(calm) solver.setGravity(0, 0);
+                Broadphase broadphase = createBroadphase(name);
+                solver.setGrid(broadphase);
+                // let the scene settle before measuring, a freshly spawned scene moves much more than a running one
+                for(int i = 0; i < 300; i++) solver.step(0.02f);
+
+                double millis = Benchmark.measure(5, STEPS, () -> solver.step(0.02f));
+                Benchmark.report((calm ? "calm lattice, " : "settling pile, ") + name, millis);
+                if(broadphase instanceof VerletNeighborList) {
+                    VerletNeighborList list = (VerletNeighborList) broadphase;
+                    int before = list.getRebuildCount();
+                    for(int i = 0; i < STEPS; i++) solver.step(0.02f);
+                    System.out.printf("%-48s %.3f movement per sub step, list rebuilt in %.1f%% of the sub steps, %d stored pairs%n", "",
+                            meanMovement(scene), 100.0 * (list.getRebuildCount() - before) / (STEPS * SUB_STEPS), list.getPairCount());
+                    bestList = Math.min(bestList, millis);
+                } else if(name.equals("counting grid")) countingGrid = millis;
+            }
+            System.out.printf("%-48s best neighbor list %.2fx the speed of the counting grid%n", "", countingGrid / bestList);
+        }
+
+        System.out.println(failed ? "FAILED: neighbor list missed or repeated pairs" : "OK: neighbor list found every overlapping pair exactly once");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static VerletPackedScene createScene() {
+        VerletPackedScene scene = Benchmark.createScene(SPHERES, 1000);
+        Benchmark.addRandomSpheres(scene, new Random(3), SPHERES, 1000, 3, 3);
+        return scene;
+    }
+
+    /**
+     * Places the Spheres on a square lattice where neighbours just touch, every Sphere starts with a tiny random velocity
+     */
+    private static VerletPackedScene createLattice() {
+        VerletPackedScene scene = Benchmark.createScene(SPHERES, 1000);
+        Random random = new Random(3);
+        int side = (int) Math.ceil(Math.sqrt(SPHERES));
+        for(int i = 0; i < SPHERES; i++) {
+            double x = -side * 3 + (i % side) * 6, y = -side * 3 + (i / side) * 6;
+            Sphere sphere = scene.addSphere(x, y, 3);
+            sphere.setOldX(x + (random.nextDouble() - 0.5) * 0.04);
+            sphere.setOldY(y + (random.nextDouble() - 0.5) * 0.04);
+        }
+        return scene;
+    }
+
+    /**
+     * Returns how far the Spheres have moved during the last sub step on average
+     */
+    private static double meanMovement(VerletPackedScene scene) {
+        double sum = 0;
+        for(int i = 0; i < scene.getSphereCount(); i++) {
+            Sphere sphere = scene.getSphere(i);
+            sum += Math.hypot(sphere.getX() - sphere.getOldX(), sphere.getY() - sphere.getOldY());
+        }
+        return sum / scene.getSphereCount();
+    }
+
+    private static Solver createSolver(VerletPackedScene scene) {
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(SUB_STEPS);
+        solver.setGravity(0, -100);
+        return solver;
+    }
+
+    private static Broadphase createBroadphase(String name) {
+        switch(name) {
+            case "counting grid":
+                VerletCountingGrid countingGrid = new VerletCountingGrid(1100, 1100, 3);
+                countingGrid.setHalfNeighborhood(true);
+                return countingGrid;
+            case "hash grid":
+                VerletHashGrid hashGrid = new VerletHashGrid(3);
+                hashGrid.setHalfNeighborhood(true);
+                return hashGrid;
+            default:
+                return new VerletNeighborList(Float.parseFloat(name.substring(name.lastIndexOf(' ') + 1)));
+        }
+    }
+
+    private static long countOverlaps(VerletPackedScene scene, VerletNeighborList list) {
+        overlaps = 0;
+        list.update(scene);
+        for(int phase = 0; phase < list.getCollisionPhaseCount(); phase++) {
+            list.solveIndexCollisionPhase(phase, 0, 1, (index_1, index_2) -> {
+                if(Benchmark.overlap(scene, index_1, index_2)) overlaps++;
+            });
+        }
+        return overlaps;
+    }
+}
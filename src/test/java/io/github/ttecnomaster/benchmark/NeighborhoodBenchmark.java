@@ -0,0 +1,83 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.TwoIndexRunnable;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+
+import java.util.Random;
+
+/**
+ * Compares the full 9 cell traversal with the half neighborhood traversal of both grids.
+ * Reports the amount of pairs passed to the Solver, the time of a full Solver.step
+ * and the average overlap of touching Spheres after the pile has settled.
+ */
+public class NeighborhoodBenchmark {
+    private static final int SPHERES = 30_000;
+
+    private static long pairs;
+
+    public static void main(String[] args) {
+        for(boolean counting : new boolean[] {false, true}) {
+            for(boolean half : new boolean[] {false, true}) {
+                Scene scene = Verlet.createPackedScene(SPHERES);
+                Random random = new Random(7);
+                for(int i = 0; i < SPHERES; i++) scene.addSphere(-600 + random.nextDouble() * 1200, -600 + random.nextDouble() * 1200, 3);
+                scene.addConstraint(new RectangleConstraint(1200, 1200));
+
+                Broadphase grid = createGrid(counting, half);
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(8);
+                solver.setGrid(grid);
+
+                String name = (counting ? "VerletCountingGrid" : "VerletGrid") + (half ? " half" : " full");
+                Benchmark.report(name + " step", Benchmark.measure(100, 100, () -> solver.step(0.02f)));
+
+                pairs = 0;
+                grid.update(scene);
+                TwoIndexRunnable counter = (index_1, index_2) -> pairs++;
+                if(grid instanceof VerletCountingGrid) {
+                    for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) ((VerletCountingGrid) grid).solveIndexCollisionPhase(phase, 0, 1, counter);
+                } else {
+                    for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) grid.solveCollisionPhase(phase, 0, 1, (sphere_1, sphere_2) -> pairs++);
+                }
+                System.out.printf("%-48s %10d pairs, average overlap %.4f%n", name, pairs, averageOverlap(scene));
+            }
+        }
+    }
+
+    private static Broadphase createGrid(boolean counting, boolean half) {
+        if(counting) {
+            VerletCountingGrid grid = new VerletCountingGrid(1300, 1300, 3);
+            grid.setHalfNeighborhood(half);
+            return grid;
+        }
+        VerletGrid grid = new VerletGrid(1300, 1300, 3);
+        grid.setHalfNeighborhood(half);
+        return grid;
+    }
+
+    private static double averageOverlap(Scene scene) {
+        VerletCountingGrid grid = new VerletCountingGrid(1300, 1300, 3);
+        grid.setHalfNeighborhood(true);
+        grid.update(scene);
+        double[] overlap = new double[2];
+        for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) {
+            grid.solveIndexCollisionPhase(phase, 0, 1, (index_1, index_2) -> {
+                Sphere sphere_1 = scene.getSphere(index_1), sphere_2 = scene.getSphere(index_2);
+                double distance = Math.hypot(sphere_1.getX() - sphere_2.getX(), sphere_1.getY() - sphere_2.getY());
+                double depth = sphere_1.getRadius() + sphere_2.getRadius() - distance;
+                if(depth > 0) {
+                    overlap[0] += depth;
+                    overlap[1]++;
+                }
+            });
+        }
+        return overlap[1] == 0 ? 0 : overlap[0] / overlap[1];
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.ParticleEmitter;
+import io.github.ttecnomaster.verlet.ParticlePool;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.emitter.PointEmitter;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares sparks that are spawned as new Spheres and removed from the Scene by hand with the same sparks inside a {@link ParticlePool}.
+ * 2000 Spheres lie on the ground while four {@link PointEmitter}s spawn 4000 sparks per second that live for one second.
+ * Every step spawns and despawns about 80 sparks. The step time and the bytes allocated per step are measured.
+ * Exits with status 1 if the pool allocates or does not hold the same amount of sparks as the manual version.
+ */
+public class ParticleBenchmark {
+    private static final int WARMUP_STEPS = 300;
+    private static final int MEASURED_STEPS = 300;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            int expected = -1;
+            for(boolean pooled : new boolean[] {false, true}) {
+                Scene scene = packed ? Verlet.createPackedScene(8000) : Verlet.createScene();
+                Random random = new Random(42);
+                for(int i = 0; i < 2000; i++) scene.addSphere(-450 + random.nextDouble() * 900, -450 + random.nextDouble() * 200, 4);
+                scene.addConstraint(new RectangleConstraint(1000, 1000));
+
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(8);
+                solver.setGravity(0, -300);
+                solver.setGrid(new VerletCountingGrid(1100, 1100, 8));
+
+                ParticlePool pool = pooled ? Verlet.createParticlePool(scene, 5000) : new ManualParticles(scene);
+                for(int i = 0; i < 4; i++) {
+                    PointEmitter emitter = new PointEmitter(-300 + i * 200, 300, 2, 1);
+                    emitter.setRate(1000);
+                    emitter.setDirection(Math.PI / 2, Math.PI / 3);
+                    emitter.setSpeed(0.5, 1.5);
+                    emitter.setSeed(i);
+                    pool.addEmitter(emitter);
+                }
+                solver.addParticlePool(pool);
+
+                for(int i = 0; i < WARMUP_STEPS; i++) solver.step(0.02f);
+                long id = Thread.currentThread().getId();
+                long before = bean.getThreadAllocatedBytes(id);
+                long start = System.nanoTime();
+                for(int i = 0; i < MEASURED_STEPS; i++) solver.step(0.02f);
+                double millis = (System.nanoTime() - start) / 1e6 / MEASURED_STEPS;
+                long allocated = (bean.getThreadAllocatedBytes(id) - before) / MEASURED_STEPS;
+                solver.close();
+
+                String name = (packed ? "packed" : "classic") + (pooled ? ", ParticlePool" : ", new Spheres");
+                System.out.printf("%-48s %10.3f ms %8d bytes/step %5d sparks%n", name, millis, allocated, pool.getParticleCount());
+                if(pooled && allocated > 0) failed = true;
+                if(expected == -1) expected = pool.getParticleCount();
+                else if(pool.getParticleCount() != expected) failed = true;
+            }
+        }
+
+        System.out.println(failed ? "FAILED: the ParticlePool allocates or loses sparks" : "OK: the ParticlePool is allocation free");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Sparks the way they were done without a pool. Every spark is a new Sphere, expired sparks are removed from a list and from the Scene
+     */
+    private static class ManualParticles implements ParticlePool {
+        private final Scene scene;
+        private final List<Sphere> sparks = new ArrayList<>();
+        private final List<Float> lifetimes = new ArrayList<>();
+        private final List<ParticleEmitter> emitters = new ArrayList<>();
+
+        ManualParticles(Scene scene) {
+            this.scene = scene;
+        }
+
+        @Override
+        public int spawn(double x, double y, double vx, double vy, float radius, float lifetime) {
+            Sphere sphere = scene.addSphere(x, y, radius);
+            sphere.setOldX(x - vx);
+            sphere.setOldY(y - vy);
+            sparks.add(sphere);
+            lifetimes.add(lifetime);
+            return sparks.size() - 1;
+        }
+
+        @Override
+        public void update(float dt) {
+            Iterator<Sphere> sphereIterator = sparks.iterator();
+            for(int i = 0; sphereIterator.hasNext(); ) {
+                Sphere sphere = sphereIterator.next();
+                float lifetime = lifetimes.get(i) - dt;
+                if(lifetime <= 0) {
+                    scene.removeSphere(sphere);
+                    sphereIterator.remove();
+                    lifetimes.remove(i);
+                } else lifetimes.set(i++, lifetime);
+            }
+            for(ParticleEmitter emitter : emitters) emitter.emit(this, dt);
+        }
+
+        @Override
+        public int getParticleCount() {
+            return sparks.size();
+        }
+
+        @Override
+        public void addEmitter(ParticleEmitter emitter) {
+            emitters.add(emitter);
+        }
+
+        @Override
+        public void despawn(int particle) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isAlive(int particle) {
+            return particle >= 0 && particle < sparks.size();
+        }
+
+        @Override
+        public Sphere getSphere(int particle) {
+            return sparks.get(particle);
+        }
+
+        @Override
+        public float getLifetime(int particle) {
+            return lifetimes.get(particle);
+        }
+
+        @Override
+        public int getCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void removeEmitter(ParticleEmitter emitter) {
+            emitters.remove(emitter);
+        }
+    }
+}
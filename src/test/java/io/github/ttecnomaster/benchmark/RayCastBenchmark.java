@@ -0,0 +1,192 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.BodyType;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.RayBatch;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Casts a batch of 4000 rays (line of sight checks, projectiles) through 100k Spheres, once for the first hit and once for up to 64 hits per ray.
+ * Without a grid every ray tests every Sphere, with a grid the rays walk through the cells they cross.
+ * Every grid is measured with one and with four threads, the first cast after a step has to update the grid once.
+ * A wall of static Spheres checks that rays are blocked by static level geometry, although it is not part of the grid.
+ * Exits with status 1 if a ray finds different hits than a linear scan or if casting allocates.
+ */
+public class RayCastBenchmark {
+    private static final int SPHERES = 100_000, RAYS = 4000, CHECKED_RAYS = 200, MAX_HITS = 64;
+    private static final double SIZE = 3000, LENGTH = 600;
+
+    private static final double[] rayX = new double[RAYS], rayY = new double[RAYS], rayDirX = new double[RAYS], rayDirY = new double[RAYS];
+    private static int scanCount;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(42);
+        RayBatch first = new RayBatch(RAYS, 1), all = new RayBatch(RAYS, MAX_HITS);
+        for(int i = 0; i < RAYS; i++) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            rayX[i] = (random.nextDouble() - 0.5) * SIZE;
+            rayY[i] = (random.nextDouble() - 0.5) * SIZE;
+            rayDirX[i] = Math.cos(angle);
+            rayDirY[i] = Math.sin(angle);
+            first.addRay(rayX[i], rayY[i], rayDirX[i], rayDirY[i], LENGTH);
+            all.addRay(rayX[i], rayY[i], rayDirX[i], rayDirY[i], LENGTH);
+        }
+
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(String grid : new String[] {"none", "grid", "counting", "hash"}) {
+                Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+                for(int i = 0; i < SPHERES; i++) scene.addSphere((random.nextDouble() - 0.5) * SIZE, (random.nextDouble() - 0.5) * SIZE, 2 + random.nextFloat() * 2);
+                scene.addConstraint(new RectangleConstraint(SIZE, SIZE));
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(4);
+                solver.setGrid(createGrid(grid));
+                solver.enableCollisions(!grid.equals("none"));
+                for(int i = 0; i < 5; i++) solver.step(0.02f);
+
+                for(int threads : grid.equals("none") ? new int[] {1} : new int[] {1, 4}) {
+                    solver.setMultiThreading(threads);
+                    String name = (packed ? "packed" : "classic") + ", " + grid + ", " + threads + " threads";
+
+                    // warm up the casts twice, then measure after another step so the grid has to be updated once
+                    for(int round = 0; round < 3; round++) {
+                        solver.step(0.02f);
+                        long id = Thread.currentThread().getId();
+                        long before = bean.getThreadAllocatedBytes(id);
+                        long start = System.nanoTime();
+                        solver.castRays(first);
+                        long firstHits = System.nanoTime();
+                        solver.castRays(all);
+                        long allHits = System.nanoTime();
+                        long allocated = bean.getThreadAllocatedBytes(id) - before;
+                        if(round < 2) continue;
+
+                        report(name + ", first hit", (firstHits - start) / 1e6, countHits(first));
+                        report(name + ", " + MAX_HITS + " hits", (allHits - firstHits) / 1e6, countHits(all));
+                        if(allocated > 0) {
+                            System.out.printf("%-48s the casts allocated %d bytes%n", "", allocated);
+                            failed = true;
+                        }
+                    }
+                }
+
+                // the hits of a ray have to be the closest ones of a linear scan, in the same order
+                Sphere[] expected = new Sphere[SPHERES];
+                double[] distances = new double[SPHERES];
+                for(int ray = 0; ray < CHECKED_RAYS; ray++) {
+                    int count = scan(scene, ray, expected, distances);
+                    boolean same = all.getHitCount(ray) == Math.min(count, MAX_HITS) && first.getFirstHit(ray) == (count > 0 ? expected[0] : null);
+                    for(int k = 0; same && k < all.getHitCount(ray); k++) {
+                        same = all.getHit(ray, k) == expected[k] || Math.abs(all.getHitDistance(ray, k) - distances[k]) < 1e-9;
+                    }
+                    if(!same) {
+                        System.out.printf("%-48s ray %d differs from the linear scan%n", "", ray);
+                        failed = true;
+                        break;
+                    }
+                }
+                solver.close();
+            }
+        }
+
+        if(!hitsStaticWall()) failed = true;
+
+        System.out.println(failed ? "FAILED: the ray casts do not match the linear scan" : "OK: the ray casts match the linear scan");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static boolean hitsStaticWall() {
+        boolean hit = true;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(String grid : new String[] {"none", "counting"}) {
+                // a wall of static Spheres at x = 100 with a moving Sphere behind it
+                Scene scene = packed ? Verlet.createPackedScene(100) : Verlet.createScene();
+                Sphere[] wall = new Sphere[51];
+                for(int i = 0; i < wall.length; i++) wall[i] = scene.addSphere(100, -200 + i * 8, 4, BodyType.STATIC);
+                Sphere behind = scene.addSphere(200, 0, 4);
+                Solver solver = Verlet.createSolver(scene);
+                solver.setGravity(0, 0);
+                solver.setGrid(createGrid(grid));
+                solver.step(0.02f);
+
+                Sphere first = solver.castRay(0, 0, 1, 0, 400);
+                Sphere[] buffer = new Sphere[8];
+                int count = solver.castRay(0, 0, 1, 0, 400, buffer, new double[8]);
+                RayBatch batch = new RayBatch(2, 4);
+                batch.addRay(0, 0, 1, 0, 400);
+                batch.addSegment(0, 0, 90, 0);
+                solver.castRays(batch);
+                solver.close();
+
+                String name = (packed ? "packed" : "classic") + ", " + grid + ", static wall";
+                System.out.printf("%-48s first hit %b, %d hits, batch hit %b at %.1f, short segment hits %d%n", name, first == wall[25], count,
+                        batch.getFirstHit(0) == wall[25], batch.getHitCount(0) > 0 ? batch.getHitDistance(0, 0) : -1, batch.getHitCount(1));
+                if(first != wall[25] || count != 2 || buffer[1] != behind || batch.getFirstHit(0) != wall[25]
+                        || Math.abs(batch.getHitDistance(0, 0) - 96) > 1e-9 || batch.getHitCount(1) != 0) hit = false;
+            }
+        }
+        return hit;
+    }
+
+    private static Broadphase createGrid(String grid) {
+        if(grid.equals("grid")) return new VerletGrid(SIZE + 100, SIZE + 100, 4);
+        if(grid.equals("counting")) return new VerletCountingGrid(SIZE + 100, SIZE + 100, 4);
+        if(grid.equals("hash")) return new VerletHashGrid(4);
+        return null;
+    }
+
+    private static int countHits(RayBatch batch) {
+        int hits = 0;
+        for(int ray = 0; ray < batch.getRayCount(); ray++) hits += batch.getHitCount(ray);
+        return hits;
+    }
+
+    private static void report(String name, double millis, int hits) {
+        System.out.printf("%-48s %10.3f ms %8d hits%n", name, millis, hits);
+    }
+
+    /**
+     * Intersects one ray with every Sphere, the way it was done without ray casts, and sorts the hits by their distance
+     */
+    private static int scan(Scene scene, int ray, Sphere[] hits, double[] distances) {
+        double x = rayX[ray], y = rayY[ray], dirX = rayDirX[ray], dirY = rayDirY[ray];
+        scanCount = 0;
+        scene.invokeSpheres(sphere -> {
+            double mx = x - sphere.getX(), my = y - sphere.getY();
+            double b = mx * dirX + my * dirY, c = mx * mx + my * my - sphere.getRadius() * sphere.getRadius();
+            double distance;
+            if(c <= 0) distance = 0;
+            else if(b > 0 || b * b - c < 0) return;
+            else distance = -b - Math.sqrt(b * b - c);
+            if(distance > LENGTH) return;
+            hits[scanCount] = sphere;
+            distances[scanCount++] = distance;
+        });
+        // insertion sort, a ray only hits a few hundred Spheres
+        for(int i = 1; i < scanCount; i++) {
+            Sphere sphere = hits[i];
+            double distance = distances[i];
+            int k = i;
+            for(; k > 0 && distances[k - 1] > distance; k--) {
+                hits[k] = hits[k - 1];
+                distances[k] = distances[k - 1];
+            }
+            hits[k] = sphere;
+            distances[k] = distance;
+        }
+        return scanCount;
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Constraint;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraintBatch;
+import io.github.ttecnomaster.verlet.constraint.StaticPositionConstraint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Despawns linked Spheres the way the demo used to and with {@link Scene#removeSphere(Sphere, boolean)}.
+ * 1000 ropes of 20 Spheres are linked with {@link LinkConstraint}s or one {@link LinkConstraintBatch} and pinned at their first Sphere.
+ * A quarter of the Spheres is removed in random order. The old way removes the Sphere and then scans every Constraint of the Scene for it,
+ * the cascade only visits the Constraints of the removed Sphere.
+ * Links that are added to a batch after it joined the Scene have to be removed by the cascade as well,
+ * and a packed Scene has to skip the links of a Sphere that was removed without its Constraints.
+ * Exits with status 1 if a Constraint still references a removed Sphere or both ways do not leave the same amount of links.
+ */
+public class RemovalBenchmark {
+    private static final int ROPES = 1000, LENGTH = 20, REMOVED = ROPES * LENGTH / 4;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(boolean batch : new boolean[] {false, true}) {
+                int expectedLinks = -1;
+                for(boolean cascade : new boolean[] {false, true}) {
+                    // the first round warms up, the second one is measured
+                    double millis = 0;
+                    Scene scene = null;
+                    List<Sphere> removed = null;
+                    for(int round = 0; round < 2; round++) {
+                        scene = packed ? Verlet.createPackedScene(ROPES * LENGTH) : Verlet.createScene();
+                        List<Sphere> spheres = createRopes(scene, batch);
+                        Collections.shuffle(spheres, new Random(42));
+                        removed = spheres.subList(0, REMOVED);
+
+                        long start = System.nanoTime();
+                        for(Sphere sphere : removed) {
+                            if(cascade) scene.removeSphere(sphere, true);
+                            else removeByScan(scene, sphere);
+                        }
+                        millis = (System.nanoTime() - start) / 1e6;
+                    }
+
+                    String name = (packed ? "packed" : "classic") + (batch ? ", batch" : ", LinkConstraints") + (cascade ? ", cascade" : ", scan");
+                    Benchmark.report(name, millis);
+
+                    int links = countLinks(scene, removed);
+                    if(links < 0) {
+                        System.out.printf("%-48s a Constraint still references a removed Sphere%n", "");
+                        failed = true;
+                    }
+                    if(expectedLinks == -1) expectedLinks = links;
+                    else if(links != expectedLinks) {
+                        System.out.printf("%-48s %d links are left instead of %d%n", "", links, expectedLinks);
+                        failed = true;
+                    }
+                }
+            }
+        }
+
+        if(!removesLaterLinks()) failed = true;
+
+        System.out.println(failed ? "FAILED: the cascade does not remove the Constraints of the removed Spheres" : "OK: the cascade removes the Constraints of the removed Spheres");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Links p to q and q to r, the second link is added after the batch joined the Scene. Then r is removed
+     */
+    private static boolean removesLaterLinks() {
+        boolean removed = true;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(boolean cascade : new boolean[] {true, false}) {
+                // a packed Scene may skip the link of a Sphere that is removed without its Constraints, a classic Scene keeps solving it
+                if(!packed && !cascade) continue;
+                Scene scene = packed ? Verlet.createPackedScene(3) : Verlet.createScene();
+                Sphere p = scene.addSphere(0, 0, 3), q = scene.addSphere(6, 0, 3), r = scene.addSphere(12, 0, 3);
+                LinkConstraintBatch batch = new LinkConstraintBatch();
+                scene.addConstraint(batch);
+                // an unrelated removal must not drop the batch while it is still empty
+                scene.removeSphere(scene.addSphere(100, 0, 3), true);
+                batch.addLink(p, q);
+                batch.addLink(q, r);
+                scene.removeSphere(r, cascade);
+
+                String name = (packed ? "packed" : "classic") + (cascade ? ", cascade" : ", without cascade") + ", link added later";
+                int[] batches = {0};
+                scene.invokeConstraints(constraint -> batches[0] += constraint == batch ? 1 : 0);
+                try {
+                    Solver solver = Verlet.createSolver(scene);
+                    solver.step(0.02f);
+                    solver.close();
+                } catch(RuntimeException e) {
+                    System.out.printf("%-48s the step failed with %s%n", name, e);
+                    removed = false;
+                    continue;
+                }
+                int links = batch.getLinkCount();
+                System.out.printf("%-48s %d links left, batch in the scene %b%n", name, links, batches[0] == 1);
+                if(batches[0] != 1 || links != (cascade ? 1 : 2)) removed = false;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Creates the ropes. Every rope is pinned at its first Sphere
+     */
+    private static List<Sphere> createRopes(Scene scene, boolean batch) {
+        List<Sphere> spheres = new ArrayList<>();
+        LinkConstraintBatch links = new LinkConstraintBatch();
+        for(int rope = 0; rope < ROPES; rope++) {
+            Sphere previous = null;
+            for(int i = 0; i < LENGTH; i++) {
+                Sphere sphere = scene.addSphere(-500 + rope, 400 - i * 6, 3);
+                spheres.add(sphere);
+                if(previous == null) scene.addConstraint(new StaticPositionConstraint(sphere));
+                else if(batch) links.addLink(previous, sphere);
+                else scene.addConstraint(new LinkConstraint(previous, sphere));
+                previous = sphere;
+            }
+        }
+        if(batch) scene.addConstraint(links);
+        return spheres;
+    }
+
+    /**
+     * Removes a Sphere and then searches every Constraint of the Scene for it, like the demo did before the cascade existed
+     */
+    private static void removeByScan(Scene scene, Sphere sphere) {
+        scene.removeSphere(sphere);
+
+        List<Constraint> toRemove = new ArrayList<>();
+        scene.invokeConstraints(constraint -> {
+            if(constraint instanceof LinkConstraint && (((LinkConstraint)constraint).getSphere1() == sphere || ((LinkConstraint)constraint).getSphere2() == sphere)) toRemove.add(constraint);
+            if(constraint instanceof StaticPositionConstraint && ((StaticPositionConstraint)constraint).getSphere() == sphere) toRemove.add(constraint);
+            if(constraint instanceof LinkConstraintBatch) ((LinkConstraintBatch)constraint).removeLinks(sphere);
+        });
+
+        toRemove.forEach(scene::removeConstraint);
+    }
+
+    /**
+     * Counts the links that are left
+     * @return the amount of links, or -1 if a Constraint references a removed Sphere
+     */
+    private static int countLinks(Scene scene, List<Sphere> removed) {
+        Map<Sphere, Boolean> gone = new IdentityHashMap<>();
+        for(Sphere sphere : removed) gone.put(sphere, Boolean.TRUE);
+        int[] links = {0};
+        boolean[] stale = {false};
+        scene.invokeConstraints(constraint -> {
+            if(constraint instanceof LinkConstraint) {
+                LinkConstraint link = (LinkConstraint) constraint;
+                stale[0] |= gone.containsKey(link.getSphere1()) || gone.containsKey(link.getSphere2());
+                links[0]++;
+            } else if(constraint instanceof StaticPositionConstraint) {
+                stale[0] |= gone.containsKey(((StaticPositionConstraint) constraint).getSphere());
+            } else if(constraint instanceof LinkConstraintBatch) {
+                LinkConstraintBatch batch = (LinkConstraintBatch) constraint;
+                for(int i = 0; i < batch.getLinkCount(); i++) stale[0] |= gone.containsKey(batch.getSphere1(i)) || gone.containsKey(batch.getSphere2(i));
+                links[0] += batch.getLinkCount();
+            }
+        });
+        return stale[0] ? -1 : links[0];
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.ParticlePool;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.emitter.PointEmitter;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+
+import java.util.Random;
+
+/**
+ * Compares a settled pile with and without sleeping Spheres, see {@link Solver#setSleeping(double, int)}.
+ * For both the step time, the amount of sleeping Spheres and the average height of the pile is reported.
+ * Afterwards a hole is dug into the bottom of the sleeping pile. The Spheres above have to wake up and fill it.
+ * A Sphere that sleeps without touching another Sphere or a wall would float in the air.
+ * Sorting the Spheres or spawning particles every step changes the container, the Spheres of the pile have to keep sleeping anyway.
+ * Exits with status 1 if a Sphere floats, if the hole is not filled again or if changes to the container wake the pile.
+ */
+public class SleepingBenchmark {
+    private static final int SPHERES = 20_000;
+    private static final double THRESHOLD = 0.1;
+    private static final int CALM_STEPS = 30;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(String broadphase : new String[] {"counting grid", "grid", "incremental grid"}) {
+            for(boolean sleeping : new boolean[] {false, true}) {
+                VerletPackedScene scene = createScene();
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(8);
+                solver.setGravity(0, -100);
+                if(sleeping) solver.setSleeping(THRESHOLD, CALM_STEPS);
+                if(broadphase.equals("counting grid")) {
+                    VerletCountingGrid grid = new VerletCountingGrid(1100, 1100, 3);
+                    grid.setHalfNeighborhood(true);
+                    solver.setGrid(grid);
+                } else if(broadphase.equals("grid")) {
+                    solver.setGrid(new VerletGrid(1100, 1100, 3));
+                } else {
+                    VerletGrid grid = new VerletGrid(1100, 1100, 3);
+                    grid.setHalfNeighborhood(true);
+                    grid.setIncremental(true);
+                    solver.setGrid(grid);
+                }
+                for(int i = 0; i < 600; i++) solver.step(0.02f);
+
+                String name = broadphase + (sleeping ? ", sleeping" : ", always awake");
+                Benchmark.report(name, Benchmark.measure(5, 30, () -> solver.step(0.02f)));
+                System.out.printf("%-48s %d sleeping, average height %.2f%n", "", solver.getSleepingCount(), averageHeight(scene));
+                if(!sleeping) continue;
+
+                int floating = countFloating(scene, solver);
+                if(floating > 0) failed = true;
+
+                // dig a hole into the bottom of the pile by moving Spheres to the top right corner
+                int moved = 0;
+                for(int i = 0; i < scene.getSphereCount(); i++) {
+                    if(Math.abs(scene.getX(i)) < 50 && scene.getY(i) < -450) {
+                        scene.getSphere(i).setX(480 - (moved % 10) * 6);
+                        scene.getSphere(i).setY(480 - (moved / 10) * 6);
+                        scene.getSphere(i).setOldX(scene.getX(i));
+                        scene.getSphere(i).setOldY(scene.getY(i));
+                        moved++;
+                    }
+                }
+                int sleepingBefore = solver.getSleepingCount();
+                for(int i = 0; i < 300; i++) solver.step(0.02f);
+                int filled = 0;
+                for(int i = 0; i < scene.getSphereCount(); i++) if(Math.abs(scene.getX(i)) < 40 && scene.getY(i) < -460) filled++;
+                int floatingAfter = countFloating(scene, solver);
+                System.out.printf("%-48s %d floating, hole of %d Spheres refilled by %d, %d -> %d sleeping, %d floating afterwards%n",
+                        "", floating, moved, filled, sleepingBefore, solver.getSleepingCount(), floatingAfter);
+                if(floatingAfter > 0 || filled < moved / 2) failed = true;
+            }
+        }
+
+        if(!sleepsWhileContainerChanges()) failed = true;
+
+        System.out.println(failed ? "FAILED: sleeping Spheres float or did not wake up" : "OK: sleeping Spheres rest on their neighbours and wake up when disturbed");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Lets a pile of 1500 Spheres settle while the container changes, once without changes, once sorted every 10 steps
+     * and once with a ParticlePool that spawns and despawns sparks every step far away from the pile
+     */
+    private static boolean sleepsWhileContainerChanges() {
+        boolean slept = true;
+        for(boolean packed : new boolean[] {false, true}) {
+            int undisturbed = 0;
+            for(String change : new String[] {"no changes", "sorted every 10 steps", "particles every step"}) {
+                Scene scene = packed ? Verlet.createPackedScene(2000) : Verlet.createScene();
+                Random random = new Random(5);
+                for(int i = 0; i < 1500; i++) scene.addSphere(-200 + random.nextDouble() * 400, -250 + random.nextDouble() * 200, 4);
+                scene.addConstraint(new RectangleConstraint(500, 500));
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(8);
+                solver.setGravity(0, -100);
+                solver.setGrid(new VerletCountingGrid(600, 600, 4));
+                solver.setSleeping(0.05, 30);
+                if(change.startsWith("sorted")) solver.setSortInterval(10);
+                if(change.startsWith("particles")) {
+                    ParticlePool pool = Verlet.createParticlePool(scene, 100);
+                    PointEmitter emitter = new PointEmitter(0, 240, 1, 0.2f);
+                    emitter.setRate(200);
+                    pool.addEmitter(emitter);
+                    solver.addParticlePool(pool);
+                }
+                int most = 0;
+                for(int i = 0; i < 600; i++) {
+                    solver.step(0.02f);
+                    most = Math.max(most, solver.getSleepingCount());
+                }
+                solver.close();
+
+                System.out.printf("%-48s at most %d sleeping%n", (packed ? "packed, " : "classic, ") + change, most);
+                if(change.equals("no changes")) undisturbed = most;
+                else if(most < undisturbed / 2) slept = false;
+            }
+        }
+        return slept;
+    }
+
+    private static VerletPackedScene createScene() {
+        VerletPackedScene scene = (VerletPackedScene) Verlet.createPackedScene(SPHERES);
+        Random random = new Random(3);
+        for(int i = 0; i < SPHERES; i++) scene.addSphere(-500 + random.nextDouble() * 1000, -500 + random.nextDouble() * 1000, 3);
+        scene.addConstraint(new RectangleConstraint(1000, 1000));
+        return scene;
+    }
+
+    private static double averageHeight(VerletPackedScene scene) {
+        double sum = 0;
+        for(int i = 0; i < scene.getSphereCount(); i++) sum += scene.getY(i);
+        return sum / scene.getSphereCount();
+    }
+
+    /**
+     * Counts the Spheres that hold still in the air without touching another Sphere or a wall. Uses a coarse bucket grid to find the neighbours.
+     * Steps the solver 10 times to find out which of them hold still
+     */
+    private static int countFloating(VerletPackedScene scene, Solver solver) {
+        final int n = scene.getSphereCount(), columns = 100;
+        int[] counts = new int[columns * columns + 1];
+        int[] cells = new int[n];
+        for(int i = 0; i < n; i++) {
+            cells[i] = Math.min(columns - 1, Math.max(0, (int) ((scene.getX(i) + 500) / 10))) * columns + Math.min(columns - 1, Math.max(0, (int) ((scene.getY(i) + 500) / 10)));
+            counts[cells[i] + 1]++;
+        }
+        for(int k = 0; k < columns * columns; k++) counts[k + 1] += counts[k];
+        int[] start = counts.clone();
+        int[] sorted = new int[n];
+        for(int i = 0; i < n; i++) sorted[start[cells[i]]++] = i;
+
+        int[] candidates = new int[n];
+        int floating = 0;
+        for(int i = 0; i < n; i++) {
+            // the floor and the side walls carry a Sphere just like another Sphere does
+            if(scene.getY(i) - scene.getRadius(i) < -500 + 0.5 || Math.abs(scene.getX(i)) + scene.getRadius(i) > 500 - 0.5) continue;
+            boolean touching = false;
+            int column = cells[i] / columns, row = cells[i] % columns;
+            for(int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1) && !touching; c++) {
+                for(int r = Math.max(0, row - 1); r <= Math.min(columns - 1, row + 1) && !touching; r++) {
+                    for(int k = counts[c * columns + r]; k < counts[c * columns + r + 1]; k++) {
+                        int j = sorted[k];
+                        if(j == i) continue;
+                        double dx = scene.getX(i) - scene.getX(j), dy = scene.getY(i) - scene.getY(j);
+                        double reach = scene.getRadius(i) + scene.getRadius(j) + 0.5;
+                        if(dx * dx + dy * dy < reach * reach) {
+                            touching = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            if(!touching) candidates[floating++] = i;
+        }
+
+        // a Sphere at the top of a jump does not touch anything either, but it falls down within the next steps
+        double[] heights = new double[floating];
+        for(int k = 0; k < floating; k++) heights[k] = scene.getY(candidates[k]);
+        for(int k = 0; k < 10; k++) solver.step(0.02f);
+        int still = 0;
+        for(int k = 0; k < floating; k++) if(Math.abs(scene.getY(candidates[k]) - heights[k]) < THRESHOLD) still++;
+        return still;
+    }
+}
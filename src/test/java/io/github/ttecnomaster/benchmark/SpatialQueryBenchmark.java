@@ -0,0 +1,187 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.BodyType;
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+import io.github.ttecnomaster.verlet.utils.VectorUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Compares the spatial queries of the Solver with a linear scan over every Sphere through invokeSpheres.
+ * 100k Spheres are stepped for a while (without collisions if there is no grid), then 1000 circles (explosions), 1000 rectangles (sensors) and 1000 points (mouse picks) are queried.
+ * The first query after a step has to update the grid once, which is included in the measured time.
+ * A small wall of static Spheres checks that static Spheres are found as well, although they are not part of the grid.
+ * Exits with status 1 if any query finds different Spheres than the linear scan or if querying allocates.
+ */
+public class SpatialQueryBenchmark {
+    private static final int SPHERES = 100_000, QUERIES = 1000;
+    private static final double SIZE = 3000;
+
+    private static int scanCount;
+    private static Sphere scanPicked;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(42);
+        double[] qx = new double[QUERIES], qy = new double[QUERIES];
+        for(int i = 0; i < QUERIES; i++) {
+            qx[i] = (random.nextDouble() - 0.5) * SIZE;
+            qy[i] = (random.nextDouble() - 0.5) * SIZE;
+        }
+
+        boolean failed = false;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(String grid : new String[] {"none", "grid", "counting", "hash"}) {
+                Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+                for(int i = 0; i < SPHERES; i++) scene.addSphere((random.nextDouble() - 0.5) * SIZE, (random.nextDouble() - 0.5) * SIZE, 2 + random.nextFloat() * 2);
+                scene.addConstraint(new RectangleConstraint(SIZE, SIZE));
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(4);
+                solver.setGrid(createGrid(grid));
+                solver.enableCollisions(!grid.equals("none"));
+                for(int i = 0; i < 5; i++) solver.step(0.02f);
+
+                String name = (packed ? "packed" : "classic") + ", " + grid;
+                Sphere[] buffer = new Sphere[1024];
+                int[] found = new int[3];
+
+                // warm up the query paths twice, then measure after another step so the grid has to be updated once
+                for(int round = 0; round < 3; round++) {
+                    solver.step(0.02f);
+                    long id = Thread.currentThread().getId();
+                    long before = bean.getThreadAllocatedBytes(id);
+                    long start = System.nanoTime();
+                    found[0] = found[1] = found[2] = 0;
+                    for(int i = 0; i < QUERIES; i++) found[0] += solver.queryCircle(qx[i], qy[i], 30, buffer);
+                    long circles = System.nanoTime();
+                    for(int i = 0; i < QUERIES; i++) found[1] += solver.queryRect(qx[i] - 40, qy[i] - 20, qx[i] + 40, qy[i] + 20, buffer);
+                    long rectangles = System.nanoTime();
+                    for(int i = 0; i < QUERIES; i++) if(solver.pickAt(qx[i], qy[i]) != null) found[2]++;
+                    long picks = System.nanoTime();
+                    long allocated = bean.getThreadAllocatedBytes(id) - before;
+                    if(round < 2) continue;
+
+                    report(name + ", queryCircle", (circles - start) / 1e6, found[0]);
+                    report(name + ", queryRect", (rectangles - circles) / 1e6, found[1]);
+                    report(name + ", pickAt", (picks - rectangles) / 1e6, found[2]);
+                    if(allocated > 0) {
+                        System.out.printf("%-48s the queries allocated %d bytes%n", "", allocated);
+                        failed = true;
+                    }
+                }
+
+                if(grid.equals("none")) {
+                    // the same queries as a linear scan over every Sphere, the way it was done without the query API
+                    long start = System.nanoTime();
+                    for(int i = 0; i < QUERIES; i++) scanCircle(scene, qx[i], qy[i], 30);
+                    report(name + ", linear scan circles", (System.nanoTime() - start) / 1e6, -1);
+                    start = System.nanoTime();
+                    for(int i = 0; i < QUERIES; i++) scanPick(scene, qx[i], qy[i]);
+                    report(name + ", linear scan picks", (System.nanoTime() - start) / 1e6, -1);
+                }
+
+                // every query has to find exactly the Spheres of a linear scan
+                Sphere[] result = new Sphere[1024];
+                for(int i = 0; i < QUERIES; i++) {
+                    int count = solver.queryCircle(qx[i], qy[i], 30, result);
+                    boolean same = count == scanCircle(scene, qx[i], qy[i], 30);
+                    for(int k = 0; same && k < count; k++) same = VectorUtil.length(result[k].getX() - qx[i], result[k].getY() - qy[i]) <= 30 + result[k].getRadius();
+                    same &= solver.queryRect(qx[i] - 40, qy[i] - 20, qx[i] + 40, qy[i] + 20, result) == scanRect(scene, qx[i] - 40, qy[i] - 20, qx[i] + 40, qy[i] + 20);
+                    same &= solver.pickAt(qx[i], qy[i]) == scanPick(scene, qx[i], qy[i]);
+                    if(!same) {
+                        System.out.printf("%-48s query %d differs from the linear scan%n", "", i);
+                        failed = true;
+                        break;
+                    }
+                }
+                solver.close();
+            }
+        }
+
+        if(!findsStaticSpheres()) failed = true;
+
+        System.out.println(failed ? "FAILED: the spatial queries do not match the linear scan" : "OK: the spatial queries match the linear scan");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static boolean findsStaticSpheres() {
+        boolean found = true;
+        for(boolean packed : new boolean[] {false, true}) {
+            for(String grid : new String[] {"none", "counting"}) {
+                Scene scene = packed ? Verlet.createPackedScene(100) : Verlet.createScene();
+                Sphere[] wall = new Sphere[50];
+                for(int i = 0; i < wall.length; i++) wall[i] = scene.addSphere(-200 + i * 8, 0, 4, BodyType.STATIC);
+                scene.addSphere(0, 100, 4);
+                Solver solver = Verlet.createSolver(scene);
+                solver.setGravity(0, 0);
+                solver.setGrid(createGrid(grid));
+                solver.step(0.02f);
+
+                // the wall Spheres from x = -24 to 24 reach into a circle of radius 20 around the origin, the ones from -104 to 104 touch the rectangle
+                int circle = solver.queryCircle(0, 0, 20, new Sphere[16]);
+                int rectangle = solver.queryRect(-100, -10, 100, 10, new Sphere[64]);
+                Sphere picked = solver.pickAt(wall[10].getX() + 1, 1);
+                solver.close();
+                String name = (packed ? "packed" : "classic") + ", " + grid + ", static wall";
+                System.out.printf("%-48s %d in circle, %d in rectangle, picked %b%n", name, circle, rectangle, picked == wall[10]);
+                if(circle != 7 || rectangle != 27 || picked != wall[10]) found = false;
+            }
+        }
+        return found;
+    }
+
+    private static Broadphase createGrid(String grid) {
+        if(grid.equals("grid")) return new VerletGrid(SIZE + 100, SIZE + 100, 4);
+        if(grid.equals("counting")) return new VerletCountingGrid(SIZE + 100, SIZE + 100, 4);
+        if(grid.equals("hash")) return new VerletHashGrid(4);
+        return null;
+    }
+
+    private static void report(String name, double millis, int found) {
+        if(found < 0) System.out.printf("%-48s %10.3f ms%n", name, millis);
+        else System.out.printf("%-48s %10.3f ms %8d found%n", name, millis, found);
+    }
+
+    private static int scanCircle(Scene scene, double x, double y, double radius) {
+        scanCount = 0;
+        scene.invokeSpheres(sphere -> {
+            if(VectorUtil.length(sphere.getX() - x, sphere.getY() - y) <= radius + sphere.getRadius()) scanCount++;
+        });
+        return scanCount;
+    }
+
+    private static int scanRect(Scene scene, double minX, double minY, double maxX, double maxY) {
+        scanCount = 0;
+        scene.invokeSpheres(sphere -> {
+            double dx = sphere.getX() - Math.max(minX, Math.min(sphere.getX(), maxX));
+            double dy = sphere.getY() - Math.max(minY, Math.min(sphere.getY(), maxY));
+            if(dx * dx + dy * dy <= sphere.getRadius() * sphere.getRadius()) scanCount++;
+        });
+        return scanCount;
+    }
+
+    private static Sphere scanPick(Scene scene, double x, double y) {
+        scanPicked = null;
+        double[] best = {Double.POSITIVE_INFINITY};
+        scene.invokeSpheres(sphere -> {
+            double dx = sphere.getX() - x, dy = sphere.getY() - y;
+            double distance = dx * dx + dy * dy;
+            if(distance <= sphere.getRadius() * sphere.getRadius() && distance < best[0]) {
+                scanPicked = sphere;
+                best[0] = distance;
+            }
+        });
+        return scanPicked;
+    }
+}
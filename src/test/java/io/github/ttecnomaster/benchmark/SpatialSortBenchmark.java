@@ -0,0 +1,90 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+
+import java.util.Random;
+
+/**
+ * Measures the effect of {@link Solver#setSortInterval(int)} on big scenes whose Spheres were spawned in random order.
+ * Java cannot read hardware cache miss counters, so the locality is reported as the average distance between the indices
+ * of two Spheres that are tested for a collision. The smaller it is, the more often both Spheres share a cache line.
+ * Before measuring, every Sphere reference is checked to still point at the same Sphere after sorting.
+ * Exits with status 1 if a reference was broken.
+ */
+public class SpatialSortBenchmark {
+    private static final int SPHERES = 200_000;
+
+    private static long pairs, distance;
+
+    public static void main(String[] args) {
+        boolean failed = !keepsReferences(true) || !keepsReferences(false);
+
+        for(boolean packed : new boolean[] {true, false}) {
+            for(int interval : new int[] {0, 20}) {
+                Scene scene = createScene(packed);
+                Solver solver = Verlet.createSolver(scene);
+                solver.setSubSteps(8);
+                solver.setGravity(0, -100);
+                solver.setSortInterval(interval);
+                VerletCountingGrid grid = new VerletCountingGrid(2100, 2100, 2);
+                grid.setHalfNeighborhood(true);
+                solver.setGrid(grid);
+                // the first sort happens on the last of these steps
+                for(int i = 0; i < 20; i++) solver.step(0.02f);
+
+                String name = (packed ? "packed" : "classic") + (interval > 0 ? ", sorted every " + interval + " steps" : ", unsorted");
+                measureLocality(scene, grid);
+                System.out.printf("%-48s %.1f average index distance of tested pairs%n", name, distance / (double) pairs);
+                Benchmark.report(name, Benchmark.measure(3, 20, () -> solver.step(0.02f)));
+            }
+        }
+
+        System.out.println(failed ? "FAILED: sorting broke Sphere references" : "OK: Sphere references survive sorting");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static Scene createScene(boolean packed) {
+        Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+        Random random = new Random(21);
+        for(int i = 0; i < SPHERES; i++) scene.addSphere(-1000 + random.nextDouble() * 2000, -1000 + random.nextDouble() * 2000, 2);
+        scene.addConstraint(new RectangleConstraint(2000, 2000));
+        return scene;
+    }
+
+    private static void measureLocality(Scene scene, VerletCountingGrid grid) {
+        pairs = 0;
+        distance = 0;
+        grid.update(scene);
+        for(int phase = 0; phase < grid.getCollisionPhaseCount(); phase++) {
+            grid.solveIndexCollisionPhase(phase, 0, 1, (index_1, index_2) -> {
+                pairs++;
+                distance += Math.abs(index_1 - index_2);
+            });
+        }
+    }
+
+    private static boolean keepsReferences(boolean packed) {
+        Scene scene = packed ? Verlet.createPackedScene(1000) : Verlet.createScene();
+        Random random = new Random(1);
+        Sphere[] spheres = new Sphere[1000];
+        double[] positions = new double[2000];
+        for(int i = 0; i < spheres.length; i++) {
+            spheres[i] = scene.addSphere(random.nextDouble() * 500, random.nextDouble() * 500, 1 + i % 3);
+            positions[i * 2] = spheres[i].getX();
+            positions[i * 2 + 1] = spheres[i].getY();
+        }
+        scene.sortSpheres(6);
+
+        boolean moved = false;
+        for(int i = 0; i < spheres.length; i++) {
+            if(spheres[i].getX() != positions[i * 2] || spheres[i].getY() != positions[i * 2 + 1] || spheres[i].getRadius() != 1 + i % 3) return false;
+            if(scene.getSphere(i) != spheres[i]) moved = true;
+        }
+        return moved; // the order has to change, otherwise nothing was tested
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Sphere;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.IndexBroadphase;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletPackedScene;
+import io.github.ttecnomaster.verlet.implementation.VerletSweepAndPrune;
+
+import java.util.Random;
+
+/**
+ * Compares the VerletSweepAndPrune with the grids and the classic comparison of every Sphere with each other.
+ * Three scenes are measured: a sparse scene, a dense scene and an elongated scene built from long ropes of LinkConstraints.
+ * Before measuring, the overlapping pairs found by the sweep are compared with a brute force search.
+ * Exits with status 1 if the sweep misses or repeats a pair.
+ */
+public class SweepAndPruneBenchmark {
+    private static long overlaps;
+
+    public static void main(String[] args) {
+        boolean failed = false;
+        for(String name : new String[] {"sparse", "dense", "elongated"}) {
+            // check the initial scene and the scene after it settled for a while
+            VerletPackedScene scene = createScene(name);
+            Solver warmup = Verlet.createSolver(scene);
+            warmup.setGrid(new VerletSweepAndPrune());
+            for(int steps : new int[] {0, 100}) {
+                for(int i = 0; i < steps; i++) warmup.step(0.02f);
+                long found = countOverlaps(scene, new VerletSweepAndPrune());
+                long expected = Benchmark.bruteForceOverlaps(scene);
+                System.out.printf("%-48s %d overlapping pairs, sweep found %d%n", name + " scene after " + steps + " steps", expected, found);
+                if(found != expected) failed = true;
+            }
+
+            for(String broadphase : new String[] {"classic", "counting grid", "hash grid", "sweep and prune"}) {
+                if(broadphase.equals("classic") && name.equals("dense")) continue; // far too slow
+                Scene stepScene = createScene(name);
+                Solver solver = Verlet.createSolver(stepScene);
+                solver.setSubSteps(8);
+                solver.setGrid(createBroadphase(broadphase, name));
+                Benchmark.report(name + ", " + broadphase, Benchmark.measure(5, 20, () -> solver.step(0.02f)));
+            }
+        }
+
+        System.out.println(failed ? "FAILED: sweep and prune missed or repeated pairs" : "OK: sweep and prune found every overlapping pair exactly once");
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static VerletPackedScene createScene(String name) {
+        Random random = new Random(5);
+        VerletPackedScene scene;
+        switch(name) {
+            case "sparse":
+                scene = Benchmark.createScene(4000, 20000);
+                Benchmark.addRandomSpheres(scene, random, 4000, 20000, 2, 6);
+                return scene;
+            case "dense":
+                scene = Benchmark.createScene(20000, 1000);
+                Benchmark.addRandomSpheres(scene, random, 20000, 1000, 3, 3);
+                return scene;
+            default:
+                // 8 horizontal ropes of 1000 links each, spanning 16000 units but only a few hundred units high
+                scene = (VerletPackedScene) Verlet.createPackedScene(8000);
+                for(int rope = 0; rope < 8; rope++) {
+                    Sphere last = null;
+                    for(int i = 0; i < 1000; i++) {
+                        Sphere sphere = scene.addSphere(-8000 + i * 16, -200 + rope * 50, 4);
+                        if(last != null) scene.addConstraint(new LinkConstraint(last, sphere, 16));
+                        last = sphere;
+                    }
+                }
+                scene.addConstraint(new RectangleConstraint(16100, 1000));
+                return scene;
+        }
+    }
+
+    private static Broadphase createBroadphase(String broadphase, String scene) {
+        switch(broadphase) {
+            case "classic": return null;
+            case "hash grid": return new VerletHashGrid(6);
+            case "sweep and prune": return new VerletSweepAndPrune();
+            default:
+                if(scene.equals("sparse")) return new VerletCountingGrid(20100, 20100, 6);
+                if(scene.equals("dense")) return new VerletCountingGrid(1100, 1100, 3);
+                return new VerletCountingGrid(16200, 1100, 4);
+        }
+    }
+
+    private static long countOverlaps(VerletPackedScene scene, IndexBroadphase broadphase) {
+        overlaps = 0;
+        broadphase.update(scene);
+        broadphase.solveIndexCollisionPhase(0, 0, 1, (index_1, index_2) -> {
+            if(Benchmark.overlap(scene, index_1, index_2)) overlaps++;
+        });
+        return overlaps;
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.ttecnomaster.benchmark;
+
+import io.github.ttecnomaster.verlet.Scene;
+import io.github.ttecnomaster.verlet.Solver;
+import io.github.ttecnomaster.verlet.Verlet;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Measures the overhead of the solver threads.
+ * The handoff latency is measured on a tiny scene where every sub step is dominated by waking up and joining the threads.
+ * The idle CPU is measured while the simulation is paused for one second.
+ */
+public class ThreadingBenchmark {
+    private static final int THREADS = 8;
+
+    public static void main(String[] args) throws InterruptedException {
+        Scene scene = Verlet.createScene();
+        Random random = new Random(3);
+        for(int i = 0; i < 16; i++) scene.addSphere(-50 + random.nextDouble() * 100, -50 + random.nextDouble() * 100, 2);
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(8);
+        solver.setGrid(new VerletGrid(200, 200, 2));
+        solver.setMultiThreading(THREADS);
+
+        double millis = Benchmark.measure(2000, 10000, () -> solver.step(0.02f));
+        Benchmark.report("handoff, 16 spheres, 8 sub steps, " + THREADS + " threads", millis);
+        System.out.printf("%-48s %10.3f us%n", "per parallel phase", millis * 1000 / 8);
+
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if(os instanceof com.sun.management.OperatingSystemMXBean) {
+            com.sun.management.OperatingSystemMXBean bean = (com.sun.management.OperatingSystemMXBean) os;
+            Thread.sleep(200);
+            long before = bean.getProcessCpuTime();
+            Thread.sleep(1000);
+            long used = bean.getProcessCpuTime() - before;
+            System.out.printf("%-48s %10.1f %%%n", "idle CPU while paused (100% = one core)", used / 1e7);
+        }
+
+        solver.close();
+    }
+}
@@ -1,8 +1,7 @@
 package io.github.ttecnomaster.demo;
 
 import io.github.ttecnomaster.verlet.*;
-import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
-import io.github.ttecnomaster.verlet.constraint.StaticPositionConstraint;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraintBatch;
 import io.github.ttecnomaster.verlet.utils.VectorUtil;
 
 import java.util.ArrayList;
@@ -28,6 +27,7 @@ public class Demo {
 
 
         new Runner(60, () -> {
+            updateDragged(scene);
             scene.invokeSpheres(sphere -> {
                 if (sphere instanceof DemoSphere && ((DemoSphere)sphere).getClickMode()) {
                     sphere.setOldX(frame.getMouseX() - (frame.getMouseX() - sphere.getX()) / 8);
@@ -56,28 +56,39 @@ public class Demo {
 
         Sphere last = new DemoSphere(x, y, radius);
         scene.addSphere(last);
+        LinkConstraintBatch links = new LinkConstraintBatch();
 
         for(int i = 1; i < length; i++) {
 
             Sphere next = new DemoSphere(x, y - i*radius*2, radius);
             scene.addSphere(next);
-            scene.addConstraint(new LinkConstraint(last, next));
+            links.addLink(last, next);
             last = next;
 
         }
+        scene.addConstraint(links);
 
     }
 
-    private static void removeSphere(Sphere sphere, Scene scene) {
-        scene.removeSphere(sphere);
-
-        List<Constraint> toRemove = new ArrayList<>();
-        scene.invokeConstraints(constraint -> {
-            if(constraint instanceof LinkConstraint && (((LinkConstraint)constraint).getSphere1() == sphere || ((LinkConstraint)constraint).getSphere2() == sphere)) toRemove.add(constraint);
-            if(constraint instanceof StaticPositionConstraint && ((StaticPositionConstraint)constraint).getSphere() == sphere) toRemove.add(constraint);
+    /**
+     * A dragged sphere is kinematic, it follows the mouse and pushes the other spheres without being integrated.
+     * The BodyType is only read when a sphere is added, so a sphere is added again when it is picked up or let go
+     */
+    private static void updateDragged(Scene scene) {
+        List<DemoSphere> switched = new ArrayList<>();
+        scene.invokeSpheres(sphere -> {
+            if(sphere instanceof DemoSphere && ((DemoSphere)sphere).getClickMode() != (sphere.getBodyType() == BodyType.KINEMATIC))
+                switched.add((DemoSphere)sphere);
         });
+        for(DemoSphere sphere : switched) {
+            scene.removeSphere(sphere);
+            sphere.setBodyType(sphere.getBodyType() == BodyType.KINEMATIC ? BodyType.DYNAMIC : BodyType.KINEMATIC);
+            scene.addSphere(sphere);
+        }
+    }
 
-        toRemove.forEach(scene::removeConstraint);
+    private static void removeSphere(Sphere sphere, Scene scene) {
+        scene.removeSphere(sphere, true);
     }
 
     public static void spawnCube(double x, double y, float radius, int spheres, Scene scene) {
@@ -105,14 +116,16 @@ public class Demo {
             scene.addSphere(sphere);
         }
 
+        LinkConstraintBatch links = new LinkConstraintBatch();
         for(int i = 1; i < spheres1.length; i++) {
-            scene.addConstraint(new LinkConstraint(spheres1[i], spheres1[i-1]));
+            links.addLink(spheres1[i], spheres1[i-1]);
         }
-        scene.addConstraint(new LinkConstraint(spheres1[0], spheres1[spheres1.length-1]));
+        links.addLink(spheres1[0], spheres1[spheres1.length-1]);
 
         double length = VectorUtil.length(1,1) * radius * (spheres+1) * 2;
-        scene.addConstraint(new LinkConstraint(spheres1[0], spheres1[(spheres+1)*2], length));
-        scene.addConstraint(new LinkConstraint(spheres1[(spheres+1)], spheres1[(spheres+1)*3], length));
+        links.addLink(spheres1[0], spheres1[(spheres+1)*2], length);
+        links.addLink(spheres1[(spheres+1)], spheres1[(spheres+1)*3], length);
+        scene.addConstraint(links);
 
     }
 }
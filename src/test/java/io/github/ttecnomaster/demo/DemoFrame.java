@@ -7,7 +7,6 @@ import io.github.ttecnomaster.verlet.constraint.CircleAreaConstraint;
 import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
 import io.github.ttecnomaster.verlet.implementation.SphereRunnable;
 import io.github.ttecnomaster.verlet.implementation.VerletGrid;
-import io.github.ttecnomaster.verlet.utils.VectorUtil;
 
 import javax.swing.*;
 import java.awt.*;
@@ -21,6 +20,9 @@ public class DemoFrame extends JFrame implements MouseListener, MouseMotionListe
     private Solver solver;
     private DemoRenderer renderer;
     private int mouseX, mouseY;
+    // Clicks are resolved by render, so the Solver is only queried by the thread that steps it
+    private volatile boolean clickPending;
+    private volatile int clickX, clickY;
     private Constraint borderConstraint;
     public DemoFrame(Scene scene, Solver solver) {
         super("Demo");
@@ -114,6 +116,12 @@ public class DemoFrame extends JFrame implements MouseListener, MouseMotionListe
         runAllHoveredSpheres(sphere -> {
             ((DemoSphere)sphere).setHoverMode(true);
         }, mouseX, mouseY);
+        if(clickPending) {
+            clickPending = false;
+            runAllHoveredSpheres(sphere -> {
+                ((DemoSphere)sphere).setClickMode(true);
+            }, clickX, clickY);
+        }
         panel.repaint();
     }
 
@@ -129,11 +137,9 @@ public class DemoFrame extends JFrame implements MouseListener, MouseMotionListe
     public void mousePressed(MouseEvent e) {
         // Get the x and y coordinates relative to the window
         if(settings.isSpawn()) return;
-        int x = e.getX();
-        int y = e.getY();
-        runAllHoveredSpheres(sphere -> {
-            ((DemoSphere)sphere).setClickMode(true);
-        }, x, y);
+        clickX = e.getX();
+        clickY = e.getY();
+        clickPending = true;
     }
 
     @Override
@@ -148,10 +154,8 @@ public class DemoFrame extends JFrame implements MouseListener, MouseMotionListe
     }
 
     private void runAllHoveredSpheres(SphereRunnable runnable, int x, int y) {
-        scene.invokeSpheres(sphere -> {
-            if(sphere instanceof DemoSphere && VectorUtil.length(renderer.translateBackX(x) - sphere.getX(), renderer.translateBackY(y - 30) - sphere.getY()) <= sphere.getRadius()) {
-                runnable.run(sphere);
-            }
+        solver.queryCircle(renderer.translateBackX(x), renderer.translateBackY(y - 30), 0, sphere -> {
+            if(sphere instanceof DemoSphere) runnable.run(sphere);
         });
     }
 
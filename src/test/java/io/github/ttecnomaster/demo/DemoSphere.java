@@ -1,5 +1,6 @@
 package io.github.ttecnomaster.demo;
 
+import io.github.ttecnomaster.verlet.BodyType;
 import io.github.ttecnomaster.verlet.custom.CustomSphere;
 
 import java.awt.*;
@@ -7,6 +8,7 @@ import java.awt.*;
 public class DemoSphere extends CustomSphere {
     private final static boolean TRAIL = true;
     private boolean cMode, hMode;
+    private BodyType bodyType = BodyType.DYNAMIC;
     public DemoSphere(double x, double y, float radius) {
         super(x, y, radius);
         setClickMode(false);
@@ -14,20 +16,12 @@ public class DemoSphere extends CustomSphere {
     }
 
     @Override
-    public void updatePosition(float dt) {
-        if(!getClickMode()) {
-            super.updatePosition(dt);
-            return;
-        }
-        double x = getX();
-        double y = getY();
-        double lx = getOldX();
-        double ly= getOldY();
-        super.updatePosition(dt);
-        setX(x);
-        setY(y);
-        setOldX(lx);
-        setOldY(ly);
+    public BodyType getBodyType() {
+        return bodyType;
+    }
+
+    public void setBodyType(BodyType bodyType) {
+        this.bodyType = bodyType;
     }
 
     public Color getColor() {
@@ -0,0 +1,108 @@
+package io.github.ttecnomaster.verlet;
+
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
+import io.github.ttecnomaster.verlet.emitter.PointEmitter;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHierarchicalGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletNeighborList;
+import io.github.ttecnomaster.verlet.implementation.VerletSweepAndPrune;
+
+import junit.framework.TestCase;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Steps small scenes with every Broadphase and checks with the ThreadMXBean that a steady state Solver.step does not allocate.
+ * The scenes are small enough to run on every build, the warmup gives the JIT the time to remove short lived objects.
+ */
+public class AllocationTest extends TestCase {
+    private static final String[] SETUPS = {"none", "grid", "counting", "hash", "levels", "sweep", "neighbors", "incremental", "bodies", "jacobi", "particles"};
+    private static final int SPHERES = 200;
+    private static final int WARMUP_STEPS = 100;
+    private static final int MEASURED_STEPS = 20;
+
+    public void testClassicScene() {
+        assertAllocationFree(false);
+    }
+
+    public void testPackedScene() {
+        assertAllocationFree(true);
+    }
+
+    /**
+     * Steps every setup with one and with four threads and fails if a measured step allocated bytes on the stepping thread
+     */
+    private static void assertAllocationFree(boolean packed) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if(!bean.isThreadAllocatedMemorySupported()) return;
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        for(String setup : SETUPS) {
+            for(int threads : new int[] {1, 4}) {
+                Scene scene = packed ? Verlet.createPackedScene(SPHERES * 3) : Verlet.createScene();
+                Solver solver = createSolver(scene, setup, threads);
+                try {
+                    for(int i = 0; i < WARMUP_STEPS; i++) solver.step(0.02f);
+
+                    long id = Thread.currentThread().getId();
+                    long before = bean.getThreadAllocatedBytes(id);
+                    for(int i = 0; i < MEASURED_STEPS; i++) solver.step(0.02f);
+                    long allocated = bean.getThreadAllocatedBytes(id) - before;
+
+                    assertEquals("bytes allocated with packed=" + packed + " setup=" + setup + " threads=" + threads, 0, allocated);
+                } finally {
+                    solver.close();
+                }
+            }
+        }
+    }
+
+    private static Solver createSolver(Scene scene, String grid, int threads) {
+        Random random = new Random(42);
+        Sphere last = null;
+        for(int i = 0; i < SPHERES; i++) {
+            Sphere sphere = scene.addSphere(-200 + random.nextDouble() * 400, -200 + random.nextDouble() * 400, 4 + random.nextFloat() * 2);
+            if(i % 10 != 0 && last != null) scene.addConstraint(new LinkConstraint(last, sphere, 12));
+            last = sphere;
+        }
+        scene.addConstraint(new RectangleConstraint(450, 450));
+        if(grid.equals("bodies")) {
+            // a floor of static Spheres and a few kinematic ones on the counting grid
+            for(int i = 0; i < 100; i++) scene.addSphere(-200 + i * 4, -220, 3, BodyType.STATIC);
+            for(int i = 0; i < 10; i++) scene.addSphere(-150 + i * 30, -190, 5, BodyType.KINEMATIC);
+        }
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(4);
+        solver.setMultiThreading(threads);
+        if(grid.equals("grid")) solver.setGrid(new VerletGrid(500, 500, 6));
+        if(grid.equals("counting") || grid.equals("bodies") || grid.equals("jacobi")) solver.setGrid(new VerletCountingGrid(500, 500, 6));
+        if(grid.equals("hash")) solver.setGrid(new VerletHashGrid(6));
+        if(grid.equals("levels")) solver.setGrid(new VerletHierarchicalGrid(4));
+        if(grid.equals("sweep")) solver.setGrid(new VerletSweepAndPrune());
+        if(grid.equals("incremental")) {
+            VerletGrid incrementalGrid = new VerletGrid(500, 500, 6);
+            incrementalGrid.setIncremental(true);
+            solver.setGrid(incrementalGrid);
+        }
+        if(grid.equals("neighbors")) solver.setGrid(new VerletNeighborList(1.5f));
+        if(grid.equals("jacobi")) solver.setJacobiMode(true);
+        if(grid.equals("particles")) {
+            // sparks that spawn and expire every step on the counting grid
+            solver.setGrid(new VerletCountingGrid(500, 500, 6));
+            ParticlePool pool = Verlet.createParticlePool(scene, SPHERES * 2);
+            for(int i = 0; i < 4; i++) {
+                PointEmitter emitter = new PointEmitter(-150 + i * 100, 150, 2, 1.5f);
+                emitter.setRate(500);
+                emitter.setSpeed(0.5, 1.5);
+                pool.addEmitter(emitter);
+            }
+            solver.addParticlePool(pool);
+        }
+        return solver;
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.ttecnomaster.verlet;
+
+import io.github.ttecnomaster.verlet.constraint.LinkConstraint;
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Checks the deterministic mode of the Solver, see {@link Solver#setDeterministic(boolean, long)}.
+ * A scene with chains and groups of Spheres that start at exactly the same position is stepped 10k times
+ * with one and with three threads, then the positions and old positions of every Sphere are hashed.
+ * The long run lets any difference between the threads grow until it shows in the hash, so the scene is kept small instead.
+ */
+public class DeterministicTest extends TestCase {
+    private static final int SPHERES = 60;
+    private static final int STEPS = 10_000;
+
+    /**
+     * A grid without phased scheduling lets threads solve neighbouring pairs at the same time, the deterministic mode has to order them anyway
+     */
+    public void testUnphasedGrid() {
+        assertThreadIndependent(true, "unphased");
+    }
+
+    public void testPhasedGrid() {
+        assertThreadIndependent(false, "phased");
+    }
+
+    /**
+     * The jitter that separates Spheres at the same position also has to depend on the seed
+     */
+    public void testJacobiMode() {
+        long expected = assertThreadIndependent(true, "jacobi");
+        assertFalse("the seed does not change the result", simulate(true, "jacobi", 1, 43) == expected);
+    }
+
+    /**
+     * Fails if the hash with three threads differs from the single threaded hash
+     * @return the single threaded hash
+     */
+    private static long assertThreadIndependent(boolean packed, String setup) {
+        long expected = simulate(packed, setup, 1, 42);
+        assertEquals("hash with packed=" + packed + " setup=" + setup, expected, simulate(packed, setup, 3, 42));
+        return expected;
+    }
+
+    private static long simulate(boolean packed, String setup, int threads, long seed) {
+        Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+        Random random = new Random(11);
+        Sphere last = null;
+        for(int i = 0; i < SPHERES; i++) {
+            Sphere sphere;
+            // every sixth group of 5 Spheres starts at exactly the same position and needs the jitter
+            if(i % 30 < 5) sphere = scene.addSphere(-50 + (i / 30) * 100, 60, 4);
+            else sphere = scene.addSphere(-80 + random.nextDouble() * 160, -80 + random.nextDouble() * 160, 3 + random.nextFloat() * 2);
+            if(i % 30 >= 5 && i % 10 != 0 && last != null) scene.addConstraint(new LinkConstraint(last, sphere, 10));
+            last = sphere;
+        }
+        scene.addConstraint(new RectangleConstraint(180, 180));
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(4);
+        solver.setMultiThreading(threads);
+        solver.setDeterministic(true, seed);
+        if(setup.equals("phased")) {
+            VerletHashGrid grid = new VerletHashGrid(5);
+            grid.setPhasedScheduling(true);
+            solver.setGrid(grid);
+        } else {
+            VerletCountingGrid grid = new VerletCountingGrid(220, 220, 5);
+            grid.setPhasedScheduling(false);
+            solver.setGrid(grid);
+        }
+        solver.setJacobiMode(setup.equals("jacobi"));
+        for(int i = 0; i < STEPS; i++) solver.step(0.02f);
+        solver.close();
+
+        long hash = 0xCBF29CE484222325L;
+        for(int i = 0; i < scene.getSphereCount(); i++) {
+            Sphere sphere = scene.getSphere(i);
+            hash = (hash ^ Double.doubleToLongBits(sphere.getX())) * 0x100000001B3L;
+            hash = (hash ^ Double.doubleToLongBits(sphere.getY())) * 0x100000001B3L;
+            hash = (hash ^ Double.doubleToLongBits(sphere.getOldX())) * 0x100000001B3L;
+            hash = (hash ^ Double.doubleToLongBits(sphere.getOldY())) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
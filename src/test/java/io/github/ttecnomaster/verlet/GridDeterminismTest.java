@@ -0,0 +1,165 @@
+package io.github.ttecnomaster.verlet;
+
+import io.github.ttecnomaster.verlet.constraint.RectangleConstraint;
+import io.github.ttecnomaster.verlet.implementation.Broadphase;
+import io.github.ttecnomaster.verlet.implementation.VerletCountingGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHashGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletHierarchicalGrid;
+import io.github.ttecnomaster.verlet.implementation.VerletNeighborList;
+import io.github.ttecnomaster.verlet.implementation.VerletSweepAndPrune;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Checks the phased scheduling of the VerletGrid (with full and incremental updates), the VerletCountingGrid, the VerletHashGrid,
+ * the VerletHierarchicalGrid, the VerletSweepAndPrune and the VerletNeighborList.
+ * Steps a densely packed scene with different amounts of threads and compares every position bit by bit with the single threaded run.
+ * The VerletCountingGrid additionally has to match the VerletGrid. Both traversal modes (full and half neighborhood) are checked.
+ * Runs without phased scheduling are expected to be racy and are not checked.
+ */
+public class GridDeterminismTest extends TestCase {
+    private static final int SPHERES = 600;
+    private static final int STEPS = 40;
+
+    public void testFullNeighborhood() {
+        for(boolean packed : new boolean[] {false, true}) {
+            assertThreadIndependent(packed, false, new String[] {"grid", "incremental", "counting", "hash"});
+        }
+    }
+
+    public void testHalfNeighborhood() {
+        for(boolean packed : new boolean[] {false, true}) {
+            assertThreadIndependent(packed, true, new String[] {"grid", "incremental", "counting", "hash", "levels", "sweep", "neighbors"});
+        }
+    }
+
+    /**
+     * The VerletHashGrid has to separate Spheres far outside of any bounded grid
+     */
+    public void testFarSpheres() {
+        Scene scene = Verlet.createScene();
+        Sphere[] spheres = new Sphere[4];
+        spheres[0] = scene.addSphere(-1e7, 3e6, 5);
+        spheres[1] = scene.addSphere(-1e7 + 4, 3e6, 5);
+        spheres[2] = scene.addSphere(8e8, -8e8, 5);
+        spheres[3] = scene.addSphere(8e8, -8e8 + 4, 5);
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setGravity(0, 0);
+        solver.setSubSteps(8);
+        solver.setGrid(new VerletHashGrid(5));
+        for(int i = 0; i < 50; i++) solver.step(0.02f);
+        solver.close();
+
+        // touching at 10
+        assertTrue(Math.hypot(spheres[0].getX() - spheres[1].getX(), spheres[0].getY() - spheres[1].getY()) >= 9.99);
+        assertTrue(Math.hypot(spheres[2].getX() - spheres[3].getX(), spheres[2].getY() - spheres[3].getY()) >= 9.99);
+    }
+
+    /**
+     * The VerletHierarchicalGrid has to separate Spheres that all lie above an empty base level
+     */
+    public void testEmptyBaseLevel() {
+        for(boolean packed : new boolean[] {false, true}) {
+            for(boolean phased : new boolean[] {true, false}) {
+                // a base radius of 1 leaves level 0 empty, both Spheres of radius 5 lie in a coarser level
+                Scene scene = packed ? Verlet.createPackedScene(2) : Verlet.createScene();
+                Sphere first = scene.addSphere(0, 0, 5);
+                Sphere second = scene.addSphere(3, 0, 5);
+                VerletHierarchicalGrid grid = new VerletHierarchicalGrid(1f);
+                grid.setPhasedScheduling(true);
+
+                Solver solver = Verlet.createSolver(scene);
+                solver.setGravity(0, 0);
+                solver.setGrid(grid);
+                solver.step(0.02f);
+                solver.close();
+
+                double distance = Math.hypot(first.getX() - second.getX(), first.getY() - second.getY());
+                assertTrue("overlapping with packed=" + packed + " phased=" + phased + " at distance " + distance, distance >= 9.99);
+            }
+        }
+    }
+
+    /**
+     * Compares every phased Broadphase with 3 and 8 threads with its single threaded run.
+     * The VerletCountingGrid is compared with the single threaded VerletGrid, with every amount of threads
+     */
+    private static void assertThreadIndependent(boolean packed, boolean half, String[] grids) {
+        double[] gridExpected = simulate(packed, half, "grid", 1);
+        for(String grid : grids) {
+            boolean ownExpected = !grid.equals("grid") && !grid.equals("counting");
+            double[] expected = ownExpected ? simulate(packed, half, grid, 1) : gridExpected;
+            for(int threads : grid.equals("counting") ? new int[] {1, 3, 8} : new int[] {3, 8}) {
+                int mismatches = compare(expected, simulate(packed, half, grid, threads));
+                assertEquals("mismatches with packed=" + packed + " half=" + half + " grid=" + grid + " threads=" + threads, 0, mismatches);
+            }
+        }
+    }
+
+    private static double[] simulate(boolean packed, boolean half, String type, int threads) {
+        Scene scene = packed ? Verlet.createPackedScene(SPHERES) : Verlet.createScene();
+        Sphere[] spheres = new Sphere[SPHERES];
+        Random random = new Random(7);
+        for(int i = 0; i < SPHERES; i++) {
+            spheres[i] = scene.addSphere(-120 + random.nextDouble() * 240, -120 + random.nextDouble() * 240, 3 + random.nextFloat() * 2);
+        }
+        scene.addConstraint(new RectangleConstraint(240, 240));
+
+        Broadphase grid;
+        if(type.equals("neighbors")) {
+            // always uses an own hash grid with the half neighborhood
+            grid = new VerletNeighborList(1.5f);
+        } else if(type.equals("sweep")) {
+            VerletSweepAndPrune sweep = new VerletSweepAndPrune();
+            sweep.setPhasedScheduling(true);
+            grid = sweep;
+        } else if(type.equals("levels")) {
+            // always uses the half neighborhood, the radii of 3 to 5 spread the Spheres over two levels
+            VerletHierarchicalGrid hierarchicalGrid = new VerletHierarchicalGrid(4);
+            hierarchicalGrid.setPhasedScheduling(true);
+            grid = hierarchicalGrid;
+        } else if(type.equals("hash")) {
+            VerletHashGrid hashGrid = new VerletHashGrid(5);
+            hashGrid.setPhasedScheduling(true);
+            hashGrid.setHalfNeighborhood(half);
+            grid = hashGrid;
+        } else if(type.equals("counting")) {
+            VerletCountingGrid countingGrid = new VerletCountingGrid(280, 280, 5);
+            countingGrid.setPhasedScheduling(true);
+            countingGrid.setHalfNeighborhood(half);
+            grid = countingGrid;
+        } else {
+            VerletGrid verletGrid = new VerletGrid(280, 280, 5);
+            verletGrid.setPhasedScheduling(true);
+            verletGrid.setHalfNeighborhood(half);
+            verletGrid.setIncremental(type.equals("incremental"));
+            grid = verletGrid;
+        }
+
+        Solver solver = Verlet.createSolver(scene);
+        solver.setSubSteps(4);
+        solver.setMultiThreading(threads);
+        solver.setGrid(grid);
+        for(int i = 0; i < STEPS; i++) solver.step(0.02f);
+        solver.close();
+
+        double[] positions = new double[SPHERES * 2];
+        for(int i = 0; i < SPHERES; i++) {
+            positions[i * 2] = spheres[i].getX();
+            positions[i * 2 + 1] = spheres[i].getY();
+        }
+        return positions;
+    }
+
+    private static int compare(double[] expected, double[] actual) {
+        int mismatches = 0;
+        for(int i = 0; i < expected.length; i++) {
+            if(Double.doubleToLongBits(expected[i]) != Double.doubleToLongBits(actual[i])) mismatches++;
+        }
+        return mismatches;
+    }
+}